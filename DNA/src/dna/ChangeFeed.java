@@ -0,0 +1,276 @@
+package dna;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import dna.dataStructures.Document;
+import dna.dataStructures.Statement;
+import dna.dataStructures.StatementType;
+
+/**
+ * Background poller that applies the changes other coders make to a shared MySQL database. Every
+ * {@link #getPollInterval()} milliseconds, the CHANGELOG table is read from the last applied sequence number on,
+ * the changed documents and statements are loaded one by one, and they are replaced in {@link Dna#data} and the
+ * table models on the event dispatch thread. Only the latest change of each row is applied, and changes made
+ * through the own connection are skipped. Changes of rows with local changes that have not been written yet are
+ * skipped as well, because the local changes are written after them, so that the data stay the same as in the
+ * database.
+ */
+public class ChangeFeed {
+	private SqlConnection sql;
+	private long sequence = 0;
+	private int pollInterval = 5000;
+	private ScheduledExecutorService executor = null;
+
+	public ChangeFeed(SqlConnection sql) {
+		this.sql = sql;
+	}
+
+	/**
+	 * Start polling. Nothing happens if the database does not log its changes.
+	 *
+	 * @param sequence  The sequence number of the latest change contained in the loaded data
+	 */
+	public synchronized void start(long sequence) {
+		stop();
+		if (sql.isChangeLogged() == false) {
+			return;
+		}
+		this.sequence = sequence;
+		executor = Executors.newSingleThreadScheduledExecutor();
+		executor.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				try {
+					poll();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		}, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stop polling.
+	 */
+	public synchronized void stop() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	/**
+	 * Read and apply the changes since the last poll.
+	 */
+	void poll() throws InterruptedException, InvocationTargetException {
+		ArrayList<Object[]> changes = sql.getChangesSince(sequence);
+		if (changes.size() == 0) {
+			return;
+		}
+		sequence = (Long) changes.get(changes.size() - 1)[0];
+		final WriteBehindQueue queue = sql.getWriteQueue();
+		final long enqueued = queue.getEnqueued();
+
+		// keep only the latest change of each row; a later own change makes earlier foreign changes obsolete
+		LinkedHashMap<String, Object[]> latest = new LinkedHashMap<String, Object[]>();
+		for (int i = 0; i < changes.size(); i++) {
+			Object[] change = changes.get(i);
+			String key = change[1] + " " + change[2];
+			latest.remove(key);
+			latest.put(key, change);
+		}
+		final ArrayList<Integer> removedDocuments = new ArrayList<Integer>();
+		final ArrayList<Document> documents = new ArrayList<Document>();
+		ArrayList<Integer> statementIds = new ArrayList<Integer>();
+		final ArrayList<Integer> removedStatements = new ArrayList<Integer>();
+		Iterator<Object[]> changeIterator = latest.values().iterator();
+		while (changeIterator.hasNext()) {
+			Object[] change = changeIterator.next();
+			if ((Boolean) change[4] == true) {
+				continue;
+			}
+			int id = (Integer) change[2];
+			boolean delete = change[3].equals("delete");
+			if (queue.isUnsaved(getRow(change)) == true) {
+				continue;  // the local change will be written after this one and is kept
+			}
+			if (change[1].equals("DOCUMENTS")) {
+				Document document = delete ? null : sql.getDocument(id);
+				if (document == null) {
+					removedDocuments.add(id);
+				} else {
+					documents.add(document);
+				}
+			} else if (change[1].equals("STATEMENTS")) {
+				if (delete) {
+					removedStatements.add(id);
+				} else {
+					statementIds.add(id);
+				}
+			}
+		}
+
+		// documents first, so that new statements find their documents
+		if (removedDocuments.size() > 0 || documents.size() > 0) {
+			SwingUtilities.invokeAndWait(new Runnable() {
+				public void run() {
+					applyDocuments(documents, removedDocuments, enqueued);
+				}
+			});
+		}
+		final ArrayList<Statement> statements = new ArrayList<Statement>();
+		final HashMap<Integer, LinkedHashMap<String, String>> statementTypes = new HashMap<Integer, LinkedHashMap<String, String>>();
+		if (statementIds.size() > 0) {
+			SwingUtilities.invokeAndWait(new Runnable() {
+				public void run() {  // copy the statement types, which are changed on the event dispatch thread
+					for (int i = 0; i < Dna.data.getStatementTypes().size(); i++) {
+						StatementType statementType = Dna.data.getStatementTypes().get(i);
+						statementTypes.put(statementType.getId(), new LinkedHashMap<String, String>(statementType.getVariables()));
+					}
+				}
+			});
+		}
+		for (int i = 0; i < statementIds.size(); i++) {
+			Statement statement = sql.getStatement(statementIds.get(i), statementTypes);
+			if (statement == null) {
+				removedStatements.add(statementIds.get(i));
+			} else {
+				statements.add(statement);
+			}
+		}
+		if (removedStatements.size() > 0 || statements.size() > 0) {
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					applyStatements(statements, removedStatements, enqueued);
+				}
+			});
+		}
+	}
+
+	/**
+	 * @param change  A change read from the CHANGELOG table
+	 * @return        The name of the changed row in the write queue, e.g., "document 3" or "statement 12"
+	 */
+	private String getRow(Object[] change) {
+		if (change[1].equals("DOCUMENTS")) {
+			return "document " + change[2];
+		} else {
+			return "statement " + change[2];
+		}
+	}
+
+	/**
+	 * Apply changed and removed documents, except those that have been changed locally since the poll started. 
+	 * The local changes are written to the database after the changes of the other coders and are kept.
+	 *
+	 * @param documents         The changed documents, as read from the database
+	 * @param removedDocuments  The IDs of the removed documents
+	 * @param enqueued          The number of mutations in the write queue when the poll started
+	 */
+	private void applyDocuments(ArrayList<Document> documents, ArrayList<Integer> removedDocuments, long enqueued) {
+		if (Dna.dna.sql != sql) {
+			return;  // the database was closed in the meantime
+		}
+		WriteBehindQueue queue = sql.getWriteQueue();
+		for (int i = documents.size() - 1; i > -1; i--) {
+			if (queue.isQueuedSince("document " + documents.get(i).getId(), enqueued) == true) {
+				documents.remove(i);
+			}
+		}
+		for (int i = 0; i < removedDocuments.size(); i++) {
+			if (queue.isQueuedSince("document " + removedDocuments.get(i), enqueued) == true) {
+				continue;
+			}
+			if (Dna.data.getDocument(removedDocuments.get(i)) != null) {
+				Dna.data.removeDocument(removedDocuments.get(i));
+			}
+			sql.getTextCache().remove(removedDocuments.get(i));
+		}
+		// remove the old versions of the changed documents in one pass and add the new versions with one sort
+		HashSet<Integer> changedIds = new HashSet<Integer>();
+		for (int i = 0; i < documents.size(); i++) {
+			Document document = documents.get(i);
+			if (Dna.data.getDocument(document.getId()) != null) {
+				changedIds.add(document.getId());
+				Dna.data.setStatementDates(document.getId(), document.getDate());
+			}
+			sql.getTextCache().remove(document.getId());
+		}
+		Dna.dna.gui.documentPanel.setRowSorterEnabled(false);
+		if (changedIds.size() > 0) {
+			for (int i = Dna.data.getDocuments().size() - 1; i > -1; i--) {
+				if (changedIds.contains(Dna.data.getDocuments().get(i).getId())) {
+					Dna.data.removeDocumentAt(i);
+				}
+			}
+		}
+		if (documents.size() > 0) {
+			Dna.dna.gui.documentPanel.documentContainer.addDocuments(documents);
+		}
+		Dna.dna.gui.documentPanel.setRowSorterEnabled(true);
+	}
+
+	/**
+	 * Apply changed and removed statements, except those that have been changed locally since the poll started. 
+	 * The changed statements replace the old ones, and the statements are sorted once.
+	 *
+	 * @param statements         The changed statements, as read from the database, without dates
+	 * @param removedStatements  The IDs of the removed statements
+	 * @param enqueued           The number of mutations in the write queue when the poll started
+	 */
+	private void applyStatements(ArrayList<Statement> statements, ArrayList<Integer> removedStatements, long enqueued) {
+		if (Dna.dna.sql != sql) {
+			return;
+		}
+		WriteBehindQueue queue = sql.getWriteQueue();
+		HashSet<Integer> removedIds = new HashSet<Integer>();
+		for (int i = 0; i < removedStatements.size(); i++) {
+			if (queue.isQueuedSince("statement " + removedStatements.get(i), enqueued) == false) {
+				removedIds.add(removedStatements.get(i));
+			}
+		}
+		ArrayList<Statement> added = new ArrayList<Statement>();
+		for (int i = 0; i < statements.size(); i++) {
+			Statement statement = statements.get(i);
+			if (queue.isQueuedSince("statement " + statement.getId(), enqueued) == true) {
+				continue;
+			}
+			removedIds.add(statement.getId());
+			Document document = Dna.data.getDocument(statement.getDocumentId());
+			if (document != null) {  // otherwise, the statement is removed with its document
+				statement.setDate(document.getDate());
+				added.add(statement);
+			}
+		}
+		if (removedIds.size() == 0 && added.size() == 0) {
+			return;
+		}
+		Dna.dna.gui.rightPanel.statementPanel.setRowSorterEnabled(false);
+		Dna.dna.gui.rightPanel.statementPanel.ssc.replaceStatements(removedIds, added);
+		Dna.dna.gui.rightPanel.statementPanel.setRowSorterEnabled(true);
+		Dna.dna.gui.textPanel.paintStatements();
+	}
+
+	/**
+	 * @return  The time between two polls in milliseconds
+	 */
+	public int getPollInterval() {
+		return pollInterval;
+	}
+
+	/**
+	 * @param pollInterval  The time between two polls in milliseconds; takes effect when polling is restarted
+	 */
+	public void setPollInterval(int pollInterval) {
+		this.pollInterval = pollInterval;
+	}
+}
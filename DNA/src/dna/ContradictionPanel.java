@@ -8,8 +8,11 @@ import java.awt.event.ActionListener;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -27,7 +30,7 @@ import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.TreeSelectionModel;
 
-import dna.dataStructures.Statement;
+import dna.dataStructures.StatementStore;
 
 public class ContradictionPanel extends JPanel {
 	private static final long serialVersionUID = 1L;
@@ -286,81 +289,86 @@ public class ContradictionPanel extends JPanel {
 		String var2 = (String) filterComboBoxVar2.getSelectedItem();
 		String varBoolean = (String) filterComboBoxBoolean.getSelectedItem();
 
-		// get list of statement IDs 
+		// statements of the selected type, in the order of the statement list, with the values of the three 
+		// variables taken as int codes from the statement store
+		StatementStore store = Dna.data.getStatementStore();
+		StatementStore.Column column1 = Dna.data.getStatementColumn(statTypeId, var1);
+		StatementStore.Column column2 = Dna.data.getStatementColumn(statTypeId, var2);
+		StatementStore.Column columnBoolean = Dna.data.getStatementColumn(statTypeId, varBoolean);
+		if (column1 == null || column2 == null || columnBoolean == null) {
+			return;
+		}
 		ArrayList<Integer> ids = new ArrayList<Integer>();
+		ArrayList<Integer> rows = new ArrayList<Integer>();
 		for (int i = 0; i < Dna.data.getStatements().size(); i++) {
-			ids.add(Dna.data.getStatements().get(i).getId());
+			int row = store.getRow(Dna.data.getStatements().get(i).getId());
+			if (row > -1 && store.getStatementTypeId(row) == statTypeId) {
+				ids.add(store.getId(row));
+				rows.add(row);
+			}
 		}
 
-		// get List of actors:
-		ArrayList<String> actors = new ArrayList<String>();
-		ArrayList<Statement> statements = Dna.data.getStatementsByStatementTypeId(statTypeId);
-		//String[] actors = new String[statements.size()];
-		for (int i = 0; i < statements.size(); i++) {
-			String a = (String) Dna.data.getStatements().get(i).getValues().get(var1);
-			if (!actors.contains(a)) {
-				actors.add(a);
+		// group the statements by actor code (first variable) and, within actors, by the second variable
+		LinkedHashMap<Integer, LinkedHashMap<Integer, ArrayList<Integer>>> actors = 
+				new LinkedHashMap<Integer, LinkedHashMap<Integer, ArrayList<Integer>>>();
+		for (int i = 0; i < rows.size(); i++) {
+			int actorCode = column1.get(rows.get(i));
+			LinkedHashMap<Integer, ArrayList<Integer>> categories = actors.get(actorCode);
+			if (categories == null) {
+				categories = new LinkedHashMap<Integer, ArrayList<Integer>>();
+				actors.put(actorCode, categories);
 			}
+			int categoryValue = column2.get(rows.get(i));
+			ArrayList<Integer> members = categories.get(categoryValue);
+			if (members == null) {
+				members = new ArrayList<Integer>();
+				categories.put(categoryValue, members);
+			}
+			members.add(i);
 		}
-		//String[] actors; //Problem if not ArrayList?
-		//actors = Dna.dna.db.getVariableStringEntries(var1, statType);
-		ArrayList<Integer> tabuId = new ArrayList<Integer>();
 
-		// actors-loop
-		for (int i = 0; i < actors.size(); i++) {
-			DefaultMutableTreeNode actor = new DefaultMutableTreeNode(actors.get(i));
+		// a category is reported once two of its statements have the same boolean value; categories appear 
+		// in the order of the first statement that has such a partner
+		Iterator<Integer> actorIterator = actors.keySet().iterator();
+		while (actorIterator.hasNext()) {
+			int actorCode = actorIterator.next();
+			DefaultMutableTreeNode actor = new DefaultMutableTreeNode(column1.isCoded() ? column1.getLabel(actorCode) : actorCode);
+			LinkedHashMap<Integer, ArrayList<Integer>> categories = actors.get(actorCode);
 			ArrayList<Integer> indices = new ArrayList<Integer>();
-
-			// for j = statement IDs
-			for (int j : ids){
-				//if (actors.get(i).equals(Dna.dna.db.getVariableStringEntryWithType(j, var1, statType))) {
-				if (actors.get(i).equals(Dna.data.getStatement(j).getValues().get(var1))) {
-					indices.add(j);
-				}
+			Iterator<ArrayList<Integer>> categoryIterator = categories.values().iterator();
+			while (categoryIterator.hasNext()) {
+				indices.addAll(categoryIterator.next());
 			}
+			Collections.sort(indices);
+			HashSet<Integer> reported = new HashSet<Integer>();
 			for (int j : indices) {
-				for (int k :indices) {
-					if (
-							j != k && 
-							! tabuId.contains(j) && 
-							! tabuId.contains(k) && 
-							//Dna.dna.db.getVariableStringEntryWithType(j, var2, statType).equals(Dna.dna.db.getVariableStringEntryWithType(k, var2, statType)) &&
-
-							Dna.data.getStatement(j).getValues().get(var2).equals(Dna.data.getStatement(k).getValues().get(var2)) && 
-							//! Dna.dna.db.getVariableStringEntryWithType(j, varBoolean, statType).equals(Dna.dna.db.getVariableStringEntryWithType(k, varBoolean, statType))
-							Dna.data.getStatement(j).getValues().get(varBoolean).equals(Dna.data.getStatement(k).getValues().get(varBoolean))
-							) {
-						//DefaultMutableTreeNode category = new DefaultMutableTreeNode(
-						//		Dna.dna.db.getVariableStringEntryWithType(
-						//				j, var2, statType));
-						DefaultMutableTreeNode category = new DefaultMutableTreeNode(Dna.data.getStatement(j).getValues().get(var2));
-						ArrayList<Integer> matches = new ArrayList<Integer>();
-						for (int l: indices) {
-							//if (Dna.dna.db.getVariableStringEntryWithType(
-							//		l, var2, statType)
-							//		.equals(Dna.dna.db.getVariableStringEntryWithType(
-							//				j, var2, statType))){
-							if (Dna.data.getStatement(l).getValues().get(var2).equals(Dna.data.getStatement(j).getValues().get(var2))) {
-								matches.add(l);
-								DefaultMutableTreeNode id = new DefaultMutableTreeNode(
-										//Dna.dna.db.getVariableStringEntryWithType(
-										//		l, varBoolean, statType) +
-										Dna.data.getStatement(l).getValues().get(varBoolean) + 
-												" (" + l + ")");
-								category.add(id);
-							}
-						}
-						tabuId.addAll(matches);
-						if (category.getChildCount() > 0) {
-							actor.add(category);
-						}
+				int categoryValue = column2.get(rows.get(j));
+				if (reported.contains(categoryValue)) {
+					continue;
+				}
+				ArrayList<Integer> members = categories.get(categoryValue);
+				int sameBoolean = 0;
+				for (int k : members) {
+					if (columnBoolean.get(rows.get(k)) == columnBoolean.get(rows.get(j))) {
+						sameBoolean++;
+					}
+				}
+				if (sameBoolean > 1) {
+					reported.add(categoryValue);
+					DefaultMutableTreeNode category = new DefaultMutableTreeNode(
+							column2.isCoded() ? column2.getLabel(categoryValue) : categoryValue);
+					for (int l : members) {
+						DefaultMutableTreeNode id = new DefaultMutableTreeNode(
+								Dna.data.getStatement(ids.get(l)).getValues().get(varBoolean) + " (" + ids.get(l) + ")");
+						category.add(id);
 					}
-				}//closes k-loop
-			}//closes j-loop
+					actor.add(category);
+				}
+			}
 			if (actor.getChildCount() > 0) {
 				top.add(actor);
 			}
-		}//closes i-loop
+		}
 		if (top.getChildCount() == 0) {
 			DefaultMutableTreeNode message = new DefaultMutableTreeNode(
 					"No contradictions found!");
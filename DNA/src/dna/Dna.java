@@ -7,6 +7,8 @@ import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 
 import javax.swing.ImageIcon;
@@ -42,16 +44,43 @@ public class Dna {
 		}
 	}
 
-	public void addDocument(Document document) {
+	public void addDocument(final Document document) {
 		gui.documentPanel.setRowSorterEnabled(false);
 		gui.documentPanel.documentContainer.addDocument(document);
 		gui.documentPanel.setRowSorterEnabled(true);
-		sql.upsertDocument(document);
+		ArrayList<String> rows = new ArrayList<String>();
+		rows.add("document " + document.getId());
+		sql.getWriteQueue().enqueueRows(rows, new WriteBehindQueue.Mutation() {
+			void apply(SqlConnection sql) {
+				sql.insertDocument(document);
+			}
+		});
 	}
 	
-	public void removeDocument(int documentId) {
+	/**
+	 * Queue a document for saving in the database. The current state of the document is saved when the queue 
+	 * is written, and repeated saves of the same document are merged.
+	 * 
+	 * @param document  The document
+	 */
+	public void upsertDocument(final Document document) {
+		sql.getWriteQueue().enqueue("document " + document.getId(), new WriteBehindQueue.Mutation() {
+			void apply(SqlConnection sql) {
+				sql.upsertDocument(document);
+			}
+		});
+	}
+	
+	public void removeDocument(final int documentId) {
+		ArrayList<Integer> docIds = new ArrayList<Integer>();
+		docIds.add(documentId);
+		ArrayList<String> removedRows = getRemovedRows(docIds);
 		Dna.data.removeDocument(documentId);
-		sql.removeDocument(documentId);
+		sql.getWriteQueue().enqueueRemoval(removedRows, new WriteBehindQueue.Mutation() {
+			void apply(SqlConnection sql) {
+				sql.removeDocument(documentId);
+			}
+		});
 	}
 	
 	public void removeDocuments(int[] documentRows) {
@@ -67,11 +96,17 @@ public class Dna {
 		
 		// remove documents in GUI
 		//Date date1 = new Date();
+		ArrayList<String> removedRows = getRemovedRows(docIds);
 		Dna.data.removeDocuments(docIds, modelIndices);
 		//Date date2 = new Date();
 		
 		// remove documents in SQL database
-		sql.removeDocuments(docIds);
+		final ArrayList<Integer> removedIds = docIds;
+		sql.getWriteQueue().enqueueRemoval(removedRows, new WriteBehindQueue.Mutation() {
+			void apply(SqlConnection sql) {
+				sql.removeDocuments(removedIds);
+			}
+		});
 		/*
 		Date date3 = new Date();
 		long guiremove = date2.getTime() - date1.getTime();
@@ -80,6 +115,25 @@ public class Dna {
 		*/
 	}
 
+	/**
+	 * List the rows that the removal of documents removes from the database, i.e., the documents and their 
+	 * statements, as names for {@link WriteBehindQueue#enqueueRemoval(ArrayList, WriteBehindQueue.Mutation)}.
+	 * 
+	 * @param documentIds  The IDs of the documents, which must not be removed from the data yet
+	 * @return             The names of the rows, e.g., "document 3" and "statement 12"
+	 */
+	private ArrayList<String> getRemovedRows(ArrayList<Integer> documentIds) {
+		ArrayList<String> rows = new ArrayList<String>();
+		for (int i = 0; i < documentIds.size(); i++) {
+			rows.add("document " + documentIds.get(i));
+			ArrayList<Statement> statements = data.getStatementsByDocumentId(documentIds.get(i));
+			for (int j = 0; j < statements.size(); j++) {
+				rows.add("statement " + statements.get(j).getId());
+			}
+		}
+		return rows;
+	}
+	
 	/**
 	 * Set the time (hours, minutes, second, milliseconds) of a document date to zero for multiple documents.
 	 * 
@@ -113,32 +167,104 @@ public class Dna {
 		}
 		
 		// change SQL documents
-		sql.updateDocumentDates(docIds, newDates);
+		final ArrayList<Integer> updatedIds = docIds;
+		ArrayList<String> rows = new ArrayList<String>();
+		for (int i = 0; i < docIds.size(); i++) {
+			rows.add("document " + docIds.get(i));
+		}
+		sql.getWriteQueue().enqueueRows(rows, new WriteBehindQueue.Mutation() {
+			void apply(SqlConnection sql) {
+				sql.updateDocumentDates(updatedIds, newDates);
+			}
+		});
 	}
 	
-	public void removeStatement(int statementId) {
+	public void removeStatement(final int statementId) {
 		gui.rightPanel.statementPanel.ssc.removeStatement(statementId);
-		sql.removeStatement(statementId);
+		ArrayList<String> removedRows = new ArrayList<String>();
+		removedRows.add("statement " + statementId);
+		sql.getWriteQueue().enqueueRemoval(removedRows, new WriteBehindQueue.Mutation() {
+			void apply(SqlConnection sql) {
+				sql.removeStatement(statementId);
+			}
+		});
 	}
 	
-	public void addStatement(Statement statement) {
+	public void addStatement(final Statement statement) {
 		gui.rightPanel.statementPanel.setRowSorterEnabled(false);
 		gui.rightPanel.statementPanel.ssc.addStatement(statement);
 		gui.rightPanel.statementPanel.setRowSorterEnabled(true);
 		int statementTypeId = statement.getStatementTypeId();
-		LinkedHashMap<String, String> map = data.getStatementTypeById(statementTypeId).getVariables();
-		sql.addStatement(statement, map);
+		final LinkedHashMap<String, String> map = data.getStatementTypeById(statementTypeId).getVariables();
+		ArrayList<String> rows = new ArrayList<String>();
+		rows.add("statement " + statement.getId());
+		sql.getWriteQueue().enqueueRows(rows, new WriteBehindQueue.Mutation() {
+			void apply(SqlConnection sql) {
+				sql.insertStatement(statement, map);
+			}
+		});
 	}
 	
-	public void updateVariable(int statementId, int statementTypeId, Object content, String variable) {
+	/**
+	 * Update the value of a variable in a statement. The in-memory data are updated immediately, and the database 
+	 * update is queued; repeated updates of the same variable in the same statement are merged.
+	 * 
+	 * @param statementId      The ID of the statement
+	 * @param statementTypeId  The ID of the statement type of the statement
+	 * @param content          The new value
+	 * @param variable         The name of the variable
+	 */
+	public void updateVariable(final int statementId, final int statementTypeId, final Object content, final String variable) {
 		StatementType st = data.getStatementTypeById(statementTypeId);
-		String dataType = st.getVariables().get(variable);
-		try {
-			sql.upsertVariableContent(content, statementId, variable, statementTypeId, dataType);
-			Dna.data.getStatement(statementId).getValues().put(variable, content);
-		} catch (Exception e) {
-			e.printStackTrace();
+		final String dataType = st.getVariables().get(variable);
+		Dna.data.updateStatementValue(statementId, variable, content);
+		sql.getWriteQueue().enqueue("statement " + statementId + " " + variable, new WriteBehindQueue.Mutation() {
+			void apply(SqlConnection sql) throws Exception {
+				sql.upsertVariableContent(content, statementId, variable, statementTypeId, dataType);
+			}
+		});
+	}
+	
+	/**
+	 * Recode the values of a text variable in all statements of a statement type. The mappings are applied in 
+	 * their order, as if each of them replaced the values one after another. The in-memory data are updated with 
+	 * one scan, and the database update is queued as one UPDATE per mapping.
+	 * 
+	 * @param statementTypeId  The ID of the statement type
+	 * @param variable         The name of the text variable
+	 * @param mapping          The new value for each old value, in the order of application
+	 * @return                 The number of changed statements
+	 */
+	public int recodeVariable(final int statementTypeId, final String variable, final LinkedHashMap<String, String> mapping) {
+		// combine the mappings into one map from each original value to its final value
+		HashMap<String, String> combined = new HashMap<String, String>();
+		Iterator<String> keyIterator = mapping.keySet().iterator();
+		while (keyIterator.hasNext()) {
+			String original = keyIterator.next();
+			String edited = mapping.get(original);
+			Iterator<String> combinedIterator = combined.keySet().iterator();
+			while (combinedIterator.hasNext()) {
+				String key = combinedIterator.next();
+				if (combined.get(key).equals(original)) {
+					combined.put(key, edited);
+				}
+			}
+			if (!combined.containsKey(original)) {
+				combined.put(original, edited);
+			}
+		}
+		ArrayList<Integer> changed = data.recodeStatementValues(statementTypeId, variable, combined);
+		final String dataType = data.getStatementTypeById(statementTypeId).getVariables().get(variable);
+		ArrayList<String> rows = new ArrayList<String>();
+		for (int i = 0; i < changed.size(); i++) {
+			rows.add("statement " + changed.get(i));
 		}
+		sql.getWriteQueue().enqueueRows(rows, new WriteBehindQueue.Mutation() {
+			void apply(SqlConnection sql) {
+				sql.recodeValues(statementTypeId, variable, dataType, mapping);
+			}
+		});
+		return changed.size();
 	}
 	
 	public void addCoder(Coder coder) {
@@ -173,7 +299,7 @@ public class Dna {
 	 * @param av  The attribute vector
 	 */
 	public void addAttributeVector(AttributeVector av) {
-		data.getAttributes().add(av);
+		data.addAttribute(av);
 		gui.textPanel.bottomCardPanel.attributePanel.attributeTableModel.sort();
 		sql.upsertAttributeVector(av);
 	}
@@ -185,7 +311,7 @@ public class Dna {
 	 */
 	public void deleteAttributeVector(int row) {
 		int attributeVectorId = Dna.dna.gui.textPanel.bottomCardPanel.attributePanel.attributeTableModel.get(row).getId();
-		Dna.data.getAttributes().remove(row);
+		Dna.data.removeAttributeAt(row);
 		sql.deleteAttributeVector(attributeVectorId);
 	}
 	
@@ -207,7 +333,7 @@ public class Dna {
 	 * @param value  String containing the value
 	 */
 	public void updateAttributeValue(int row, String value) {
-		data.getAttributes().get(row).setValue(value);
+		data.setAttributeValue(row, value);
 		sql.updateAttribute(data.getAttributes().get(row).getId(), "Value", value);
 	}
 
@@ -245,6 +371,8 @@ public class Dna {
 	}
 	
 	public void closeDatabase() {
+		sql.getChangeFeed().stop();
+		sql.getWriteQueue().close();  // write all queued edits before the connection is closed
 		data = new Data();
 		sql.closeConnection();
 		sql = null;
@@ -275,6 +403,11 @@ public class Dna {
 		Dna.dna.gui.menuBar.colorCoderButton.setIcon(new ImageIcon(getClass().getResource("/icons/tick.png")));
 		Dna.dna.gui.menuBar.colorCoderButton.setEnabled(false);
 		Dna.dna.gui.menuBar.colorStatementTypeButton.setEnabled(false);
+		Dna.dna.gui.menuBar.safeModeButton.setIcon(null);
+		Dna.dna.gui.menuBar.safeModeButton.setEnabled(false);
+		Dna.dna.gui.menuBar.maintenanceButton.setEnabled(false);
+		Dna.dna.gui.menuBar.compressTextButton.setIcon(null);
+		Dna.dna.gui.menuBar.compressTextButton.setEnabled(false);
 		//Dna.dna.gui.menuBar.typeEditorButton.setEnabled(false);
 		Dna.dna.gui.menuBar.newDocumentButton.setEnabled(false);
 		Dna.dna.gui.menuBar.importTextButton.setEnabled(false);
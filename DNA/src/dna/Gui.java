@@ -34,6 +34,7 @@ import javax.swing.JSplitPane;
 import javax.swing.JToggleButton;
 import javax.swing.SpinnerModel;
 import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingUtilities;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import javax.swing.filechooser.FileFilter;
@@ -220,12 +221,14 @@ public class Gui extends JFrame {
 	class StatusBar extends JPanel {
 
 		private static final long serialVersionUID = 1L;
-		JLabel currentFileLabel, loading;
+		JLabel currentFileLabel, loading, unsavedLabel;
 
 		public StatusBar() {
 			this.setLayout( new BorderLayout() );
 			currentFileLabel = new JLabel("Current file: none");
 			this.add(currentFileLabel, BorderLayout.WEST);
+			unsavedLabel = new JLabel("", JLabel.TRAILING);
+			this.add(unsavedLabel, BorderLayout.CENTER);
 			loading = new JLabel("loading...", JLabel.TRAILING);
 			loading.setVisible(false);
 			this.add(loading, BorderLayout.EAST);
@@ -238,6 +241,17 @@ public class Gui extends JFrame {
 				currentFileLabel.setText("Current file: " + Dna.dna.sql.dbfile);
 			}
 		}
+		
+		/**
+		 * @param count  The number of edits that have not been written to the database yet
+		 */
+		public void setUnsavedChanges(int count) {
+			if (count == 0) {
+				unsavedLabel.setText("");
+			} else {
+				unsavedLabel.setText("Unsaved changes: " + count);
+			}
+		}
 	}
 
 	public class MenuBar extends JMenuBar {
@@ -252,6 +266,9 @@ public class Gui extends JFrame {
 		JMenuItem aboutButton;
 		JMenuItem colorStatementTypeButton;
 		JMenuItem colorCoderButton;
+		JMenuItem safeModeButton;
+		JMenuItem maintenanceButton;
+		JMenuItem compressTextButton;
 		JMenuItem redirectButton;
 		
 		public MenuBar() {
@@ -483,6 +500,79 @@ public class Gui extends JFrame {
 			colorStatementTypeButton.setEnabled(false);
 			colorCoderButton.setEnabled(false);
 			
+			//Settings menu: SQLite performance profile and database maintenance
+			safeModeButton = new JMenuItem("Safe SQLite mode (slower)");
+			safeModeButton.setToolTipText("sync every change to disk immediately instead of using a write-ahead log");
+			settingsMenu.add(safeModeButton);
+			safeModeButton.addActionListener(new ActionListener() {
+				public void actionPerformed(ActionEvent e) {
+					String profile = Dna.data.getSettings().get("sqliteProfile");
+					if (profile != null && profile.equals("safe")) {
+						profile = "performance";
+						safeModeButton.setIcon(null);
+					} else {
+						profile = "safe";
+						safeModeButton.setIcon(tickIcon);
+					}
+					Dna.data.getSettings().put("sqliteProfile", profile);
+					Dna.dna.sql.getWriteQueue().close();
+					Dna.dna.sql.upsertSetting("sqliteProfile", profile);
+					Dna.dna.sql.applyProfile();
+				}
+			});
+			safeModeButton.setEnabled(false);
+			Icon maintenanceIcon = new ImageIcon(getClass().getResource("/icons/database.png"));
+			maintenanceButton = new JMenuItem("Compact database", maintenanceIcon);
+			maintenanceButton.setToolTipText("free up space left by deleted documents and statements");
+			settingsMenu.add(maintenanceButton);
+			maintenanceButton.addActionListener(new ActionListener() {
+				public void actionPerformed(ActionEvent e) {
+					maintenanceButton.setEnabled(false);
+					Dna.dna.gui.statusBar.currentFileLabel.setText("Compacting database...");
+					Thread thread = new Thread(new Runnable() {
+						public void run() {
+							Dna.dna.sql.runMaintenance();
+							SwingUtilities.invokeLater(new Runnable() {
+								public void run() {
+									Dna.dna.gui.statusBar.resetLabel();
+									maintenanceButton.setEnabled(Dna.dna.sql != null);
+								}
+							});
+						}
+					}, "Database maintenance");
+					thread.start();
+				}
+			});
+			maintenanceButton.setEnabled(false);
+			compressTextButton = new JMenuItem("Compress document text");
+			compressTextButton.setToolTipText("store document texts compressed to reduce the size of the database");
+			settingsMenu.add(compressTextButton);
+			compressTextButton.addActionListener(new ActionListener() {
+				public void actionPerformed(ActionEvent e) {
+					final boolean compress = !Dna.dna.sql.isTextCompressed();
+					compressTextButton.setEnabled(false);
+					Dna.dna.gui.statusBar.currentFileLabel.setText("Converting document texts...");
+					Thread thread = new Thread(new Runnable() {
+						public void run() {
+							final boolean success = Dna.dna.sql.setTextCompressed(compress);
+							SwingUtilities.invokeLater(new Runnable() {
+								public void run() {
+									if (success == true) {
+										Dna.data.getSettings().put("compressText", String.valueOf(compress));
+									}
+									compressTextButton.setIcon(Dna.dna.sql.isTextCompressed() ? tickIcon : null);
+									Dna.dna.gui.statusBar.resetLabel();
+									compressTextButton.setEnabled(true);
+								}
+							});
+						}
+					}, "Document text conversion");
+					thread.start();
+				}
+			});
+			compressTextButton.setEnabled(false);
+			settingsMenu.addSeparator();
+			
 			//Settings menu: redirect output to file
 			Icon redirectIcon = new ImageIcon(getClass().getResource("/icons/report_add.png"));
 			redirectButton = new JMenuItem("Redirect error messages...", redirectIcon);
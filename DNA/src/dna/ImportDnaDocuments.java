@@ -290,11 +290,18 @@ public class ImportDnaDocuments extends JDialog {
 			progressMonitor.setProgress(0);
 			HashMap<Integer, Integer> map = new HashMap<Integer, Integer>();
 			ArrayList<Document> newDocs = new ArrayList<Document>();
+			int selectedCount = 0;
+			for (int k = 0; k < aitm.getRowCount(); k++) {
+				if ((Boolean) aitm.getValueAt(k, 0) == true) {
+					selectedCount++;
+				}
+			}
+			int newDocumentId = Dna.data.reserveIds("documents", selectedCount) - 1;
 			for (int k = 0; k < aitm.getRowCount(); k++) {
 				if ((Boolean) aitm.getValueAt(k, 0) == true) {
 					Document document = aitm.documents.get(k);
 					int documentId = document.getId();
-					int newDocumentId = Dna.data.generateNewId("documents");
+					newDocumentId++;
 					if (map.containsKey(documentId)) {
 						System.err.println("Import: document " + documentId + " already exists.");
 					}
@@ -316,14 +323,20 @@ public class ImportDnaDocuments extends JDialog {
 			progressMonitor.setNote("(3/5) Reading statements...");
 			Dna.dna.gui.rightPanel.statementPanel.setRowSorterEnabled(false);
 			ArrayList<Statement> newStatements = new ArrayList<Statement>();
+			int matchingCount = 0;
+			for (int i = 0; i < foreignData.getStatements().size(); i++) {
+				if (map.containsKey(foreignData.getStatements().get(i).getDocumentId())) {
+					matchingCount++;
+				}
+			}
+			int newStatementId = Dna.data.reserveIds("statements", matchingCount) - 1;
 			for (int i = 0; i < foreignData.getStatements().size(); i++) {
 				Statement statement = foreignData.getStatements().get(i);
 				int documentId = statement.getDocumentId();
 				if (map.containsKey(documentId)) {
-					int newDocumentId = map.get(documentId);
-					statement.setDocumentId(newDocumentId);
+					statement.setDocumentId(map.get(documentId));
 					statement.setCoder(coderMap.get(statement.getCoder()));
-					int newStatementId = Dna.data.generateNewId("statements");
+					newStatementId++;
 					statement.setId(newStatementId);
 					Dna.data.addStatement(statement);
 					newStatements.add(statement);
@@ -371,7 +384,7 @@ public class ImportDnaDocuments extends JDialog {
 			    							int newId = Dna.data.generateNewId("attributes");
 			    							AttributeVector a = av[j];
 			    							a.setId(newId);
-			    							Dna.data.getAttributes().add(a);
+			    							Dna.data.addAttribute(a);
 			    							newAttributes.add(a);
 			    							break;
 			    						}
@@ -16,7 +16,6 @@ import java.awt.event.ActionListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 
@@ -479,6 +478,8 @@ public class NewDatabaseDialog extends JDialog {
 					ecw.dispose();
 					if (!coder.getName().equals("")) {
 						Dna.data.addCoder(coder);
+					} else {
+						Dna.data.releaseId("coders", coder.getId());
 					}
 					coderList.updateUI();
 				}
@@ -514,18 +515,17 @@ public class NewDatabaseDialog extends JDialog {
 		public class CoderListModel extends AbstractListModel<Coder> {
 			
 			public void removeElement(int index) {
-				Dna.data.getCoders().remove(index);
+				Dna.data.removeCoderAt(index);
 		        fireContentsChanged(this, 0, Dna.data.getCoders().size() - 1);
 			}
 			
 			public void replaceElement(int index, Object o) {
-				Dna.data.getCoders().set(index, (Coder) o);
+				Dna.data.setCoderAt(index, (Coder) o);
 		        fireContentsChanged(this, index, index);
 			}
 			
 		    public void addElement(Object o) {
-		        Dna.data.getCoders().add((Coder) o);
-		        Collections.sort(Dna.data.getCoders());
+		        Dna.data.addCoder((Coder) o);
 		        fireContentsChanged(this, 0, Dna.data.getCoders().size() - 1);
 		    }
 
@@ -670,6 +670,8 @@ public class NewDatabaseDialog extends JDialog {
 					ecw.dispose();
 					if (!statementType.getLabel().equals("")) {
 						model.addElement(statementType);
+					} else {
+						Dna.data.releaseId("statementTypes", statementType.getId());
 					}
 					statementTypeList.updateUI();
 				}
@@ -716,17 +718,17 @@ public class NewDatabaseDialog extends JDialog {
 		public class StatementTypeListModel extends AbstractListModel<StatementType> {
 			
 			public void removeElement(int index) {
-				Dna.data.getStatementTypes().remove(index);
+				Dna.data.removeStatementTypeAt(index);
 		        fireContentsChanged(this, 0, Dna.data.getStatementTypes().size() - 1);
 			}
 			
 			public void replaceElement(int index, Object o) {
-				Dna.data.getStatementTypes().set(index, (StatementType) o);
+				Dna.data.setStatementTypeAt(index, (StatementType) o);
 		        fireContentsChanged(this, index, index);
 			}
 			
 		    public void addElement(Object o) {
-		        Dna.data.getStatementTypes().add((StatementType) o);
+		        Dna.data.addStatementType((StatementType) o);
 		        //Collections.sort(Dna.data.getStatementTypes());
 		        fireContentsChanged(this, 0, Dna.data.getStatementTypes().size() - 1);
 		    }
@@ -1154,6 +1156,9 @@ public class NewDatabaseDialog extends JDialog {
 				public void actionPerformed(ActionEvent e) {
 					Dna.dna.sql = new SqlConnection(NewDatabaseDialog.this.dbType, NewDatabaseDialog.this.dbFile, NewDatabaseDialog.this.dbUser, NewDatabaseDialog.this.dbPassword);
 					Dna.dna.sql.createDataStructure();
+					if (Dna.dna.sql.setTextCompressed(true) == true) {
+						data.getSettings().put("compressText", "true");
+					}
 					//Dna.data.getSettings().put("filename", dbFile);
 					//Dna.dna.sql.upsertSetting("filename", dbFile);
 					data.getSettings().put("version", Dna.dna.version);
@@ -1182,6 +1187,12 @@ public class NewDatabaseDialog extends JDialog {
 					Dna.dna.gui.menuBar.networkButton.setEnabled(true);
 					Dna.dna.gui.menuBar.colorStatementTypeButton.setEnabled(true);
 					Dna.dna.gui.menuBar.colorCoderButton.setEnabled(true);
+					Dna.dna.gui.menuBar.safeModeButton.setEnabled(NewDatabaseDialog.this.dbType.equals("sqlite"));
+					Dna.dna.gui.menuBar.maintenanceButton.setEnabled(true);
+					Dna.dna.gui.menuBar.compressTextButton.setIcon(Dna.dna.sql.isTextCompressed() ? 
+							new ImageIcon(getClass().getResource("/icons/tick.png")) : null);
+					Dna.dna.gui.menuBar.compressTextButton.setEnabled(true);
+					Dna.dna.sql.getChangeFeed().start(Dna.dna.sql.getLatestChange());
 					Dna.dna.gui.rightPanel.rm.setFieldsEnabled(true);
 					Dna.dna.gui.leftPanel.docStats.refreshButton.setEnabled(true);
 					Dna.dna.gui.rightPanel.statementPanel.typeComboBox.setSelectedIndex(0);
@@ -25,10 +25,14 @@ import javax.swing.JPanel;
 import javax.swing.JPasswordField;
 import javax.swing.JRadioButton;
 import javax.swing.JTextField;
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingUtilities;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.filechooser.FileFilter;
 
+import dna.dataStructures.Data;
+
 @SuppressWarnings("serial")
 public class OpenDatabaseDialog extends JDialog {
 	JTextField checkField;
@@ -284,8 +288,44 @@ public class OpenDatabaseDialog extends JDialog {
 		this.setResizable(false);
 	}
 	
+	/**
+	 * Upgrade the database schema if necessary, load the data from the database, and update the GUI. If the 
+	 * dialog is shown, the tables are loaded in a background thread while a progress monitor reports each loaded 
+	 * table, and the GUI is updated afterwards on the event dispatch thread.
+	 */
 	public void loadDataAndDispose() {
-		Dna.data = Dna.dna.sql.getAllData();
+		if (this.isVisible() == false) {
+			Dna.dna.sql.migrateSchema();
+			Dna.dna.sql.applyProfile();
+			long sequence = Dna.dna.sql.getLatestChange();
+			Dna.data = Dna.dna.sql.getAllData();
+			updateGuiAndDispose();
+			Dna.dna.sql.getChangeFeed().start(sequence);
+			return;
+		}
+		this.setEnabled(false);
+		ProgressMonitor progressMonitor = new ProgressMonitor(this, "Opening database...", "", 0, SqlConnection.LOAD_TASKS);
+		progressMonitor.setMillisToDecideToPopup(1);
+		Thread loadThread = new Thread(new Runnable() {
+			public void run() {
+				Dna.dna.sql.migrateSchema();
+				Dna.dna.sql.applyProfile();
+				final long sequence = Dna.dna.sql.getLatestChange();  // before loading, so no change is missed
+				final Data data = Dna.dna.sql.getAllData(progressMonitor);
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						progressMonitor.close();
+						Dna.data = data;
+						updateGuiAndDispose();
+						Dna.dna.sql.getChangeFeed().start(sequence);
+					}
+				});
+			}
+		}, "Load database");
+		loadThread.start();
+	}
+	
+	private void updateGuiAndDispose() {
 		Dna.dna.gui.rightPanel.rm.regexListModel.updateList();
 		Dna.dna.gui.rightPanel.rm.setFieldsEnabled(true);
 		Dna.dna.gui.leftPanel.docStats.refreshButton.setEnabled(true);
@@ -297,6 +337,19 @@ public class OpenDatabaseDialog extends JDialog {
 		Dna.dna.gui.menuBar.networkButton.setEnabled(true);
 		Dna.dna.gui.menuBar.colorStatementTypeButton.setEnabled(true);
 		Dna.dna.gui.menuBar.colorCoderButton.setEnabled(true);
+		Dna.dna.gui.menuBar.safeModeButton.setEnabled(Dna.dna.sql.dbtype.equals("sqlite"));
+		if ("safe".equals(Dna.data.getSettings().get("sqliteProfile"))) {
+			Dna.dna.gui.menuBar.safeModeButton.setIcon(new ImageIcon(getClass().getResource("/icons/tick.png")));
+		} else {
+			Dna.dna.gui.menuBar.safeModeButton.setIcon(null);
+		}
+		Dna.dna.gui.menuBar.maintenanceButton.setEnabled(true);
+		if (Dna.dna.sql.isTextCompressed()) {
+			Dna.dna.gui.menuBar.compressTextButton.setIcon(new ImageIcon(getClass().getResource("/icons/tick.png")));
+		} else {
+			Dna.dna.gui.menuBar.compressTextButton.setIcon(null);
+		}
+		Dna.dna.gui.menuBar.compressTextButton.setEnabled(true);
 		if (Dna.data.getSettings().get("statementColor").equals("statementType")) {
 			Dna.dna.gui.menuBar.colorStatementTypeButton.setSelected(true);
 			Dna.dna.gui.menuBar.colorCoderButton.setSelected(false);
@@ -11,9 +11,19 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.TreeMap;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.JOptionPane;
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingUtilities;
 
 import dna.dataStructures.AttributeVector;
 import dna.dataStructures.Coder;
@@ -36,6 +46,17 @@ public class SqlConnection {
 	Connection connection = null;
 	PreparedStatement preStatement = null;
 	ResultSet result = null;
+	int batchSize = 1000;
+	HashMap<String, PreparedStatement> statementCache = new HashMap<String, PreparedStatement>();
+	WriteBehindQueue writeQueue = new WriteBehindQueue(this);
+	TextCache textCache = new TextCache(this, 64L * 1024 * 1024);
+	ChangeFeed changeFeed = new ChangeFeed(this);
+	private Boolean textCompressed = null;
+	private Boolean changeLogged = null;
+	private HashMap<Integer, HashMap<String, Integer>> variableIdCache = new HashMap<Integer, HashMap<String, Integer>>();
+	private boolean batchOpen = false;
+	private SQLException batchError = null;
+	String sessionId = java.util.UUID.randomUUID().toString();
 	
 	public SqlConnection(String dbtype, String dbfile, String login, String password) {
 		this.dbtype = dbtype;
@@ -45,7 +66,7 @@ public class SqlConnection {
 		try {
 			if (dbtype.equals("mysql")) {
 				Class.forName("com.mysql.jdbc.Driver");
-				this.connection = DriverManager.getConnection("jdbc:mysql://" + dbfile, login, password);
+				this.connection = DriverManager.getConnection(getMySQLUrl(), login, password);
 			} else if (dbtype.equals("sqlite")) {
 				Class.forName("org.sqlite.JDBC");
 				this.connection = DriverManager.getConnection("jdbc:sqlite:" + dbfile);
@@ -57,8 +78,50 @@ public class SqlConnection {
 		}
 	}
 	
+	/**
+	 * @return  The JDBC URL of the MySQL database, with server-side prepared statements enabled
+	 */
+	private String getMySQLUrl() {
+		String separator = "?";
+		if (dbfile.contains("?")) {
+			separator = "&";
+		}
+		return "jdbc:mysql://" + dbfile + separator + "useServerPrepStmts=true&cachePrepStmts=true";
+	}
+	
+	/**
+	 * @return  The queue for writing interactive edits to the database in the background
+	 */
+	public WriteBehindQueue getWriteQueue() {
+		return writeQueue;
+	}
+	
+	/**
+	 * @return  The poller for changes made by other coders
+	 */
+	public ChangeFeed getChangeFeed() {
+		return changeFeed;
+	}
+	
+	/**
+	 * @return  The cache for the text of documents that were loaded without their text
+	 */
+	public TextCache getTextCache() {
+		return textCache;
+	}
+	
 	public void closeConnection() {
+		changeFeed.stop();
+		writeQueue.close();
+		if (writeQueue.getUnsavedChanges() > 0) {
+			System.err.println(writeQueue.getUnsavedChanges() + " queued changes could not be saved in the database.");
+		}
+		textCache.clear();
 		try {
+			if (dbtype.equals("sqlite") && connection != null && !connection.isClosed()) {
+				executeStatement("PRAGMA optimize");
+			}
+			clearStatementCache();
 			connection.close();
 		} catch (SQLException e) {
 			e.printStackTrace();
@@ -74,10 +137,9 @@ public class SqlConnection {
 	 */
 	public void upsertSetting(String key, String value) {
 		if (dbtype == "sqlite") {
-			executeStatement("INSERT OR REPLACE INTO SETTINGS (Property, Value) VALUES ('" + key + "', '" + value + "')");
+			executeStatement("INSERT OR REPLACE INTO SETTINGS (Property, Value) VALUES (?, ?)", key, value);
 		} else if (dbtype == "mysql") {
-			executeStatement("INSERT INTO SETTINGS (Property, Value) VALUES('" + key + "', '" + value + "') "
-					+ "ON DUPLICATE KEY UPDATE Value = '" + value + "'");
+			executeStatement("INSERT INTO SETTINGS (Property, Value) VALUES(?, ?) ON DUPLICATE KEY UPDATE Value = ?", key, value, value);
 		}
 	}
 	
@@ -88,7 +150,7 @@ public class SqlConnection {
 	public String getSetting(String key) {
 		String value = "";
 		try {
-			value = (String) executeQueryForObject("SELECT Value FROM SETTINGS WHERE Property = '" + key + "'");
+			value = (String) executeQueryForObject("SELECT Value FROM SETTINGS WHERE Property = ?", key);
 		} catch (SQLException e) {
 			e.printStackTrace();
 			return "";
@@ -97,35 +159,35 @@ public class SqlConnection {
 	}
 	
 	public void updateCoderRelationViewStatements(int id, boolean viewStatements) {
-		String booleanString = "0";
+		int booleanValue = 0;
 		if (viewStatements == true) {
-			booleanString = "1";
+			booleanValue = 1;
 		}
-		executeStatement("UPDATE CODERRELATIONS SET ViewStatements = " + booleanString + " WHERE ID = " + id);
+		executeStatement("UPDATE CODERRELATIONS SET ViewStatements = ? WHERE ID = ?", booleanValue, id);
 	}
 
 	public void updateCoderRelationEditStatements(int id, boolean editStatements) {
-		String booleanString = "0";
+		int booleanValue = 0;
 		if (editStatements == true) {
-			booleanString = "1";
+			booleanValue = 1;
 		}
-		executeStatement("UPDATE CODERRELATIONS SET EditStatements = " + booleanString + " WHERE ID = " + id);
+		executeStatement("UPDATE CODERRELATIONS SET EditStatements = ? WHERE ID = ?", booleanValue, id);
 	}
 
 	public void updateCoderRelationViewDocuments(int id, boolean viewDocuments) {
-		String booleanString = "0";
+		int booleanValue = 0;
 		if (viewDocuments == true) {
-			booleanString = "1";
+			booleanValue = 1;
 		}
-		executeStatement("UPDATE CODERRELATIONS SET ViewDocuments = " + booleanString + " WHERE ID = " + id);
+		executeStatement("UPDATE CODERRELATIONS SET ViewDocuments = ? WHERE ID = ?", booleanValue, id);
 	}
 
 	public void updateCoderRelationEditDocuments(int id, boolean editDocuments) {
-		String booleanString = "0";
+		int booleanValue = 0;
 		if (editDocuments == true) {
-			booleanString = "1";
+			booleanValue = 1;
 		}
-		executeStatement("UPDATE CODERRELATIONS SET EditDocuments = " + booleanString + " WHERE ID = " + id);
+		executeStatement("UPDATE CODERRELATIONS SET EditDocuments = ? WHERE ID = ?", booleanValue, id);
 	}
 	
 	/**
@@ -135,8 +197,8 @@ public class SqlConnection {
 	public Coder getCoder(int id) {
 		Coder coder = null;
 		try {
-			String myQuery = "SELECT * FROM CODERS WHERE ID = " + id;
-			PreparedStatement preStatement = (PreparedStatement) connection.prepareStatement(myQuery);
+			PreparedStatement preStatement = prepareCached("SELECT * FROM CODERS WHERE ID = ?");
+			preStatement.setInt(1, id);
 			ResultSet result = preStatement.executeQuery();
 			if (result.next()) {
 				do {
@@ -149,10 +211,9 @@ public class SqlConnection {
 				} while (result.next());
 			}
 			result.close();
-			preStatement.close();
 			
-			myQuery = "SELECT * FROM CODERPERMISSIONS WHERE Coder = " + id;
-			PreparedStatement preStatement2 = (PreparedStatement) connection.prepareStatement(myQuery);
+			PreparedStatement preStatement2 = prepareCached("SELECT * FROM CODERPERMISSIONS WHERE Coder = ?");
+			preStatement2.setInt(1, id);
 			ResultSet result2 = preStatement2.executeQuery();
 			HashMap<String, Boolean> permissions = new HashMap<String, Boolean>();
 			if (result2.next()) {
@@ -170,7 +231,6 @@ public class SqlConnection {
 			}
 			coder.setPermissions(permissions);
 			result2.close();
-			preStatement2.close();
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
@@ -178,6 +238,8 @@ public class SqlConnection {
 	}
 	
 	/**
+	 * Insert or update a coder, its permissions, and the permissions of its coder relations in one transaction.
+	 * 
 	 * @param coder     The coder to add to/update in the Coders table
 	 */
 	public void upsertCoder(Coder coder) {
@@ -189,89 +251,180 @@ public class SqlConnection {
 		String password = coder.getPassword();
 		HashMap<String, Boolean> permissions = coder.getPermissions();
 		
-		if (dbtype == "sqlite") {
-			executeStatement("INSERT OR REPLACE INTO CODERS (ID, Name, Red, Green, Blue, Password) "
-					+ "VALUES (" + id + ", '" + name + "', " + red + ", " + green + ", " + blue + ", '" + password + "')");
-		} else if (dbtype == "mysql") {
-			executeStatement("INSERT INTO CODERS (ID, Name, Red, Green, Blue, Password) "
-					+ "VALUES(" + id + ", '" + name + "', " + red + ", " + green + ", " + blue + ", '" + password + "') "
-					+ "ON DUPLICATE KEY UPDATE Name = '" + name + "', red = " + red + ", green = " + green + ", blue = "
-					+ blue + ", Password = '" + password + "'");
-		}
-		
-		Iterator<String> keyIterator = permissions.keySet().iterator();
-        while (keyIterator.hasNext()){
-    		String key = keyIterator.next();
-    		Boolean value = permissions.get(key);
-    		int intValue;
-    		if (value == true) {
-    			intValue = 1;
-    		} else {
-    			intValue = 0;
-    		}
-    		int permissionId;
+		synchronized (this) {
+			boolean ownTransaction = beginTransaction();
 			try {
-				permissionId = (int) executeQueryForObject("SELECT ID from CODERPERMISSIONS WHERE Coder = " + id + " AND Type = '" + key + "'");
-				executeStatement("REPLACE INTO CODERPERMISSIONS(ID, Coder, Type, Permission) "
-    					+ "VALUES (" + permissionId + ", " + id + ", '" + key + "', " + intValue + ")");
+				// a native upsert keeps the row, so nothing cascades to the coder's documents and statements
+				PreparedStatement coderStatement = prepareCached("INSERT INTO CODERS (ID, Name, Red, Green, Blue, Password) "
+						+ "VALUES (?, ?, ?, ?, ?, ?)" + upsertClause("ID", "Name", "Red", "Green", "Blue", "Password"));
+				bind(coderStatement, new Object[] {id, name, red, green, blue, password});
+				coderStatement.executeUpdate();
+				
+				PreparedStatement permissionBatch = prepareCached("INSERT INTO CODERPERMISSIONS (Coder, Type, Permission) "
+						+ "VALUES (?, ?, ?)" + upsertClause("Coder, Type", "Permission"));
+				Iterator<String> keyIterator = permissions.keySet().iterator();
+				while (keyIterator.hasNext()) {
+					String key = keyIterator.next();
+					bind(permissionBatch, new Object[] {id, key, permissions.get(key) == true ? 1 : 0});
+					permissionBatch.addBatch();
+				}
+				permissionBatch.executeBatch();
+				
+				PreparedStatement relationStatement = prepareCached("UPDATE CODERRELATIONS SET ViewStatements = ?, "
+						+ "EditStatements = ?, ViewDocuments = ?, EditDocuments = ? WHERE Coder = ?");
+				bind(relationStatement, new Object[] {
+						permissions.get("viewOthersStatements") == false ? 0 : 1, 
+						permissions.get("editOthersStatements") == false ? 0 : 1, 
+						permissions.get("viewOthersDocuments") == false ? 0 : 1, 
+						permissions.get("editOthersDocuments") == false ? 0 : 1, 
+						id});
+				relationStatement.executeUpdate();
+				endTransaction(ownTransaction);
 			} catch (SQLException e) {
-				e.printStackTrace();
+				failTransaction(ownTransaction, e);
 			}
-    	}
-        
-        if (permissions.get("viewOthersStatements") == false) {
-        	executeStatement("UPDATE CODERRELATIONS SET ViewStatements = 0 WHERE Coder = " + id);
-        } else {
-        	executeStatement("UPDATE CODERRELATIONS SET ViewStatements = 1 WHERE Coder = " + id);
-        }
-        if (permissions.get("editOthersStatements") == false) {
-        	executeStatement("UPDATE CODERRELATIONS SET EditStatements = 0 WHERE Coder = " + id);
-        } else {
-        	executeStatement("UPDATE CODERRELATIONS SET EditStatements = 1 WHERE Coder = " + id);
-        }
-        if (permissions.get("viewOthersDocuments") == false) {
-        	executeStatement("UPDATE CODERRELATIONS SET ViewDocuments = 0 WHERE Coder = " + id);
-        } else {
-        	executeStatement("UPDATE CODERRELATIONS SET ViewDocuments = 1 WHERE Coder = " + id);
-        }
-        if (permissions.get("editOthersDocuments") == false) {
-        	executeStatement("UPDATE CODERRELATIONS SET EditDocuments = 0 WHERE Coder = " + id);
-        } else {
-        	executeStatement("UPDATE CODERRELATIONS SET EditDocuments = 1 WHERE Coder = " + id);
-        }
+		}
 	}
 	
 	/**
 	 * @param document   Document to add to/update in the DOCUMENTS table
 	 */
 	public void upsertDocument(Document document) {
-		executeStatement("REPLACE INTO DOCUMENTS(ID, Title, Text, Coder, Author, Source, Section, Notes, Type, Date) "
-				+ "VALUES (" + document.getId() + ", '" + document.getTitle().replaceAll("'", "''")  + "', '" 
-				+ document.getText().replaceAll("'", "''") + "', " + document.getCoder() + ", '" 
-				+ document.getAuthor().replaceAll("'", "''")  + "', '" + document.getSource().replaceAll("'", "''")  + "', '" 
-				+ document.getSection().replaceAll("'", "''") + "', '" + document.getNotes().replaceAll("'", "''") + "', '" 
-				+ document.getType().replaceAll("'", "''") + "', " + document.getDate().getTime() + ")");
+		// no REPLACE because deleting the old row would cascade to the statements of the document
+		int updated;
+		if (document.isTextLoaded() == false) {
+			// the text is still in the database, so only the metadata can have changed
+			updated = executeUpdate("UPDATE DOCUMENTS SET Title = ?, Coder = ?, Author = ?, Source = ?, Section = ?, "
+					+ "Notes = ?, Type = ?, Date = ? WHERE ID = ?", document.getTitle(), document.getCoder(), 
+					document.getAuthor(), document.getSource(), document.getSection(), document.getNotes(), document.getType(), 
+					document.getDate().getTime(), document.getId());
+		} else if (isTextCompressed() == true) {
+			updated = executeUpdate("UPDATE DOCUMENTS SET Title = ?, Text = '', TextCompressed = ?, Coder = ?, Author = ?, "
+					+ "Source = ?, Section = ?, Notes = ?, Type = ?, Date = ? WHERE ID = ?", document.getTitle(), 
+					TextCache.deflate(document.getText()), document.getCoder(), document.getAuthor(), document.getSource(), 
+					document.getSection(), document.getNotes(), document.getType(), document.getDate().getTime(), document.getId());
+		} else {
+			updated = executeUpdate("UPDATE DOCUMENTS SET Title = ?, Text = ?, Coder = ?, Author = ?, Source = ?, Section = ?, "
+					+ "Notes = ?, Type = ?, Date = ? WHERE ID = ?", document.getTitle(), document.getText(), document.getCoder(), 
+					document.getAuthor(), document.getSource(), document.getSection(), document.getNotes(), document.getType(), 
+					document.getDate().getTime(), document.getId());
+		}
+		if (updated == 0) {
+			if (isTextCompressed() == true) {
+				executeStatement("INSERT INTO DOCUMENTS(ID, Title, Text, TextCompressed, Coder, Author, Source, Section, Notes, "
+						+ "Type, Date) VALUES (?, ?, '', ?, ?, ?, ?, ?, ?, ?, ?)", document.getId(), document.getTitle(), 
+						TextCache.deflate(document.getText()), document.getCoder(), document.getAuthor(), document.getSource(), 
+						document.getSection(), document.getNotes(), document.getType(), document.getDate().getTime());
+			} else {
+				executeStatement("INSERT INTO DOCUMENTS(ID, Title, Text, Coder, Author, Source, Section, Notes, Type, Date) "
+						+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", document.getId(), document.getTitle(), document.getText(), 
+						document.getCoder(), document.getAuthor(), document.getSource(), document.getSection(), document.getNotes(), 
+						document.getType(), document.getDate().getTime());
+			}
+		}
+		logChange("DOCUMENTS", document.getId(), "upsert");
+	}
+	
+	/**
+	 * Insert a new document with a plain INSERT. If the document ID is already taken in the database, e.g., by a 
+	 * document that another coder added in the meantime, the document is not saved and the conflict is reported, so 
+	 * that the other document is not overwritten.
+	 * 
+	 * @param document   Document to add to the DOCUMENTS table
+	 */
+	public void insertDocument(Document document) {
+		synchronized (this) {
+			boolean ownTransaction = beginTransaction();
+			try {
+				PreparedStatement preStatement;
+				if (isTextCompressed() == true) {
+					preStatement = prepareCached("INSERT INTO DOCUMENTS(ID, Title, Text, TextCompressed, Coder, Author, Source, "
+							+ "Section, Notes, Type, Date) VALUES (?, ?, '', ?, ?, ?, ?, ?, ?, ?, ?)");
+					bind(preStatement, new Object[] {document.getId(), document.getTitle(), TextCache.deflate(document.getText()), 
+							document.getCoder(), document.getAuthor(), document.getSource(), document.getSection(), 
+							document.getNotes(), document.getType(), document.getDate().getTime()});
+				} else {
+					preStatement = prepareCached("INSERT INTO DOCUMENTS(ID, Title, Text, Coder, Author, Source, Section, Notes, "
+							+ "Type, Date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+					bind(preStatement, new Object[] {document.getId(), document.getTitle(), document.getText(), 
+							document.getCoder(), document.getAuthor(), document.getSource(), document.getSection(), 
+							document.getNotes(), document.getType(), document.getDate().getTime()});
+				}
+				try {
+					preStatement.executeUpdate();
+				} catch (SQLException e) {
+					if (isConstraintViolation(e) == false) {
+						throw e;
+					}
+					// only the failed INSERT is undone, so the rest of the transaction can be committed
+					reportConflict("Document " + document.getId() + " could not be saved because its ID is already used "
+							+ "in the database.", e);
+					endTransaction(ownTransaction);
+					return;
+				}
+				logChange("DOCUMENTS", document.getId(), "upsert");
+				endTransaction(ownTransaction);
+			} catch (SQLException e) {
+				failTransaction(ownTransaction, e);
+			}
+		}
 	}
 	
 	/**
-	 * Add multiple new documents to the DOCUMENTS table of the database.
+	 * Add multiple new documents to the DOCUMENTS table of the database. The documents are inserted in batches of
+	 * {@link #getBatchSize()} rows within a single transaction.
 	 * 
 	 * @param al An array list of Document objects to be inserted into the DOCUMENTS table
 	 */
-	public void insertDocuments(ArrayList<Document> al) {
+	public synchronized void insertDocuments(ArrayList<Document> al) {
 		if (al.size() > 0) {
-			String query = "INSERT INTO DOCUMENTS(ID, Title, Text, Coder, Author, Source, Section, Notes, Type, Date) VALUES ";
-			for (int i = 0; i < al.size(); i++) {
-				query = query + "(" + al.get(i).getId() + ", '" + al.get(i).getTitle().replaceAll("'", "''") + "', '" 
-						+ al.get(i).getText().replaceAll("'", "''") + "', " + al.get(i).getCoder() + ", '" 
-						+ al.get(i).getAuthor().replaceAll("'", "''")  + "', '" + al.get(i).getSource().replaceAll("'", "''")  + "', '" 
-						+ al.get(i).getSection().replaceAll("'", "''") + "', '" + al.get(i).getNotes().replaceAll("'", "''") + "', '" 
-						+ al.get(i).getType().replaceAll("'", "''") + "', " + al.get(i).getDate().getTime() + ")";
-				if (i < al.size() - 1) {
-					query = query + ", ";
+			boolean compressed = isTextCompressed();
+			String myStatement;
+			if (compressed == true) {
+				myStatement = "INSERT INTO DOCUMENTS(ID, Title, Text, Coder, Author, Source, Section, Notes, Type, Date, "
+						+ "TextCompressed) VALUES (?, ?, '', ?, ?, ?, ?, ?, ?, ?, ?)";
+			} else {
+				myStatement = "INSERT INTO DOCUMENTS(ID, Title, Text, Coder, Author, Source, Section, Notes, Type, Date) "
+						+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+			}
+			boolean ownTransaction = beginTransaction();
+			try {
+				PreparedStatement preStatement = (PreparedStatement) connection.prepareStatement(myStatement);
+				int pending = 0;
+				ArrayList<Integer> ids = new ArrayList<Integer>(al.size());
+				for (int i = 0; i < al.size(); i++) {
+					Document document = al.get(i);
+					ids.add(document.getId());
+					int offset = 0;
+					preStatement.setInt(1, document.getId());
+					preStatement.setString(2, document.getTitle());
+					if (compressed == true) {
+						offset = -1;
+						preStatement.setBytes(10, TextCache.deflate(document.getText()));
+					} else {
+						preStatement.setString(3, document.getText());
+					}
+					preStatement.setInt(4 + offset, document.getCoder());
+					preStatement.setString(5 + offset, document.getAuthor());
+					preStatement.setString(6 + offset, document.getSource());
+					preStatement.setString(7 + offset, document.getSection());
+					preStatement.setString(8 + offset, document.getNotes());
+					preStatement.setString(9 + offset, document.getType());
+					preStatement.setLong(10 + offset, document.getDate().getTime());
+					preStatement.addBatch();
+					pending++;
+					if (pending == batchSize) {
+						preStatement.executeBatch();
+						pending = 0;
+					}
 				}
+				preStatement.executeBatch();
+				preStatement.close();
+				logChanges("DOCUMENTS", ids, "upsert");
+				endTransaction(ownTransaction);
+			} catch (SQLException e) {
+				failTransaction(ownTransaction, e);
 			}
-			executeStatement(query);
 		}
 	}
 	
@@ -279,54 +432,49 @@ public class SqlConnection {
 	 * @param regex   Regular expression to add to/update in the REGEXES table
 	 */
 	public void upsertRegex(Regex regex) {
-		executeStatement("REPLACE INTO REGEXES(Label, Red, Green, Blue) "
-				+ "VALUES ('" + regex.getLabel() + "', " + regex.getColor().getRed() + ", " + regex.getColor().getGreen()
-				+ ", " + regex.getColor().getBlue() + ")");
+		executeStatement("REPLACE INTO REGEXES(Label, Red, Green, Blue) VALUES (?, ?, ?, ?)", regex.getLabel(), 
+				regex.getColor().getRed(), regex.getColor().getGreen(), regex.getColor().getBlue());
 	}
 	
+	/**
+	 * Insert or update a statement type and its variables in one transaction. Existing rows are updated in place 
+	 * rather than replaced because the variables and values refer to them.
+	 * 
+	 * @param statementType  The statement type
+	 */
 	public void upsertStatementType(StatementType statementType) {
-		executeStatement("REPLACE INTO STATEMENTTYPES(ID, Label, Red, Green, Blue) "
-				+ "VALUES (" + statementType.getId() + ", '" + statementType.getLabel() + "', " 
-				+ statementType.getColor().getRed() + ", " + statementType.getColor().getGreen() + ", " 
-				+ statementType.getColor().getBlue() + ")");
-		Iterator<String> keyIterator = statementType.getVariables().keySet().iterator();
-        while (keyIterator.hasNext()){
-    		String key = keyIterator.next();
-    		String value = statementType.getVariables().get(key);
-    		String query = "SELECT ID FROM VARIABLES WHERE Variable = '" + key + "' AND StatementTypeId = " + statementType.getId();
-    		int variableId = -1;
-    		try {
-        		PreparedStatement preStatement = (PreparedStatement) connection.prepareStatement(query);
-        		ResultSet result;
-    			result = preStatement.executeQuery();
-				if (result.next()) {
-					do {
-						variableId = result.getInt(1);
-					} while (result.next());
+		synchronized (this) {
+			boolean ownTransaction = beginTransaction();
+			try {
+				PreparedStatement typeStatement = prepareCached("INSERT INTO STATEMENTTYPES (ID, Label, Red, Green, Blue) "
+						+ "VALUES (?, ?, ?, ?, ?)" + upsertClause("ID", "Label", "Red", "Green", "Blue"));
+				bind(typeStatement, new Object[] {statementType.getId(), statementType.getLabel(), 
+						statementType.getColor().getRed(), statementType.getColor().getGreen(), statementType.getColor().getBlue()});
+				typeStatement.executeUpdate();
+				
+				PreparedStatement variableBatch = prepareCached("INSERT INTO VARIABLES (Variable, DataType, StatementTypeId) "
+						+ "VALUES (?, ?, ?)" + upsertClause("Variable, StatementTypeId", "DataType"));
+				Iterator<String> keyIterator = statementType.getVariables().keySet().iterator();
+				while (keyIterator.hasNext()) {
+					String key = keyIterator.next();
+					bind(variableBatch, new Object[] {key, statementType.getVariables().get(key), statementType.getId()});
+					variableBatch.addBatch();
 				}
-	    		result.close();
-	    		preStatement.close();
+				variableBatch.executeBatch();
+				endTransaction(ownTransaction);
 			} catch (SQLException e) {
-				e.printStackTrace();
+				failTransaction(ownTransaction, e);
 			}
-    		
-    		if (variableId == -1) {
-    			executeStatement("INSERT INTO VARIABLES(Variable, DataType, StatementTypeId) VALUES ('"
-        				+ key + "', '" + value + "', " + statementType.getId() + ")");
-    		} else {
-    			executeStatement("REPLACE INTO VARIABLES(ID, Variable, DataType, StatementTypeId) VALUES (" + variableId + ", '" 
-        				+ key + "', '" + value + "', " + statementType.getId() + ")");
-    		}
-    		
-    	}
+			variableIdCache.remove(statementType.getId());
+		}
 	}
 	
 	/**
 	 * @param sl   StatementLink to add to/update in the STATEMENTLINKS table
 	 */
 	public void upsertStatementLink(StatementLink sl) {
-		executeStatement("REPLACE INTO STATEMENTLINKS(ID, SourceId, TargetId) "
-				+ "VALUES (" + sl.getId() + ", " + sl.getSourceId() + ", " + sl.getTargetId() + ")");
+		executeStatement("REPLACE INTO STATEMENTLINKS(ID, SourceId, TargetId) VALUES (?, ?, ?)", 
+				sl.getId(), sl.getSourceId(), sl.getTargetId());
 	}
 	
 	/*
@@ -391,12 +539,13 @@ public class SqlConnection {
 	*/
 	
 	/**
-	 * @return     Array list of all documents in the SQL database.
+	 * @param connection  The connection to read from
+	 * @return            Array list of all documents in the SQL database.
 	 */
-	private ArrayList<Document> getAllDocuments() {
+	private ArrayList<Document> getAllDocuments(Connection connection) {
 		ArrayList<Document> al = new ArrayList<Document>();
 		try {
-			String myQuery = "SELECT * FROM DOCUMENTS";
+			String myQuery = "SELECT ID, Title, Coder, Author, Source, Section, Notes, Type, Date FROM DOCUMENTS";
 			PreparedStatement preStatement = (PreparedStatement) connection.prepareStatement(myQuery);
 			ResultSet result = preStatement.executeQuery();
 			if (result.next()) {
@@ -407,7 +556,7 @@ public class SqlConnection {
 					Document document = new Document(
 							id, 
 							result.getString("Title"), 
-							result.getString("Text"), 
+							null, 
 							result.getInt("Coder"), 
 							result.getString("Author"), 
 							result.getString("Source"), 
@@ -416,6 +565,7 @@ public class SqlConnection {
 							result.getString("Type"), 
 							date
 					);
+					document.setTextCache(textCache);
 					al.add(document);
 				} while (result.next());
 			}
@@ -429,9 +579,10 @@ public class SqlConnection {
 	}
 
 	/**
-	 * @return     Array list of all regular expressions in the SQL database.
+	 * @param connection  The connection to read from
+	 * @return            Array list of all regular expressions in the SQL database.
 	 */
-	private ArrayList<Regex> getAllRegexes() {
+	private ArrayList<Regex> getAllRegexes(Connection connection) {
 		ArrayList<Regex> al = new ArrayList<Regex>();
 		try {
 			String myQuery = "SELECT * FROM REGEXES";
@@ -454,9 +605,10 @@ public class SqlConnection {
 	}
 
 	/**
-	 * @return     Array list of all statement links in the SQL database.
+	 * @param connection  The connection to read from
+	 * @return            Array list of all statement links in the SQL database.
 	 */
-	private ArrayList<StatementLink> getAllStatementLinks() {
+	private ArrayList<StatementLink> getAllStatementLinks(Connection connection) {
 		ArrayList<StatementLink> al = new ArrayList<StatementLink>();
 		try {
 			String myQuery = "SELECT * FROM STATEMENTLINKS";
@@ -478,9 +630,10 @@ public class SqlConnection {
 	}
 
 	/**
-	 * @return     Array list of all coder relations in the SQL database.
+	 * @param connection  The connection to read from
+	 * @return            Array list of all coder relations in the SQL database.
 	 */
-	private ArrayList<CoderRelation> getAllCoderRelations() {
+	private ArrayList<CoderRelation> getAllCoderRelations(Connection connection) {
 		ArrayList<CoderRelation> al = new ArrayList<CoderRelation>();
 		try {
 			String myQuery = "SELECT * FROM CODERRELATIONS";
@@ -535,38 +688,69 @@ public class SqlConnection {
 		try {
 			int statementTypeId = av.getStatementTypeId();
 			String variable = av.getVariable();
-			int variableId = (int) executeQueryForObject("SELECT ID FROM VARIABLES WHERE StatementTypeID = " + statementTypeId + 
-					" AND Variable = '" + variable + "'");
+			int variableId = (int) executeQueryForObject("SELECT ID FROM VARIABLES WHERE StatementTypeID = ? AND Variable = ?", 
+					statementTypeId, variable);
 
 			executeStatement("REPLACE INTO ATTRIBUTES(ID, VariableId, Value, Red, Green, Blue, Type, Alias, Notes, ChildOf) "
-					+ "VALUES (" + av.getId() + ", " + variableId + ", '" + av.getValue().replaceAll("'", "''") + "', " 
-					+ av.getColor().getRed() + ", " + av.getColor().getGreen() + ", " + av.getColor().getBlue()	+ ", '" 
-					+ av.getType().replaceAll("'", "''") + "', '" + av.getAlias().replaceAll("'", "''") + "', '" 
-					+ av.getNotes().replaceAll("'", "''") + "', '" + av.getChildOf().replaceAll("'", "''") + "')");
+					+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", av.getId(), variableId, av.getValue(), av.getColor().getRed(), 
+					av.getColor().getGreen(), av.getColor().getBlue(), av.getType(), av.getAlias(), av.getNotes(), av.getChildOf());
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
 	}
 
 	/**
-	 * Add multiple new attribute vectors to the ATTRIBUTES table of the database.
+	 * Add multiple new attribute vectors to the ATTRIBUTES table of the database. The variable IDs are looked up
+	 * once per statement type, and the rows are inserted in batches of {@link #getBatchSize()} rows within a
+	 * single transaction.
 	 * 
 	 * @param al An array list of AttributeVector objects to be inserted into the ATTRIBUTES table
 	 */
-	public void insertAttributeVectors(ArrayList<AttributeVector> al) {
+	public synchronized void insertAttributeVectors(ArrayList<AttributeVector> al) {
 		if (al.size() > 0) {
-			String query = "INSERT INTO ATTRIBUTES(ID, VariableId, Value, Red, Green, Blue, Type, Alias, Notes, ChildOf) VALUES ";
-			for (int i = 0; i < al.size(); i++) {
-				query = query + "(" + al.get(i).getId() + ", (SELECT ID FROM VARIABLES WHERE StatementTypeId = " + al.get(i).getStatementTypeId() 
-						+ " AND Variable = '" + al.get(i).getVariable() + "'), '" + al.get(i).getValue().replaceAll("'", "''") + "', " 
-						+ al.get(i).getColor().getRed() + ", " + al.get(i).getColor().getGreen() + ", " + al.get(i).getColor().getBlue() + ", '" 
-						+ al.get(i).getType().replaceAll("'", "''") + "', '" + al.get(i).getAlias().replaceAll("'", "''") + "', '" 
-						+ al.get(i).getNotes().replaceAll("'", "''") + "', '" + al.get(i).getChildOf().replaceAll("'", "''") + "')";
-				if (i < al.size() - 1) {
-					query = query + ", ";
+			String myStatement = "INSERT INTO ATTRIBUTES(ID, VariableId, Value, Red, Green, Blue, Type, Alias, Notes, ChildOf) "
+					+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+			HashMap<Integer, HashMap<String, Integer>> variableIds = new HashMap<Integer, HashMap<String, Integer>>();
+			boolean ownTransaction = beginTransaction();
+			try {
+				PreparedStatement preStatement = (PreparedStatement) connection.prepareStatement(myStatement);
+				int pending = 0;
+				for (int i = 0; i < al.size(); i++) {
+					AttributeVector av = al.get(i);
+					HashMap<String, Integer> ids = variableIds.get(av.getStatementTypeId());
+					if (ids == null) {
+						ids = getVariableIds(av.getStatementTypeId(), null);
+						variableIds.put(av.getStatementTypeId(), ids);
+					}
+					Integer variableId = ids.get(av.getVariable());
+					if (variableId == null) {
+						System.err.println("Variable '" + av.getVariable() + "' not found in statement type " 
+								+ av.getStatementTypeId() + ". Attribute '" + av.getValue() + "' is skipped.");
+						continue;
+					}
+					preStatement.setInt(1, av.getId());
+					preStatement.setInt(2, variableId);
+					preStatement.setString(3, av.getValue());
+					preStatement.setInt(4, av.getColor().getRed());
+					preStatement.setInt(5, av.getColor().getGreen());
+					preStatement.setInt(6, av.getColor().getBlue());
+					preStatement.setString(7, av.getType());
+					preStatement.setString(8, av.getAlias());
+					preStatement.setString(9, av.getNotes());
+					preStatement.setString(10, av.getChildOf());
+					preStatement.addBatch();
+					pending++;
+					if (pending == batchSize) {
+						preStatement.executeBatch();
+						pending = 0;
+					}
 				}
+				preStatement.executeBatch();
+				preStatement.close();
+				endTransaction(ownTransaction);
+			} catch (SQLException e) {
+				failTransaction(ownTransaction, e);
 			}
-			executeStatement(query);
 		}
 	}
 	
@@ -576,7 +760,7 @@ public class SqlConnection {
 	 * @param attributeVectorId  The ID of the attribute vector
 	 */
 	void deleteAttributeVector(int attributeVectorId) {
-		executeStatement("DELETE FROM ATTRIBUTES WHERE ID = " + attributeVectorId);
+		executeStatement("DELETE FROM ATTRIBUTES WHERE ID = ?", attributeVectorId);
 	}
 	
 	/**
@@ -586,7 +770,7 @@ public class SqlConnection {
 	 * @param color  New color of the attribute vector
 	 */
 	public void updateAttributeColor(int id, Color color) {
-		executeStatement("UPDATE ATTRIBUTES SET Red = " + color.getRed() + ", Green = " + color.getGreen() + ", Blue = " + color.getBlue() + " WHERE ID = " + id);
+		executeStatement("UPDATE ATTRIBUTES SET Red = ?, Green = ?, Blue = ? WHERE ID = ?", color.getRed(), color.getGreen(), color.getBlue(), id);
 	}
 	
 	/**
@@ -597,15 +781,16 @@ public class SqlConnection {
 	 * @param newValue  New value of the attribute
 	 */
 	public void updateAttribute(int id, String attribute, String newValue) {
-		executeStatement("UPDATE ATTRIBUTES SET " + attribute + " = '" + newValue.replaceAll("'", "''") + "' WHERE ID = " + id);
+		executeStatement("UPDATE ATTRIBUTES SET " + attribute + " = ? WHERE ID = ?", newValue, id);
 	}
 	
 	/**
 	 * Read all meta-variables/attributes from SQL database and return them as an array list of attribute vectors.
 	 * 
+	 * @param connection  The connection to read from
 	 * @return array list of attribute vectors, containing attributes for the statement values
 	 */
-	private ArrayList<AttributeVector> getAllAttributes() {
+	private ArrayList<AttributeVector> getAllAttributes(Connection connection) {
 		ArrayList<AttributeVector> al = new ArrayList<AttributeVector>();
 		try {
 			String myQuery = "SELECT ATTRIBUTES.*, VARIABLES.StatementTypeId, VARIABLES.Variable FROM ATTRIBUTES LEFT JOIN VARIABLES ON ATTRIBUTES.VariableId = VARIABLES.ID";
@@ -645,9 +830,10 @@ public class SqlConnection {
 	}
 	
 	/**
-	 * @return     Array list of all settings in the SQL database.
+	 * @param connection  The connection to read from
+	 * @return            Array list of all settings in the SQL database.
 	 */
-	private HashMap<String, String> getAllSettings() {
+	private HashMap<String, String> getAllSettings(Connection connection) {
 		HashMap<String, String> map = new HashMap<String, String>();
 		try {
 			String myQuery = "SELECT * FROM SETTINGS";
@@ -666,50 +852,31 @@ public class SqlConnection {
 		return map;
 	}
 	
+	/**
+	 * Insert or update the value of a variable in a statement.
+	 * 
+	 * @param value            The new value
+	 * @param statementId      The ID of the statement
+	 * @param variableName     The name of the variable
+	 * @param statementTypeId  The ID of the statement type of the statement
+	 * @param dataType         The data type of the variable, e.g., "short text"
+	 * @throws Exception
+	 */
 	public void upsertVariableContent(Object value, int statementId, String variableName, int statementTypeId, String dataType) throws Exception {
-		String table = "";
-		String ap = "";
-		if (dataType.equals("integer")) {
-			table = "DATAINTEGER";
-		} else if (dataType.equals("boolean")) {
-			table = "DATABOOLEAN";
-		} else if (dataType.equals("short text")) {
-			table = "DATASHORTTEXT";
-			ap = "'";
-			value = ((String) value).replaceAll("'", "''");
-		} else if (dataType.equals("long text")) {
-			table = "DATALONGTEXT";
-			ap = "'";
-			value = ((String) value).replaceAll("'", "''");
+		Integer variableId = getCachedVariableIds(statementTypeId).get(variableName);
+		if (variableId == null) {
+			throw new SQLException("Variable '" + variableName + "' not found in statement type " + statementTypeId + ".");
 		}
-		
-		// get ID of data entry to update
-		int dataId = (int) executeQueryForObject("SELECT ID FROM " + table + " WHERE VariableId = " 
-				+ "(SELECT ID FROM VARIABLES WHERE StatementTypeId = " + statementTypeId + " AND Variable = '" 
-				+ variableName + "') AND StatementId = " + statementId);
-
-		// then replace entry
-		String myStatement = "";
-		if (dataId == -1) {
-			myStatement = "INSERT INTO " + table + "(StatementId, VariableId, StatementTypeId, Value) "
-					+ "VALUES (" + statementId + ", (SELECT ID FROM VARIABLES WHERE StatementTypeId = " 
-					+ statementTypeId + " AND Variable = '" + variableName + "')" + ", " + statementTypeId 
-					+ ", " + ap + value + ap + ")";
-		} else {
-			myStatement = "REPLACE INTO " + table + "(ID, StatementId, VariableId, StatementTypeId, Value) "
-					+ "VALUES (" + dataId + ", " + statementId + ", (SELECT ID FROM VARIABLES WHERE StatementTypeId = " 
-					+ statementTypeId + " AND Variable = '" + variableName + "')" + ", " + statementTypeId 
-					+ ", " + ap + value + ap + ")";
-		}
-		executeStatement(myStatement);
+		executeStatement("INSERT INTO DATA" + getTableExtension(dataType) + " (StatementId, VariableId, StatementTypeId, Value) "
+				+ "VALUES (?, ?, ?, ?)" + upsertClause("StatementId, VariableId", "StatementTypeId", "Value"), 
+				statementId, variableId, statementTypeId, value);
+		logChange("STATEMENTS", statementId, "upsert");
 	}
 	
 	public void addCoder(Coder coder) {
 		// insert the coder
-		String coderStatement = "INSERT INTO CODERS(ID, Name, Red, Green, Blue, Password) VALUES(" + coder.getId() + ", '" 
-				+ coder.getName() + "', " + coder.getColor().getRed() + ", " + coder.getColor().getGreen() + ", " 
-				+ coder.getColor().getBlue() + ", '')";
-		executeStatement(coderStatement);
+		executeStatement("INSERT INTO CODERS(ID, Name, Red, Green, Blue, Password) VALUES(?, ?, ?, ?, ?, '')", coder.getId(), 
+				coder.getName(), coder.getColor().getRed(), coder.getColor().getGreen(), coder.getColor().getBlue());
 		
 		// insert the permissions of the coder
 		Iterator<String> keyIterator = coder.getPermissions().keySet().iterator();
@@ -720,9 +887,7 @@ public class SqlConnection {
     		if (perm == true) {
     			permInt = 1;
     		}
-    		String statement = "INSERT INTO CODERPERMISSIONS(Coder, Type, Permission) VALUES("
-    				+ coder.getId() + ", '" + key + "', " + permInt + ")";
-    		executeStatement(statement);
+    		executeStatement("INSERT INTO CODERPERMISSIONS(Coder, Type, Permission) VALUES(?, ?, ?)", coder.getId(), key, permInt);
         }
         
         // insert coder relations
@@ -731,22 +896,22 @@ public class SqlConnection {
         	int id = (int) coderIds.get(i);
         	if (id != coder.getId()) {
         		String statement = "INSERT INTO CODERRELATIONS(Coder, OtherCoder, ViewStatements, EditStatements, "
-        				+ "ViewDocuments, EditDocuments) VALUES(" + id + ", " + coder.getId() + ", 1, 1, 1, 1)";
-        		executeStatement(statement);
-        		statement = "INSERT INTO CODERRELATIONS(Coder, OtherCoder, ViewStatements, EditStatements, "
-        				+ "ViewDocuments, EditDocuments) VALUES(" + coder.getId() + ", " + id + ", 1, 1, 1, 1)";
-        		executeStatement(statement);
+        				+ "ViewDocuments, EditDocuments) VALUES(?, ?, 1, 1, 1, 1)";
+        		executeStatement(statement, id, coder.getId());
+        		executeStatement(statement, coder.getId(), id);
         	}
         }
 	}
 	
 	public void removeDocument(int documentId) {
-		executeStatement("DELETE FROM DATABOOLEAN WHERE StatementId IN (SELECT ID FROM STATEMENTS WHERE DocumentId = " + documentId + ")");
-		executeStatement("DELETE FROM DATAINTEGER WHERE StatementId IN (SELECT ID FROM STATEMENTS WHERE DocumentId = " + documentId + ")");
-		executeStatement("DELETE FROM DATASHORTTEXT WHERE StatementId IN (SELECT ID FROM STATEMENTS WHERE DocumentId = " + documentId + ")");
-		executeStatement("DELETE FROM DATALONGTEXT WHERE StatementId IN (SELECT ID FROM STATEMENTS WHERE DocumentId = " + documentId + ")");
-		executeStatement("DELETE FROM STATEMENTS WHERE DocumentId = " + documentId);
-		executeStatement("DELETE FROM DOCUMENTS WHERE ID = " + documentId);
+		executeStatement("DELETE FROM DATABOOLEAN WHERE StatementId IN (SELECT ID FROM STATEMENTS WHERE DocumentId = ?)", documentId);
+		executeStatement("DELETE FROM DATAINTEGER WHERE StatementId IN (SELECT ID FROM STATEMENTS WHERE DocumentId = ?)", documentId);
+		executeStatement("DELETE FROM DATASHORTTEXT WHERE StatementId IN (SELECT ID FROM STATEMENTS WHERE DocumentId = ?)", documentId);
+		executeStatement("DELETE FROM DATALONGTEXT WHERE StatementId IN (SELECT ID FROM STATEMENTS WHERE DocumentId = ?)", documentId);
+		executeStatement("DELETE FROM STATEMENTS WHERE DocumentId = ?", documentId);
+		executeStatement("DELETE FROM DOCUMENTS WHERE ID = ?", documentId);
+		textCache.remove(documentId);
+		logChange("DOCUMENTS", documentId, "delete");
 	}
 	
 	public void removeDocuments(ArrayList<Integer> documentIds) {
@@ -766,17 +931,13 @@ public class SqlConnection {
 		executeStatement("DELETE FROM DATALONGTEXT WHERE StatementId IN (SELECT ID FROM STATEMENTS WHERE DocumentId IN (" + ids + "))");
 		executeStatement("DELETE FROM STATEMENTS WHERE DocumentId IN (" + ids + ")");
 		executeStatement("DELETE FROM DOCUMENTS WHERE ID IN (" + ids + ")");
-		
-		// free up unused physical space in the database
-		if (dbtype.equals("mysql")) {
-			executeStatement("OPTIMIZE TABLE DATABOOLEAN");
-			executeStatement("OPTIMIZE TABLE DATAINTEGER");
-			executeStatement("OPTIMIZE TABLE DATASHORTTEXT");
-			executeStatement("OPTIMIZE TABLE DATALONGTEXT");
-			executeStatement("OPTIMIZE TABLE STATEMENTS");
-			executeStatement("OPTIMIZE TABLE DOCUMENTS");
-		} else if (dbtype.equals("sqlite")) {
-			executeStatement("VACUUM");
+		for (int i = 0; i < documentIds.size(); i++) {
+			textCache.remove(documentIds.get(i));
+		}
+		try {
+			logChanges("DOCUMENTS", documentIds, "delete");
+		} catch (SQLException e) {
+			reportError(e);
 		}
 	}
 	
@@ -786,398 +947,964 @@ public class SqlConnection {
 	 * @param documentIds  An array list of IDs of the documents to update
 	 * @param newDates  An array list of new dates to insert; same length and order as documentIds
 	 */
-	public void updateDocumentDates(ArrayList<Integer> documentIds, ArrayList<Date> newDates) {
+	public synchronized void updateDocumentDates(ArrayList<Integer> documentIds, ArrayList<Date> newDates) {
 		String myStatement = "UPDATE DOCUMENTS SET Date = ? WHERE ID = ?;";
+		boolean ownTransaction = beginTransaction();
 		try {
 			PreparedStatement preStatement = (PreparedStatement) connection.prepareStatement(myStatement);
-			connection.setAutoCommit(false);
 			for (int i = 0; i < documentIds.size(); i++) {
 				preStatement.setLong(1, newDates.get(i).getTime());
 				preStatement.setInt(2, documentIds.get(i));
 				preStatement.addBatch();
 			}
 			preStatement.executeBatch();
-			connection.commit();
-			preStatement.clearBatch();
 			preStatement.close();
-			connection.setAutoCommit(true);
+			logChanges("DOCUMENTS", documentIds, "upsert");
+			endTransaction(ownTransaction);
 		} catch (SQLException e) {
-			JOptionPane.showMessageDialog(Dna.dna.gui, 
-					"Database access could not be executed properly. Report this problem along with the \n "
-					+ "error log if you can see a systematic pattern here. Also, reload your file.");
-			e.printStackTrace();
+			failTransaction(ownTransaction, e);
 		}
 	}
 	
 	public void removeCoder(int id) {
-		executeStatement("DELETE FROM DATABOOLEAN WHERE StatementId IN (SELECT ID FROM STATEMENTS WHERE Coder = " + id + ")");
-		executeStatement("DELETE FROM DATAINTEGER WHERE StatementId IN (SELECT ID FROM STATEMENTS WHERE Coder = " + id + ")");
-		executeStatement("DELETE FROM DATASHORTTEXT WHERE StatementId IN (SELECT ID FROM STATEMENTS WHERE Coder = " + id + ")");
-		executeStatement("DELETE FROM DATALONGTEXT WHERE StatementId IN (SELECT ID FROM STATEMENTS WHERE Coder = " + id + ")");
-		executeStatement("DELETE FROM STATEMENTS WHERE Coder = " + id);
-		executeStatement("DELETE FROM DOCUMENTS WHERE Coder = " + id);
-		executeStatement("DELETE FROM CODERRELATIONS WHERE OtherCoder = " + id + " OR Coder = " + id);
-		executeStatement("DELETE FROM CODERPERMISSIONS WHERE Coder = " + id);
-		executeStatement("DELETE FROM CODERS WHERE ID = " + id);
+		executeStatement("DELETE FROM DATABOOLEAN WHERE StatementId IN (SELECT ID FROM STATEMENTS WHERE Coder = ?)", id);
+		executeStatement("DELETE FROM DATAINTEGER WHERE StatementId IN (SELECT ID FROM STATEMENTS WHERE Coder = ?)", id);
+		executeStatement("DELETE FROM DATASHORTTEXT WHERE StatementId IN (SELECT ID FROM STATEMENTS WHERE Coder = ?)", id);
+		executeStatement("DELETE FROM DATALONGTEXT WHERE StatementId IN (SELECT ID FROM STATEMENTS WHERE Coder = ?)", id);
+		executeStatement("DELETE FROM STATEMENTS WHERE Coder = ?", id);
+		executeStatement("DELETE FROM DOCUMENTS WHERE Coder = ?", id);
+		executeStatement("DELETE FROM CODERRELATIONS WHERE OtherCoder = ? OR Coder = ?", id, id);
+		executeStatement("DELETE FROM CODERPERMISSIONS WHERE Coder = ?", id);
+		executeStatement("DELETE FROM CODERS WHERE ID = ?", id);
 	}
 
 	public void removeRegex(String label) {
-		executeStatement("DELETE FROM REGEXES WHERE Label = '" + label + "'");
+		executeStatement("DELETE FROM REGEXES WHERE Label = ?", label);
 	}
 	
 	public void removeStatement(int statementId) {
-		executeStatement("DELETE FROM DATABOOLEAN WHERE StatementId = " + statementId);
-		executeStatement("DELETE FROM DATAINTEGER WHERE StatementId = " + statementId);
-		executeStatement("DELETE FROM DATASHORTTEXT WHERE StatementId = " + statementId);
-		executeStatement("DELETE FROM DATALONGTEXT WHERE StatementId = " + statementId);
-		executeStatement("DELETE FROM STATEMENTS WHERE ID = " + statementId);
+		executeStatement("DELETE FROM DATABOOLEAN WHERE StatementId = ?", statementId);
+		executeStatement("DELETE FROM DATAINTEGER WHERE StatementId = ?", statementId);
+		executeStatement("DELETE FROM DATASHORTTEXT WHERE StatementId = ?", statementId);
+		executeStatement("DELETE FROM DATALONGTEXT WHERE StatementId = ?", statementId);
+		executeStatement("DELETE FROM STATEMENTS WHERE ID = ?", statementId);
+		logChange("STATEMENTS", statementId, "delete");
 	}
 	
-	public void addStatements(ArrayList<Statement> al) {
+	/**
+	 * Add multiple new statements and their values to the database. The variable IDs and data types are looked up
+	 * once per statement type, and the rows are inserted in batches of {@link #getBatchSize()} rows within a
+	 * single transaction.
+	 * 
+	 * @param al  An array list of Statement objects to be inserted
+	 */
+	public synchronized void addStatements(ArrayList<Statement> al) {
 		if (al.size() > 0) {
-			
-			class Tuple implements Comparable<Tuple> {
-				int statementTypeId;
-				String variable;
-				public Tuple(int statementTypeId, String variable) {
-					this.statementTypeId = statementTypeId;
-					this.variable = variable;
-				}
-
-				// how should entries be sorted in a list or table?
-				public int compareTo(Tuple t) {
-					if (((Integer) this.statementTypeId).compareTo(t.statementTypeId) < 0) {
-						return -1;
-					} else if (((Integer) this.statementTypeId).compareTo(t.statementTypeId) > 0) {
-						return 1;
-					} else {
-						if (this.variable.compareTo(t.variable) < 0) {
-							return -1;
-						} else if (this.variable.compareTo(t.variable) > 0) {
-							return 1;
+			HashMap<Integer, HashMap<String, Integer>> variableIds = new HashMap<Integer, HashMap<String, Integer>>();
+			HashMap<Integer, HashMap<String, String>> dataTypes = new HashMap<Integer, HashMap<String, String>>();
+			String valueColumns = " (StatementId, VariableId, StatementTypeId, Value) VALUES (?, ?, ?, ?)";
+			boolean ownTransaction = beginTransaction();
+			try {
+				PreparedStatement statementsBatch = (PreparedStatement) connection.prepareStatement(
+						"INSERT INTO STATEMENTS (ID, StatementTypeId, DocumentId, Start, Stop, Coder) VALUES (?, ?, ?, ?, ?, ?)");
+				PreparedStatement shortTextBatch = (PreparedStatement) connection.prepareStatement("INSERT INTO DATASHORTTEXT" + valueColumns);
+				PreparedStatement longTextBatch = (PreparedStatement) connection.prepareStatement("INSERT INTO DATALONGTEXT" + valueColumns);
+				PreparedStatement booleanBatch = (PreparedStatement) connection.prepareStatement("INSERT INTO DATABOOLEAN" + valueColumns);
+				PreparedStatement integerBatch = (PreparedStatement) connection.prepareStatement("INSERT INTO DATAINTEGER" + valueColumns);
+				PreparedStatement[] batches = new PreparedStatement[] {statementsBatch, shortTextBatch, longTextBatch, booleanBatch, integerBatch};
+				int pending = 0;
+				ArrayList<Integer> statementIds = new ArrayList<Integer>(al.size());
+				for (int i = 0; i < al.size(); i++) {
+					Statement statement = al.get(i);
+					int statementId = statement.getId();
+					statementIds.add(statementId);
+					int statementTypeId = statement.getStatementTypeId();
+					statementsBatch.setInt(1, statementId);
+					statementsBatch.setInt(2, statementTypeId);
+					statementsBatch.setInt(3, statement.getDocumentId());
+					statementsBatch.setInt(4, statement.getStart());
+					statementsBatch.setInt(5, statement.getStop());
+					statementsBatch.setInt(6, statement.getCoder());
+					statementsBatch.addBatch();
+					pending++;
+					
+					HashMap<String, Integer> ids = variableIds.get(statementTypeId);
+					HashMap<String, String> types = dataTypes.get(statementTypeId);
+					if (ids == null) {
+						types = new HashMap<String, String>();
+						ids = getVariableIds(statementTypeId, types);
+						variableIds.put(statementTypeId, ids);
+						dataTypes.put(statementTypeId, types);
+					}
+					
+					Iterator<String> keyIterator = statement.getValues().keySet().iterator();
+					while (keyIterator.hasNext()) {
+						String key = keyIterator.next();
+						Object object = statement.getValues().get(key);
+						String type = types.get(key);
+						PreparedStatement batch;
+						if (type == null) {
+							System.err.println("Variable '" + key + "' not found in statement type " + statementTypeId 
+									+ ". Its value in statement " + statementId + " is skipped.");
+							continue;
+						} else if (type.equals("short text")) {
+							batch = shortTextBatch;
+							batch.setString(4, (String) object);
+						} else if (type.equals("long text")) {
+							batch = longTextBatch;
+							batch.setString(4, (String) object);
+						} else if (type.equals("boolean")) {
+							batch = booleanBatch;
+							batch.setInt(4, (int) object);
+						} else if (type.equals("integer")) {
+							batch = integerBatch;
+							batch.setInt(4, (int) object);
 						} else {
-							return 0;
+							continue;
 						}
+						batch.setInt(1, statementId);
+						batch.setInt(2, ids.get(key));
+						batch.setInt(3, statementTypeId);
+						batch.addBatch();
+						pending++;
+					}
+					
+					// statements are always sent before their values because of the foreign keys in the data tables
+					if (pending >= batchSize || i == al.size() - 1) {
+						for (int j = 0; j < batches.length; j++) {
+							batches[j].executeBatch();
+						}
+						pending = 0;
 					}
 				}
-				
-				//necessary for sorting purposes
-				public boolean equals(Object o) {
-					if (o == null) return false;
-					if (this == o) return true;
-					if (getClass() != o.getClass()) return false;
-					return compareTo((Tuple) o) == 0;
-				}
-			}
-			
-			TreeMap<Tuple, String> map = new TreeMap<Tuple, String>();
-			try {
-				String myQuery = "SELECT Variable, DataType, StatementTypeId FROM VARIABLES";
-				PreparedStatement preStatement = (PreparedStatement) connection.prepareStatement(myQuery);
-				ResultSet result = preStatement.executeQuery();
-				if (result.next()) {
-					do {
-						map.put(new Tuple(result.getInt("StatementTypeId"), result.getString("Variable")), result.getString("DataType"));
-					} while (result.next());
+				for (int j = 0; j < batches.length; j++) {
+					batches[j].close();
 				}
-				result.close();
-				preStatement.close();
+				logChanges("STATEMENTS", statementIds, "upsert");
+				endTransaction(ownTransaction);
 			} catch (SQLException e) {
-				e.printStackTrace();
-			}
-			
-			String queryStatements = "INSERT INTO STATEMENTS (ID, StatementTypeId, DocumentId, Start, Stop, Coder) VALUES ";
-			String queryShortText = "INSERT INTO DATASHORTTEXT (StatementId, VariableId, StatementTypeId, Value) VALUES ";
-			String queryLongText = "INSERT INTO DATALONGTEXT (StatementId, VariableId, StatementTypeId, Value) VALUES ";
-			String queryBoolean = "INSERT INTO DATABOOLEAN (StatementId, VariableId, StatementTypeId, Value) VALUES ";
-			String queryInteger = "INSERT INTO DATAINTEGER (StatementId, VariableId, StatementTypeId, Value) VALUES ";
-			int statementId;
-			int statementTypeId;
-			int documentId;
-			int start;
-			int stop;
-			int coderId;
-			for (int i = 0; i < al.size(); i++) {
-				statementId = al.get(i).getId();
-				statementTypeId = al.get(i).getStatementTypeId();
-				documentId = al.get(i).getDocumentId();
-				start = al.get(i).getStart();
-				stop = al.get(i).getStop();
-				coderId = al.get(i).getCoder();
-				queryStatements = queryStatements + "(" + statementId + ", " + statementTypeId + ", " + documentId + ", " + start 
-						+ ", " + stop  + ", " + coderId + ")";
-				
-				Iterator<String> keyIterator = al.get(i).getValues().keySet().iterator();
-		        while (keyIterator.hasNext()){
-		    		String key = keyIterator.next();
-		    		Object object = al.get(i).getValues().get(key);
-		    		String type = map.get(new Tuple(statementTypeId, key));
-		    		if (type.equals("short text")) {
-		    			String myString = ((String) object).replaceAll("'", "''");
-		    			queryShortText = queryShortText + "(" + statementId + ", (SELECT ID FROM VARIABLES WHERE Variable = '" + key 
-			    				+ "' AND StatementTypeId = " + statementTypeId + "), " + statementTypeId + ", '" + myString + "'), ";
-		    		} else if (type.equals("long text")) {
-		    			String myString = ((String) object).replaceAll("'", "''");
-		    			queryLongText = queryLongText + "(" + statementId + ", (SELECT ID FROM VARIABLES WHERE Variable = '" + key 
-			    				+ "' AND StatementTypeId = " + statementTypeId + "), " + statementTypeId + ", '" + myString + "'), ";
-		    		} else if (type.equals("boolean")) {
-		    			queryBoolean = queryBoolean + "(" + statementId + ", (SELECT ID FROM VARIABLES WHERE Variable = '" + key 
-			    				+ "' AND StatementTypeId = " + statementTypeId + "), " + statementTypeId + ", " + (int) object + "), ";
-		    		} else if (type.equals("integer")) {
-		    			queryInteger = queryInteger + "(" + statementId + ", (SELECT ID FROM VARIABLES WHERE Variable = '" + key 
-			    				+ "' AND StatementTypeId = " + statementTypeId + "), " + statementTypeId + ", " + (int) object + "), ";
-		    		}
-		        }
-				if (i < al.size() - 1) {
-					queryStatements = queryStatements + ", ";
-				}
-			}
-			if (queryShortText.endsWith(", ")) {
-				queryShortText = queryShortText.substring(0, queryShortText.length() - 2);
-			}
-			if (queryLongText.endsWith(", ")) {
-				queryLongText = queryLongText.substring(0, queryLongText.length() - 2);
-			}
-			if (queryBoolean.endsWith(", ")) {
-				queryBoolean = queryBoolean.substring(0, queryBoolean.length() - 2);
-			}
-			if (queryInteger.endsWith(", ")) {
-				queryInteger = queryInteger.substring(0, queryInteger.length() - 2);
-			}
-			executeStatement(queryStatements);
-			if (!queryShortText.endsWith("VALUES ")) {
-				executeStatement(queryShortText);
-			}
-			if (!queryLongText.endsWith("VALUES ")) {
-				executeStatement(queryLongText);
-			}
-			if (!queryBoolean.endsWith("VALUES ")) {
-				executeStatement(queryBoolean);
-			}
-			if (!queryInteger.endsWith("VALUES ")) {
-				executeStatement(queryInteger);
+				failTransaction(ownTransaction, e);
 			}
 		}
 	}
 	
-	public void addStatement(Statement statement, LinkedHashMap<String, String> variables) {
-		executeStatement("INSERT INTO STATEMENTS(ID, StatementTypeId, DocumentId, Start, Stop, Coder) "
-				+ "VALUES (" + statement.getId() + ", " + statement.getStatementTypeId() + ", " + statement.getDocumentId() 
-				+ ", " + statement.getStart() + ", " + statement.getStop() + ", " + statement.getCoder() + ")");
-		
-		Iterator<String> keyIterator = statement.getValues().keySet().iterator();
-        while (keyIterator.hasNext()){
-    		String key = keyIterator.next();
-    		Object object = statement.getValues().get(key);
-    		String type = variables.get(key);
-			String tableExtension = null;
-			String ap = "";
-			if (type.equals("boolean")) {
-				tableExtension = "BOOLEAN";
-			} else if (type.equals("integer")) {
-    			tableExtension = "INTEGER";
-    		} else if (type.equals("short text")) {
-    			tableExtension = "SHORTTEXT";
-    			ap = "'";
-    			object = ((String) object).replaceAll("'", "''");
-    		} else if (type.equals("long text")) {
-    			tableExtension = "LONGTEXT";
-    			ap = "'";
-    			object = ((String) object).replaceAll("'", "''");
-    		}
-			
-			String myStatement = "INSERT INTO DATA" + tableExtension + " (StatementId, VariableId, StatementTypeId, Value) "
-					+ "VALUES (" + statement.getId() + ", " + "(SELECT ID FROM VARIABLES WHERE Variable = '" + key 
-					+ "' AND StatementTypeId = " + statement.getStatementTypeId() + "), " + statement.getStatementTypeId() + ", "  
-					+ ap + object + ap + ")";
-			executeStatement(myStatement);
-    	}
+	/**
+	 * Insert a new statement and all of its values in one transaction, with plain INSERTs. If the statement ID is 
+	 * already taken in the database, e.g., by a statement that another coder added in the meantime, the statement 
+	 * is not saved and the conflict is reported, so that the other statement is not overwritten.
+	 * 
+	 * @param statement       A Statement object.
+	 * @param variables       A LinkedHashMap as contained in a statement type.
+	 */
+	public void insertStatement(Statement statement, LinkedHashMap<String, String> variables) {
+		writeStatement(statement, variables, false);
 	}
 	
 	/**
+	 * Insert or update a statement and all of its values in one transaction, using native upserts keyed on the 
+	 * statement ID and on the (StatementId, VariableId) keys of the data tables.
+	 * 
 	 * @param statement       A Statement object.
 	 * @param variables       A LinkedHashMap as contained in a statement type.
 	 */
 	public void upsertStatement(Statement statement, LinkedHashMap<String, String> variables) {
-		executeStatement("REPLACE INTO STATEMENTS(ID, StatementTypeId, DocumentId, Start, Stop, Coder) "
-				+ "VALUES (" + statement.getId() + ", " + statement.getStatementTypeId() + ", " + statement.getDocumentId() 
-				+ ", " + statement.getStart() + ", " + statement.getStop() + ", " + statement.getCoder() + ")");
-		
-		Iterator<String> keyIterator = statement.getValues().keySet().iterator();
-        while (keyIterator.hasNext()){
-    		String key = keyIterator.next();
-    		Object object = statement.getValues().get(key);
-    		String type = variables.get(key);
-			String tableExtension = null;
-			String ap = "";
-			if (type.equals("boolean")) {
-				tableExtension = "BOOLEAN";
-			} else if (type.equals("integer")) {
-    			tableExtension = "INTEGER";
-    		} else if (type.equals("short text")) {
-    			tableExtension = "SHORTTEXT";
-    			ap = "'";
-    			object = ((String) object).replaceAll("'", "''");
-    		} else if (type.equals("long text")) {
-    			tableExtension = "LONGTEXT";
-    			ap = "'";
-    			object = ((String) object).replaceAll("'", "''");
-    		}
-			
-			int varid = -1;
-			int dataId = -1;
+		writeStatement(statement, variables, true);
+	}
+	
+	/**
+	 * Write a statement and its values, using batches of cached prepared statements and cached variable IDs.
+	 * 
+	 * @param statement       A Statement object.
+	 * @param variables       A LinkedHashMap as contained in a statement type.
+	 * @param upsert          true to update existing rows in place, false to insert new rows only
+	 */
+	private void writeStatement(Statement statement, LinkedHashMap<String, String> variables, boolean upsert) {
+		synchronized (this) {
+			boolean ownTransaction = beginTransaction();
 			try {
-				varid = (int) executeQueryForObject("SELECT ID FROM VARIABLES WHERE Variable = '" + key 
-						+ "' AND StatementTypeId = " + statement.getStatementTypeId());
-				dataId = (int) executeQueryForObject("SELECT ID FROM DATA" + tableExtension + " WHERE StatementId = " + statement.getId() 
-						+ " AND VariableId = " + varid);
+				// a native upsert keeps the row, so nothing cascades to the values of the statement
+				String statementSql = "INSERT INTO STATEMENTS (ID, StatementTypeId, DocumentId, Start, Stop, Coder) "
+						+ "VALUES (?, ?, ?, ?, ?, ?)";
+				String valueSql = " (StatementId, VariableId, StatementTypeId, Value) VALUES (?, ?, ?, ?)";
+				if (upsert == true) {
+					statementSql = statementSql + upsertClause("ID", "StatementTypeId", "DocumentId", "Start", "Stop", "Coder");
+					valueSql = valueSql + upsertClause("StatementId, VariableId", "StatementTypeId", "Value");
+				}
+				PreparedStatement statementStatement = prepareCached(statementSql);
+				bind(statementStatement, new Object[] {statement.getId(), statement.getStatementTypeId(), statement.getDocumentId(), 
+						statement.getStart(), statement.getStop(), statement.getCoder()});
+				try {
+					statementStatement.executeUpdate();
+				} catch (SQLException e) {
+					if (upsert == true || isConstraintViolation(e) == false) {
+						throw e;
+					}
+					// only the failed INSERT is undone, so the rest of the transaction can be committed
+					reportConflict("Statement " + statement.getId() + " could not be saved because its ID is already used "
+							+ "in the database, or its document has been deleted.", e);
+					endTransaction(ownTransaction);
+					return;
+				}
+				
+				HashMap<String, Integer> ids = getCachedVariableIds(statement.getStatementTypeId());
+				ArrayList<PreparedStatement> batches = new ArrayList<PreparedStatement>();
+				Iterator<String> keyIterator = statement.getValues().keySet().iterator();
+				while (keyIterator.hasNext()) {
+					String key = keyIterator.next();
+					Integer variableId = ids.get(key);
+					if (variableId == null) {
+						System.err.println("Variable '" + key + "' not found in statement type " + statement.getStatementTypeId() 
+								+ ". Its value in statement " + statement.getId() + " is skipped.");
+						continue;
+					}
+					PreparedStatement batch = prepareCached("INSERT INTO DATA" + getTableExtension(variables.get(key)) + valueSql);
+					bind(batch, new Object[] {statement.getId(), variableId, statement.getStatementTypeId(), 
+							statement.getValues().get(key)});
+					batch.addBatch();
+					if (!batches.contains(batch)) {
+						batches.add(batch);
+					}
+				}
+				for (int i = 0; i < batches.size(); i++) {
+					batches.get(i).executeBatch();
+				}
+				logChange("STATEMENTS", statement.getId(), "upsert");
+				endTransaction(ownTransaction);
 			} catch (SQLException e) {
-				e.printStackTrace();
+				failTransaction(ownTransaction, e);
 			}
-			
-			String myStatement = "REPLACE INTO DATA" + tableExtension + " (ID, StatementId, VariableId, StatementTypeId, Value) "
-					+ "VALUES (" + dataId + ", " + statement.getId() + ", " + varid + ", " + statement.getStatementTypeId() 
-					+ ", "  + ap + object + ap + ")";
-			executeStatement(myStatement);
-    	}
+		}
 	}
 	
 	/**
-	 * @return     Data object.
+	 * Replace values of a text variable in all statements with one UPDATE per mapping, in one transaction. The 
+	 * mappings are applied in their order, so a value changed by one mapping can be changed again by a later one.
+	 * 
+	 * @param statementTypeId  The ID of the statement type in which the variable is defined
+	 * @param variable         The name of the variable
+	 * @param dataType         The data type of the variable, "short text" or "long text"
+	 * @param mapping          The new value for each old value
 	 */
-	public Data getAllData() {
-		Data data = new Data();
-		data.setSettings(getAllSettings());
-		data.setDocuments(getAllDocuments());
-		data.setCoders(getAllCoders());
-		data.setCoderRelations(getAllCoderRelations());
-		data.setRegexes(getAllRegexes());
-		data.setStatementLinks(getAllStatementLinks());
-		data.setStatementTypes(getAllStatementTypes());
-		
-		ArrayList<Statement> statements = new ArrayList<Statement>();
-		try {
-			String myQuery = "SELECT * FROM STATEMENTS";
-			PreparedStatement preStatement = (PreparedStatement) connection.prepareStatement(myQuery);
-			ResultSet result = preStatement.executeQuery();
-			if (result.next()) {
-				do {
-					int id = result.getInt("ID");
-					int documentId = result.getInt("DocumentId");
-					int start = result.getInt("Start");
-					int stop = result.getInt("Stop");
-					int statementTypeId = result.getInt("StatementTypeId");
-					int coder = result.getInt("Coder");
-					Date date = data.getDocument(documentId).getDate();
-					StatementType st = data.getStatementTypeById(statementTypeId);
-					LinkedHashMap<String, Object> values = new LinkedHashMap<String, Object>();
-					
-					Iterator<String> keyIterator = st.getVariables().keySet().iterator();
-			        while (keyIterator.hasNext()){
-			    		String key = keyIterator.next();
-			    		String value = st.getVariables().get(key);
-			    		String tableExtension = "";
-			    		if (value.equals("boolean")) {
-			    			tableExtension = "BOOLEAN";
-			    		} else if (value.equals("integer")) {
-			    			tableExtension = "INTEGER";
-			    		} else if (value.equals("short text")) {
-			    			tableExtension = "SHORTTEXT";
-			    		} else if (value.equals("long text")) {
-			    			tableExtension = "LONGTEXT";
-			    		}
-			    		String myQuery2 = "SELECT * FROM DATA" + tableExtension + " WHERE StatementId = " + id 
-			    				+ " AND VariableId = (SELECT ID FROM VARIABLES WHERE StatementTypeId = " + statementTypeId 
-			    				+ " AND Variable = '" + key + "')";
-						PreparedStatement preStatement2 = (PreparedStatement) connection.prepareStatement(myQuery2);
-						ResultSet result2 = preStatement2.executeQuery();
-						if (result2.next()) {
-							do {
-								values.put(key, result2.getObject("Value"));
-							} while (result2.next());
-						}
-						result2.close();
-						preStatement2.close();
-						if (values.size() == 0 || values.get(key) == null) {  // Fix errors here if no statement contents availabe
-							System.err.print("Statement " + id + ": variable \"" + key + "\" was not saved... ");
-							String query = "SELECT ID FROM VARIABLES WHERE (StatementTypeId = " + statementTypeId 
-									+ " AND Variable = '" + key + "')";
-							int varId = (int) executeQueryForObject(query);
-							String replacementValue = "0";
-							if (value.equals("short text") || value.equals("long text")) {
-								replacementValue = "''";
-							}
-							String statement = "INSERT INTO DATA" + tableExtension + " (StatementId, VariableId, StatementTypeId, Value) "
-									+ "Values (" + id + ", " + varId + ", " + statementTypeId + ", " + replacementValue + ")";
-							executeStatement(statement);
-							if (value.equals("short text") || value.equals("long text")) {
-								values.put(key, "");
-							} else {
-								values.put(key, 0);
-							}
-							System.err.println("The problem has been fixed. Please review this statement.");
+	public void recodeValues(int statementTypeId, String variable, String dataType, LinkedHashMap<String, String> mapping) {
+		synchronized (this) {
+			boolean ownTransaction = beginTransaction();
+			try {
+				Integer variableId = getCachedVariableIds(statementTypeId).get(variable);
+				if (variableId == null) {
+					throw new SQLException("Variable '" + variable + "' not found in statement type " + statementTypeId + ".");
+				}
+				String table = "DATA" + getTableExtension(dataType);
+				// MySQL compares strings without case and trailing spaces; match the exact value as in memory
+				String valueCondition = "Value = ?";
+				if (dbtype.equals("mysql")) {
+					valueCondition = "BINARY Value = ?";
+				}
+				Iterator<String> keyIterator = mapping.keySet().iterator();
+				while (keyIterator.hasNext()) {
+					String original = keyIterator.next();
+					if (isChangeLogged() == true) {
+						ArrayList<Object> ids = executeQueryForList("SELECT StatementId FROM " + table 
+								+ " WHERE VariableId = ? AND " + valueCondition, variableId, original);
+						ArrayList<Integer> statementIds = new ArrayList<Integer>(ids.size());
+						for (int i = 0; i < ids.size(); i++) {
+							statementIds.add(((Number) ids.get(i)).intValue());
 						}
-			    	}
-					Statement statement = new Statement(id, documentId, start, stop, date, statementTypeId, coder, values);
-					statements.add(statement);
-				} while (result.next());
+						logChanges("STATEMENTS", statementIds, "upsert");
+					}
+					PreparedStatement update = prepareCached("UPDATE " + table + " SET Value = ? WHERE VariableId = ? AND " + valueCondition);
+					bind(update, new Object[] {mapping.get(original), variableId, original});
+					update.executeUpdate();
+				}
+				endTransaction(ownTransaction);
+			} catch (SQLException e) {
+				failTransaction(ownTransaction, e);
 			}
-			result.close();
-			preStatement.close();
-		} catch (SQLException e) {
-			e.printStackTrace();
 		}
-		data.setStatements(statements);
-		data.setAttributes(getAllAttributes());
-		return data;
 	}
 	
 	/**
-	 * @return     Array list of all statement types in the SQL database.
+	 * Build the clause that turns an INSERT into a native upsert: ON CONFLICT ... DO UPDATE on SQLite and ON 
+	 * DUPLICATE KEY UPDATE on MySQL. Unlike REPLACE, the existing row is updated in place, so no foreign key 
+	 * cascades are triggered.
+	 * 
+	 * @param key      The comma-separated columns of the primary or unique key, e.g., "StatementId, VariableId"
+	 * @param columns  The columns to update if a row with the same key exists
+	 * @return         The clause, to be appended to the INSERT statement
 	 */
-	private ArrayList<StatementType> getAllStatementTypes() {
-		ArrayList<StatementType> al = new ArrayList<StatementType>();
-		try {
-			String myQuery = "SELECT * FROM STATEMENTTYPES";
-			PreparedStatement preStatement = (PreparedStatement) connection.prepareStatement(myQuery);
-			ResultSet result = preStatement.executeQuery();
-			if (result.next()) {
-				do {
-					int id = result.getInt("id");
-					String label = result.getString("Label");
-					Color color = new Color(result.getInt("red"), result.getInt("green"), result.getInt("blue"));
-					LinkedHashMap<String, String> variables = new LinkedHashMap<String, String>();
-					
-					String myQuery2 = "SELECT * FROM VARIABLES WHERE StatementTypeId = " + id;
-					PreparedStatement preStatement2 = (PreparedStatement) connection.prepareStatement(myQuery2);
-					ResultSet result2 = preStatement2.executeQuery();
-					if (result2.next()) {
-						do {
-							variables.put(result2.getString("Variable"), result2.getString("DataType"));
-						} while (result2.next());
-					}
-					result2.close();
-					preStatement2.close();
-					StatementType statementType = new StatementType(id, label, color, variables);
-					al.add(statementType);
-				} while (result.next());
+	private String upsertClause(String key, String... columns) {
+		String clause;
+		if (dbtype.equals("mysql")) {
+			clause = " ON DUPLICATE KEY UPDATE ";
+		} else {
+			clause = " ON CONFLICT(" + key + ") DO UPDATE SET ";
+		}
+		for (int i = 0; i < columns.length; i++) {
+			if (i > 0) {
+				clause = clause + ", ";
+			}
+			if (dbtype.equals("mysql")) {
+				clause = clause + columns[i] + " = VALUES(" + columns[i] + ")";
+			} else {
+				clause = clause + columns[i] + " = excluded." + columns[i];
 			}
-			result.close();
-			preStatement.close();
-		} catch (SQLException e) {
-			e.printStackTrace();
 		}
-		return al;
+		return clause;
 	}
 	
 	/**
-	 * @param key    Property to extract
-	 * @return       Value corresponding to the property
+	 * Look up the variable IDs of a statement type, reading them from the database only once per statement type.
+	 * 
+	 * @param statementTypeId  The ID of the statement type
+	 * @return                 A map from variable names to variable IDs
+	 * @throws SQLException
 	 */
-	public ArrayList<Coder> getAllCoders() {
-		ArrayList<Coder> al = new ArrayList<Coder>();
-		try {
-			String myQuery = "SELECT * FROM CODERS";
+	private synchronized HashMap<String, Integer> getCachedVariableIds(int statementTypeId) throws SQLException {
+		HashMap<String, Integer> ids = variableIdCache.get(statementTypeId);
+		if (ids == null) {
+			ids = getVariableIds(statementTypeId, null);
+			variableIdCache.put(statementTypeId, ids);
+		}
+		return ids;
+	}
+	
+	/**
+	 * Start a transaction unless one is already open, for example while the write queue is flushed.
+	 * 
+	 * @return  true if a new transaction was started and must be ended by the caller
+	 */
+	private boolean beginTransaction() {
+		try {
+			if (connection.getAutoCommit() == true) {
+				connection.setAutoCommit(false);
+				return true;
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return false;
+	}
+	
+	/**
+	 * Commit a transaction started by {@link #beginTransaction()}.
+	 * 
+	 * @param ownTransaction  The return value of {@link #beginTransaction()}
+	 * @throws SQLException
+	 */
+	private void endTransaction(boolean ownTransaction) throws SQLException {
+		if (ownTransaction == true) {
+			connection.commit();
+			resetAutoCommit();
+		}
+	}
+	
+	/**
+	 * Roll back a transaction started by {@link #beginTransaction()} and report the error. If the transaction was 
+	 * opened by the caller, it is left to the caller.
+	 * 
+	 * @param ownTransaction  The return value of {@link #beginTransaction()}
+	 * @param e               The exception
+	 */
+	private void failTransaction(boolean ownTransaction, SQLException e) {
+		clearCachedBatches();
+		if (ownTransaction == true) {
+			rollbackBatch(e);
+			resetAutoCommit();
+		} else {
+			reportError(e);
+		}
+	}
+	
+	/**
+	 * Open the transaction in which the write queue writes a batch of mutations. Until the batch is committed or 
+	 * aborted, errors that the methods of this connection report are also recorded for {@link #checkBatch()}.
+	 * 
+	 * @throws SQLException
+	 */
+	synchronized void beginBatch() throws SQLException {
+		connection.setAutoCommit(false);
+		batchOpen = true;
+		batchError = null;
+	}
+	
+	/**
+	 * Throw the first error recorded since the batch was opened, so that the write queue can roll it back.
+	 * 
+	 * @throws SQLException
+	 */
+	synchronized void checkBatch() throws SQLException {
+		if (batchError != null) {
+			throw batchError;
+		}
+	}
+	
+	/**
+	 * Commit the batch opened by {@link #beginBatch()} unless an error was recorded.
+	 * 
+	 * @throws SQLException
+	 */
+	synchronized void commitBatch() throws SQLException {
+		checkBatch();
+		connection.commit();
+		batchOpen = false;
+		resetAutoCommit();
+	}
+	
+	/**
+	 * Roll back the batch opened by {@link #beginBatch()}.
+	 */
+	synchronized void abortBatch() {
+		batchOpen = false;
+		batchError = null;
+		clearCachedBatches();
+		try {
+			connection.rollback();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		resetAutoCommit();
+	}
+	
+	/**
+	 * Report a failed database access. While the write queue writes a batch, the error is recorded so that the batch 
+	 * is rolled back and kept in the queue. Otherwise, the user is informed on the event dispatch thread, because the 
+	 * caller may hold the lock of this connection, which the event dispatch thread may be waiting for.
+	 * 
+	 * @param e  The exception
+	 */
+	private synchronized void reportError(SQLException e) {
+		e.printStackTrace();
+		if (batchOpen == true) {
+			if (batchError == null) {
+				batchError = e;
+			}
+		} else if (Dna.dna != null && Dna.dna.gui != null) {
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					JOptionPane.showMessageDialog(Dna.dna.gui, 
+							"Database access could not be executed properly. Report this problem along with the \n "
+							+ "error log if you can see a systematic pattern here. Also, reload your file.");
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Check whether an INSERT failed because of a primary key, unique or foreign key constraint. MySQL and SQLite 
+	 * undo only the failed statement in this case, not the whole transaction.
+	 * 
+	 * @param e  The exception
+	 * @return   true if a constraint was violated
+	 */
+	private boolean isConstraintViolation(SQLException e) {
+		if (dbtype.equals("mysql")) {
+			return e.getSQLState() != null && e.getSQLState().startsWith("23");
+		} else {
+			return (e.getErrorCode() & 0xFF) == 19;  // SQLITE_CONSTRAINT, possibly with an extended result code
+		}
+	}
+	
+	/**
+	 * Report a row that could not be saved because it conflicts with the database, e.g., because another coder 
+	 * used the same ID. Unlike {@link #reportError(SQLException)}, the error does not fail the batch of the write 
+	 * queue, because retrying would fail again.
+	 * 
+	 * @param message  The message for the user
+	 * @param e        The exception
+	 */
+	private void reportConflict(final String message, SQLException e) {
+		System.err.println(message);
+		e.printStackTrace();
+		if (Dna.dna != null && Dna.dna.gui != null) {
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					JOptionPane.showMessageDialog(Dna.dna.gui, message + "\n"
+							+ "Another coder may have added it at the same time. Please reload the database.");
+				}
+			});
+		}
+	}
+	
+	/**
+	 * @param dataType  The data type of a variable, e.g., "short text"
+	 * @return          The name of the data table without "DATA", e.g., "SHORTTEXT"
+	 */
+	private String getTableExtension(String dataType) {
+		if (dataType.equals("boolean")) {
+			return "BOOLEAN";
+		} else if (dataType.equals("integer")) {
+			return "INTEGER";
+		} else if (dataType.equals("short text")) {
+			return "SHORTTEXT";
+		} else if (dataType.equals("long text")) {
+			return "LONGTEXT";
+		}
+		return null;
+	}
+	
+	/**
+	 * @return     Data object.
+	 */
+	public Data getAllData() {
+		return getAllData(null);
+	}
+	
+	/**
+	 * Read the whole database into a new Data object. The tables are read concurrently through a small pool of 
+	 * connections (read-only connections for SQLite), and the Data object is assembled once all tables have been 
+	 * read.
+	 * 
+	 * @param progressMonitor  Progress monitor that is advanced after each table, with 
+	 *                         {@link #LOAD_TASKS} steps in total, or null
+	 * @return                 Data object.
+	 */
+	public Data getAllData(ProgressMonitor progressMonitor) {
+		ArrayBlockingQueue<Connection> pool = openLoaderConnections();
+		ExecutorService executor = Executors.newFixedThreadPool(pool.size());
+		AtomicInteger progress = new AtomicInteger(0);
+		Future<HashMap<String, String>> settings = executor.submit(new TableLoader<HashMap<String, String>>("settings", pool, progress, progressMonitor) {
+			HashMap<String, String> load(Connection c) {
+				return getAllSettings(c);
+			}
+		});
+		Future<ArrayList<Document>> documents = executor.submit(new TableLoader<ArrayList<Document>>("documents", pool, progress, progressMonitor) {
+			ArrayList<Document> load(Connection c) {
+				return getAllDocuments(c);
+			}
+		});
+		Future<ArrayList<Coder>> coders = executor.submit(new TableLoader<ArrayList<Coder>>("coders", pool, progress, progressMonitor) {
+			ArrayList<Coder> load(Connection c) {
+				return getAllCoders(c);
+			}
+		});
+		Future<ArrayList<CoderRelation>> coderRelations = executor.submit(new TableLoader<ArrayList<CoderRelation>>("coder relations", pool, progress, progressMonitor) {
+			ArrayList<CoderRelation> load(Connection c) {
+				return getAllCoderRelations(c);
+			}
+		});
+		Future<ArrayList<Regex>> regexes = executor.submit(new TableLoader<ArrayList<Regex>>("regexes", pool, progress, progressMonitor) {
+			ArrayList<Regex> load(Connection c) {
+				return getAllRegexes(c);
+			}
+		});
+		Future<ArrayList<StatementLink>> statementLinks = executor.submit(new TableLoader<ArrayList<StatementLink>>("statement links", pool, progress, progressMonitor) {
+			ArrayList<StatementLink> load(Connection c) {
+				return getAllStatementLinks(c);
+			}
+		});
+		Future<ArrayList<StatementType>> statementTypes = executor.submit(new TableLoader<ArrayList<StatementType>>("statement types", pool, progress, progressMonitor) {
+			ArrayList<StatementType> load(Connection c) {
+				return getAllStatementTypes(c);
+			}
+		});
+		Future<ArrayList<AttributeVector>> attributes = executor.submit(new TableLoader<ArrayList<AttributeVector>>("attributes", pool, progress, progressMonitor) {
+			ArrayList<AttributeVector> load(Connection c) {
+				return getAllAttributes(c);
+			}
+		});
+		Future<ArrayList<int[]>> statementRows = executor.submit(new TableLoader<ArrayList<int[]>>("statements", pool, progress, progressMonitor) {
+			ArrayList<int[]> load(Connection c) {
+				return getAllStatementRows(c);
+			}
+		});
+		Future<HashMap<Integer, HashMap<String, Integer>>> variableIds = executor.submit(
+				new TableLoader<HashMap<Integer, HashMap<String, Integer>>>("variables", pool, progress, progressMonitor) {
+			HashMap<Integer, HashMap<String, Integer>> load(Connection c) {
+				return getAllVariableIds(c);
+			}
+		});
+		String[] dataTypes = new String[] {"boolean", "integer", "short text", "long text"};
+		String[] tableExtensions = new String[] {"BOOLEAN", "INTEGER", "SHORTTEXT", "LONGTEXT"};
+		ArrayList<Future<HashMap<Integer, HashMap<Integer, Object>>>> dataValueFutures = new ArrayList<Future<HashMap<Integer, HashMap<Integer, Object>>>>();
+		for (int i = 0; i < dataTypes.length; i++) {
+			final String dataType = dataTypes[i];
+			final String tableExtension = tableExtensions[i];
+			dataValueFutures.add(executor.submit(new TableLoader<HashMap<Integer, HashMap<Integer, Object>>>(
+					dataType + " values", pool, progress, progressMonitor) {
+				HashMap<Integer, HashMap<Integer, Object>> load(Connection c) {
+					return getAllDataValues(c, dataType, tableExtension);
+				}
+			}));
+		}
+		executor.shutdown();
+		
+		Data data = new Data();
+		try {
+			data.setSettings(settings.get());
+			data.setDocuments(documents.get());
+			data.setCoders(coders.get());
+			data.setCoderRelations(coderRelations.get());
+			data.setRegexes(regexes.get());
+			data.setStatementLinks(statementLinks.get());
+			data.setStatementTypes(statementTypes.get());
+			HashMap<String, HashMap<Integer, HashMap<Integer, Object>>> dataValues = new HashMap<String, HashMap<Integer, HashMap<Integer, Object>>>();
+			for (int i = 0; i < dataTypes.length; i++) {
+				dataValues.put(dataTypes[i], dataValueFutures.get(i).get());
+			}
+			ArrayList<int[]> rows = statementRows.get();
+			HashMap<Integer, HashMap<String, Integer>> ids = variableIds.get();
+			ArrayList<AttributeVector> attributeList = attributes.get();
+			
+			// all tables have been read, so no loader thread uses the connection any more when missing values are repaired
+			data.setStatements(assembleStatements(data, rows, ids, dataValues));
+			data.setAttributes(attributeList);
+		} catch (InterruptedException | ExecutionException e) {
+			e.printStackTrace();
+		}
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);  // after an error, the other tables may still be read
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+		closeLoaderConnections(pool);
+		return data;
+	}
+	
+	/**
+	 * Number of tables or table scans read by {@link #getAllData(ProgressMonitor)}.
+	 */
+	public static final int LOAD_TASKS = 14;
+	
+	/**
+	 * Number of connections used for reading the database in {@link #getAllData(ProgressMonitor)}.
+	 */
+	private static final int LOADER_CONNECTIONS = 4;
+	
+	/**
+	 * Reads one table with a connection borrowed from the loader pool and reports progress when done.
+	 */
+	abstract class TableLoader<T> implements Callable<T> {
+		String label;
+		ArrayBlockingQueue<Connection> pool;
+		AtomicInteger progress;
+		ProgressMonitor progressMonitor;
+		
+		public TableLoader(String label, ArrayBlockingQueue<Connection> pool, AtomicInteger progress, ProgressMonitor progressMonitor) {
+			this.label = label;
+			this.pool = pool;
+			this.progress = progress;
+			this.progressMonitor = progressMonitor;
+		}
+		
+		abstract T load(Connection c);
+		
+		public T call() throws InterruptedException {
+			Connection c = pool.take();
+			try {
+				return load(c);
+			} finally {
+				pool.put(c);
+				final int done = progress.incrementAndGet();
+				if (progressMonitor != null) {
+					SwingUtilities.invokeLater(new Runnable() {  // Swing components must be changed on the event dispatch thread
+						public void run() {
+							progressMonitor.setNote("Loaded " + label + " (" + done + "/" + LOAD_TASKS + ")");
+							progressMonitor.setProgress(done);
+						}
+					});
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Open the connections used for reading the database in parallel. The connection of this object is always 
+	 * part of the pool. Additional connections are read-only; if they cannot be opened, the tables are read 
+	 * through fewer connections.
+	 * 
+	 * @return  A pool of connections
+	 */
+	private ArrayBlockingQueue<Connection> openLoaderConnections() {
+		ArrayBlockingQueue<Connection> pool = new ArrayBlockingQueue<Connection>(LOADER_CONNECTIONS);
+		pool.add(connection);
+		try {
+			for (int i = 1; i < LOADER_CONNECTIONS; i++) {
+				if (dbtype.equals("mysql")) {
+					Connection c = DriverManager.getConnection(getMySQLUrl(), login, password);
+					c.setReadOnly(true);
+					pool.add(c);
+				} else if (dbtype.equals("sqlite")) {
+					Properties properties = new Properties();
+					properties.setProperty("open_mode", "1");  // SQLITE_OPEN_READONLY
+					pool.add(DriverManager.getConnection("jdbc:sqlite:" + dbfile, properties));
+				}
+			}
+		} catch (SQLException e) {
+			System.err.println("Could not open additional database connections; reading with " + pool.size() + " connection(s).");
+		}
+		return pool;
+	}
+	
+	/**
+	 * Close the additional connections opened by {@link #openLoaderConnections()}.
+	 * 
+	 * @param pool  The pool of connections
+	 */
+	private void closeLoaderConnections(ArrayBlockingQueue<Connection> pool) {
+		Iterator<Connection> connectionIterator = pool.iterator();
+		while (connectionIterator.hasNext()) {
+			Connection c = connectionIterator.next();
+			if (c != connection) {
+				try {
+					c.close();
+				} catch (SQLException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @param connection  The connection to read from
+	 * @return            Variable IDs by statement type ID and variable name
+	 */
+	private HashMap<Integer, HashMap<String, Integer>> getAllVariableIds(Connection connection) {
+		HashMap<Integer, HashMap<String, Integer>> variableIds = new HashMap<Integer, HashMap<String, Integer>>();
+		try {
+			PreparedStatement preStatement = (PreparedStatement) connection.prepareStatement("SELECT ID, Variable, StatementTypeId FROM VARIABLES");
+			ResultSet result = preStatement.executeQuery();
+			while (result.next()) {
+				int statementTypeId = result.getInt("StatementTypeId");
+				if (!variableIds.containsKey(statementTypeId)) {
+					variableIds.put(statementTypeId, new HashMap<String, Integer>());
+				}
+				variableIds.get(statementTypeId).put(result.getString("Variable"), result.getInt("ID"));
+			}
+			result.close();
+			preStatement.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return variableIds;
+	}
+	
+	/**
+	 * Read all values of one data table in a single scan.
+	 * 
+	 * @param connection      The connection to read from
+	 * @param dataType        The data type of the variables stored in the table, e.g., "short text"
+	 * @param tableExtension  The name of the table without "DATA", e.g., "SHORTTEXT"
+	 * @return                Values by statement ID and variable ID
+	 */
+	private HashMap<Integer, HashMap<Integer, Object>> getAllDataValues(Connection connection, String dataType, String tableExtension) {
+		HashMap<Integer, HashMap<Integer, Object>> dataValues = new HashMap<Integer, HashMap<Integer, Object>>();
+		try {
+			PreparedStatement preStatement = (PreparedStatement) connection.prepareStatement("SELECT d.StatementId, d.VariableId, d.Value FROM DATA" 
+					+ tableExtension + " d INNER JOIN VARIABLES v ON v.ID = d.VariableId WHERE v.DataType = ? ORDER BY d.StatementId");
+			preStatement.setString(1, dataType);
+			ResultSet result = preStatement.executeQuery();
+			int previousId = -1;
+			HashMap<Integer, Object> statementValues = null;
+			while (result.next()) {
+				int statementId = result.getInt(1);
+				if (statementValues == null || statementId != previousId) {
+					statementValues = new HashMap<Integer, Object>();
+					dataValues.put(statementId, statementValues);
+					previousId = statementId;
+				}
+				statementValues.put(result.getInt(2), result.getObject(3));
+			}
+			result.close();
+			preStatement.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return dataValues;
+	}
+	
+	/**
+	 * @param connection  The connection to read from
+	 * @return            Array list of {ID, DocumentId, Start, Stop, StatementTypeId, Coder} of all statements, ordered by ID
+	 */
+	private ArrayList<int[]> getAllStatementRows(Connection connection) {
+		ArrayList<int[]> rows = new ArrayList<int[]>();
+		try {
+			PreparedStatement preStatement = (PreparedStatement) connection.prepareStatement("SELECT * FROM STATEMENTS ORDER BY ID");
+			ResultSet result = preStatement.executeQuery();
+			while (result.next()) {
+				rows.add(new int[] {result.getInt("ID"), result.getInt("DocumentId"), result.getInt("Start"), result.getInt("Stop"), 
+						result.getInt("StatementTypeId"), result.getInt("Coder")});
+			}
+			result.close();
+			preStatement.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return rows;
+	}
+	
+	/**
+	 * Create the statements from the statement rows and the values of the data tables. Values that were not 
+	 * saved are replaced by 0 or an empty string and repaired in the database afterwards.
+	 * 
+	 * @param data          The Data object, with documents and statement types already set
+	 * @param rows          The statement rows, see {@link #getAllStatementRows(Connection)}
+	 * @param variableIds   Variable IDs by statement type ID and variable name
+	 * @param dataValues    Values by data type, statement ID and variable ID
+	 * @return              Array list of statements
+	 */
+	private ArrayList<Statement> assembleStatements(Data data, ArrayList<int[]> rows, HashMap<Integer, HashMap<String, Integer>> variableIds, 
+			HashMap<String, HashMap<Integer, HashMap<Integer, Object>>> dataValues) {
+		ArrayList<Statement> statements = new ArrayList<Statement>(rows.size());
+		ArrayList<int[]> missing = new ArrayList<int[]>();
+		ArrayList<String> missingTypes = new ArrayList<String>();
+		for (int i = 0; i < rows.size(); i++) {
+			int id = rows.get(i)[0];
+			int documentId = rows.get(i)[1];
+			int start = rows.get(i)[2];
+			int stop = rows.get(i)[3];
+			int statementTypeId = rows.get(i)[4];
+			int coder = rows.get(i)[5];
+			Date date = data.getDocument(documentId).getDate();
+			StatementType st = data.getStatementTypeById(statementTypeId);
+			HashMap<String, Integer> ids = variableIds.get(statementTypeId);
+			LinkedHashMap<String, Object> values = new LinkedHashMap<String, Object>();
+			Iterator<String> keyIterator = st.getVariables().keySet().iterator();
+			while (keyIterator.hasNext()) {
+				String key = keyIterator.next();
+				String value = st.getVariables().get(key);
+				Integer varId = ids == null ? null : ids.get(key);
+				HashMap<Integer, Object> statementValues = null;
+				if (dataValues.containsKey(value)) {
+					statementValues = dataValues.get(value).get(id);
+				}
+				Object object = null;
+				if (varId != null && statementValues != null) {
+					object = statementValues.get(varId);
+				}
+				if (object == null) {  // Fix errors here if no statement contents availabe
+					System.err.println("Statement " + id + ": variable \"" + key + "\" was not saved... ");
+					if (value.equals("short text") || value.equals("long text")) {
+						object = "";
+					} else {
+						object = 0;
+					}
+					if (varId != null) {
+						boolean exists = statementValues != null && statementValues.containsKey(varId);
+						missing.add(new int[] {id, varId, statementTypeId, exists ? 1 : 0});
+						missingTypes.add(value);
+					}
+				}
+				values.put(key, object);
+			}
+			Statement statement = new Statement(id, documentId, start, stop, date, statementTypeId, coder, values);
+			statements.add(statement);
+		}
+		if (missing.size() > 0) {
+			repairMissingValues(missing, missingTypes);
+		}
+		return statements;
+	}
+	
+	/**
+	 * Save default values (0 or an empty string) for statement values that were missing from the data tables
+	 * or saved as NULL, using one batch per data table in a single transaction.
+	 * 
+	 * @param missing       Array list of {statement ID, variable ID, statement type ID, 1 if a NULL row exists or 0}
+	 * @param missingTypes  Data types of the missing values, in the same order
+	 */
+	private synchronized void repairMissingValues(ArrayList<int[]> missing, ArrayList<String> missingTypes) {
+		String[] dataTypes = new String[] {"boolean", "integer", "short text", "long text"};
+		String[] tableExtensions = new String[] {"BOOLEAN", "INTEGER", "SHORTTEXT", "LONGTEXT"};
+		boolean ownTransaction = beginTransaction();
+		try {
+			for (int i = 0; i < dataTypes.length; i++) {
+				PreparedStatement insert = (PreparedStatement) connection.prepareStatement("INSERT INTO DATA" + tableExtensions[i] 
+						+ " (StatementId, VariableId, StatementTypeId, Value) VALUES (?, ?, ?, ?)");
+				PreparedStatement update = (PreparedStatement) connection.prepareStatement("UPDATE DATA" + tableExtensions[i] 
+						+ " SET Value = ? WHERE StatementId = ? AND VariableId = ?");
+				boolean text = dataTypes[i].equals("short text") || dataTypes[i].equals("long text");
+				for (int j = 0; j < missing.size(); j++) {
+					if (!missingTypes.get(j).equals(dataTypes[i])) {
+						continue;
+					}
+					int[] m = missing.get(j);
+					if (m[3] == 1) {
+						if (text == true) {
+							update.setString(1, "");
+						} else {
+							update.setInt(1, 0);
+						}
+						update.setInt(2, m[0]);
+						update.setInt(3, m[1]);
+						update.addBatch();
+					} else {
+						insert.setInt(1, m[0]);
+						insert.setInt(2, m[1]);
+						insert.setInt(3, m[2]);
+						if (text == true) {
+							insert.setString(4, "");
+						} else {
+							insert.setInt(4, 0);
+						}
+						insert.addBatch();
+					}
+				}
+				insert.executeBatch();
+				update.executeBatch();
+				insert.close();
+				update.close();
+			}
+			endTransaction(ownTransaction);
+			System.err.println(missing.size() + " missing values have been fixed. Please review these statements.");
+		} catch (SQLException e) {
+			failTransaction(ownTransaction, e);
+		}
+	}
+	
+	/**
+	 * @param connection  The connection to read from
+	 * @return            Array list of all statement types in the SQL database.
+	 */
+	private ArrayList<StatementType> getAllStatementTypes(Connection connection) {
+		ArrayList<StatementType> al = new ArrayList<StatementType>();
+		try {
+			String myQuery = "SELECT * FROM STATEMENTTYPES";
+			PreparedStatement preStatement = (PreparedStatement) connection.prepareStatement(myQuery);
+			ResultSet result = preStatement.executeQuery();
+			if (result.next()) {
+				do {
+					int id = result.getInt("id");
+					String label = result.getString("Label");
+					Color color = new Color(result.getInt("red"), result.getInt("green"), result.getInt("blue"));
+					LinkedHashMap<String, String> variables = new LinkedHashMap<String, String>();
+					
+					String myQuery2 = "SELECT * FROM VARIABLES WHERE StatementTypeId = " + id;
+					PreparedStatement preStatement2 = (PreparedStatement) connection.prepareStatement(myQuery2);
+					ResultSet result2 = preStatement2.executeQuery();
+					if (result2.next()) {
+						do {
+							variables.put(result2.getString("Variable"), result2.getString("DataType"));
+						} while (result2.next());
+					}
+					result2.close();
+					preStatement2.close();
+					StatementType statementType = new StatementType(id, label, color, variables);
+					al.add(statementType);
+				} while (result.next());
+			}
+			result.close();
+			preStatement.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return al;
+	}
+	
+	/**
+	 * @return     Array list of all coders in the SQL database.
+	 */
+	public ArrayList<Coder> getAllCoders() {
+		return getAllCoders(connection);
+	}
+	
+	/**
+	 * @param connection  The connection to read from
+	 * @return            Array list of all coders in the SQL database.
+	 */
+	private ArrayList<Coder> getAllCoders(Connection connection) {
+		ArrayList<Coder> al = new ArrayList<Coder>();
+		try {
+			String myQuery = "SELECT * FROM CODERS";
 			PreparedStatement preStatement = (PreparedStatement) connection.prepareStatement(myQuery);
 			ResultSet result = preStatement.executeQuery();
 			if (result.next()) {
@@ -1331,7 +2058,7 @@ public class SqlConnection {
 					+ "Notes TEXT, "
 					+ "Type TEXT, "
 					+ "Date INTEGER, "
-					+ "FOREIGN KEY(Coder) REFERENCES CODERS(ID))");
+					+ "FOREIGN KEY(Coder) REFERENCES CODERS(ID) ON DELETE CASCADE)");
 			
 			executeStatement("CREATE TABLE IF NOT EXISTS STATEMENTTYPES("
 					+ "ID INTEGER NOT NULL PRIMARY KEY, "
@@ -1359,7 +2086,7 @@ public class SqlConnection {
 					+ "Coder INTEGER, "
 					+ "Type TEXT, "
 					+ "Permission INTEGER, "
-					+ "FOREIGN KEY(Coder) REFERENCES CODERS(ID), "
+					+ "FOREIGN KEY(Coder) REFERENCES CODERS(ID) ON DELETE CASCADE, "
 					+ "UNIQUE (Coder, Type))");
 			
 			executeStatement("CREATE TABLE IF NOT EXISTS CODERRELATIONS("
@@ -1370,8 +2097,8 @@ public class SqlConnection {
 					+ "editStatements INTEGER, "
 					+ "viewDocuments INTEGER, "
 					+ "editDocuments INTEGER, "
-					+ "FOREIGN KEY(Coder) REFERENCES CODERS(ID), "
-					+ "FOREIGN KEY(OtherCoder) REFERENCES CODERS(ID))");
+					+ "FOREIGN KEY(Coder) REFERENCES CODERS(ID) ON DELETE CASCADE, "
+					+ "FOREIGN KEY(OtherCoder) REFERENCES CODERS(ID) ON DELETE CASCADE)");
 			
 			executeStatement("CREATE TABLE IF NOT EXISTS STATEMENTS("
 					+ "ID INTEGER NOT NULL PRIMARY KEY, " 
@@ -1381,15 +2108,15 @@ public class SqlConnection {
 					+ "Stop INTEGER, "
 					+ "Coder INTEGER, "
 					+ "FOREIGN KEY(StatementTypeId) REFERENCES STATEMENTTYPES(ID), "
-					+ "FOREIGN KEY(Coder) REFERENCES CODERS(ID), "
-					+ "FOREIGN KEY(DocumentId) REFERENCES DOCUMENTS(ID))");
+					+ "FOREIGN KEY(Coder) REFERENCES CODERS(ID) ON DELETE CASCADE, "
+					+ "FOREIGN KEY(DocumentId) REFERENCES DOCUMENTS(ID) ON DELETE CASCADE)");
 			
 	        executeStatement("CREATE TABLE IF NOT EXISTS STATEMENTLINKS("
 	        		+ "ID INTEGER PRIMARY KEY NOT NULL, " 
 					+ "SourceId INTEGER NOT NULL, " 
 	        		+ "TargetId INTEGER NOT NULL, "
-	                + "FOREIGN KEY(SourceId) REFERENCES STATEMENTS(ID),"
-	                + "FOREIGN KEY(TargetId) REFERENCES STATEMENTS(ID))");
+	                + "FOREIGN KEY(SourceId) REFERENCES STATEMENTS(ID) ON DELETE CASCADE,"
+	                + "FOREIGN KEY(TargetId) REFERENCES STATEMENTS(ID) ON DELETE CASCADE)");
 	        
 	        executeStatement("CREATE TABLE IF NOT EXISTS DATABOOLEAN("
 	        		+ "ID INTEGER PRIMARY KEY NOT NULL, "
@@ -1397,7 +2124,7 @@ public class SqlConnection {
 	        		+ "VariableId INTEGER NOT NULL, "
 	        		+ "StatementTypeId INTEGER, "
 	        		+ "Value INTEGER, "
-	        		+ "FOREIGN KEY(StatementId) REFERENCES STATEMENTS(ID), "
+	        		+ "FOREIGN KEY(StatementId) REFERENCES STATEMENTS(ID) ON DELETE CASCADE, "
 	        		+ "FOREIGN KEY(VariableId) REFERENCES VARIABLES(ID), "
 	        		+ "FOREIGN KEY(StatementTypeId) REFERENCES STATEMENTTYPES(ID), "
 					+ "UNIQUE (StatementId, VariableId))");
@@ -1408,7 +2135,7 @@ public class SqlConnection {
 	        		+ "VariableId INTEGER NOT NULL, "
 	        		+ "StatementTypeId INTEGER, "
 	        		+ "Value INTEGER, "
-	        		+ "FOREIGN KEY(StatementId) REFERENCES STATEMENTS(ID), "
+	        		+ "FOREIGN KEY(StatementId) REFERENCES STATEMENTS(ID) ON DELETE CASCADE, "
 	        		+ "FOREIGN KEY(VariableId) REFERENCES VARIABLES(ID), "
 	        		+ "FOREIGN KEY(StatementTypeId) REFERENCES STATEMENTTYPES(ID), "
 					+ "UNIQUE (StatementId, VariableId))");
@@ -1419,7 +2146,7 @@ public class SqlConnection {
 	        		+ "VariableId INTEGER NOT NULL, "
 	        		+ "StatementTypeId INTEGER, "
 	        		+ "Value TEXT, "
-	        		+ "FOREIGN KEY(StatementId) REFERENCES STATEMENTS(ID), "
+	        		+ "FOREIGN KEY(StatementId) REFERENCES STATEMENTS(ID) ON DELETE CASCADE, "
 	        		+ "FOREIGN KEY(VariableId) REFERENCES VARIABLES(ID), "
 	        		+ "FOREIGN KEY(StatementTypeId) REFERENCES STATEMENTTYPES(ID), "
 					+ "UNIQUE (StatementId, VariableId))");
@@ -1430,7 +2157,7 @@ public class SqlConnection {
 	        		+ "VariableId INTEGER NOT NULL, "
 	        		+ "StatementTypeId INTEGER, "
 	        		+ "Value TEXT, "
-	        		+ "FOREIGN KEY(StatementId) REFERENCES STATEMENTS(ID), "
+	        		+ "FOREIGN KEY(StatementId) REFERENCES STATEMENTS(ID) ON DELETE CASCADE, "
 	        		+ "FOREIGN KEY(VariableId) REFERENCES VARIABLES(ID), "
 	        		+ "FOREIGN KEY(StatementTypeId) REFERENCES STATEMENTTYPES(ID), "
 					+ "UNIQUE (StatementId, VariableId))");
@@ -1475,7 +2202,7 @@ public class SqlConnection {
 					+ "Notes TEXT, " 
 					+ "Type VARCHAR(200), "
 					+ "Date BIGINT, " 
-					+ "FOREIGN KEY(Coder) REFERENCES CODERS(ID), " 
+					+ "FOREIGN KEY(Coder) REFERENCES CODERS(ID) ON DELETE CASCADE, " 
 					+ "PRIMARY KEY(ID))");
 			
 			executeStatement("CREATE TABLE IF NOT EXISTS STATEMENTTYPES("
@@ -1507,7 +2234,7 @@ public class SqlConnection {
 					+ "Coder SMALLINT UNSIGNED NOT NULL, "
 					+ "Type VARCHAR(50), "
 					+ "Permission SMALLINT UNSIGNED, "
-					+ "FOREIGN KEY(Coder) REFERENCES CODERS(ID), "
+					+ "FOREIGN KEY(Coder) REFERENCES CODERS(ID) ON DELETE CASCADE, "
 					+ "UNIQUE KEY CoderPerm (Coder, Type), "
 					+ "PRIMARY KEY(ID))");
 			
@@ -1519,8 +2246,8 @@ public class SqlConnection {
 					+ "editStatements SMALLINT UNSIGNED, "
 					+ "viewDocuments SMALLINT UNSIGNED, "
 					+ "editDocuments SMALLINT UNSIGNED, "
-					+ "FOREIGN KEY(Coder) REFERENCES CODERS(ID), "
-					+ "FOREIGN KEY(OtherCoder) REFERENCES CODERS(ID), "
+					+ "FOREIGN KEY(Coder) REFERENCES CODERS(ID) ON DELETE CASCADE, "
+					+ "FOREIGN KEY(OtherCoder) REFERENCES CODERS(ID) ON DELETE CASCADE, "
 					+ "PRIMARY KEY(ID))");
 			
 			executeStatement("CREATE TABLE IF NOT EXISTS STATEMENTS("
@@ -1531,24 +2258,24 @@ public class SqlConnection {
 					+ "Stop BIGINT UNSIGNED, "
 					+ "Coder SMALLINT UNSIGNED NOT NULL, "
 					+ "FOREIGN KEY(StatementTypeId) REFERENCES STATEMENTTYPES(ID), "
-					+ "FOREIGN KEY(Coder) REFERENCES CODERS(ID), " 
-					+ "FOREIGN KEY(DocumentId) REFERENCES DOCUMENTS(ID), "
+					+ "FOREIGN KEY(Coder) REFERENCES CODERS(ID) ON DELETE CASCADE, " 
+					+ "FOREIGN KEY(DocumentId) REFERENCES DOCUMENTS(ID) ON DELETE CASCADE, "
 					+ "PRIMARY KEY(ID))");
 
 	        executeStatement("CREATE TABLE IF NOT EXISTS STATEMENTLINKS("
 	        		+ "ID INTEGER UNSIGNED NOT NULL, " 
 					+ "SourceId MEDIUMINT UNSIGNED NOT NULL, " 
 	        		+ "TargetId MEDIUMINT UNSIGNED NOT NULL, "
-	                + "FOREIGN KEY(SourceId) REFERENCES STATEMENTS(ID),"
-	                + "FOREIGN KEY(TargetId) REFERENCES STATEMENTS(ID), "
+	                + "FOREIGN KEY(SourceId) REFERENCES STATEMENTS(ID) ON DELETE CASCADE,"
+	                + "FOREIGN KEY(TargetId) REFERENCES STATEMENTS(ID) ON DELETE CASCADE, "
 					+ "PRIMARY KEY(ID))");
 	        
 			executeStatement("CREATE TABLE IF NOT EXISTS STATEMENTLINKS("
 					+ "ID MEDIUMINT UNSIGNED NOT NULL AUTO_INCREMENT, " 
 					+ "SourceId MEDIUMINT NOT NULL, " 
 					+ "TargetId MEDIUMINT NOT NULL, "
-					+ "FOREIGN KEY(SourceId) REFERENCES STATEMENTS(ID),"
-					+ "FOREIGN KEY(TargetId) REFERENCES STATEMENTS(ID), "
+					+ "FOREIGN KEY(SourceId) REFERENCES STATEMENTS(ID) ON DELETE CASCADE,"
+					+ "FOREIGN KEY(TargetId) REFERENCES STATEMENTS(ID) ON DELETE CASCADE, "
 					+ "PRIMARY KEY(ID))");
 			
 	        executeStatement("CREATE TABLE IF NOT EXISTS DATABOOLEAN("
@@ -1557,7 +2284,7 @@ public class SqlConnection {
 	        		+ "VariableId SMALLINT UNSIGNED NOT NULL, "
 	        		+ "StatementTypeId SMALLINT UNSIGNED NOT NULL, "
 	        		+ "Value SMALLINT UNSIGNED NOT NULL, "
-	        		+ "FOREIGN KEY(StatementId) REFERENCES STATEMENTS(ID), "
+	        		+ "FOREIGN KEY(StatementId) REFERENCES STATEMENTS(ID) ON DELETE CASCADE, "
 	        		+ "FOREIGN KEY(VariableId) REFERENCES VARIABLES(ID), "
 	        		+ "FOREIGN KEY(StatementTypeId) REFERENCES STATEMENTTYPES(ID), "
 					+ "UNIQUE KEY StatementVariable (StatementId, VariableId), "
@@ -1569,7 +2296,7 @@ public class SqlConnection {
 	        		+ "VariableId SMALLINT UNSIGNED NOT NULL, "
 	        		+ "StatementTypeId SMALLINT UNSIGNED NOT NULL, "
 	        		+ "Value MEDIUMINT NOT NULL, "
-	        		+ "FOREIGN KEY(StatementId) REFERENCES STATEMENTS(ID), "
+	        		+ "FOREIGN KEY(StatementId) REFERENCES STATEMENTS(ID) ON DELETE CASCADE, "
 	        		+ "FOREIGN KEY(VariableId) REFERENCES VARIABLES(ID), "
 	        		+ "FOREIGN KEY(StatementTypeId) REFERENCES STATEMENTTYPES(ID), "
 					+ "UNIQUE KEY StatementVariable (StatementId, VariableId), "
@@ -1581,7 +2308,7 @@ public class SqlConnection {
 	        		+ "VariableId SMALLINT UNSIGNED NOT NULL, "
 	        		+ "StatementTypeId SMALLINT UNSIGNED NOT NULL, "
 	        		+ "Value VARCHAR(200), "
-	        		+ "FOREIGN KEY(StatementId) REFERENCES STATEMENTS(ID), "
+	        		+ "FOREIGN KEY(StatementId) REFERENCES STATEMENTS(ID) ON DELETE CASCADE, "
 	        		+ "FOREIGN KEY(VariableId) REFERENCES VARIABLES(ID), "
 	        		+ "FOREIGN KEY(StatementTypeId) REFERENCES STATEMENTTYPES(ID), "
 					+ "UNIQUE KEY StatementVariable (StatementId, VariableId), "
@@ -1593,7 +2320,7 @@ public class SqlConnection {
 	        		+ "VariableId SMALLINT UNSIGNED NOT NULL, "
 	        		+ "StatementTypeId SMALLINT UNSIGNED NOT NULL, "
 	        		+ "Value TEXT, "
-	        		+ "FOREIGN KEY(StatementId) REFERENCES STATEMENTS(ID), "
+	        		+ "FOREIGN KEY(StatementId) REFERENCES STATEMENTS(ID) ON DELETE CASCADE, "
 	        		+ "FOREIGN KEY(VariableId) REFERENCES VARIABLES(ID), "
 	        		+ "FOREIGN KEY(StatementTypeId) REFERENCES STATEMENTTYPES(ID), "
 					+ "UNIQUE KEY StatementVariable (StatementId, VariableId), "
@@ -1613,36 +2340,784 @@ public class SqlConnection {
 	        		+ "FOREIGN KEY(VariableId) REFERENCES VARIABLES(ID), "
 					+ "PRIMARY KEY(ID))");
 		}
+		migrateSchema();
+		applyProfile();
+	}
+    
+	/**
+	 * @return  The maximal number of rows sent to the database in one batch by the bulk insert methods
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+	
+	/**
+	 * @param batchSize  The maximal number of rows sent to the database in one batch by the bulk insert methods
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize < 1) {
+			System.err.println("Batch size must be at least 1.");
+			return;
+		}
+		this.batchSize = batchSize;
+	}
+	
+	/**
+	 * Look up the IDs and data types of all variables of a statement type.
+	 * 
+	 * @param statementTypeId  The ID of the statement type
+	 * @param dataTypes        A map to be filled with the data type of each variable, or null
+	 * @return                 A map from variable names to variable IDs
+	 * @throws SQLException
+	 */
+	private HashMap<String, Integer> getVariableIds(int statementTypeId, HashMap<String, String> dataTypes) throws SQLException {
+		HashMap<String, Integer> ids = new HashMap<String, Integer>();
+		PreparedStatement preStatement = (PreparedStatement) connection.prepareStatement(
+				"SELECT ID, Variable, DataType FROM VARIABLES WHERE StatementTypeId = ?");
+		preStatement.setInt(1, statementTypeId);
+		ResultSet result = preStatement.executeQuery();
+		while (result.next()) {
+			ids.put(result.getString("Variable"), result.getInt("ID"));
+			if (dataTypes != null) {
+				dataTypes.put(result.getString("Variable"), result.getString("DataType"));
+			}
+		}
+		result.close();
+		preStatement.close();
+		return ids;
+	}
+	
+	/**
+	 * Roll back a failed bulk insert and report the error.
+	 * 
+	 * @param e  The exception that made the bulk insert fail
+	 */
+	private void rollbackBatch(SQLException e) {
+		try {
+			connection.rollback();
+		} catch (SQLException e1) {
+			e1.printStackTrace();
+		}
+		reportError(e);
+	}
+	
+	private void resetAutoCommit() {
+		try {
+			connection.setAutoCommit(true);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Current version of the database schema. The version of a database is stored as "schemaVersion" in the 
+	 * SETTINGS table; databases without this setting have version 0.
+	 * 
+	 * Version 1: indexes for the columns used by the deletes and loads.
+	 * Version 2: ON DELETE CASCADE foreign keys from statements to documents and coders, from statement values 
+	 * and links to statements, and from documents and coder relations and permissions to coders.
+	 * Version 3: TextCompressed column in DOCUMENTS for deflate-compressed document texts.
+	 * Version 4: CHANGELOG table with the changes of documents and statements, see {@link ChangeFeed}.
+	 */
+	public static final int SCHEMA_VERSION = 4;
+	
+	/**
+	 * Foreign keys with ON DELETE CASCADE in schema version 2, as {table, column, referenced table}.
+	 */
+	private static final String[][] CASCADING_FOREIGN_KEYS = new String[][] {
+		{"DOCUMENTS", "Coder", "CODERS"}, 
+		{"CODERPERMISSIONS", "Coder", "CODERS"}, 
+		{"CODERRELATIONS", "Coder", "CODERS"}, 
+		{"CODERRELATIONS", "OtherCoder", "CODERS"}, 
+		{"STATEMENTS", "Coder", "CODERS"}, 
+		{"STATEMENTS", "DocumentId", "DOCUMENTS"}, 
+		{"STATEMENTLINKS", "SourceId", "STATEMENTS"}, 
+		{"STATEMENTLINKS", "TargetId", "STATEMENTS"}, 
+		{"DATABOOLEAN", "StatementId", "STATEMENTS"}, 
+		{"DATAINTEGER", "StatementId", "STATEMENTS"}, 
+		{"DATASHORTTEXT", "StatementId", "STATEMENTS"}, 
+		{"DATALONGTEXT", "StatementId", "STATEMENTS"}
+	};
+	
+	/**
+	 * @return  The schema version of the database, or 0 if it has not been set
+	 */
+	public int getSchemaVersion() {
+		String version = getSetting("schemaVersion");
+		if (version == null || version.equals("")) {
+			return 0;
+		}
+		return Integer.parseInt(version);
+	}
+	
+	/**
+	 * Upgrade the database in place to {@link #SCHEMA_VERSION}, one version at a time. Each completed step is 
+	 * recorded in the SETTINGS table, so an interrupted upgrade continues where it stopped. On SQLite, foreign 
+	 * keys are enforced once the database has the cascading foreign keys.
+	 */
+	public void migrateSchema() {
+		int version = getSchemaVersion();
+		if (version > SCHEMA_VERSION) {
+			System.err.println("The database schema (version " + version + ") is newer than this version of DNA (version " 
+					+ SCHEMA_VERSION + ").");
+			return;
+		}
+		for (int v = version + 1; v <= SCHEMA_VERSION; v++) {
+			System.out.println("Upgrading database schema to version " + v + "...");
+			boolean success = true;
+			if (v == 1) {
+				createIndexes();
+			} else if (v == 2) {
+				if (dbtype.equals("sqlite")) {
+					success = addCascadingForeignKeysSQLite();
+				} else if (dbtype.equals("mysql")) {
+					addCascadingForeignKeysMySQL();
+				}
+			} else if (v == 3) {
+				addTextCompressedColumn();
+			} else if (v == 4) {
+				createChangeLog();
+			}
+			if (success == false) {
+				System.err.println("The database schema could not be upgraded to version " + v + ".");
+				break;
+			}
+			upsertSetting("schemaVersion", String.valueOf(v));
+		}
+		if (dbtype.equals("sqlite") && getSchemaVersion() >= 2) {
+			executeStatement("PRAGMA foreign_keys = ON");
+		}
+	}
+	
+	/**
+	 * Apply the SQLite performance profile stored in the "sqliteProfile" setting. The "performance" profile 
+	 * (default) uses a write-ahead log, which lets readers continue while changes are written, and syncs to disk 
+	 * only at checkpoints. It also enlarges the page cache, memory-maps the database file, and keeps temporary 
+	 * tables in memory. The "safe" profile uses a rollback journal and syncs to disk after every transaction. 
+	 * Nothing happens for MySQL databases.
+	 */
+	public void applyProfile() {
+		if (!dbtype.equals("sqlite")) {
+			return;
+		}
+		String profile = getSetting("sqliteProfile");
+		if (profile != null && profile.equals("safe")) {
+			executeStatement("PRAGMA journal_mode = DELETE");
+			executeStatement("PRAGMA synchronous = FULL");
+			executeStatement("PRAGMA cache_size = -2000");
+			executeStatement("PRAGMA mmap_size = 0");
+			executeStatement("PRAGMA temp_store = DEFAULT");
+		} else {
+			executeStatement("PRAGMA journal_mode = WAL");
+			executeStatement("PRAGMA synchronous = NORMAL");
+			executeStatement("PRAGMA cache_size = -65536");
+			executeStatement("PRAGMA mmap_size = 268435456");
+			executeStatement("PRAGMA temp_store = MEMORY");
+		}
+	}
+	
+	/**
+	 * Free up unused physical space in the database and refresh the statistics of the query planner. This 
+	 * rewrites the whole database and can take a while, so it is not done after every deletion but on request. 
+	 * Queued changes are written first, and the connection stays locked until the maintenance is finished, so 
+	 * that the write queue cannot open a transaction in the meantime.
+	 */
+	public synchronized void runMaintenance() {
+		writeQueue.close();
+		if (writeQueue.getUnsavedChanges() > 0) {
+			System.err.println("Database maintenance was skipped because queued changes could not be saved.");
+			return;
+		}
+		if (dbtype.equals("mysql")) {
+			executeStatement("OPTIMIZE TABLE DATABOOLEAN");
+			executeStatement("OPTIMIZE TABLE DATAINTEGER");
+			executeStatement("OPTIMIZE TABLE DATASHORTTEXT");
+			executeStatement("OPTIMIZE TABLE DATALONGTEXT");
+			executeStatement("OPTIMIZE TABLE STATEMENTS");
+			executeStatement("OPTIMIZE TABLE DOCUMENTS");
+			if (isChangeLogged() == true) {
+				executeStatement("DELETE FROM CHANGELOG WHERE Time < ?", System.currentTimeMillis() - CHANGELOG_RETENTION);
+			}
+		} else if (dbtype.equals("sqlite")) {
+			executeStatement("VACUUM");
+			executeStatement("PRAGMA optimize");
+			if (getSetting("sqliteProfile") == null || !getSetting("sqliteProfile").equals("safe")) {
+				executeStatement("PRAGMA wal_checkpoint(TRUNCATE)");
+			}
+		}
+	}
+	
+	/**
+	 * Schema version 1: create indexes on the columns used for finding the statements of a document or coder and 
+	 * the variables of a statement type. The data tables need no extra index because their UNIQUE (StatementId, 
+	 * VariableId) key already starts with StatementId.
+	 */
+	private void createIndexes() {
+		createIndex("STATEMENTS_DocumentId", "STATEMENTS", "DocumentId");
+		createIndex("STATEMENTS_Coder", "STATEMENTS", "Coder");
+		createIndex("DOCUMENTS_Coder", "DOCUMENTS", "Coder");
+		createIndex("VARIABLES_StatementTypeId_Variable", "VARIABLES", "StatementTypeId, Variable");
+		createIndex("STATEMENTLINKS_SourceId", "STATEMENTLINKS", "SourceId");
+		createIndex("STATEMENTLINKS_TargetId", "STATEMENTLINKS", "TargetId");
+	}
+	
+	/**
+	 * Create an index unless an index with the same name exists.
+	 * 
+	 * @param name     Name of the index
+	 * @param table    Name of the table
+	 * @param columns  Comma-separated list of indexed columns
+	 */
+	private void createIndex(String name, String table, String columns) {
+		if (dbtype.equals("sqlite")) {
+			executeStatement("CREATE INDEX IF NOT EXISTS " + name + " ON " + table + "(" + columns + ")");
+		} else if (dbtype.equals("mysql")) {
+			try {
+				Object count = executeQueryForObject("SELECT COUNT(*) FROM information_schema.statistics WHERE "
+						+ "table_schema = DATABASE() AND table_name = ? AND index_name = ?", table, name);
+				if (((Number) count).intValue() == 0) {
+					executeStatement("CREATE INDEX " + name + " ON " + table + "(" + columns + ")");
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	/**
+	 * Schema version 2 on SQLite. SQLite cannot change the foreign keys of a table, so each affected table is 
+	 * rebuilt from its own CREATE TABLE statement with ON DELETE CASCADE added to the foreign keys, inside one 
+	 * transaction and with foreign key enforcement switched off.
+	 * 
+	 * @return  true if the tables were rebuilt, false if the transaction was rolled back
+	 */
+	private boolean addCascadingForeignKeysSQLite() {
+		try {
+			executeStatement("PRAGMA foreign_keys = OFF");
+			connection.setAutoCommit(false);
+			ArrayList<String> tables = new ArrayList<String>();
+			for (int i = 0; i < CASCADING_FOREIGN_KEYS.length; i++) {
+				if (!tables.contains(CASCADING_FOREIGN_KEYS[i][0])) {
+					tables.add(CASCADING_FOREIGN_KEYS[i][0]);
+				}
+			}
+			for (int i = 0; i < tables.size(); i++) {
+				String table = tables.get(i);
+				String definition = (String) executeQueryForObject("SELECT sql FROM sqlite_master WHERE type = 'table' AND name = ?", table);
+				if (definition == null) {
+					continue;
+				}
+				String newDefinition = definition;
+				for (int j = 0; j < CASCADING_FOREIGN_KEYS.length; j++) {
+					if (CASCADING_FOREIGN_KEYS[j][0].equals(table)) {
+						newDefinition = newDefinition.replaceAll("(?i)(FOREIGN KEY\\s*\\(\\s*" + CASCADING_FOREIGN_KEYS[j][1] 
+								+ "\\s*\\)\\s*REFERENCES\\s+" + CASCADING_FOREIGN_KEYS[j][2] + "\\s*\\(\\s*ID\\s*\\))(?!\\s*ON DELETE)", 
+								"$1 ON DELETE CASCADE");
+					}
+				}
+				if (newDefinition.equals(definition)) {
+					continue;
+				}
+				newDefinition = newDefinition.replaceFirst("(?i)CREATE TABLE\\s+(IF NOT EXISTS\\s+)?\"?" + table + "\"?", 
+						"CREATE TABLE " + table + "_MIGRATION");
+				java.sql.Statement s = connection.createStatement();
+				s.execute(newDefinition);
+				s.execute("INSERT INTO " + table + "_MIGRATION SELECT * FROM " + table);
+				s.execute("DROP TABLE " + table);
+				s.execute("ALTER TABLE " + table + "_MIGRATION RENAME TO " + table);
+				s.close();
+			}
+			connection.commit();
+			createIndexes();  // the indexes were dropped together with the old tables
+			return true;
+		} catch (SQLException e) {
+			rollbackBatch(e);
+			return false;
+		} finally {
+			resetAutoCommit();
+			clearStatementCache();
+		}
+	}
+	
+	/**
+	 * Schema version 2 on MySQL: replace each affected foreign key by one with ON DELETE CASCADE.
+	 */
+	private void addCascadingForeignKeysMySQL() {
+		for (int i = 0; i < CASCADING_FOREIGN_KEYS.length; i++) {
+			String table = CASCADING_FOREIGN_KEYS[i][0];
+			String column = CASCADING_FOREIGN_KEYS[i][1];
+			String referencedTable = CASCADING_FOREIGN_KEYS[i][2];
+			ArrayList<Object> names = executeQueryForList("SELECT k.CONSTRAINT_NAME FROM information_schema.KEY_COLUMN_USAGE k "
+					+ "INNER JOIN information_schema.REFERENTIAL_CONSTRAINTS r ON r.CONSTRAINT_SCHEMA = k.CONSTRAINT_SCHEMA "
+					+ "AND r.CONSTRAINT_NAME = k.CONSTRAINT_NAME WHERE k.TABLE_SCHEMA = DATABASE() AND k.TABLE_NAME = ? "
+					+ "AND k.COLUMN_NAME = ? AND k.REFERENCED_TABLE_NAME = ? AND r.DELETE_RULE <> 'CASCADE'", 
+					table, column, referencedTable);
+			for (int j = 0; j < names.size(); j++) {
+				executeStatement("ALTER TABLE " + table + " DROP FOREIGN KEY " + names.get(j));
+			}
+			if (names.size() > 0) {
+				executeStatement("ALTER TABLE " + table + " ADD FOREIGN KEY(" + column + ") REFERENCES " 
+						+ referencedTable + "(ID) ON DELETE CASCADE");
+			}
+		}
+	}
+	
+	/**
+	 * Schema version 3: add the TextCompressed column to the DOCUMENTS table. Texts are only moved to this column 
+	 * when compression is switched on with {@link #setTextCompressed(boolean)}.
+	 */
+	private void addTextCompressedColumn() {
+		try {
+			ResultSet columns = connection.getMetaData().getColumns(null, null, "DOCUMENTS", "TextCompressed");
+			boolean exists = columns.next();
+			columns.close();
+			if (exists == true) {
+				return;
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		if (dbtype.equals("sqlite")) {
+			executeStatement("ALTER TABLE DOCUMENTS ADD COLUMN TextCompressed BLOB");
+		} else if (dbtype.equals("mysql")) {
+			executeStatement("ALTER TABLE DOCUMENTS ADD COLUMN TextCompressed LONGBLOB");
+		}
+	}
+	
+	/**
+	 * Schema version 4: create the CHANGELOG table. Each row records that a document or statement was inserted, 
+	 * updated, or deleted; the ID is the sequence number of the change.
+	 */
+	private void createChangeLog() {
+		if (dbtype.equals("sqlite")) {
+			executeStatement("CREATE TABLE IF NOT EXISTS CHANGELOG("
+					+ "ID INTEGER PRIMARY KEY AUTOINCREMENT, "
+					+ "TableName TEXT, "
+					+ "RowId INTEGER, "
+					+ "Operation TEXT, "
+					+ "Session TEXT, "
+					+ "Time INTEGER)");
+		} else if (dbtype.equals("mysql")) {
+			executeStatement("CREATE TABLE IF NOT EXISTS CHANGELOG("
+					+ "ID BIGINT UNSIGNED NOT NULL AUTO_INCREMENT, "
+					+ "TableName VARCHAR(20), "
+					+ "RowId INT UNSIGNED, "
+					+ "Operation VARCHAR(10), "
+					+ "Session CHAR(36), "
+					+ "Time BIGINT, "
+					+ "PRIMARY KEY(ID))");
+		}
 	}
-    
+	
+	/**
+	 * Changes older than this many milliseconds are removed from the CHANGELOG table by {@link #runMaintenance()}.
+	 */
+	public static final long CHANGELOG_RETENTION = 7L * 24 * 60 * 60 * 1000;
+	
 	/**
-	 * Execute a statement on the database.
+	 * Check whether changes are written to the CHANGELOG table. This is only done for MySQL databases, which can 
+	 * be used by several coders at the same time.
 	 * 
-	 * @param myStatement     A string representation of the SQL statement.
+	 * @return  true if changes are logged
+	 */
+	public boolean isChangeLogged() {
+		if (changeLogged == null) {
+			changeLogged = dbtype.equals("mysql") && getSchemaVersion() >= 4;
+		}
+		return changeLogged;
+	}
+	
+	/**
+	 * Record a change of a document or statement in the CHANGELOG table.
+	 * 
+	 * @param table      "DOCUMENTS" or "STATEMENTS"
+	 * @param rowId      The ID of the document or statement
+	 * @param operation  "upsert" or "delete"
+	 */
+	private void logChange(String table, int rowId, String operation) {
+		if (isChangeLogged() == true) {
+			executeStatement("INSERT INTO CHANGELOG (TableName, RowId, Operation, Session, Time) VALUES (?, ?, ?, ?, ?)", 
+					table, rowId, operation, sessionId, System.currentTimeMillis());
+		}
+	}
+	
+	/**
+	 * Record changes of several documents or statements in the CHANGELOG table as one batch. If a transaction is 
+	 * open, the changes become part of it.
+	 * 
+	 * @param table      "DOCUMENTS" or "STATEMENTS"
+	 * @param rowIds     The IDs of the documents or statements
+	 * @param operation  "upsert" or "delete"
+	 * @throws SQLException
+	 */
+	private void logChanges(String table, ArrayList<Integer> rowIds, String operation) throws SQLException {
+		if (isChangeLogged() == false || rowIds.size() == 0) {
+			return;
+		}
+		PreparedStatement preStatement = (PreparedStatement) connection.prepareStatement(
+				"INSERT INTO CHANGELOG (TableName, RowId, Operation, Session, Time) VALUES (?, ?, ?, ?, ?)");
+		long time = System.currentTimeMillis();
+		for (int i = 0; i < rowIds.size(); i++) {
+			preStatement.setString(1, table);
+			preStatement.setInt(2, rowIds.get(i));
+			preStatement.setString(3, operation);
+			preStatement.setString(4, sessionId);
+			preStatement.setLong(5, time);
+			preStatement.addBatch();
+			if ((i + 1) % batchSize == 0) {
+				preStatement.executeBatch();
+			}
+		}
+		preStatement.executeBatch();
+		preStatement.close();
+	}
+	
+	/**
+	 * @return  The sequence number of the latest change in the CHANGELOG table, or 0 if there is none
 	 */
-	public void executeStatement(String myStatement) {
+	public long getLatestChange() {
+		if (isChangeLogged() == false) {
+			return 0;
+		}
 		try {
-			PreparedStatement preStatement = (PreparedStatement) connection.prepareStatement(myStatement);
-			preStatement.execute();
-			preStatement.close();
+			Object max = executeQueryForObject("SELECT MAX(ID) FROM CHANGELOG");
+			if (max != null) {
+				return ((Number) max).longValue();
+			}
 		} catch (SQLException e) {
-			JOptionPane.showMessageDialog(Dna.dna.gui, 
-					"Database access could not be executed properly. Report this problem along with the \n "
-					+ "error log if you can see a systematic pattern here. Also, reload your file.");
 			e.printStackTrace();
 		}
+		return 0;
 	}
 	
 	/**
-	 * Execute a query on the database and get an object back.
+	 * Retrieve the changes after a given change. Changes made through this connection are included and marked, 
+	 * so the caller can advance past them without applying them.
+	 * 
+	 * @param sequence  The sequence number of the last change that was applied
+	 * @return          Array list of {sequence number (Long), table (String), row ID (Integer), operation (String), 
+	 *                  made through this connection (Boolean)}, ordered by sequence number
+	 */
+	public synchronized ArrayList<Object[]> getChangesSince(long sequence) {
+		ArrayList<Object[]> changes = new ArrayList<Object[]>();
+		try {
+			PreparedStatement preStatement = prepareCached("SELECT ID, TableName, RowId, Operation, Session FROM CHANGELOG "
+					+ "WHERE ID > ? ORDER BY ID");
+			bind(preStatement, new Object[] {sequence});
+			ResultSet result = preStatement.executeQuery();
+			while (result.next()) {
+				changes.add(new Object[] {result.getLong(1), result.getString(2), result.getInt(3), result.getString(4), 
+						sessionId.equals(result.getString(5))});
+			}
+			result.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return changes;
+	}
+	
+	/**
+	 * Load a single document without its text, for example after another coder changed it.
+	 * 
+	 * @param id  The ID of the document
+	 * @return    The document, or null if it does not exist
+	 */
+	public synchronized Document getDocument(int id) {
+		Document document = null;
+		try {
+			PreparedStatement preStatement = prepareCached("SELECT ID, Title, Coder, Author, Source, Section, Notes, Type, Date "
+					+ "FROM DOCUMENTS WHERE ID = ?");
+			bind(preStatement, new Object[] {id});
+			ResultSet result = preStatement.executeQuery();
+			if (result.next()) {
+				document = new Document(
+						id, 
+						result.getString("Title"), 
+						null, 
+						result.getInt("Coder"), 
+						result.getString("Author"), 
+						result.getString("Source"), 
+						result.getString("Section"), 
+						result.getString("Notes"), 
+						result.getString("Type"), 
+						new Date(result.getLong("Date"))
+				);
+				document.setTextCache(textCache);
+			}
+			result.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return document;
+	}
+	
+	/**
+	 * Load a single statement with its values, for example after another coder changed it. Missing values are 
+	 * replaced by 0 or an empty string.
+	 * 
+	 * The statement types are passed as a copy, so that this method can be called on another thread than the one 
+	 * that changes the data. The date of the statement is not set because it is the date of its document.
+	 * 
+	 * @param id              The ID of the statement
+	 * @param statementTypes  The variables of each statement type, by statement type ID
+	 * @return                The statement, or null if it or its statement type does not exist
+	 */
+	public synchronized Statement getStatement(int id, HashMap<Integer, LinkedHashMap<String, String>> statementTypes) {
+		try {
+			PreparedStatement preStatement = prepareCached("SELECT ID, DocumentId, Start, Stop, StatementTypeId, Coder "
+					+ "FROM STATEMENTS WHERE ID = ?");
+			bind(preStatement, new Object[] {id});
+			ResultSet result = preStatement.executeQuery();
+			if (!result.next()) {
+				result.close();
+				return null;
+			}
+			int documentId = result.getInt("DocumentId");
+			int start = result.getInt("Start");
+			int stop = result.getInt("Stop");
+			int statementTypeId = result.getInt("StatementTypeId");
+			int coder = result.getInt("Coder");
+			result.close();
+			LinkedHashMap<String, String> variables = statementTypes.get(statementTypeId);
+			if (variables == null) {
+				return null;
+			}
+			HashMap<String, String> types = new HashMap<String, String>();
+			HashMap<String, Integer> ids = getVariableIds(statementTypeId, types);
+			LinkedHashMap<String, Object> values = new LinkedHashMap<String, Object>();
+			Iterator<String> keyIterator = variables.keySet().iterator();
+			while (keyIterator.hasNext()) {
+				String key = keyIterator.next();
+				String dataType = variables.get(key);
+				Object object = null;
+				if (ids.containsKey(key)) {
+					object = executeQueryForObject("SELECT Value FROM DATA" + getTableExtension(dataType) 
+							+ " WHERE StatementId = ? AND VariableId = ?", id, ids.get(key));
+				}
+				if (object == null) {
+					if (dataType.equals("short text") || dataType.equals("long text")) {
+						object = "";
+					} else {
+						object = 0;
+					}
+				} else if (object instanceof Number) {
+					object = ((Number) object).intValue();
+				}
+				values.put(key, object);
+			}
+			return new Statement(id, documentId, start, stop, null, statementTypeId, coder, values);
+		} catch (SQLException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+	
+	/**
+	 * Check whether new document texts are stored compressed, as set by the "compressText" setting.
+	 * 
+	 * @return  true if document texts are stored in the TextCompressed column
+	 */
+	public boolean isTextCompressed() {
+		if (textCompressed == null) {
+			textCompressed = getSchemaVersion() >= 3 && "true".equals(getSetting("compressText"));
+		}
+		return textCompressed;
+	}
+	
+	/**
+	 * Switch compression of document texts on or off. All existing texts are converted in one transaction, so 
+	 * this can take a while on large databases; the freed space is returned to the file system by 
+	 * {@link #runMaintenance()}.
+	 * 
+	 * @param compress  true to store the texts deflate-compressed in the TextCompressed column, false to store 
+	 *                  them as plain text in the Text column
+	 * @return          true if all texts were converted, false if the transaction was rolled back
+	 */
+	public boolean setTextCompressed(boolean compress) {
+		if (getSchemaVersion() < 3) {
+			System.err.println("Document texts cannot be compressed before the database schema is upgraded.");
+			return false;
+		}
+		synchronized (this) {
+			writeQueue.close();
+			if (writeQueue.getUnsavedChanges() > 0) {
+				System.err.println("Document texts were not converted because queued changes could not be saved.");
+				return false;
+			}
+			if (compress == isTextCompressed()) {
+				return true;
+			}
+			try {
+				connection.setAutoCommit(false);
+				ArrayList<Object> ids = executeQueryForList("SELECT ID FROM DOCUMENTS");
+				PreparedStatement select;
+				PreparedStatement update;
+				if (compress == true) {
+					select = connection.prepareStatement("SELECT Text FROM DOCUMENTS WHERE ID = ?");
+					update = connection.prepareStatement("UPDATE DOCUMENTS SET Text = '', TextCompressed = ? WHERE ID = ?");
+				} else {
+					select = connection.prepareStatement("SELECT TextCompressed FROM DOCUMENTS WHERE ID = ?");
+					update = connection.prepareStatement("UPDATE DOCUMENTS SET Text = ?, TextCompressed = NULL WHERE ID = ?");
+				}
+				int pending = 0;
+				for (int i = 0; i < ids.size(); i++) {
+					int id = ((Number) ids.get(i)).intValue();
+					select.setInt(1, id);
+					ResultSet result = select.executeQuery();
+					if (result.next()) {
+						if (compress == true) {
+							String text = result.getString(1);
+							update.setBytes(1, TextCache.deflate(text == null ? "" : text));
+						} else {
+							byte[] compressed = result.getBytes(1);
+							update.setString(1, compressed == null ? "" : TextCache.inflate(compressed));
+						}
+						update.setInt(2, id);
+						update.addBatch();
+						pending++;
+					}
+					result.close();
+					if (pending == batchSize) {
+						update.executeBatch();
+						pending = 0;
+					}
+				}
+				update.executeBatch();
+				select.close();
+				update.close();
+				connection.commit();
+			} catch (SQLException e) {
+				rollbackBatch(e);
+				return false;
+			} finally {
+				resetAutoCommit();
+			}
+			textCompressed = compress;
+			textCache.clear();
+			upsertSetting("compressText", String.valueOf(compress));
+			return true;
+		}
+	}
+	
+	/**
+	 * Get the prepared statement for an SQL template from the cache of this connection, preparing it on first use. 
+	 * The statement must not be closed by the caller.
+	 * 
+	 * @param myStatement     An SQL template with "?" placeholders for the parameters.
+	 * @return                The prepared statement.
+	 * @throws SQLException
+	 */
+	synchronized PreparedStatement prepareCached(String myStatement) throws SQLException {
+		PreparedStatement preStatement = statementCache.get(myStatement);
+		if (preStatement == null || preStatement.isClosed()) {
+			preStatement = (PreparedStatement) connection.prepareStatement(myStatement);
+			statementCache.put(myStatement, preStatement);
+		}
+		return preStatement;
+	}
+	
+	/**
+	 * Discard the rows added to the batches of the cached prepared statements, so that a failed batch is not 
+	 * executed again by the next caller of the same statement.
+	 */
+	private synchronized void clearCachedBatches() {
+		Iterator<PreparedStatement> statementIterator = statementCache.values().iterator();
+		while (statementIterator.hasNext()) {
+			try {
+				statementIterator.next().clearBatch();
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	/**
+	 * Close all cached prepared statements.
+	 */
+	synchronized void clearStatementCache() {
+		Iterator<PreparedStatement> statementIterator = statementCache.values().iterator();
+		while (statementIterator.hasNext()) {
+			try {
+				statementIterator.next().close();
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		statementCache.clear();
+	}
+	
+	/**
+	 * Bind parameters to a prepared statement.
+	 * 
+	 * @param preStatement    The prepared statement.
+	 * @param parameters      The values of the placeholders, in order.
+	 * @throws SQLException
+	 */
+	private void bind(PreparedStatement preStatement, Object[] parameters) throws SQLException {
+		preStatement.clearParameters();
+		for (int i = 0; i < parameters.length; i++) {
+			preStatement.setObject(i + 1, parameters[i]);
+		}
+	}
+	
+	/**
+	 * Execute a statement on the database. If parameters are given, the statement is taken from the prepared 
+	 * statement cache and the parameters are bound to its placeholders; otherwise the statement is prepared once.
+	 * 
+	 * @param myStatement     A string representation of the SQL statement.
+	 * @param parameters      The values of the "?" placeholders in the statement, if any.
+	 */
+	public synchronized void executeStatement(String myStatement, Object... parameters) {
+		try {
+			if (parameters.length > 0) {
+				PreparedStatement preStatement = prepareCached(myStatement);
+				bind(preStatement, parameters);
+				preStatement.execute();
+			} else {
+				PreparedStatement preStatement = (PreparedStatement) connection.prepareStatement(myStatement);
+				preStatement.execute();
+				preStatement.close();
+			}
+		} catch (SQLException e) {
+			reportError(e);
+		}
+	}
+	
+	/**
+	 * Execute a parameterized INSERT, UPDATE or DELETE statement with a cached prepared statement.
 	 * 
 	 * @param myStatement     A string representation of the SQL statement.
-	 * @return                The ID of the row that was changed.
+	 * @param parameters      The values of the "?" placeholders in the statement.
+	 * @return                The number of rows changed, or -1 if the statement failed.
+	 */
+	public synchronized int executeUpdate(String myStatement, Object... parameters) {
+		try {
+			PreparedStatement preStatement = prepareCached(myStatement);
+			bind(preStatement, parameters);
+			return preStatement.executeUpdate();
+		} catch (SQLException e) {
+			reportError(e);
+			return -1;
+		}
+	}
+	
+	/**
+	 * Execute a query on the database and get an object back.
+	 * 
+	 * @param myQuery         A string representation of the SQL query.
+	 * @param parameters      The values of the "?" placeholders in the query, if any.
+	 * @return                The first column of the last row, or null if there are no rows.
 	 * @throws SQLException 
 	 */
-	public Object executeQueryForObject(String myQuery) throws SQLException {
+	public synchronized Object executeQueryForObject(String myQuery, Object... parameters) throws SQLException {
 		Object object = null;
-		PreparedStatement preStatement = (PreparedStatement) connection.prepareStatement(myQuery);
+		PreparedStatement preStatement;
+		if (parameters.length > 0) {
+			preStatement = prepareCached(myQuery);
+			bind(preStatement, parameters);
+		} else {
+			preStatement = (PreparedStatement) connection.prepareStatement(myQuery);
+		}
 		ResultSet result = preStatement.executeQuery();
 		if (result.next()) {
 			do {
@@ -1650,7 +3125,9 @@ public class SqlConnection {
 			} while (result.next());
 		}
 		result.close();
-		preStatement.close();
+		if (parameters.length == 0) {
+			preStatement.close();
+		}
 		return object;
 	}
 	
@@ -1658,13 +3135,19 @@ public class SqlConnection {
 	 * Execute a query on the database and get an object back.
 	 * 
 	 * @param myQuery         A string representation of the SQL query.
+	 * @param parameters      The values of the "?" placeholders in the query, if any.
 	 * @return                An array list with resulting objects.
-	 * @throws SQLException 
 	 */
-	public ArrayList<Object> executeQueryForList(String myQuery){
+	public synchronized ArrayList<Object> executeQueryForList(String myQuery, Object... parameters) {
 		ArrayList<Object> al = new ArrayList<Object>();
 		try {
-			PreparedStatement preStatement = (PreparedStatement) connection.prepareStatement(myQuery);
+			PreparedStatement preStatement;
+			if (parameters.length > 0) {
+				preStatement = prepareCached(myQuery);
+				bind(preStatement, parameters);
+			} else {
+				preStatement = (PreparedStatement) connection.prepareStatement(myQuery);
+			}
 			ResultSet result;
 			result = preStatement.executeQuery();
 			if (result.next()) {
@@ -1673,10 +3156,16 @@ public class SqlConnection {
 				} while (result.next());
 			}
 			result.close();
-			preStatement.close();
+			if (parameters.length == 0) {
+				preStatement.close();
+			}
 		} catch (SQLException e) {
-			e.printStackTrace();
+			if (batchOpen == true) {
+				reportError(e);  // the write queue must not commit a batch based on a failed query
+			} else {
+				e.printStackTrace();
+			}
 		}
 		return al;
 	}
-}
\ No newline at end of file
+}
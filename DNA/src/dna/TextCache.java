@@ -0,0 +1,217 @@
+package dna;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Least-recently-used cache for the text of documents. Documents are loaded without their text, which is read
+ * from the DOCUMENTS table the first time it is needed and kept here until the cache exceeds its size limit. If
+ * the database stores compressed texts, the cache keeps them compressed and inflates a text only when it is
+ * requested; the most recently inflated text is kept to serve repeated requests for the same document. The size
+ * of an uncompressed text is estimated as two bytes per character.
+ */
+public class TextCache {
+	private SqlConnection sql;
+	private LinkedHashMap<Integer, Object> texts;
+	private long maxBytes;
+	private long bytes = 0;
+	private int lastId = -1;
+	private String lastText = null;
+
+	/**
+	 * @param sql       The connection from which missing texts are read
+	 * @param maxBytes  The maximum number of bytes held by the cache
+	 */
+	public TextCache(SqlConnection sql, long maxBytes) {
+		this.sql = sql;
+		this.maxBytes = maxBytes;
+		this.texts = new LinkedHashMap<Integer, Object>(256, 0.75f, true);
+	}
+
+	/**
+	 * Retrieve the text of a document, reading it from the database if it is not in the cache.
+	 *
+	 * @param documentId  The ID of the document
+	 * @return            The text, or an empty string if the document does not exist
+	 */
+	public String getText(int documentId) {
+		Object entry;
+		synchronized (this) {
+			if (documentId == lastId) {
+				return lastText;
+			}
+			entry = texts.get(documentId);
+		}
+		if (entry == null) {
+			entry = load(documentId);
+			if (entry == null) {
+				return "";
+			}
+			put(documentId, entry);
+		}
+		String text;
+		if (entry instanceof byte[]) {
+			text = inflate((byte[]) entry);
+		} else {
+			text = (String) entry;
+		}
+		synchronized (this) {
+			lastId = documentId;
+			lastText = text;
+		}
+		return text;
+	}
+	
+	private Object load(int documentId) {
+		try {
+			if (sql.isTextCompressed() == true) {
+				Object compressed = sql.executeQueryForObject("SELECT TextCompressed FROM DOCUMENTS WHERE ID = ?", documentId);
+				if (compressed != null) {
+					return compressed;
+				}
+			}
+			return sql.executeQueryForObject("SELECT Text FROM DOCUMENTS WHERE ID = ?", documentId);
+		} catch (SQLException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Add or replace the text of a document and evict the least recently used texts if necessary.
+	 *
+	 * @param documentId  The ID of the document
+	 * @param text        The text, either as a String or compressed with {@link #deflate(String)}
+	 */
+	public synchronized void put(int documentId, Object text) {
+		Object old = texts.put(documentId, text);
+		if (old != null) {
+			bytes = bytes - size(old);
+		}
+		bytes = bytes + size(text);
+		if (documentId == lastId) {
+			lastId = -1;
+			lastText = null;
+		}
+		evict();
+	}
+
+	/**
+	 * Remove the text of a document from the cache, for example after the document was deleted.
+	 *
+	 * @param documentId  The ID of the document
+	 */
+	public synchronized void remove(int documentId) {
+		Object old = texts.remove(documentId);
+		if (old != null) {
+			bytes = bytes - size(old);
+		}
+		if (documentId == lastId) {
+			lastId = -1;
+			lastText = null;
+		}
+	}
+
+	/**
+	 * Remove all texts from the cache.
+	 */
+	public synchronized void clear() {
+		texts.clear();
+		bytes = 0;
+		lastId = -1;
+		lastText = null;
+	}
+
+	private void evict() {
+		Iterator<Map.Entry<Integer, Object>> iterator = texts.entrySet().iterator();
+		while (bytes > maxBytes && iterator.hasNext()) {
+			bytes = bytes - size(iterator.next().getValue());
+			iterator.remove();
+		}
+	}
+
+	private static long size(Object text) {
+		if (text instanceof byte[]) {
+			return ((byte[]) text).length;
+		}
+		return 2L * ((String) text).length();
+	}
+
+	/**
+	 * Compress a text with deflate.
+	 *
+	 * @param text  The text
+	 * @return      The UTF-8 bytes of the text, compressed
+	 */
+	public static byte[] deflate(String text) {
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		deflater.setInput(text.getBytes(StandardCharsets.UTF_8));
+		deflater.finish();
+		ByteArrayOutputStream out = new ByteArrayOutputStream(text.length() / 3 + 16);
+		byte[] buffer = new byte[8192];
+		while (!deflater.finished()) {
+			int n = deflater.deflate(buffer);
+			out.write(buffer, 0, n);
+		}
+		deflater.end();
+		return out.toByteArray();
+	}
+
+	/**
+	 * Decompress a text compressed with {@link #deflate(String)}.
+	 *
+	 * @param compressed  The compressed bytes
+	 * @return            The text, or an empty string if the bytes are corrupt
+	 */
+	public static String inflate(byte[] compressed) {
+		Inflater inflater = new Inflater();
+		inflater.setInput(compressed);
+		ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+		byte[] buffer = new byte[8192];
+		try {
+			while (!inflater.finished()) {
+				int n = inflater.inflate(buffer);
+				if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				out.write(buffer, 0, n);
+			}
+		} catch (DataFormatException e) {
+			System.err.println("Compressed document text could not be read.");
+			e.printStackTrace();
+			return "";
+		} finally {
+			inflater.end();
+		}
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return  The number of bytes currently held by the cache
+	 */
+	public synchronized long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return  The maximum number of bytes held by the cache
+	 */
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * @param maxBytes  The maximum number of bytes held by the cache
+	 */
+	public synchronized void setMaxBytes(long maxBytes) {
+		this.maxBytes = maxBytes;
+		evict();
+	}
+}
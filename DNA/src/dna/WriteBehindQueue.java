@@ -0,0 +1,331 @@
+package dna;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+
+/**
+ * Background queue for the database writes caused by interactive edits. Edits are applied to the in-memory data
+ * immediately and queued here as mutations, which a background thread writes to the database in one transaction
+ * every {@link #getFlushInterval()} milliseconds or as soon as {@link #getMaxOperations()} mutations are waiting.
+ * Mutations are written in the order in which they were queued. A mutation with a merge key replaces a waiting
+ * mutation with the same key in its place in the queue, e.g., repeated updates of the same variable in the same
+ * statement. A mutation that removes rows drops the waiting mutations with merge keys for these rows, so that a
+ * mutation for a new row that reuses a released ID cannot take their place in front of the removal. If a mutation
+ * fails, the whole transaction is rolled back, and all of its mutations stay queued and are written again with the
+ * next transaction.
+ */
+public class WriteBehindQueue {
+	private SqlConnection sql;
+	private LinkedHashMap<Object, Mutation> pending;
+	private long sequence = 0;
+	private int inFlight = 0;
+	private int flushInterval = 500;
+	private int maxOperations = 100;
+	private ScheduledExecutorService executor = null;
+	private boolean failing = false;
+	private ArrayList<Mutation> inFlightBatch = new ArrayList<Mutation>();
+	private long enqueued = 0;
+	private HashMap<String, Long> rowQueued = new HashMap<String, Long>();  // when each row was last queued
+
+	/**
+	 * A database write that can be queued.
+	 */
+	public static abstract class Mutation {
+		private ArrayList<String> rows;  // the rows written by the mutation, e.g., "document 3" or "statement 12"
+
+		abstract void apply(SqlConnection sql) throws Exception;
+	}
+
+	public WriteBehindQueue(SqlConnection sql) {
+		this.sql = sql;
+		this.pending = new LinkedHashMap<Object, Mutation>();
+	}
+
+	/**
+	 * Queue a mutation.
+	 *
+	 * @param mutation  The mutation
+	 */
+	public void enqueue(Mutation mutation) {
+		enqueue(null, mutation);
+	}
+
+	/**
+	 * Queue a mutation. If a mutation with the same merge key is still waiting, the new mutation takes its place, 
+	 * so that it is still written before the mutations that were queued after the old one, e.g., the insertion of 
+	 * a document before the insertion of its statements.
+	 *
+	 * @param key       The merge key, or null if the mutation cannot be merged; a merge key starts with the name 
+	 *                  of the row that the mutation writes, e.g., "statement 12 organization" for "statement 12"
+	 * @param mutation  The mutation
+	 */
+	public void enqueue(String key, Mutation mutation) {
+		enqueue(key, null, false, mutation);
+	}
+
+	/**
+	 * Queue a mutation that cannot be merged and that writes the given rows, e.g., the insertion of a document.
+	 *
+	 * @param rows      The names of the rows, e.g., "document 3" or "statement 12"
+	 * @param mutation  The mutation
+	 */
+	public void enqueueRows(ArrayList<String> rows, Mutation mutation) {
+		enqueue(null, rows, false, mutation);
+	}
+
+	/**
+	 * Queue a mutation that removes rows. Waiting mutations with a merge key for one of the rows are dropped, 
+	 * because the removal makes them obsolete. A merge key belongs to a row if it is the name of the row or starts 
+	 * with the name of the row followed by a space, e.g., "statement 12 organization" belongs to "statement 12".
+	 *
+	 * @param rows      The names of the removed rows, e.g., "document 3" or "statement 12"
+	 * @param mutation  The mutation
+	 */
+	public void enqueueRemoval(ArrayList<String> rows, Mutation mutation) {
+		enqueue(null, rows, true, mutation);
+	}
+
+	private void enqueue(String key, ArrayList<String> rows, boolean removal, Mutation mutation) {
+		boolean full;
+		synchronized (this) {
+			if (removal == true) {
+				Iterator<Object> keyIterator = pending.keySet().iterator();
+				while (keyIterator.hasNext()) {
+					Object pendingKey = keyIterator.next();
+					if (pendingKey instanceof String && belongsTo((String) pendingKey, rows)) {
+						keyIterator.remove();
+					}
+				}
+			}
+			if (rows == null) {
+				rows = new ArrayList<String>();
+				if (key != null) {
+					rows.add(getRow(key));
+				}
+			}
+			mutation.rows = rows;
+			enqueued++;
+			for (int i = 0; i < rows.size(); i++) {
+				rowQueued.put(rows.get(i), enqueued);
+			}
+			if (key == null) {
+				pending.put(sequence++, mutation);
+			} else {
+				pending.put(key, mutation);  // keeps the position of a waiting mutation with the same key
+			}
+			if (executor == null) {
+				executor = Executors.newSingleThreadScheduledExecutor();
+				executor.scheduleWithFixedDelay(new Runnable() {
+					public void run() {
+						flush();
+					}
+				}, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+			}
+			full = pending.size() >= maxOperations;
+			if (full == true) {
+				executor.execute(new Runnable() {
+					public void run() {
+						flush();
+					}
+				});
+			}
+		}
+		reportUnsavedChanges();
+	}
+
+	/**
+	 * @param key  A merge key, e.g., "statement 12 organization"
+	 * @return     The name of the row of the key, i.e., its first two words, e.g., "statement 12"
+	 */
+	private String getRow(String key) {
+		int space = key.indexOf(' ');
+		if (space > -1 && key.indexOf(' ', space + 1) > -1) {
+			return key.substring(0, key.indexOf(' ', space + 1));
+		}
+		return key;
+	}
+
+	private boolean belongsTo(String key, ArrayList<String> rows) {
+		for (int i = 0; i < rows.size(); i++) {
+			if (key.equals(rows.get(i)) || key.startsWith(rows.get(i) + " ")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Write all waiting mutations to the database in one transaction. The connection is locked while the batch is 
+	 * taken from the queue and written, so a flush waits for a flush that is running on another thread. If any 
+	 * mutation fails, the transaction is rolled back, and the batch is put back in front of the mutations queued in 
+	 * the meantime. If a mutation with the same merge key as a mutation of the batch was queued in the meantime, 
+	 * both are kept in the order in which they were queued, because a removal may have been queued between them.
+	 */
+	public void flush() {
+		boolean failed = false;
+		boolean firstFailure = false;
+		synchronized (sql) {
+			ArrayList<Object> keys;
+			ArrayList<Mutation> batch;
+			synchronized (this) {
+				if (pending.size() == 0) {
+					return;
+				}
+				keys = new ArrayList<Object>(pending.keySet());
+				batch = new ArrayList<Mutation>(pending.values());
+				pending.clear();
+				inFlight = batch.size();
+				inFlightBatch = batch;
+			}
+			try {
+				sql.beginBatch();
+				for (int i = 0; i < batch.size(); i++) {
+					batch.get(i).apply(sql);
+					sql.checkBatch();  // throws the first error reported by the connection during the mutation
+				}
+				sql.commitBatch();
+			} catch (Exception e) {
+				System.err.println("Queued changes could not be written to the database. They will be written again.");
+				e.printStackTrace();
+				sql.abortBatch();
+				failed = true;
+			}
+			synchronized (this) {
+				if (failed == true) {
+					LinkedHashMap<Object, Mutation> requeued = new LinkedHashMap<Object, Mutation>();
+					for (int i = 0; i < batch.size(); i++) {
+						if (pending.containsKey(keys.get(i))) {
+							requeued.put(sequence++, batch.get(i));  // no longer merged with the newer mutation
+						} else {
+							requeued.put(keys.get(i), batch.get(i));
+						}
+					}
+					requeued.putAll(pending);
+					pending = requeued;
+					firstFailure = !failing;
+				}
+				failing = failed;
+				inFlight = 0;
+				inFlightBatch = new ArrayList<Mutation>();
+			}
+		}
+		reportUnsavedChanges();
+		if (firstFailure == true && Dna.dna != null && Dna.dna.gui != null) {
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					JOptionPane.showMessageDialog(Dna.dna.gui, 
+							"Your changes could not be saved in the database. DNA will keep trying to save them. \n"
+							+ "Report this problem along with the error log if it persists, and do not close the database.");
+				}
+			});
+		}
+	}
+
+	/**
+	 * Stop the background thread and write all waiting mutations to the database. Mutations that are queued
+	 * afterwards start a new background thread. The caller may hold the lock of the connection: a flush that is 
+	 * running on the background thread either has finished or has not taken any mutations yet, because it holds 
+	 * the same lock while it writes.
+	 */
+	public void close() {
+		ScheduledExecutorService oldExecutor;
+		synchronized (this) {
+			oldExecutor = executor;
+			executor = null;
+		}
+		if (oldExecutor != null) {
+			oldExecutor.shutdown();
+		}
+		flush();
+	}
+
+	/**
+	 * @return  The number of queued mutations that have not been committed to the database yet
+	 */
+	public synchronized int getUnsavedChanges() {
+		return pending.size() + inFlight;
+	}
+
+	/**
+	 * @return  The number of mutations queued so far, to be passed to {@link #isQueuedSince(String, long)}
+	 */
+	public synchronized long getEnqueued() {
+		return enqueued;
+	}
+
+	/**
+	 * @param row  The name of a row, e.g., "document 3" or "statement 12"
+	 * @return     true if a mutation of the row is waiting or being written, i.e., it has not been committed yet
+	 */
+	public synchronized boolean isUnsaved(String row) {
+		Iterator<Mutation> mutationIterator = pending.values().iterator();
+		while (mutationIterator.hasNext()) {
+			if (mutationIterator.next().rows.contains(row)) {
+				return true;
+			}
+		}
+		for (int i = 0; i < inFlightBatch.size(); i++) {
+			if (inFlightBatch.get(i).rows.contains(row)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param row       The name of a row, e.g., "document 3" or "statement 12"
+	 * @param enqueued  The return value of an earlier call of {@link #getEnqueued()}
+	 * @return          true if a mutation of the row has been queued since then
+	 */
+	public synchronized boolean isQueuedSince(String row, long enqueued) {
+		Long queued = rowQueued.get(row);
+		return queued != null && queued > enqueued;
+	}
+
+	private void reportUnsavedChanges() {
+		final int count = getUnsavedChanges();
+		if (Dna.dna != null && Dna.dna.gui != null && Dna.dna.gui.statusBar != null) {
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					Dna.dna.gui.statusBar.setUnsavedChanges(count);
+				}
+			});
+		}
+	}
+
+	/**
+	 * @return  The time between two writes in milliseconds
+	 */
+	public int getFlushInterval() {
+		return flushInterval;
+	}
+
+	/**
+	 * @param flushInterval  The time between two writes in milliseconds; takes effect when the background thread is restarted
+	 */
+	public void setFlushInterval(int flushInterval) {
+		this.flushInterval = flushInterval;
+	}
+
+	/**
+	 * @return  The number of waiting mutations that triggers an immediate write
+	 */
+	public int getMaxOperations() {
+		return maxOperations;
+	}
+
+	/**
+	 * @param maxOperations  The number of waiting mutations that triggers an immediate write
+	 */
+	public void setMaxOperations(int maxOperations) {
+		this.maxOperations = maxOperations;
+	}
+}
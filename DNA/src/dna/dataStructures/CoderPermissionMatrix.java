@@ -0,0 +1,76 @@
+package dna.dataStructures;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * Dense coder x coder matrix of the permissions granted by {@link CoderRelation}s, stored as a bit set with one
+ * bit per permission type and ordered pair of coders. A coder always holds all permissions on their own
+ * statements and documents. The matrix is a snapshot; {@link Data} rebuilds it when the coder relations or the
+ * coders change.
+ */
+public class CoderPermissionMatrix {
+	public static final int VIEW_STATEMENTS = 0;
+	public static final int EDIT_STATEMENTS = 1;
+	public static final int VIEW_DOCUMENTS = 2;
+	public static final int EDIT_DOCUMENTS = 3;
+
+	private HashMap<Integer, Integer> positions;
+	private int n;
+	private BitSet bits;
+
+	/**
+	 * Build the matrix from the coders and their relations. If there are several relations for the same pair of
+	 * coders, the first one counts.
+	 *
+	 * @param coders          The coders
+	 * @param coderRelations  The coder relations
+	 */
+	public CoderPermissionMatrix(ArrayList<Coder> coders, ArrayList<CoderRelation> coderRelations) {
+		this.n = coders.size();
+		this.positions = new HashMap<Integer, Integer>(n * 2);
+		for (int i = 0; i < n; i++) {
+			positions.put(coders.get(i).getId(), i);
+		}
+		this.bits = new BitSet(4 * n * n);
+		BitSet seen = new BitSet(n * n);
+		for (int i = 0; i < coderRelations.size(); i++) {
+			CoderRelation cr = coderRelations.get(i);
+			Integer coder = positions.get(cr.getCoder());
+			Integer otherCoder = positions.get(cr.getOtherCoder());
+			if (coder == null || otherCoder == null || seen.get(coder * n + otherCoder)) {
+				continue;
+			}
+			seen.set(coder * n + otherCoder);
+			bits.set(index(VIEW_STATEMENTS, coder, otherCoder), cr.isViewStatements());
+			bits.set(index(EDIT_STATEMENTS, coder, otherCoder), cr.isEditStatements());
+			bits.set(index(VIEW_DOCUMENTS, coder, otherCoder), cr.isViewDocuments());
+			bits.set(index(EDIT_DOCUMENTS, coder, otherCoder), cr.isEditDocuments());
+		}
+	}
+
+	private int index(int permission, int coder, int otherCoder) {
+		return (permission * n + coder) * n + otherCoder;
+	}
+
+	/**
+	 * Check whether a coder holds a permission on the statements or documents of another coder.
+	 *
+	 * @param permission  One of {@link #VIEW_STATEMENTS}, {@link #EDIT_STATEMENTS}, {@link #VIEW_DOCUMENTS}, or {@link #EDIT_DOCUMENTS}
+	 * @param coder       The ID of the coder who wants to view or edit
+	 * @param otherCoder  The ID of the coder who owns the statement or document
+	 * @return            true if the permission is granted
+	 */
+	public boolean isPermitted(int permission, int coder, int otherCoder) {
+		if (coder == otherCoder) {
+			return true;
+		}
+		Integer c = positions.get(coder);
+		Integer o = positions.get(otherCoder);
+		if (c == null || o == null) {
+			return false;
+		}
+		return bits.get(index(permission, c, o));
+	}
+}
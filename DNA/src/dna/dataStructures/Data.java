@@ -2,8 +2,12 @@ package dna.dataStructures;
 
 import java.awt.Color;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 
 import dna.Dna;
 
@@ -18,6 +22,19 @@ public class Data {
 	public ArrayList<StatementLink> statementLinks;
 	public ArrayList<AttributeVector> attributes;
 	
+	// ID-based indexes over the array lists above; kept in sync by the add/remove/set methods of this class
+	private HashMap<Integer, Statement> statementIndex;
+	private HashMap<Integer, Document> documentIndex;
+	private HashMap<Integer, Coder> coderIndex;
+	private HashMap<Integer, StatementType> statementTypeIndex;
+	private HashMap<String, StatementType> statementTypeLabelIndex;
+	private HashMap<Integer, StatementIntervalTree> documentStatementIndex;
+	private HashMap<String, IdAllocator> idAllocators;
+	private StatementStore statementStore;
+	private HashMap<Integer, HashMap<String, HashMap<String, AttributeVector>>> attributeIndex;
+	private HashMap<Integer, Integer> attributePositions;
+	private CoderPermissionMatrix coderPermissions;  // null if it needs to be rebuilt
+	
 	public Data() {
 		this.statements = new ArrayList<Statement>();
 		this.documents = new ArrayList<Document>();
@@ -29,6 +46,80 @@ public class Data {
 		this.statementLinks = new ArrayList<StatementLink>();
 		settings.put("activeCoder", "1");
 		this.attributes = new ArrayList<AttributeVector>();
+		this.statementIndex = new HashMap<Integer, Statement>();
+		this.documentIndex = new HashMap<Integer, Document>();
+		this.coderIndex = new HashMap<Integer, Coder>();
+		this.statementTypeIndex = new HashMap<Integer, StatementType>();
+		this.statementTypeLabelIndex = new HashMap<String, StatementType>();
+		this.documentStatementIndex = new HashMap<Integer, StatementIntervalTree>();
+		this.idAllocators = new HashMap<String, IdAllocator>();
+		this.statementStore = new StatementStore();
+		this.attributeIndex = new HashMap<Integer, HashMap<String, HashMap<String, AttributeVector>>>();
+		this.attributePositions = new HashMap<Integer, Integer>();
+	}
+	
+	/**
+	 * Rebuild the statement ID index from the statements array list.
+	 */
+	private void rebuildStatementIndex() {
+		statementIndex = new HashMap<Integer, Statement>(statements.size() * 2);
+		documentStatementIndex = new HashMap<Integer, StatementIntervalTree>();
+		statementStore = new StatementStore(statements.size());
+		for (int i = 0; i < statements.size(); i++) {
+			statementIndex.put(statements.get(i).getId(), statements.get(i));
+			indexStatementPosition(statements.get(i));
+			statementStore.add(statements.get(i));
+			encodeShortText(statements.get(i));
+		}
+	}
+	
+	/**
+	 * Add a statement to the interval tree of its document.
+	 * 
+	 * @param statement  The statement to index
+	 */
+	private void indexStatementPosition(Statement statement) {
+		StatementIntervalTree tree = documentStatementIndex.get(statement.getDocumentId());
+		if (tree == null) {
+			tree = new StatementIntervalTree();
+			documentStatementIndex.put(statement.getDocumentId(), tree);
+		}
+		tree.add(statement);
+	}
+	
+	/**
+	 * Rebuild the document ID index from the documents array list.
+	 */
+	private void rebuildDocumentIndex() {
+		documentIndex = new HashMap<Integer, Document>(documents.size() * 2);
+		for (int i = 0; i < documents.size(); i++) {
+			documentIndex.put(documents.get(i).getId(), documents.get(i));
+		}
+	}
+	
+	/**
+	 * Rebuild the coder ID index from the coders array list.
+	 */
+	private void rebuildCoderIndex() {
+		coderIndex = new HashMap<Integer, Coder>();
+		for (int i = 0; i < coders.size(); i++) {
+			coderIndex.put(coders.get(i).getId(), coders.get(i));
+		}
+	}
+	
+	/**
+	 * Rebuild the statement type ID and label indexes from the statement types array list. If two statement types 
+	 * share a label, the first one in the list is indexed, as in a linear search.
+	 */
+	private void rebuildStatementTypeIndex() {
+		statementTypeIndex = new HashMap<Integer, StatementType>();
+		statementTypeLabelIndex = new HashMap<String, StatementType>();
+		for (int i = 0; i < statementTypes.size(); i++) {
+			statementTypeIndex.put(statementTypes.get(i).getId(), statementTypes.get(i));
+			if (!statementTypeLabelIndex.containsKey(statementTypes.get(i).getLabel())) {
+				statementTypeLabelIndex.put(statementTypes.get(i).getLabel(), statementTypes.get(i));
+			}
+		}
 	}
 	
 	
@@ -54,6 +145,95 @@ public class Data {
 	*/
 	
 	
+	/**
+	 * Rebuild the attribute index (by statement type ID, variable, and value) from the attributes array list. If 
+	 * several attribute vectors share the same key, the first one in the list is indexed.
+	 */
+	private void rebuildAttributeIndex() {
+		attributeIndex = new HashMap<Integer, HashMap<String, HashMap<String, AttributeVector>>>();
+		for (int i = 0; i < attributes.size(); i++) {
+			indexAttribute(attributes.get(i));
+		}
+		rebuildAttributePositions();
+	}
+	
+	/**
+	 * Rebuild the map from attribute vector IDs to their row indices in the attributes array list.
+	 */
+	private void rebuildAttributePositions() {
+		attributePositions = new HashMap<Integer, Integer>(attributes.size() * 2);
+		for (int i = 0; i < attributes.size(); i++) {
+			attributePositions.put(attributes.get(i).getId(), i);
+		}
+	}
+	
+	/**
+	 * Add an attribute vector to the attribute index unless another vector with the same key is indexed already.
+	 * 
+	 * @param av  The attribute vector
+	 */
+	private void indexAttribute(AttributeVector av) {
+		HashMap<String, HashMap<String, AttributeVector>> variables = attributeIndex.get(av.getStatementTypeId());
+		if (variables == null) {
+			variables = new HashMap<String, HashMap<String, AttributeVector>>();
+			attributeIndex.put(av.getStatementTypeId(), variables);
+		}
+		HashMap<String, AttributeVector> values = variables.get(av.getVariable());
+		if (values == null) {
+			values = new HashMap<String, AttributeVector>();
+			variables.put(av.getVariable(), values);
+		}
+		if (!values.containsKey(av.getValue())) {
+			values.put(av.getValue(), av);
+		}
+	}
+	
+	/**
+	 * Remove an attribute vector from the attribute index. If another vector in the list has the same key, it 
+	 * takes its place.
+	 * 
+	 * @param av  The attribute vector, which must already be removed from the list or carry its old value
+	 */
+	private void unindexAttribute(AttributeVector av) {
+		HashMap<String, AttributeVector> values = getAttributeValueIndex(av.getVariable(), av.getStatementTypeId());
+		if (values == null || values.get(av.getValue()) != av) {
+			return;
+		}
+		values.remove(av.getValue());
+		for (int i = 0; i < attributes.size(); i++) {
+			AttributeVector other = attributes.get(i);
+			if (other != av && other.getStatementTypeId() == av.getStatementTypeId() 
+					&& other.getVariable().equals(av.getVariable()) && other.getValue().equals(av.getValue())) {
+				values.put(other.getValue(), other);
+				break;
+			}
+		}
+	}
+	
+	private HashMap<String, AttributeVector> getAttributeValueIndex(String variable, int statementTypeId) {
+		HashMap<String, HashMap<String, AttributeVector>> variables = attributeIndex.get(statementTypeId);
+		if (variables == null) {
+			return null;
+		}
+		return variables.get(variable);
+	}
+	
+	/**
+	 * Look up an attribute vector by its statement type, variable, and value.
+	 * 
+	 * @param value            The attribute value as a string
+	 * @param variable         The variable name as a string
+	 * @param statementTypeId  The statement type ID as an int
+	 * @return                 The attribute vector, or null if it does not exist
+	 */
+	public AttributeVector getAttribute(String value, String variable, int statementTypeId) {
+		HashMap<String, AttributeVector> values = getAttributeValueIndex(variable, statementTypeId);
+		if (values == null) {
+			return null;
+		}
+		return values.get(value);
+	}
+	
 	/**
 	 * Check if an attribute value already exists in the the attributes array list. Return its ID if found and -1 otherwise.
 	 * 
@@ -63,13 +243,11 @@ public class Data {
 	 * @return                 The ID of the attribute vector as an int; -1 if the attribute vector does not exist
 	 */
 	public int getAttributeId(String value, String variable, int statementTypeId) {
-		for (int i = 0; i < Dna.data.getAttributes().size(); i++) {
-			if (Dna.data.getAttributes().get(i).getValue().equals(value) && Dna.data.getAttributes().get(i).getVariable().equals(variable) 
-					&& Dna.data.getAttributes().get(i).getStatementTypeId() == statementTypeId) {
-				return Dna.data.getAttributes().get(i).getId();
-			}
+		AttributeVector av = getAttribute(value, variable, statementTypeId);
+		if (av == null) {
+			return -1;
 		}
-		return -1;
+		return av.getId();
 	}
 
 	/**
@@ -81,13 +259,16 @@ public class Data {
 	 * @return                 The row index of the attribute vector as an int; -1 if the attribute vector does not exist
 	 */
 	public int getAttributeIndex(String value, String variable, int statementTypeId) {
-		for (int i = 0; i < Dna.data.getAttributes().size(); i++) {
-			if (Dna.data.getAttributes().get(i).getValue().equals(value) && Dna.data.getAttributes().get(i).getVariable().equals(variable) 
-					&& Dna.data.getAttributes().get(i).getStatementTypeId() == statementTypeId) {
-				return i;
-			}
+		AttributeVector av = getAttribute(value, variable, statementTypeId);
+		if (av == null) {
+			return -1;
+		}
+		Integer row = attributePositions.get(av.getId());
+		if (row == null || row >= attributes.size() || attributes.get(row) != av) {  // the list has been sorted or changed
+			rebuildAttributePositions();
+			row = attributePositions.get(av.getId());
 		}
-		return -1;
+		return row;
 	}
 	
 	/**
@@ -95,22 +276,57 @@ public class Data {
 	 * 
 	 * @param variable         The variable name that should match
 	 * @param statementTypeId  The statementTypeId that should match
-	 * @return                 An array of AttributeVector objects
+	 * @return                 An array of AttributeVector objects, in the sort order of the attributes array list
 	 */
 	public AttributeVector[] getAttributes(String variable, int statementTypeId) {
-		ArrayList<AttributeVector> al = new ArrayList<AttributeVector>();
-		for (int i = 0; i < getAttributes().size(); i++) {
-			if (getAttributes().get(i).getVariable().equals(variable) && getAttributes().get(i).getStatementTypeId() == statementTypeId) {
-				al.add(getAttributes().get(i));
-			}
-		}
-		AttributeVector[] array = new AttributeVector[al.size()];
-		for (int i = 0; i < al.size(); i++) {
-			array[i] = al.get(i);
+		HashMap<String, AttributeVector> values = getAttributeValueIndex(variable, statementTypeId);
+		if (values == null) {
+			return new AttributeVector[0];
 		}
+		AttributeVector[] array = values.values().toArray(new AttributeVector[values.size()]);
+		Arrays.sort(array);
 		return array;
 	}
 	
+	/**
+	 * Add an attribute vector to the attributes array list and the attribute index.
+	 * 
+	 * @param av  The attribute vector
+	 */
+	public void addAttribute(AttributeVector av) {
+		attributes.add(av);
+		attributePositions.put(av.getId(), attributes.size() - 1);
+		indexAttribute(av);
+		markIdUsed("attributes", av.getId());
+	}
+	
+	/**
+	 * Remove an attribute vector from the attributes array list and the attribute index.
+	 * 
+	 * @param row  The row index of the attribute vector in the attributes array list
+	 * @return     The removed attribute vector
+	 */
+	public AttributeVector removeAttributeAt(int row) {
+		AttributeVector av = attributes.remove(row);
+		attributePositions.remove(av.getId());
+		unindexAttribute(av);
+		releaseId("attributes", av.getId());
+		return av;
+	}
+	
+	/**
+	 * Change the value of an attribute vector and update the attribute index.
+	 * 
+	 * @param row    The row index of the attribute vector in the attributes array list
+	 * @param value  The new value
+	 */
+	public void setAttributeValue(int row, String value) {
+		AttributeVector av = attributes.get(row);
+		unindexAttribute(av);
+		av.setValue(value);
+		indexAttribute(av);
+	}
+	
 	/**
 	 * Delete an attribute vector from the data in the GUI.
 	 * 
@@ -134,6 +350,9 @@ public class Data {
 	*/
 	
 	/**
+	 * Add and remove attribute vectors through {@link #addAttribute(AttributeVector)} and {@link #removeAttributeAt(int)} 
+	 * rather than through the returned list, so that the attribute index stays in sync. The list may be sorted.
+	 * 
 	 * @return the attributes
 	 */
 	public ArrayList<AttributeVector> getAttributes() {
@@ -145,6 +364,8 @@ public class Data {
 	 */
 	public void setAttributes(ArrayList<AttributeVector> attributes) {
 		this.attributes = attributes;
+		idAllocators.remove("attributes");
+		rebuildAttributeIndex();
 	}
 
 	public void addRegex(Regex regex) {
@@ -161,23 +382,26 @@ public class Data {
 		}
 	}
 	
+	/**
+	 * For a variable (as defined in a statement type), retrieve all values the variable takes at least once across 
+	 * the dataset, as sorted strings. The distinct values are maintained by the statement store as statements are 
+	 * added, updated, or removed.
+	 * 
+	 * @param statementTypeId   Statement type ID of the {@link StatementType} in which the variable is defined.
+	 * @param variableName      Name of the variable as a {@link String}.
+	 * @return                  Array of String values.
+	 */
 	public String[] getStringEntries(int statementTypeId, String variableName) {
-		String type = Dna.data.getStatementTypeById(statementTypeId).getVariables().get(variableName);
-		ArrayList<Statement> subset = Dna.data.getStatementsByStatementTypeId(statementTypeId);
-		ArrayList<String> entries = new ArrayList<String>();
-		for (int i = 0; i < subset.size(); i++) {
-			String mykey;
-			if (type.equals("shorttext") || type.equals("longtext")) {
-				mykey = (String) subset.get(i).getValues().get(variableName);
-			} else {
-				mykey = String.valueOf(subset.get(i).getValues().get(variableName));
-			}
-			if (!entries.contains(mykey)) {
-				entries.add(mykey);
-			}
+		StatementStore.Column column = getStatementColumn(statementTypeId, variableName);
+		if (column.isCoded() == true) {
+			return column.getDistinctLabels();
 		}
-		Collections.sort(entries);
-		String[] entriesArray = entries.toArray(new String[0]);
+		int[] values = column.getDistinctValues();
+		String[] entriesArray = new String[values.length];
+		for (int i = 0; i < values.length; i++) {
+			entriesArray[i] = String.valueOf(values[i]);
+		}
+		Arrays.sort(entriesArray);
 		return entriesArray;
 	}
 	
@@ -189,63 +413,72 @@ public class Data {
 	 * @return                  Array of integer values.
 	 */
 	public int[] getIntEntries(int statementTypeId, String variableName) {
-		String type = Dna.data.getStatementTypeById(statementTypeId).getVariables().get(variableName);
-		if (!type.equals("integer") && !type.equals("boolean")) {
+		StatementStore.Column column = getStatementColumn(statementTypeId, variableName);
+		if (column.isCoded() == true) {
 			System.err.println("Variable '" + variableName + "' is not integer or boolean!");
+			return new int[0];
 		}
-		ArrayList<Statement> subset = Dna.data.getStatementsByStatementTypeId(statementTypeId);
-		ArrayList<Integer> entries = new ArrayList<Integer>();
-		for (int i = 0; i < subset.size(); i++) {
-			int value = (int) subset.get(i).getValues().get(variableName);
-			if (!entries.contains(value)) {
-				entries.add(value);
-			}
-		}
-		Collections.sort(entries);
-		int[] values = new int[entries.size()];
-		for (int i = 0; i < entries.size(); i++) {
-			values[i] = entries.get(i);
+		return column.getDistinctValues();
+	}
+	
+	/**
+	 * Get the coder x coder permission matrix, rebuilding it if the coders or coder relations have changed.
+	 * 
+	 * @return the permission matrix
+	 */
+	public CoderPermissionMatrix getCoderPermissions() {
+		if (coderPermissions == null) {
+			coderPermissions = new CoderPermissionMatrix(coders, coderRelations);
 		}
-		return values;
+		return coderPermissions;
+	}
+	
+	/**
+	 * Mark the coder permission matrix as outdated, e.g., after a {@link CoderRelation} has been edited in place.
+	 */
+	public void invalidateCoderPermissions() {
+		coderPermissions = null;
+	}
+	
+	/**
+	 * Check whether the active coder may view the statements of a coder.
+	 * 
+	 * @param coder  The ID of the coder who owns the statements
+	 * @return       true if the statements are visible to the active coder
+	 */
+	public boolean isStatementCoderVisible(int coder) {
+		return getCoderPermissions().isPermitted(CoderPermissionMatrix.VIEW_STATEMENTS, getActiveCoder(), coder);
+	}
+	
+	/**
+	 * Check whether the active coder may view the documents of a coder.
+	 * 
+	 * @param coder  The ID of the coder who owns the documents
+	 * @return       true if the documents are visible to the active coder
+	 */
+	public boolean isDocumentCoderVisible(int coder) {
+		return getCoderPermissions().isPermitted(CoderPermissionMatrix.VIEW_DOCUMENTS, getActiveCoder(), coder);
 	}
 	
 	public boolean[] getActiveStatementPermissions(int statementId) {
 		int ac = getActiveCoder();
+		int coder = this.getStatement(statementId).getCoder();
+		CoderPermissionMatrix permissions = getCoderPermissions();
 		boolean[] b = new boolean[4];
-		if (this.getStatement(statementId).getCoder() == ac) {
-			b[0] = true;
-			b[1] = true;
-			b[2] = true;
-			b[3] = true;
-		} else {
-			for (int i = 0; i < coderRelations.size(); i++) {
-				if (coderRelations.get(i).getCoder() == ac && coderRelations.get(i).getOtherCoder() == this.getStatement(statementId).getCoder()) {
-					b[0] = coderRelations.get(i).isViewStatements();
-					b[1] = coderRelations.get(i).isEditStatements();
-					b[2] = coderRelations.get(i).isViewDocuments();
-					b[3] = coderRelations.get(i).isEditDocuments();
-					return b;
-				}
-			}
-		}
+		b[0] = permissions.isPermitted(CoderPermissionMatrix.VIEW_STATEMENTS, ac, coder);
+		b[1] = permissions.isPermitted(CoderPermissionMatrix.EDIT_STATEMENTS, ac, coder);
+		b[2] = permissions.isPermitted(CoderPermissionMatrix.VIEW_DOCUMENTS, ac, coder);
+		b[3] = permissions.isPermitted(CoderPermissionMatrix.EDIT_DOCUMENTS, ac, coder);
 		return b;
 	}
 
 	public boolean[] getActiveDocumentPermissions(int documentId) {
 		int ac = getActiveCoder();
+		int coder = this.getDocument(documentId).getCoder();
+		CoderPermissionMatrix permissions = getCoderPermissions();
 		boolean[] b = new boolean[2];
-		if (this.getDocument(documentId).getCoder() == ac) {
-			b[0] = true;
-			b[1] = true;
-		} else {
-			for (int i = 0; i < coderRelations.size(); i++) {
-				if (coderRelations.get(i).getCoder() == ac && coderRelations.get(i).getOtherCoder() == this.getDocument(documentId).getCoder()) {
-					b[0] = coderRelations.get(i).isViewDocuments();
-					b[1] = coderRelations.get(i).isEditDocuments();
-					return b;
-				}
-			}
-		}
+		b[0] = permissions.isPermitted(CoderPermissionMatrix.VIEW_DOCUMENTS, ac, coder);
+		b[1] = permissions.isPermitted(CoderPermissionMatrix.EDIT_DOCUMENTS, ac, coder);
 		return b;
 	}
 	
@@ -276,6 +509,7 @@ public class Data {
 	 */
 	public void setStatementLinks(ArrayList<StatementLink> statementLinks) {
 		this.statementLinks = statementLinks;
+		idAllocators.remove("statementLinks");
 	}
 	
 	/**
@@ -294,10 +528,151 @@ public class Data {
 
 	public void addStatement(Statement statement) {
 		statements.add(statement);
+		statementIndex.put(statement.getId(), statement);
+		indexStatementPosition(statement);
+		statementStore.add(statement);
+		encodeShortText(statement);
+		markIdUsed("statements", statement.getId());
+	}
+	
+	/**
+	 * Encode the short text values of a statement in the value dictionaries of the statement store and replace 
+	 * them by the canonical String instances held by the dictionaries, so that equal values share memory.
+	 * 
+	 * @param statement  A statement that has already been added to the statement store
+	 */
+	private void encodeShortText(Statement statement) {
+		StatementType statementType = getStatementTypeById(statement.getStatementTypeId());
+		if (statementType == null) {
+			return;
+		}
+		int row = statementStore.getRow(statement.getId());
+		Iterator<String> keyIterator = statementType.getVariables().keySet().iterator();
+		while (keyIterator.hasNext()) {
+			String variable = keyIterator.next();
+			if (statementType.getVariables().get(variable).equals("short text") 
+					&& statement.getValues().get(variable) instanceof String) {
+				StatementStore.Column column = statementStore.getColumn(statement.getStatementTypeId(), variable, false);
+				statement.getValues().put(variable, column.getLabel(column.get(row)));
+			}
+		}
+	}
+	
+	/**
+	 * Set the value of a variable in a statement and in the columnar statement store.
+	 * 
+	 * @param statementId  The ID of the statement
+	 * @param variable     The name of the variable
+	 * @param value        The new value
+	 */
+	public void updateStatementValue(int statementId, String variable, Object value) {
+		Statement statement = statementIndex.get(statementId);
+		if (statement == null) {
+			return;
+		}
+		statement.getValues().put(variable, value);
+		statementStore.update(statementId, variable, value);
+		encodeShortText(statement);
+	}
+	
+	/**
+	 * @return the columnar copy of the statements, for fast scans in exports and filters
+	 */
+	public StatementStore getStatementStore() {
+		return statementStore;
+	}
+	
+	/**
+	 * Get the value dictionary of a text variable, which maps each distinct value to an int code.
+	 * 
+	 * @param statementTypeId  The ID of the statement type in which the variable is defined
+	 * @param variable         The name of the variable
+	 * @return                 The dictionary, or null if the variable does not exist or is not a text variable
+	 */
+	public ValueDictionary getValueDictionary(int statementTypeId, String variable) {
+		StatementStore.Column column = getStatementColumn(statementTypeId, variable);
+		if (column == null) {
+			return null;
+		}
+		return column.getDictionary();
+	}
+	
+	/**
+	 * Get the column of a statement-level variable from the columnar statement store.
+	 * 
+	 * @param statementTypeId  The ID of the statement type in which the variable is defined
+	 * @param variable         The name of the variable
+	 * @return                 The column, or null if the statement type or variable does not exist
+	 */
+	public StatementStore.Column getStatementColumn(int statementTypeId, String variable) {
+		StatementType statementType = getStatementTypeById(statementTypeId);
+		if (statementType == null || !statementType.getVariables().containsKey(variable)) {
+			return null;
+		}
+		String dataType = statementType.getVariables().get(variable);
+		boolean integer = dataType.equals("integer") || dataType.equals("boolean");
+		return statementStore.getColumn(statementTypeId, variable, integer);
+	}
+	
+	/**
+	 * Replace values of a text variable in all statements of a statement type, scanning the statement store once.
+	 * 
+	 * @param statementTypeId  The ID of the statement type in which the variable is defined
+	 * @param variable         The name of the text variable
+	 * @param mapping          The new value for each old value
+	 * @return                 The IDs of the changed statements
+	 */
+	public ArrayList<Integer> recodeStatementValues(int statementTypeId, String variable, HashMap<String, String> mapping) {
+		ArrayList<Integer> changed = new ArrayList<Integer>();
+		StatementStore.Column column = getStatementColumn(statementTypeId, variable);
+		if (column == null || column.isCoded() == false) {
+			return changed;
+		}
+		HashMap<Integer, String> codes = new HashMap<Integer, String>();
+		Iterator<String> keyIterator = mapping.keySet().iterator();
+		while (keyIterator.hasNext()) {
+			String original = keyIterator.next();
+			int code = column.getCode(original);
+			if (code > -1) {
+				codes.put(code, mapping.get(original));
+			}
+		}
+		if (codes.size() == 0) {
+			return changed;
+		}
+		ArrayList<String> newValues = new ArrayList<String>();
+		for (int i = 0; i < statementStore.size(); i++) {
+			if (statementStore.getStatementTypeId(i) == statementTypeId) {
+				String newValue = codes.get(column.get(i));
+				if (newValue != null) {
+					changed.add(statementStore.getId(i));
+					newValues.add(newValue);
+				}
+			}
+		}
+		for (int i = 0; i < changed.size(); i++) {
+			updateStatementValue(changed.get(i), variable, newValues.get(i));
+		}
+		return changed;
 	}
 	
 	public void addDocument(Document document) {
 		documents.add(document);
+		documentIndex.put(document.getId(), document);
+		markIdUsed("documents", document.getId());
+	}
+	
+	/**
+	 * Remove a document from the documents array list, but not its statements.
+	 * 
+	 * @param index  The index of the document in the array list
+	 * @return       The document that was removed
+	 */
+	public Document removeDocumentAt(int index) {
+		Document document = documents.remove(index);
+		documentIndex.remove(document.getId());
+		releaseId("documents", document.getId());
+		return document;
 	}
 
 	public void replaceCoder(Coder coder) {
@@ -305,6 +680,7 @@ public class Data {
 		for (int i = 0; i < coders.size(); i++) {
 			if (coders.get(i).getId() == coder.getId()) {
 				coders.set(i, coder);
+				coderIndex.put(coder.getId(), coder);
 				found = true;
 				break;
 			}
@@ -326,6 +702,7 @@ public class Data {
 				}
 			}
 		}
+		coderPermissions = null;
 		if (found == false) {
 			throw new NullPointerException("Coder with ID = " + coder.getId() + " not found.");
 		}
@@ -333,6 +710,8 @@ public class Data {
 	
 	public void addCoder(Coder coder) {
 		coders.add(coder);
+		coderIndex.put(coder.getId(), coder);
+		markIdUsed("coders", coder.getId());
 		int currentId = coder.getId();
 		for (int i = 0; i < coders.size(); i++) {
 			int remoteId = coders.get(i).getId();
@@ -346,6 +725,7 @@ public class Data {
 			}
 		}
 		Collections.sort(coders);
+		coderPermissions = null;
 	}
 	
 	public void removeCoder(int id) {
@@ -371,59 +751,161 @@ public class Data {
 		}
 		for (int i = coderRelations.size() - 1; i > -1; i--) {
 			if (coderRelations.get(i).getCoder() == id || coderRelations.get(i).getOtherCoder() == id) {
+				releaseId("coderRelations", coderRelations.get(i).getId());
 				coderRelations.remove(i);
 			}
 		}
 		coders.remove(index);
+		coderIndex.remove(id);
+		releaseId("coders", id);
+		coderPermissions = null;
+	}
+	
+	/**
+	 * Remove a coder from the coders array list without touching its documents, statements or coder relations.
+	 * 
+	 * @param index  The index of the coder in the array list
+	 */
+	public void removeCoderAt(int index) {
+		Coder coder = coders.remove(index);
+		coderIndex.remove(coder.getId());
+		releaseId("coders", coder.getId());
+		coderPermissions = null;
+	}
+	
+	/**
+	 * Replace the coder at a given position in the coders array list.
+	 * 
+	 * @param index  The index of the coder in the array list
+	 * @param coder  The new coder
+	 */
+	public void setCoderAt(int index, Coder coder) {
+		Coder old = coders.set(index, coder);
+		coderIndex.remove(old.getId());
+		coderIndex.put(coder.getId(), coder);
+		coderPermissions = null;
 	}
 
 	public void addStatementType(StatementType statementType) {
 		statementTypes.add(statementType);
+		statementTypeIndex.put(statementType.getId(), statementType);
+		markIdUsed("statementTypes", statementType.getId());
+		if (!statementTypeLabelIndex.containsKey(statementType.getLabel())) {
+			statementTypeLabelIndex.put(statementType.getLabel(), statementType);
+		}
 	}
 
 	public void removeStatementType(String label) {
-		for (int i = statements.size() - 1; i > -1; i--) {
+		for (int i = statementTypes.size() - 1; i > -1; i--) {
 			if (statementTypes.get(i).getLabel().equals(label)) {
+				releaseId("statementTypes", statementTypes.get(i).getId());
 				statementTypes.remove(i);
 			}
 		}
+		rebuildStatementTypeIndex();
+	}
+	
+	/**
+	 * Remove a statement type from the statement types array list.
+	 * 
+	 * @param index  The index of the statement type in the array list
+	 */
+	public void removeStatementTypeAt(int index) {
+		StatementType statementType = statementTypes.remove(index);
+		releaseId("statementTypes", statementType.getId());
+		statementStore.removeColumns(statementType.getId());
+		rebuildStatementTypeIndex();
+	}
+	
+	/**
+	 * Replace the statement type at a given position in the statement types array list.
+	 * 
+	 * @param index          The index of the statement type in the array list
+	 * @param statementType  The new statement type
+	 */
+	public void setStatementTypeAt(int index, StatementType statementType) {
+		statementStore.removeColumns(statementTypes.get(index).getId());
+		statementTypes.set(index, statementType);
+		rebuildStatementTypeIndex();
 	}
 	
 	public Statement getStatement(int id) {
-		for (int i = 0; i < statements.size(); i++) {
-			if (statements.get(i).getId() == id) {
-				return(statements.get(i));
-			}
-		}
-		return null;
+		return statementIndex.get(id);
 	}
 	
 	public StatementType getStatementType(String label) {
-		for (int i = 0; i < statementTypes.size(); i++) {
-			if (statementTypes.get(i).getLabel().equals(label)) {
-				return(statementTypes.get(i));
-			}
+		StatementType statementType = statementTypeLabelIndex.get(label);
+		if (statementType != null && statementType.getLabel().equals(label)) {
+			return statementType;
 		}
-		return(null);
+		// labels can be edited in place, so the label index may be outdated; refresh it and try again
+		rebuildStatementTypeIndex();
+		return statementTypeLabelIndex.get(label);
 	}
 	
 	public Color getStatementColor(int statementId) {
 		if (settings.get("statementColor").equals("statementType")) {
-			for (int i = 0; i < statementTypes.size(); i++) {
-				if (statementTypes.get(i).getId() == this.getStatement(statementId).getStatementTypeId()) {
-					return statementTypes.get(i).getColor();
-				}
+			StatementType statementType = getStatementTypeById(this.getStatement(statementId).getStatementTypeId());
+			if (statementType != null) {
+				return statementType.getColor();
 			}
 		} else if (settings.get("statementColor").equals("coder")) {
-			for (int i = 0; i < coders.size(); i++) {
-				if (coders.get(i).getId() == this.getStatement(statementId).getCoder()) {
-					return coders.get(i).getColor();
-				}
+			Coder coder = getCoderById(this.getStatement(statementId).getCoder());
+			if (coder != null) {
+				return coder.getColor();
 			}
 		}
 		return null;
 	}
 	
+	/**
+	 * Retrieve the statements of a document, ordered by their start position in the document text.
+	 * 
+	 * @param documentId  The ID of the document
+	 * @return            An array list of statements
+	 */
+	public ArrayList<Statement> getStatementsByDocumentId(int documentId) {
+		StatementIntervalTree tree = documentStatementIndex.get(documentId);
+		if (tree == null) {
+			return new ArrayList<Statement>();
+		}
+		return tree.getStatements();
+	}
+	
+	/**
+	 * Set the date of all statements of a document, e.g., after the date of the document has been changed, and 
+	 * update the statement store.
+	 * 
+	 * @param documentId  The ID of the document
+	 * @param date        The new date
+	 */
+	public void setStatementDates(int documentId, Date date) {
+		StatementIntervalTree tree = documentStatementIndex.get(documentId);
+		if (tree == null) {
+			return;
+		}
+		ArrayList<Statement> documentStatements = tree.getStatements();
+		for (int i = 0; i < documentStatements.size(); i++) {
+			documentStatements.get(i).setDate(date);
+			statementStore.setDate(documentStatements.get(i).getId(), date == null ? 0 : date.getTime());
+		}
+	}
+	
+	/**
+	 * Retrieve the statements of a document that cover a caret position, i.e., that start before and end after it.
+	 * 
+	 * @param documentId  The ID of the document
+	 * @param position    The caret position in the document text
+	 * @return            An array list of statements, ordered by start position
+	 */
+	public ArrayList<Statement> getStatementsAt(int documentId, int position) {
+		StatementIntervalTree tree = documentStatementIndex.get(documentId);
+		if (tree == null) {
+			return new ArrayList<Statement>();
+		}
+		return tree.getStatementsAt(position);
+	}
+	
 	public ArrayList<Statement> getStatementsByStatementTypeId(int id) {
 		ArrayList<Statement> s = new ArrayList<Statement>();
 		for (int i = 0; i < statements.size(); i++) {
@@ -435,63 +917,122 @@ public class Data {
 	}
 
 	public Coder getCoderById(int id) {
-		for (int i = 0; i < coders.size(); i++) {
-			if (coders.get(i).getId() == id) {
-				return coders.get(i);
-			}
-		}
-		return(null);
+		return coderIndex.get(id);
 	}
 
 	public StatementType getStatementTypeById(int id) {
-		for (int i = 0; i < statementTypes.size(); i++) {
-			if (statementTypes.get(i).getId() == id) {
-				return statementTypes.get(i);
+		return statementTypeIndex.get(id);
+	}
+	
+	/**
+	 * Retrieve the ID allocator for an array list, seeding it from the IDs currently in the list on first use.
+	 * 
+	 * @param arrayList  The name of the array list, e.g., "statements" or "documents"
+	 * @return           The ID allocator
+	 */
+	private IdAllocator getIdAllocator(String arrayList) {
+		IdAllocator allocator = idAllocators.get(arrayList);
+		if (allocator == null) {
+			allocator = new IdAllocator();
+			if (arrayList.equals("statements")) {
+				for (int i = 0; i < statements.size(); i++) {
+					allocator.markUsed(statements.get(i).getId());
+				}
+			} else if (arrayList.equals("documents")) {
+				for (int i = 0; i < documents.size(); i++) {
+					allocator.markUsed(documents.get(i).getId());
+				}
+			} else if (arrayList.equals("coders")) {
+				for (int i = 0; i < coders.size(); i++) {
+					allocator.markUsed(coders.get(i).getId());
+				}
+			} else if (arrayList.equals("statementLinks")) {
+				for (int i = 0; i < statementLinks.size(); i++) {
+					allocator.markUsed(statementLinks.get(i).getId());
+				}
+			} else if (arrayList.equals("statementTypes")) {
+				for (int i = 0; i < statementTypes.size(); i++) {
+					allocator.markUsed(statementTypes.get(i).getId());
+				}
+			} else if (arrayList.equals("coderRelations")) {
+				for (int i = 0; i < coderRelations.size(); i++) {
+					allocator.markUsed(coderRelations.get(i).getId());
+				}
+			} else if (arrayList.equals("attributes")) {
+				for (int i = 0; i < attributes.size(); i++) {
+					allocator.markUsed(attributes.get(i).getId());
+				}
 			}
+			idAllocators.put(arrayList, allocator);
 		}
-		return(null);
+		return allocator;
 	}
 	
-	public int generateNewId(String arrayList) {
-		ArrayList<Integer> ids = new ArrayList<Integer>();
-		if (arrayList.equals("statements")) {
-			for (int i = 0; i < statements.size(); i++) {
-				ids.add(statements.get(i).getId());
-			}
-		} else if (arrayList.equals("documents")) {
-			for (int i = 0; i < documents.size(); i++) {
-				ids.add(documents.get(i).getId());
-			}
-		} else if (arrayList.equals("coders")) {
-			for (int i = 0; i < coders.size(); i++) {
-				ids.add(coders.get(i).getId());
-			}
-		} else if (arrayList.equals("statementLinks")) {
-			for (int i = 0; i < statementLinks.size(); i++) {
-				ids.add(statementLinks.get(i).getId());
-			}
-		} else if (arrayList.equals("statementTypes")) {
-			for (int i = 0; i < statementTypes.size(); i++) {
-				ids.add(statementTypes.get(i).getId());
-			}
-		} else if (arrayList.equals("coderRelations")) {
-			for (int i = 0; i < coderRelations.size(); i++) {
-				ids.add(coderRelations.get(i).getId());
-			}
-		} else if (arrayList.equals("attributes")) {
-			for (int i = 0; i < attributes.size(); i++) {
-				ids.add(attributes.get(i).getId());
-			}
+	/**
+	 * Register the ID of an entry that has been added to an array list, so that the allocator of the list does not 
+	 * hand it out again, e.g., the ID of a document that was added by a colleague. If the allocator has not been 
+	 * seeded yet, it will find the entry in the list.
+	 * 
+	 * @param arrayList  The name of the array list, e.g., "statements" or "documents"
+	 * @param id         The ID that is in use
+	 */
+	private void markIdUsed(String arrayList, int id) {
+		IdAllocator allocator = idAllocators.get(arrayList);
+		if (allocator != null) {
+			allocator.markUsed(id);
 		}
-		Collections.sort(ids);
-		int unused = 1;
-		while (ids.contains(unused)) {
-			unused++;
+	}
+	
+	/**
+	 * Return the ID of a deleted entry to the allocator of its array list, so that it can be reused.
+	 * 
+	 * @param arrayList  The name of the array list, e.g., "statements" or "documents"
+	 * @param id         The ID that is no longer in use
+	 */
+	public void releaseId(String arrayList, int id) {
+		IdAllocator allocator = idAllocators.get(arrayList);
+		if (allocator != null) {
+			allocator.release(id);
 		}
-		return unused;
+	}
+	
+	/**
+	 * Generate the lowest unused ID for an array list. Every call returns a different ID, even if no entry is 
+	 * added in between. If the entry is not added after all, e.g., because the user cancels a dialog, the ID 
+	 * should be returned with {@link #releaseId(String, int)}.
+	 * 
+	 * @param arrayList  The name of the array list, e.g., "statements" or "documents"
+	 * @return           The new ID
+	 */
+	public int generateNewId(String arrayList) {
+		return getIdAllocator(arrayList).next();
+	}
+	
+	/**
+	 * Reserve a block of consecutive unused IDs for an array list, for example for batch imports.
+	 * 
+	 * @param arrayList  The name of the array list, e.g., "statements" or "documents"
+	 * @param count      The number of IDs to reserve
+	 * @return           The first ID of the block; the block ends at first + count - 1
+	 */
+	public int reserveIds(String arrayList, int count) {
+		return getIdAllocator(arrayList).reserve(count);
 	}
 	
 	public void removeStatement(int id) {
+		Statement statement = statementIndex.remove(id);
+		if (statement == null) {
+			return;
+		}
+		releaseId("statements", id);
+		statementStore.remove(id);
+		StatementIntervalTree tree = documentStatementIndex.get(statement.getDocumentId());
+		if (tree != null) {
+			tree.remove(statement);
+			if (tree.size() == 0) {
+				documentStatementIndex.remove(statement.getDocumentId());
+			}
+		}
 		for (int i = statements.size() - 1; i > -1; i--) {
 			if (statements.get(i).getId() == id) {
 				statements.remove(i);
@@ -499,11 +1040,49 @@ public class Data {
 		}
 	}
 	
+	/**
+	 * Remove several statements with one pass over the statements array list.
+	 * 
+	 * @param ids  The IDs of the statements to remove; IDs that are not in the data are ignored
+	 */
+	public void removeStatements(HashSet<Integer> ids) {
+		Iterator<Integer> idIterator = ids.iterator();
+		while (idIterator.hasNext()) {
+			int id = idIterator.next();
+			Statement statement = statementIndex.remove(id);
+			if (statement == null) {
+				continue;
+			}
+			releaseId("statements", id);
+			statementStore.remove(id);
+			StatementIntervalTree tree = documentStatementIndex.get(statement.getDocumentId());
+			if (tree != null) {
+				tree.remove(statement);
+				if (tree.size() == 0) {
+					documentStatementIndex.remove(statement.getDocumentId());
+				}
+			}
+		}
+		ArrayList<Statement> remaining = new ArrayList<Statement>(statements.size());
+		for (int i = 0; i < statements.size(); i++) {
+			if (!ids.contains(statements.get(i).getId())) {
+				remaining.add(statements.get(i));
+			}
+		}
+		statements.clear();
+		statements.addAll(remaining);
+	}
+	
 	public void addCoderRelation(CoderRelation coderRelation) {
 		coderRelations.add(coderRelation);
+		markIdUsed("coderRelations", coderRelation.getId());
+		coderPermissions = null;
 	}
 
 	/**
+	 * Add and remove statements through {@link #addStatement(Statement)} and {@link #removeStatement(int)} 
+	 * rather than through the returned list, so that the statement index stays in sync.
+	 * 
 	 * @return the statements
 	 */
 	public ArrayList<Statement> getStatements() {
@@ -515,9 +1094,14 @@ public class Data {
 	 */
 	public void setStatements(ArrayList<Statement> statements) {
 		this.statements = statements;
+		idAllocators.remove("statements");
+		rebuildStatementIndex();
 	}
 
 	/**
+	 * Add and remove documents through {@link #addDocument(Document)} and {@link #removeDocumentAt(int)} 
+	 * rather than through the returned list, so that the document index stays in sync.
+	 * 
 	 * @return the documents
 	 */
 	public ArrayList<Document> getDocuments() {
@@ -529,15 +1113,12 @@ public class Data {
 	 */
 	public void setDocuments(ArrayList<Document> documents) {
 		this.documents = documents;
+		idAllocators.remove("documents");
+		rebuildDocumentIndex();
 	}
 
 	public Document getDocument(int id) {
-		for (int i = 0; i < documents.size(); i++) {
-			if (documents.get(i).getId() == id) {
-				return(documents.get(i));
-			}
-		}
-		return null;
+		return documentIndex.get(id);
 	}
 	
 	public void removeDocument(int documentId) {
@@ -603,6 +1184,9 @@ public class Data {
 	 */
 	public void setCoders(ArrayList<Coder> coders) {
 		this.coders = coders;
+		idAllocators.remove("coders");
+		rebuildCoderIndex();
+		coderPermissions = null;
 	}
 	
 	/**
@@ -617,6 +1201,8 @@ public class Data {
 	 */
 	public void setStatementTypes(ArrayList<StatementType> statementTypes) {
 		this.statementTypes = statementTypes;
+		idAllocators.remove("statementTypes");
+		rebuildStatementTypeIndex();
 	}
 
 	/**
@@ -631,6 +1217,8 @@ public class Data {
 	 */
 	public void setCoderRelations(ArrayList<CoderRelation> coderRelations) {
 		this.coderRelations = coderRelations;
+		idAllocators.remove("coderRelations");
+		coderPermissions = null;
 	}
 
 	/**
@@ -652,12 +1240,10 @@ public class Data {
 	 * @return number of statements with the document ID that is handed over
 	 */
 	public int countStatementsPerDocument(int documentId) {
-		int count = 0;
-		for (int i = 0; i < statements.size(); i++) {
-			if (statements.get(i).getDocumentId() == documentId) {
-				count++;
-			}
+		StatementIntervalTree tree = documentStatementIndex.get(documentId);
+		if (tree == null) {
+			return 0;
 		}
-		return count;
+		return tree.size();
 	}
 }
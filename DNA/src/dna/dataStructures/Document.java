@@ -2,6 +2,8 @@ package dna.dataStructures;
 
 import java.util.Date;
 
+import dna.TextCache;
+
 public class Document implements Comparable<Document> {
 	int id;
 	public String title;
@@ -13,6 +15,7 @@ public class Document implements Comparable<Document> {
 	String notes;
 	String type;
 	Date date;
+	TextCache textCache;
 	
 	public Document(int id, String title, String text, int coder, String author, String source, 
 			String section, String notes, String type, Date date) {
@@ -137,14 +140,27 @@ public class Document implements Comparable<Document> {
 	}
 
 	/**
-	 * Retrieve the document text.
+	 * Retrieve the document text. If the document was loaded without its text, the text is read through the 
+	 * text cache.
 	 * 
 	 * @return  The text.
 	 */
 	public String getText() {
+		if (text == null && textCache != null) {
+			return textCache.getText(id);
+		}
 		return text;
 	}
 
+	/**
+	 * Check whether the text is held by the document itself rather than read through the text cache.
+	 * 
+	 * @return  true if the text is in memory.
+	 */
+	public boolean isTextLoaded() {
+		return text != null || textCache == null;
+	}
+
 	/**
 	 * Set the document text.
 	 * 
@@ -158,10 +174,26 @@ public class Document implements Comparable<Document> {
 	public String getTitle(){ return title; }
 	public Date getDate(){ return date; }
 
-	public void setId(int id){ this.id = id; }
+	public void setId(int id){
+		// the text cache knows the document by its old ID, so keep the text in memory from now on
+		if (text == null && textCache != null) {
+			text = textCache.getText(this.id);
+			textCache = null;
+		}
+		this.id = id;
+	}
 	public void setTitle(String title){ this.title = title; }
 	public void setDate(Date date){ this.date = date; }
 	
+	/**
+	 * Set the cache through which the text is read if the document was loaded without its text.
+	 * 
+	 * @param textCache  The text cache.
+	 */
+	public void setTextCache(TextCache textCache) {
+		this.textCache = textCache;
+	}
+	
 	//this tells the array list how to sort Articles, i.e. by a combination of date and title
 	public int compareTo(Document a) {
 		if (this.getDate().compareTo(a.getDate()) < 0) {
@@ -0,0 +1,89 @@
+package dna.dataStructures;
+
+import java.util.BitSet;
+
+/**
+ * Hands out unused IDs for one table (e.g., statements or documents). The allocator is seeded once with the IDs
+ * that are already in use and keeps a bit set of used IDs together with a cursor pointing at the lowest ID that
+ * may be free, so that consecutive allocations run in amortized constant time. As before, the lowest unused
+ * positive ID is returned, i.e., gaps left by deleted entries are filled first. Blocks of consecutive IDs for
+ * batch inserts are reserved above the high-water mark.
+ */
+public class IdAllocator {
+	private BitSet used;
+	private int lowestFree;
+	private int highWaterMark;
+
+	public IdAllocator() {
+		this.used = new BitSet();
+		this.lowestFree = 1;
+		this.highWaterMark = 0;
+	}
+
+	/**
+	 * Register an ID that is already in use, for example when seeding the allocator from the database.
+	 *
+	 * @param id  The ID that is in use
+	 */
+	public void markUsed(int id) {
+		if (id < 0) {
+			return;
+		}
+		used.set(id);
+		if (id > highWaterMark) {
+			highWaterMark = id;
+		}
+	}
+
+	/**
+	 * Return an ID to the pool after the corresponding entry has been deleted.
+	 *
+	 * @param id  The ID that is no longer used
+	 */
+	public void release(int id) {
+		if (id < 1) {
+			return;
+		}
+		used.clear(id);
+		if (id < lowestFree) {
+			lowestFree = id;
+		}
+		if (id == highWaterMark) {
+			highWaterMark = Math.max(0, used.previousSetBit(id));
+		}
+	}
+
+	/**
+	 * Allocate the lowest unused positive ID.
+	 *
+	 * @return  The new ID
+	 */
+	public int next() {
+		int id = used.nextClearBit(lowestFree);
+		markUsed(id);
+		lowestFree = id + 1;
+		return id;
+	}
+
+	/**
+	 * Reserve a block of consecutive IDs above all IDs in use, for batch inserts.
+	 *
+	 * @param count  The number of IDs to reserve
+	 * @return       The first ID of the block; the block ends at {@code first + count - 1}
+	 */
+	public int reserve(int count) {
+		int first = highWaterMark + 1;
+		if (count > 0) {
+			used.set(first, first + count);
+			highWaterMark = first + count - 1;
+		}
+		return first;
+	}
+
+	/**
+	 * @return the largest ID in use, or 0 if no ID is in use
+	 */
+	public int getHighWaterMark() {
+		return highWaterMark;
+	}
+}
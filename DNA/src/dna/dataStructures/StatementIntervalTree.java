@@ -0,0 +1,194 @@
+package dna.dataStructures;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Interval tree over the statements of a single document, keyed by their start and stop positions in the
+ * document text. The tree is a randomized binary search tree (treap) ordered by start position and statement
+ * ID, in which every node also stores the largest stop position in its subtree. This permits finding all
+ * statements covering a caret position in O(log n + k) time, and the tree is maintained incrementally as
+ * statements are added or removed.
+ */
+public class StatementIntervalTree {
+	private static final Random random = new Random(42);
+	private Node root;
+	private int size;
+
+	private static class Node {
+		Statement statement;
+		int priority;
+		int maxStop;
+		Node left, right;
+
+		Node(Statement statement) {
+			this.statement = statement;
+			this.priority = random.nextInt();
+			this.maxStop = statement.getStop();
+		}
+	}
+
+	public StatementIntervalTree() {
+		this.root = null;
+		this.size = 0;
+	}
+
+	/**
+	 * @return the number of statements in the tree
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Insert a statement into the tree.
+	 *
+	 * @param statement  The statement to add
+	 */
+	public void add(Statement statement) {
+		root = insert(root, new Node(statement));
+		size++;
+	}
+
+	/**
+	 * Remove a statement from the tree. The statement is identified by its start position and ID.
+	 *
+	 * @param statement  The statement to remove
+	 * @return           True if the statement was found and removed
+	 */
+	public boolean remove(Statement statement) {
+		int before = size;
+		root = delete(root, statement.getStart(), statement.getId());
+		return size < before;
+	}
+
+	/**
+	 * Retrieve all statements in the tree, ordered by start position.
+	 *
+	 * @return  An array list of statements
+	 */
+	public ArrayList<Statement> getStatements() {
+		ArrayList<Statement> al = new ArrayList<Statement>(size);
+		collect(root, al);
+		return al;
+	}
+
+	/**
+	 * Retrieve all statements that strictly cover a position in the document text, i.e., statements with
+	 * {@code start < position < stop}, ordered by start position.
+	 *
+	 * @param position  The caret position in the document text
+	 * @return          An array list of statements covering the position
+	 */
+	public ArrayList<Statement> getStatementsAt(int position) {
+		ArrayList<Statement> al = new ArrayList<Statement>();
+		stab(root, position, al);
+		return al;
+	}
+
+	private static int compare(int start1, int id1, int start2, int id2) {
+		if (start1 != start2) {
+			return start1 < start2 ? -1 : 1;
+		}
+		return id1 < id2 ? -1 : (id1 == id2 ? 0 : 1);
+	}
+
+	private static void update(Node n) {
+		int max = n.statement.getStop();
+		if (n.left != null && n.left.maxStop > max) {
+			max = n.left.maxStop;
+		}
+		if (n.right != null && n.right.maxStop > max) {
+			max = n.right.maxStop;
+		}
+		n.maxStop = max;
+	}
+
+	private static Node rotateRight(Node n) {
+		Node l = n.left;
+		n.left = l.right;
+		l.right = n;
+		update(n);
+		update(l);
+		return l;
+	}
+
+	private static Node rotateLeft(Node n) {
+		Node r = n.right;
+		n.right = r.left;
+		r.left = n;
+		update(n);
+		update(r);
+		return r;
+	}
+
+	private static Node insert(Node n, Node newNode) {
+		if (n == null) {
+			return newNode;
+		}
+		Statement s = newNode.statement;
+		if (compare(s.getStart(), s.getId(), n.statement.getStart(), n.statement.getId()) < 0) {
+			n.left = insert(n.left, newNode);
+			if (n.left.priority > n.priority) {
+				return rotateRight(n);
+			}
+		} else {
+			n.right = insert(n.right, newNode);
+			if (n.right.priority > n.priority) {
+				return rotateLeft(n);
+			}
+		}
+		update(n);
+		return n;
+	}
+
+	private Node delete(Node n, int start, int id) {
+		if (n == null) {
+			return null;
+		}
+		int c = compare(start, id, n.statement.getStart(), n.statement.getId());
+		if (c < 0) {
+			n.left = delete(n.left, start, id);
+		} else if (c > 0) {
+			n.right = delete(n.right, start, id);
+		} else {
+			if (n.left == null) {
+				size--;
+				return n.right;
+			} else if (n.right == null) {
+				size--;
+				return n.left;
+			} else if (n.left.priority > n.right.priority) {
+				n = rotateRight(n);
+				n.right = delete(n.right, start, id);
+			} else {
+				n = rotateLeft(n);
+				n.left = delete(n.left, start, id);
+			}
+		}
+		update(n);
+		return n;
+	}
+
+	private static void collect(Node n, ArrayList<Statement> al) {
+		if (n == null) {
+			return;
+		}
+		collect(n.left, al);
+		al.add(n.statement);
+		collect(n.right, al);
+	}
+
+	private static void stab(Node n, int position, ArrayList<Statement> al) {
+		if (n == null || n.maxStop <= position) {
+			return;  // no interval in this subtree ends after the position
+		}
+		stab(n.left, position, al);
+		if (n.statement.getStart() < position) {
+			if (n.statement.getStop() > position) {
+				al.add(n.statement);
+			}
+			stab(n.right, position, al);  // statements in the right subtree start at or after this one
+		}
+	}
+}
@@ -0,0 +1,428 @@
+package dna.dataStructures;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Columnar copy of the statements held by {@link Data}. The fixed fields of each statement (ID, document ID,
+ * start, stop, statement type ID, coder, and date) are kept in primitive arrays, one row per statement, and
+ * variable values are kept in per-variable columns that are created on first use. Integer and boolean
+ * variables are stored as plain ints, and text variables are stored as int codes of a {@link ValueDictionary}.
+ * Exports and filters can therefore scan the columns without touching the statement objects or their value maps.
+ * The {@link Statement} object of each row is retained as a view for existing callers, and {@link Data} keeps
+ * its statement list as well, so the store is held in addition to the statement objects: it makes scans faster
+ * but increases rather than reduces heap use.
+ *
+ * Rows are not ordered; a removed row is replaced by the last row.
+ */
+public class StatementStore {
+	private int size;
+	private int[] ids, documentIds, starts, stops, statementTypeIds, coders;
+	private long[] dates;
+	private Statement[] statements;
+	private HashMap<Integer, Integer> rows;
+	private HashMap<Integer, HashMap<String, Column>> columns;
+
+	/**
+	 * A column with the values of one variable of one statement type. Rows belonging to other statement
+	 * types have undefined values. The column counts how many statements currently hold each value, so that
+	 * the distinct values can be listed in sorted order without scanning the statements.
+	 */
+	public static class Column {
+		private boolean coded;
+		private int[] values;
+		private ValueDictionary dictionary;
+		private int[] codeCounts;
+		private TreeSet<String> distinctLabels;
+		private TreeMap<Integer, Integer> valueCounts;
+
+		Column(boolean coded, int capacity) {
+			this.coded = coded;
+			this.values = new int[capacity];
+			if (coded == true) {
+				this.dictionary = new ValueDictionary();
+				this.codeCounts = new int[16];
+				this.distinctLabels = new TreeSet<String>();
+			} else {
+				this.valueCounts = new TreeMap<Integer, Integer>();
+			}
+		}
+
+		/**
+		 * @return true if the column holds codes of text values, false if it holds integer values
+		 */
+		public boolean isCoded() {
+			return coded;
+		}
+
+		/**
+		 * Get the value of a row. For text columns, this is the code of the value; see {@link #getLabel(int)}.
+		 *
+		 * @param row  The row in the store
+		 * @return     The integer value or code
+		 */
+		public int get(int row) {
+			return values[row];
+		}
+
+		/**
+		 * @return the dictionary of a text column, or null for an integer column
+		 */
+		public ValueDictionary getDictionary() {
+			return dictionary;
+		}
+
+		/**
+		 * @param code  A code of a text column
+		 * @return      The text value corresponding to the code
+		 */
+		public String getLabel(int code) {
+			return dictionary.getLabel(code);
+		}
+
+		/**
+		 * @param label  A text value
+		 * @return       The code of the value, or -1 if the value does not occur in the column
+		 */
+		public int getCode(String label) {
+			return dictionary.getCode(label);
+		}
+
+		/**
+		 * @return the number of distinct codes that have been assigned in a text column
+		 */
+		public int getCodeCount() {
+			return dictionary.size();
+		}
+
+		/**
+		 * @return the distinct values of a text column that occur in at least one statement, in sorted order
+		 */
+		public String[] getDistinctLabels() {
+			return distinctLabels.toArray(new String[distinctLabels.size()]);
+		}
+
+		/**
+		 * @return the distinct values of an integer column that occur in at least one statement, in ascending order
+		 */
+		public int[] getDistinctValues() {
+			int[] distinct = new int[valueCounts.size()];
+			Iterator<Integer> valueIterator = valueCounts.keySet().iterator();
+			for (int i = 0; i < distinct.length; i++) {
+				distinct[i] = valueIterator.next();
+			}
+			return distinct;
+		}
+
+		/**
+		 * Set the value of a row.
+		 *
+		 * @param row      The row in the store
+		 * @param value    The new value of the variable
+		 * @param replace  true if the row already holds a value that is replaced, false for a new row
+		 */
+		void set(int row, Object value, boolean replace) {
+			if (row >= values.length) {
+				int[] newValues = new int[Math.max(row + 1, values.length * 2)];
+				System.arraycopy(values, 0, newValues, 0, values.length);
+				values = newValues;
+			}
+			if (replace == true) {
+				release(row);
+			}
+			if (coded == true) {
+				values[row] = dictionary.encode(value == null ? "" : value.toString());
+			} else if (value instanceof Integer) {
+				values[row] = (Integer) value;
+			} else {
+				values[row] = 0;
+			}
+			retain(row);
+		}
+
+		private void retain(int row) {
+			if (coded == true) {
+				int code = values[row];
+				if (code >= codeCounts.length) {
+					int[] newCounts = new int[Math.max(code + 1, codeCounts.length * 2)];
+					System.arraycopy(codeCounts, 0, newCounts, 0, codeCounts.length);
+					codeCounts = newCounts;
+				}
+				codeCounts[code]++;
+				if (codeCounts[code] == 1) {
+					distinctLabels.add(dictionary.getLabel(code));
+				}
+			} else {
+				Integer count = valueCounts.get(values[row]);
+				valueCounts.put(values[row], count == null ? 1 : count + 1);
+			}
+		}
+
+		/**
+		 * Stop counting the value of a row, e.g., before the row is removed.
+		 *
+		 * @param row  The row in the store
+		 */
+		void release(int row) {
+			if (coded == true) {
+				int code = values[row];
+				codeCounts[code]--;
+				if (codeCounts[code] == 0) {
+					distinctLabels.remove(dictionary.getLabel(code));
+				}
+			} else {
+				int count = valueCounts.get(values[row]);
+				if (count == 1) {
+					valueCounts.remove(values[row]);
+				} else {
+					valueCounts.put(values[row], count - 1);
+				}
+			}
+		}
+
+		void move(int from, int to) {
+			if (from < values.length && to < values.length) {
+				values[to] = values[from];
+			}
+		}
+	}
+
+	public StatementStore() {
+		this(16);
+	}
+
+	public StatementStore(int capacity) {
+		capacity = Math.max(capacity, 16);
+		this.size = 0;
+		this.ids = new int[capacity];
+		this.documentIds = new int[capacity];
+		this.starts = new int[capacity];
+		this.stops = new int[capacity];
+		this.statementTypeIds = new int[capacity];
+		this.coders = new int[capacity];
+		this.dates = new long[capacity];
+		this.statements = new Statement[capacity];
+		this.rows = new HashMap<Integer, Integer>(capacity * 2);
+		this.columns = new HashMap<Integer, HashMap<String, Column>>();
+	}
+
+	/**
+	 * @return the number of statements in the store
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Append a statement to the store.
+	 *
+	 * @param statement  The statement to add
+	 */
+	public void add(Statement statement) {
+		if (size == ids.length) {
+			grow();
+		}
+		int row = size;
+		ids[row] = statement.getId();
+		documentIds[row] = statement.getDocumentId();
+		starts[row] = statement.getStart();
+		stops[row] = statement.getStop();
+		statementTypeIds[row] = statement.getStatementTypeId();
+		coders[row] = statement.getCoder();
+		dates[row] = statement.getDate() == null ? 0 : statement.getDate().getTime();
+		statements[row] = statement;
+		rows.put(statement.getId(), row);
+		size++;
+		HashMap<String, Column> typeColumns = columns.get(statement.getStatementTypeId());
+		if (typeColumns != null) {
+			Iterator<String> keyIterator = typeColumns.keySet().iterator();
+			while (keyIterator.hasNext()) {
+				String variable = keyIterator.next();
+				typeColumns.get(variable).set(row, statement.getValues().get(variable), false);
+			}
+		}
+	}
+
+	/**
+	 * Remove a statement from the store. The last row takes the place of the removed row.
+	 *
+	 * @param statementId  The ID of the statement to remove
+	 */
+	public void remove(int statementId) {
+		Integer row = rows.remove(statementId);
+		if (row == null) {
+			return;
+		}
+		int last = size - 1;
+		HashMap<String, Column> removedColumns = columns.get(statementTypeIds[row]);
+		if (removedColumns != null) {
+			Iterator<Column> columnIterator = removedColumns.values().iterator();
+			while (columnIterator.hasNext()) {
+				columnIterator.next().release(row);
+			}
+		}
+		if (row != last) {
+			ids[row] = ids[last];
+			documentIds[row] = documentIds[last];
+			starts[row] = starts[last];
+			stops[row] = stops[last];
+			statementTypeIds[row] = statementTypeIds[last];
+			coders[row] = coders[last];
+			dates[row] = dates[last];
+			statements[row] = statements[last];
+			rows.put(ids[row], row);
+			HashMap<String, Column> typeColumns = columns.get(statementTypeIds[row]);
+			if (typeColumns != null) {
+				Iterator<Column> columnIterator = typeColumns.values().iterator();
+				while (columnIterator.hasNext()) {
+					columnIterator.next().move(last, row);
+				}
+			}
+		}
+		statements[last] = null;
+		size--;
+	}
+
+	/**
+	 * Update the value of a variable in the columns after it has been changed in the statement.
+	 *
+	 * @param statementId  The ID of the statement
+	 * @param variable     The name of the variable
+	 * @param value        The new value
+	 */
+	public void update(int statementId, String variable, Object value) {
+		Integer row = rows.get(statementId);
+		if (row == null) {
+			return;
+		}
+		HashMap<String, Column> typeColumns = columns.get(statementTypeIds[row]);
+		if (typeColumns != null && typeColumns.containsKey(variable)) {
+			typeColumns.get(variable).set(row, value, true);
+		}
+	}
+
+	/**
+	 * Update the date of a statement after it has been changed in the statement, e.g., with the date of its document.
+	 *
+	 * @param statementId  The ID of the statement
+	 * @param date         The new date in milliseconds since the epoch
+	 */
+	public void setDate(int statementId, long date) {
+		Integer row = rows.get(statementId);
+		if (row != null) {
+			dates[row] = date;
+		}
+	}
+
+	/**
+	 * Get the column of a variable, creating and filling it from the statements on first use.
+	 *
+	 * @param statementTypeId  The ID of the statement type in which the variable is defined
+	 * @param variable         The name of the variable
+	 * @param integer          true for integer and boolean variables, false for text variables
+	 * @return                 The column
+	 */
+	public Column getColumn(int statementTypeId, String variable, boolean integer) {
+		HashMap<String, Column> typeColumns = columns.get(statementTypeId);
+		if (typeColumns == null) {
+			typeColumns = new HashMap<String, Column>();
+			columns.put(statementTypeId, typeColumns);
+		}
+		Column column = typeColumns.get(variable);
+		if (column == null || column.isCoded() == integer) {
+			column = new Column(!integer, ids.length);
+			for (int i = 0; i < size; i++) {
+				if (statementTypeIds[i] == statementTypeId) {
+					column.set(i, statements[i].getValues().get(variable), false);
+				}
+			}
+			typeColumns.put(variable, column);
+		}
+		return column;
+	}
+
+	/**
+	 * Discard the columns of a statement type, for example after its variables have been changed.
+	 *
+	 * @param statementTypeId  The ID of the statement type
+	 */
+	public void removeColumns(int statementTypeId) {
+		columns.remove(statementTypeId);
+	}
+
+	/**
+	 * @param statementId  The ID of a statement
+	 * @return             The row of the statement, or -1 if the statement is not in the store
+	 */
+	public int getRow(int statementId) {
+		Integer row = rows.get(statementId);
+		if (row == null) {
+			return -1;
+		}
+		return row;
+	}
+
+	public int getId(int row) {
+		return ids[row];
+	}
+
+	public int getDocumentId(int row) {
+		return documentIds[row];
+	}
+
+	public int getStart(int row) {
+		return starts[row];
+	}
+
+	public int getStop(int row) {
+		return stops[row];
+	}
+
+	public int getStatementTypeId(int row) {
+		return statementTypeIds[row];
+	}
+
+	public int getCoder(int row) {
+		return coders[row];
+	}
+
+	/**
+	 * @param row  The row in the store
+	 * @return     The date of the statement in milliseconds since the epoch
+	 */
+	public long getDate(int row) {
+		return dates[row];
+	}
+
+	/**
+	 * @param row  The row in the store
+	 * @return     The statement object of the row
+	 */
+	public Statement getStatement(int row) {
+		return statements[row];
+	}
+
+	private void grow() {
+		int capacity = ids.length * 2;
+		ids = copy(ids, capacity);
+		documentIds = copy(documentIds, capacity);
+		starts = copy(starts, capacity);
+		stops = copy(stops, capacity);
+		statementTypeIds = copy(statementTypeIds, capacity);
+		coders = copy(coders, capacity);
+		long[] newDates = new long[capacity];
+		System.arraycopy(dates, 0, newDates, 0, size);
+		dates = newDates;
+		Statement[] newStatements = new Statement[capacity];
+		System.arraycopy(statements, 0, newStatements, 0, size);
+		statements = newStatements;
+	}
+
+	private int[] copy(int[] array, int capacity) {
+		int[] newArray = new int[capacity];
+		System.arraycopy(array, 0, newArray, 0, size);
+		return newArray;
+	}
+}
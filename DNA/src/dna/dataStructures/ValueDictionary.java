@@ -0,0 +1,63 @@
+package dna.dataStructures;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Dictionary of the distinct text values of one variable in one statement type. Every distinct value is
+ * assigned a dense int code in the order in which it is first seen, so that values can be compared and
+ * aggregated as ints. The dictionary also holds the canonical String instance of each value, which the
+ * statements share instead of keeping their own copies. Codes are never reassigned.
+ */
+public class ValueDictionary {
+	private ArrayList<String> labels;
+	private HashMap<String, Integer> codes;
+
+	public ValueDictionary() {
+		this.labels = new ArrayList<String>();
+		this.codes = new HashMap<String, Integer>();
+	}
+
+	/**
+	 * Get the code of a value, adding the value to the dictionary if it is new.
+	 *
+	 * @param label  The text value
+	 * @return       The code of the value
+	 */
+	public int encode(String label) {
+		Integer code = codes.get(label);
+		if (code == null) {
+			code = labels.size();
+			labels.add(label);
+			codes.put(label, code);
+		}
+		return code;
+	}
+
+	/**
+	 * @param label  A text value
+	 * @return       The code of the value, or -1 if the value is not in the dictionary
+	 */
+	public int getCode(String label) {
+		Integer code = codes.get(label);
+		if (code == null) {
+			return -1;
+		}
+		return code;
+	}
+
+	/**
+	 * @param code  A code
+	 * @return      The canonical instance of the text value with this code
+	 */
+	public String getLabel(int code) {
+		return labels.get(code);
+	}
+
+	/**
+	 * @return the number of codes that have been assigned
+	 */
+	public int size() {
+		return labels.size();
+	}
+}
@@ -0,0 +1,448 @@
+package dna.export;
+
+import java.util.Date;
+
+import dna.dataStructures.Data;
+import dna.dataStructures.StatementStore;
+import dna.dataStructures.StatementType;
+
+/**
+ * Immutable description of a network export. An export plan is built once from the widgets of the export dialog
+ * or from the arguments of an rDNA call. It validates the settings and resolves them into enums, the statement
+ * store columns of the variables, and the levels of the qualifier variable, so that the filter and the network
+ * algorithms do not need to parse or compare strings while they iterate over statements or matrix cells.
+ */
+public class ExportPlan {
+
+	/**
+	 * The kind of network to export.
+	 */
+	public enum NetworkType {
+		TWO_MODE("Two-mode network"),
+		ONE_MODE("One-mode network"),
+		EVENT_LIST("Event list");
+
+		private final String label;
+
+		NetworkType(String label) {
+			this.label = label;
+		}
+
+		public String toString() {
+			return label;
+		}
+
+		/**
+		 * @param label  The label used in the export dialog
+		 * @return       The corresponding network type
+		 */
+		public static NetworkType fromLabel(String label) {
+			for (NetworkType t : values()) {
+				if (t.label.equals(label)) {
+					return t;
+				}
+			}
+			throw new IllegalArgumentException("Unknown network type: '" + label + "'.");
+		}
+	}
+
+	/**
+	 * How the levels of the qualifier variable are aggregated.
+	 */
+	public enum QualifierAggregation {
+		IGNORE("ignore"),
+		CONGRUENCE("congruence"),
+		CONFLICT("conflict"),
+		SUBTRACT("subtract"),
+		COMBINE("combine");
+
+		private final String label;
+
+		QualifierAggregation(String label) {
+			this.label = label;
+		}
+
+		public String toString() {
+			return label;
+		}
+
+		/**
+		 * @param label  The label used in the export dialog
+		 * @return       The corresponding qualifier aggregation
+		 */
+		public static QualifierAggregation fromLabel(String label) {
+			for (QualifierAggregation a : values()) {
+				if (a.label.equals(label)) {
+					return a;
+				}
+			}
+			throw new IllegalArgumentException("'qualifierAggregation' must be 'ignore', 'combine', 'subtract', "
+					+ "'congruence', or 'conflict'.");
+		}
+	}
+
+	/**
+	 * How the edge weights are normalized.
+	 */
+	public enum Normalization {
+		NO("no"),
+		AVERAGE_ACTIVITY("average activity"),
+		JACCARD("Jaccard"),
+		COSINE("cosine"),
+		ACTIVITY("activity"),
+		PROMINENCE("prominence");
+
+		private final String label;
+
+		Normalization(String label) {
+			this.label = label;
+		}
+
+		public String toString() {
+			return label;
+		}
+
+		/**
+		 * @param label  The label used in the export dialog
+		 * @return       The corresponding normalization
+		 */
+		public static Normalization fromLabel(String label) {
+			for (Normalization n : values()) {
+				if (n.label.equals(label)) {
+					return n;
+				}
+			}
+			throw new IllegalArgumentException("'normalization' must be 'no', 'activity', 'prominence', "
+					+ "'average activity', 'Jaccard', or 'cosine'.");
+		}
+	}
+
+	/**
+	 * How duplicate statements are treated. Except for {@link #INCLUDE}, a statement is dropped if a statement with
+	 * the same values was already accepted in the same bucket: the same document, calendar week, month, or year, or
+	 * the whole date range.
+	 */
+	public enum Duplicates {
+		INCLUDE("include all duplicates"),
+		PER_DOCUMENT("ignore per document"),
+		PER_WEEK("ignore per calendar week"),
+		PER_MONTH("ignore per calendar month"),
+		PER_YEAR("ignore per calendar year"),
+		ACROSS_DATE_RANGE("ignore across date range");
+
+		private final String label;
+
+		Duplicates(String label) {
+			this.label = label;
+		}
+
+		public String toString() {
+			return label;
+		}
+
+		/**
+		 * @param label  The label used in the export dialog
+		 * @return       The corresponding duplicates setting
+		 */
+		public static Duplicates fromLabel(String label) {
+			for (Duplicates d : values()) {
+				if (d.label.equals(label)) {
+					return d;
+				}
+			}
+			throw new IllegalArgumentException("'duplicates' must be 'include all duplicates', 'ignore per document', "
+					+ "'ignore per calendar week', 'ignore per calendar month', 'ignore per calendar year', or "
+					+ "'ignore across date range'.");
+		}
+	}
+
+	private final NetworkType networkType;
+	private final StatementType statementType;
+	private final String var1, var2, qualifier;
+	private final boolean var1Document, var2Document;
+	private final StatementStore.Column column1, column2, qualifierColumn;
+	private final boolean booleanQualifier;
+	private final int[] qualifierValues;
+	private final QualifierAggregation qualifierAggregation;
+	private final Normalization normalization;
+	private final Duplicates duplicates;
+	private final boolean includeIsolates;
+	private final long startTime, stopTime;
+	private final int parallelism;
+
+	/**
+	 * Validate the export settings and resolve them against the data.
+	 *
+	 * @param data                  The {@link Data} to export.
+	 * @param networkType           The {@link NetworkType}.
+	 * @param statementType         The {@link StatementType} of the statements to export.
+	 * @param var1                  The first variable (the rows of the network matrix).
+	 * @param var1Document          Whether the first variable is a document-level variable.
+	 * @param var2                  The second variable (the columns of the network matrix).
+	 * @param var2Document          Whether the second variable is a document-level variable.
+	 * @param qualifier             The boolean or integer qualifier variable; may be null for event lists.
+	 * @param qualifierAggregation  The {@link QualifierAggregation}.
+	 * @param normalization         The {@link Normalization}.
+	 * @param duplicates            The {@link Duplicates} setting.
+	 * @param includeIsolates       Whether all nodes of the database should be included, rather than the active ones.
+	 * @param startDate             Statements before this date are ignored.
+	 * @param stopDate              Statements after this date are ignored.
+	 * @param parallelism           The number of threads for computing the network.
+	 * @throws IllegalArgumentException  If the settings are invalid or inconsistent.
+	 */
+	public ExportPlan(Data data, NetworkType networkType, StatementType statementType, String var1, boolean var1Document,
+			String var2, boolean var2Document, String qualifier, QualifierAggregation qualifierAggregation,
+			Normalization normalization, Duplicates duplicates, boolean includeIsolates, Date startDate, Date stopDate,
+			int parallelism) {
+		if (networkType == null || qualifierAggregation == null || normalization == null || duplicates == null) {
+			throw new IllegalArgumentException("Network type, qualifier aggregation, normalization, and duplicates "
+					+ "must be specified.");
+		}
+		if (statementType == null) {
+			throw new IllegalArgumentException("The statement type does not exist.");
+		}
+		checkVariable(statementType, "Variable 1", var1, var1Document);
+		checkVariable(statementType, "Variable 2", var2, var2Document);
+		if (qualifier != null) {
+			String qualifierType = statementType.getVariables().get(qualifier);
+			if (qualifierType == null) {
+				throw new IllegalArgumentException("The qualifier variable ('" + qualifier + "') does not exist in this "
+						+ "statement type.");
+			}
+			if (!qualifierType.equals("boolean") && !qualifierType.equals("integer")) {
+				throw new IllegalArgumentException("The qualifier variable ('" + qualifier + "') is not a boolean or "
+						+ "integer variable.");
+			}
+		} else if (networkType != NetworkType.EVENT_LIST) {
+			throw new IllegalArgumentException("A boolean or integer qualifier variable is required for networks.");
+		}
+		if (networkType == NetworkType.TWO_MODE) {
+			if (qualifierAggregation == QualifierAggregation.CONGRUENCE || qualifierAggregation == QualifierAggregation.CONFLICT) {
+				throw new IllegalArgumentException("qualifierAggregation = '" + qualifierAggregation + "' is only possible "
+						+ "with one-mode networks.");
+			}
+			if (normalization == Normalization.AVERAGE_ACTIVITY || normalization == Normalization.JACCARD
+					|| normalization == Normalization.COSINE) {
+				throw new IllegalArgumentException("normalization = '" + normalization + "' is only possible with "
+						+ "one-mode networks.");
+			}
+		} else if (networkType == NetworkType.ONE_MODE) {
+			if (qualifierAggregation == QualifierAggregation.COMBINE) {
+				throw new IllegalArgumentException("qualifierAggregation = 'combine' is only possible with two-mode "
+						+ "networks.");
+			}
+			if (normalization == Normalization.ACTIVITY || normalization == Normalization.PROMINENCE) {
+				throw new IllegalArgumentException("normalization = '" + normalization + "' is only possible with "
+						+ "two-mode networks.");
+			}
+		}
+		if (startDate == null || stopDate == null) {
+			throw new IllegalArgumentException("Date or time is invalid!");
+		}
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1.");
+		}
+
+		this.networkType = networkType;
+		this.statementType = statementType;
+		this.var1 = var1;
+		this.var1Document = var1Document;
+		this.var2 = var2;
+		this.var2Document = var2Document;
+		this.qualifier = qualifier;
+		this.qualifierAggregation = qualifierAggregation;
+		this.normalization = normalization;
+		this.duplicates = duplicates;
+		this.includeIsolates = includeIsolates;
+		this.startTime = startDate.getTime();
+		this.stopTime = stopDate.getTime();
+		this.parallelism = parallelism;
+
+		// resolve the statement store columns and the qualifier levels
+		this.column1 = var1Document ? null : data.getStatementColumn(statementType.getId(), var1);
+		this.column2 = var2Document ? null : data.getStatementColumn(statementType.getId(), var2);
+		if (qualifier == null) {
+			this.qualifierColumn = null;
+			this.booleanQualifier = true;
+			this.qualifierValues = new int[] {0, 1};
+		} else {
+			this.qualifierColumn = data.getStatementColumn(statementType.getId(), qualifier);
+			this.booleanQualifier = statementType.getVariables().get(qualifier).equals("boolean");
+			if (booleanQualifier == true) {
+				this.qualifierValues = new int[] {0, 1};
+			} else {
+				this.qualifierValues = data.getIntEntries(statementType.getId(), qualifier);  // all values found at least once
+			}
+		}
+	}
+
+	private static void checkVariable(StatementType statementType, String name, String variable, boolean document) {
+		if (variable == null) {
+			throw new IllegalArgumentException(name + " must be specified.");
+		}
+		if (document == true) {
+			if (!variable.equals("author") && !variable.equals("source") && !variable.equals("section")
+					&& !variable.equals("type")) {
+				throw new IllegalArgumentException(name + " ('" + variable + "') is not a document-level variable.");
+			}
+		} else if (!statementType.getVariables().containsKey(variable)) {
+			throw new IllegalArgumentException(name + " ('" + variable + "') does not exist in this statement type.");
+		} else if (!statementType.getVariables().get(variable).equals("short text")) {
+			throw new IllegalArgumentException(name + " ('" + variable + "') is not a short text variable.");
+		}
+	}
+
+	/**
+	 * @return  the network type
+	 */
+	public NetworkType getNetworkType() {
+		return networkType;
+	}
+
+	/**
+	 * @return  the statement type of the exported statements
+	 */
+	public StatementType getStatementType() {
+		return statementType;
+	}
+
+	/**
+	 * @return  the first variable
+	 */
+	public String getVar1() {
+		return var1;
+	}
+
+	/**
+	 * @return  whether the first variable is a document-level variable
+	 */
+	public boolean isVar1Document() {
+		return var1Document;
+	}
+
+	/**
+	 * @return  the second variable
+	 */
+	public String getVar2() {
+		return var2;
+	}
+
+	/**
+	 * @return  whether the second variable is a document-level variable
+	 */
+	public boolean isVar2Document() {
+		return var2Document;
+	}
+
+	/**
+	 * @return  the statement store column of the first variable, or null for a document-level variable
+	 */
+	public StatementStore.Column getColumn1() {
+		return column1;
+	}
+
+	/**
+	 * @return  the statement store column of the second variable, or null for a document-level variable
+	 */
+	public StatementStore.Column getColumn2() {
+		return column2;
+	}
+
+	/**
+	 * @return  the qualifier variable, or null if there is none
+	 */
+	public String getQualifier() {
+		return qualifier;
+	}
+
+	/**
+	 * @return  the statement store column of the qualifier variable, or null if there is none
+	 */
+	public StatementStore.Column getQualifierColumn() {
+		return qualifierColumn;
+	}
+
+	/**
+	 * @return  whether the qualifier is a boolean rather than an integer variable
+	 */
+	public boolean isBooleanQualifier() {
+		return booleanQualifier;
+	}
+
+	/**
+	 * @return  the qualifier values in the order of their levels in the network algorithms
+	 */
+	public int[] getQualifierValues() {
+		return qualifierValues.clone();
+	}
+
+	/**
+	 * @return  the qualifier aggregation
+	 */
+	public QualifierAggregation getQualifierAggregation() {
+		return qualifierAggregation;
+	}
+
+	/**
+	 * @return  whether the qualifier is ignored when statements are compared
+	 */
+	public boolean isQualifierIgnored() {
+		return qualifierAggregation == QualifierAggregation.IGNORE;
+	}
+
+	/**
+	 * @return  the normalization
+	 */
+	public Normalization getNormalization() {
+		return normalization;
+	}
+
+	/**
+	 * @return  the duplicates setting
+	 */
+	public Duplicates getDuplicates() {
+		return duplicates;
+	}
+
+	/**
+	 * @return  whether isolates are included
+	 */
+	public boolean getIncludeIsolates() {
+		return includeIsolates;
+	}
+
+	/**
+	 * @return  the start of the date range
+	 */
+	public Date getStartDate() {
+		return new Date(startTime);
+	}
+
+	/**
+	 * @return  the start of the date range in milliseconds
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * @return  the end of the date range
+	 */
+	public Date getStopDate() {
+		return new Date(stopTime);
+	}
+
+	/**
+	 * @return  the end of the date range in milliseconds
+	 */
+	public long getStopTime() {
+		return stopTime;
+	}
+
+	/**
+	 * @return  the number of threads for computing the network
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+}
@@ -23,10 +23,14 @@ import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import javax.swing.BorderFactory;
 import javax.swing.DefaultListModel;
@@ -47,6 +51,7 @@ import javax.swing.ListSelectionModel;
 import javax.swing.ProgressMonitor;
 import javax.swing.ScrollPaneConstants;
 import javax.swing.SpinnerDateModel;
+import javax.swing.SpinnerNumberModel;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 import javax.swing.filechooser.FileFilter;
@@ -64,6 +69,7 @@ import dna.dataStructures.AttributeVector;
 import dna.dataStructures.Data;
 import dna.dataStructures.Document;
 import dna.dataStructures.Statement;
+import dna.dataStructures.StatementStore;
 import dna.dataStructures.StatementType;
 import dna.renderer.StatementTypeComboBoxModel;
 import dna.renderer.StatementTypeComboBoxRenderer;
@@ -82,7 +88,7 @@ public class Exporter extends JDialog {
 	JComboBox<String> networkModesBox, fileFormatBox, var1Box, var2Box, qualifierBox, aggregationBox, normalizationBox, 
 			isolatesBox, duplicatesBox;
 	JComboBox<StatementType> statementTypeBox;
-	JSpinner startSpinner, stopSpinner;
+	JSpinner startSpinner, stopSpinner, parallelismSpinner;
 	JList<String> excludeVariableList, excludeValueList;
 	HashMap<String, ArrayList<String>> excludeValues;
 	ArrayList<String> excludeAuthor, excludeSource, excludeSection, excludeType;
@@ -620,6 +626,14 @@ public class Exporter extends JDialog {
 		stopLabel.setToolTipText(dateToolTip);
 		settingsPanel.add(stopLabel, gbc);
 		
+		gbc.gridx = 2;
+		JLabel parallelismLabel = new JLabel("Threads");
+		String parallelismToolTip = "<html><p width=\"500\">The number of processor cores used for computing the network. "
+				+ "With more than one thread, the rows of the network matrix are computed in parallel, which is faster "
+				+ "for large networks. The resulting network is the same for any number of threads.</p></html>";
+		parallelismLabel.setToolTipText(parallelismToolTip);
+		settingsPanel.add(parallelismLabel, gbc);
+		
 		gbc.insets = new Insets(3, 3, 3, 3);
 		gbc.gridx = 0;
 		gbc.gridy = 7;
@@ -649,6 +663,12 @@ public class Exporter extends JDialog {
 		settingsPanel.add(stopSpinner, gbc);
 		stopSpinner.setPreferredSize(new Dimension(WIDTH, HEIGHT2));
 		
+		gbc.gridx = 2;
+		parallelismSpinner = new JSpinner(new SpinnerNumberModel(1, 1, Runtime.getRuntime().availableProcessors(), 1));
+		parallelismSpinner.setToolTipText(parallelismToolTip);
+		settingsPanel.add(parallelismSpinner, gbc);
+		parallelismSpinner.setPreferredSize(new Dimension(WIDTH, HEIGHT2));
+		
 		// fifth row of options: exclude values from variables
 		gbc.insets = new Insets(10, 3, 3, 3);
 		gbc.gridx = 0;
@@ -937,6 +957,7 @@ public class Exporter extends JDialog {
 				Collections.sort(dates);
 				startModel.setValue(dates.get(0));
 				stopModel.setValue(dates.get(dates.size() - 1));
+				parallelismSpinner.setValue(1);
 				//temporalBox.setSelectedIndex(0);
 				excludeVariableList.setSelectedIndex(0);
 				excludePreviewArea.setText("");
@@ -1107,6 +1128,30 @@ public class Exporter extends JDialog {
 		}
 		
 		public void run() {
+			// compile the settings of the dialog into a validated export plan before anything is computed
+			final ExportPlan plan;
+			try {
+				plan = new ExportPlan(getData(), 
+						ExportPlan.NetworkType.fromLabel((String) networkModesBox.getSelectedItem()), 
+						(StatementType) statementTypeBox.getSelectedItem(), 
+						(String) var1Box.getSelectedItem(), 
+						var1Document(), 
+						(String) var2Box.getSelectedItem(), 
+						var2Document(), 
+						(String) qualifierBox.getSelectedItem(), 
+						ExportPlan.QualifierAggregation.fromLabel((String) aggregationBox.getSelectedItem()), 
+						ExportPlan.Normalization.fromLabel((String) normalizationBox.getSelectedItem()), 
+						ExportPlan.Duplicates.fromLabel((String) duplicatesBox.getSelectedItem()), 
+						isolatesBox.getSelectedItem().equals("include isolates"), 
+						(Date) startSpinner.getValue(), 
+						(Date) stopSpinner.getValue(), 
+						(Integer) parallelismSpinner.getValue());
+			} catch (IllegalArgumentException e) {
+				JOptionPane.showMessageDialog(Dna.dna.gui, e.getMessage(), "Invalid export settings", JOptionPane.ERROR_MESSAGE);
+				return;
+			}
+			boolean eventList = plan.getNetworkType() == ExportPlan.NetworkType.EVENT_LIST;
+			
 			progressMonitor = new ProgressMonitor(Exporter.this, "Exporting network data.", "(1/4) Filtering statements...", 0, 4);
 			progressMonitor.setMillisToDecideToPopup(1);
 			// delay the process by a second to make sure the progress monitor shows up
@@ -1120,38 +1165,23 @@ public class Exporter extends JDialog {
 			
 			// step 1: filter statements by date, statement type, empty variable entries, qualifier, and excluded values
 			progressMonitor.setNote("(1/4) Filtering statements...");
-			Date startDate = (Date) startSpinner.getValue();
-			Date stopDate = (Date) stopSpinner.getValue();
-			StatementType statementType = (StatementType) statementTypeBox.getSelectedItem();
-			String var1Name = (String) var1Box.getSelectedItem();
-			String var2Name = (String) var2Box.getSelectedItem();
-			String qualifierName = (String) qualifierBox.getSelectedItem();
-			boolean ignoreQualifier = aggregationBox.getSelectedItem().equals("ignore");
-			String duplicateSetting = (String) duplicatesBox.getSelectedItem();
 			statements = Dna.data.getStatements();
 			documents = Dna.data.getDocuments();
-			boolean filterEmptyFields = true;
-			if (networkModesBox.getSelectedItem().equals("Event list")) {
-				filterEmptyFields = false;
-			}
-			statements = filter(statements, documents, startDate, stopDate, statementType, var1Name, var2Name, 
-					var1Document(), var2Document(), qualifierName, ignoreQualifier, duplicateSetting, 
-					excludeAuthor, excludeSource, excludeSection, excludeType, excludeValues, filterEmptyFields);
+			statements = filter(statements, documents, plan, excludeAuthor, excludeSource, excludeSection, excludeType, 
+					excludeValues);
 			System.out.println("Export was launched: " + statements.size() + " out of " + Dna.data.getStatements().size() 
 					+ " statements retained after filtering.");
 			progressMonitor.setProgress(1);
 			
 			// step 2: compile the node labels (and thereby dimensions) for the first and second mode
 			progressMonitor.setNote("(2/4) Compiling node labels...");
-			if (!networkModesBox.getSelectedItem().equals("Event list")) {  // labels are only needed for one-mode or two-mode networks
-				boolean includeIsolates = false;
-				if (isolatesBox.getSelectedItem().equals("include isolates")) {
-					includeIsolates = true;
-				}
-				int statementTypeId = statementType.getId();
+			if (eventList == false) {  // labels are only needed for one-mode or two-mode networks
+				int statementTypeId = plan.getStatementType().getId();
 				ArrayList<Statement> originalStatements = Dna.data.getStatements();
-				names1 = extractLabels(statements, originalStatements, documents, var1Name, var1Document(), statementTypeId, includeIsolates);
-				names2 = extractLabels(statements, originalStatements, documents, var2Name, var2Document(), statementTypeId, includeIsolates);
+				names1 = extractLabels(statements, originalStatements, documents, plan.getVar1(), plan.isVar1Document(), 
+						statementTypeId, plan.getIncludeIsolates());
+				names2 = extractLabels(statements, originalStatements, documents, plan.getVar2(), plan.isVar2Document(), 
+						statementTypeId, plan.getIncludeIsolates());
 				System.out.println("Node labels have been extracted.");
 			}
 			progressMonitor.setProgress(2);
@@ -1159,18 +1189,10 @@ public class Exporter extends JDialog {
 			// step 3: create network data structure
 			progressMonitor.setNote("(3/4) Computing network...");
 			Matrix matrix = null;
-			String qualifier = (String) qualifierBox.getSelectedItem();
-			String qualifierAggregation = (String) aggregationBox.getSelectedItem();
-			String normalization = (String) normalizationBox.getSelectedItem();
-			if (networkModesBox.getSelectedItem().equals("Event list")) {
-				// no network preparation needed
-			} else if (networkModesBox.getSelectedItem().equals("Two-mode network")) {
-				matrix = computeTwoModeMatrix(statements, documents, statementType, var1Name, var2Name, var1Document(), 
-						var2Document(), names1, names2, qualifier, qualifierAggregation, normalization);
-			} else if (networkModesBox.getSelectedItem().equals("One-mode network")) {
-				//String temporalAggregation = (String) temporalBox.getSelectedItem();
-				matrix = computeOneModeMatrix(statements, documents, statementType, var1Name, var2Name, var1Document(), 
-						var2Document(), names1, names2, qualifier, qualifierAggregation, normalization);  // , temporalAggregation
+			if (plan.getNetworkType() == ExportPlan.NetworkType.TWO_MODE) {
+				matrix = computeTwoModeMatrix(statements, documents, plan, names1, names2);
+			} else if (plan.getNetworkType() == ExportPlan.NetworkType.ONE_MODE) {
+				matrix = computeOneModeMatrix(statements, documents, plan, names1, names2);
 			}
 			System.out.println("Network has been created.");
 			progressMonitor.setProgress(3);
@@ -1178,29 +1200,20 @@ public class Exporter extends JDialog {
 			// step 4: write to file
 			progressMonitor.setNote("(4/4) Writing to file...");
 			String fileFormat = (String) fileFormatBox.getSelectedItem();
-			if (networkModesBox.getSelectedItem().equals("Event list")) {
-				eventCSV(statements, documents, statementType, filename);
+			if (eventList == true) {
+				eventCSV(statements, documents, plan.getStatementType(), filename);
 			} else {
-				boolean twoMode = false;
-				if (networkModesBox.getSelectedItem().equals("Two-mode network")) {
-					twoMode = true;
-				}
+				boolean twoMode = plan.getNetworkType() == ExportPlan.NetworkType.TWO_MODE;
 				if (fileFormat.equals(".csv")) {
 					exportCSV(matrix, filename);
 				} else if (fileFormat.equals(".dl")) {
 					exportDL(matrix, filename, twoMode);
 				} else if (fileFormat.equals(".graphml")) {
-					String[] values1 = retrieveValues(statements, documents, var1Name, var1Document());
-					String[] values2 = retrieveValues(statements, documents, var2Name, var2Document());
+					String[] values1 = retrieveValues(statements, documents, plan.getVar1(), plan.isVar1Document());
+					String[] values2 = retrieveValues(statements, documents, plan.getVar2(), plan.isVar2Document());
 					int[] frequencies1 = countFrequencies(values1, names1);
 					int[] frequencies2 = countFrequencies(values2, names2);
-					ArrayList<AttributeVector> attributes = Dna.data.getAttributes();
-					boolean qualifierBinary = false;
-					if (statementType.getVariables().get(qualifierName).equals("boolean")) {
-						qualifierBinary = true;
-					}
-					exportGraphml(matrix, twoMode, statementType, filename, var1Name, var2Name, frequencies1, frequencies2, 
-							attributes, qualifierAggregation, qualifierBinary);
+					exportGraphml(matrix, plan, filename, frequencies1, frequencies2);
 				}
 			}
 			progressMonitor.setProgress(4);
@@ -1242,9 +1255,19 @@ public class Exporter extends JDialog {
 			docMap.put(documents.get(i).getId(), i);
 		}
 		
-		// go through statements and extract names
+		// go through statements and extract names; statement-level values are collected as codes from the statement store
 		ArrayList<String> names = new ArrayList<String>();
+		HashSet<String> nameSet = new HashSet<String>();
 		String n = null;
+		StatementStore store = getData().getStatementStore();
+		StatementStore.Column column = null;
+		boolean[] codeUsed = null;
+		if (variableDocument == false) {
+			column = getData().getStatementColumn(statementTypeId, variable);
+			if (column != null && column.isCoded() == true) {
+				codeUsed = new boolean[column.getCodeCount()];
+			}
+		}
 		for (int i = 0; i < finalStatements.size(); i++) {
 			if (variableDocument == true) {
 				if (variable.equals("author")) {
@@ -1256,13 +1279,25 @@ public class Exporter extends JDialog {
 				} else if (variable.equals("type")) {
 					n = documents.get(docMap.get(finalStatements.get(i).getDocumentId())).getType();
 				}
-				if (!names.contains(n)) {
+				if (nameSet.add(n)) {
 					names.add(n);
 				}
 			} else if (finalStatements.get(i).getStatementTypeId() == statementTypeId) {
-				n = (String) finalStatements.get(i).getValues().get(variable);
-				if (!names.contains(n)) {
-					names.add(n);
+				int row = store.getRow(finalStatements.get(i).getId());
+				if (codeUsed != null && row > -1 && column.get(row) < codeUsed.length) {
+					codeUsed[column.get(row)] = true;
+				} else {
+					n = (String) finalStatements.get(i).getValues().get(variable);
+					if (nameSet.add(n)) {
+						names.add(n);
+					}
+				}
+			}
+		}
+		if (codeUsed != null) {
+			for (int i = 0; i < codeUsed.length; i++) {
+				if (codeUsed[i] == true && nameSet.add(column.getLabel(i))) {
+					names.add(column.getLabel(i));
 				}
 			}
 		}
@@ -1288,43 +1323,27 @@ public class Exporter extends JDialog {
 	 * Return a filtered list of {@link Statement}s based on the settings in the GUI.
 	 * 
 	 * @param statements          {@link ArrayList} of {@link Statement}s to be filtered.
-	 * @param startDate           {@link Date} object indicating the start date
-	 * @param stopDate            {@link Date} object indicating the end date
-	 * @param statementType       {@link StatementType} to which the export is restricted
-	 * @param var1                {@link String} indicating the first variable used for network construction, e.g., "organization"
-	 * @param var2                {@link String} indicating the second variable used for network construction, e.g., "concept"
-	 * @param var1Document        {@link boolean} indicating if the var1 variable is a document-level variable (as opposed to statement-level)
-	 * @param var2Document        {@link boolean} indicating if the var2 variable is a document-level variable (as opposed to statement-level)
-	 * @param qualifierName       {@link String} indicating the qualifier variable, e.g., "agreement"
-	 * @param ignoreQualifier     {@link boolean} indicating whether the qualifier variable should be ignored
-	 * @param duplicateSetting    {@link String} indicating how to handle duplicates; valid settings include "include all duplicates", "ignore per document", "ignore per calendar week", "ignore per calendar month", "ignore per calendar year", or "ignore across date range"
+	 * @param documents           {@link ArrayList} of {@link Document}s which contain the statements.
+	 * @param plan                {@link ExportPlan} with the date range, statement type, variables, qualifier, and duplicates setting; empty fields are only kept for event lists
 	 * @param excludeAuthor       {@link ArrayList} with {@link String}s containing document authors to exclude
 	 * @param excludeSource       {@link ArrayList} with {@link String}s containing document sources to exclude
 	 * @param excludeSection      {@link ArrayList} with {@link String}s containing document sections to exclude
 	 * @param excludeType         {@link ArrayList} with {@link String}s containing document types to exclude
 	 * @param excludeValues       {@link HashMap} with {@link String}s as keys (indicating the variable for which entries should be excluded from export) and {@link HashMap}s of {@link String}s (containing variable entries to exclude from network export)
-	 * @param filterEmptyFields   {@link boolean} indicating whether empty fields (i.e., "") should be excluded
 	 * @return                    {@link ArrayList} of filtered {@link Statement}s
 	 */
 	private ArrayList<Statement> filter(
 			ArrayList<Statement> statements, 
 			ArrayList<Document> documents, 
-			Date startDate, 
-			Date stopDate, 
-			StatementType statementType, 
-			String var1, 
-			String var2, 
-			boolean var1Document, 
-			boolean var2Document, 
-			String qualifierName, 
-			boolean ignoreQualifier, 
-			String duplicateSetting, 
+			ExportPlan plan, 
 			ArrayList<String> excludeAuthor, 
 			ArrayList<String> excludeSource, 
 			ArrayList<String> excludeSection, 
 			ArrayList<String> excludeType, 
-			HashMap<String, ArrayList<String>> excludeValues, 
-			boolean filterEmptyFields) {
+			HashMap<String, ArrayList<String>> excludeValues) {
+		
+		StatementType statementType = plan.getStatementType();
+		boolean filterEmptyFields = plan.getNetworkType() != ExportPlan.NetworkType.EVENT_LIST;
 		
 		// reporting
 		Iterator<String> excludeIterator = excludeValues.keySet().iterator();
@@ -1355,26 +1374,77 @@ public class Exporter extends JDialog {
 		}
 		
 		// Create arrays with variable values
-		String[] values1 = retrieveValues(statements, documents, var1, var1Document);
-		String[] values2 = retrieveValues(statements, documents, var2, var2Document);
+		String[] values1 = retrieveValues(statements, documents, plan.getVar1(), plan.isVar1Document());
+		String[] values2 = retrieveValues(statements, documents, plan.getVar2(), plan.isVar2Document());
+		
+		// translate the excluded values into the codes or integer values of the statement store columns
+		StatementStore store = getData().getStatementStore();
+		HashMap<String, StatementStore.Column> excludeColumns = new HashMap<String, StatementStore.Column>();
+		HashMap<String, boolean[]> excludeCodes = new HashMap<String, boolean[]>();
+		HashMap<String, HashSet<Integer>> excludeIntegers = new HashMap<String, HashSet<Integer>>();
+		Iterator<String> columnIterator = excludeValues.keySet().iterator();
+		while (columnIterator.hasNext()) {
+			String key = columnIterator.next();
+			StatementStore.Column column = getData().getStatementColumn(statementType.getId(), key);
+			if (column == null) {
+				continue;
+			}
+			excludeColumns.put(key, column);
+			ArrayList<String> values = excludeValues.get(key);
+			if (column.isCoded() == true) {
+				boolean[] codes = new boolean[column.getCodeCount()];
+				for (int i = 0; i < values.size(); i++) {
+					int code = column.getCode(values.get(i));
+					if (code > -1) {
+						codes[code] = true;
+					}
+				}
+				excludeCodes.put(key, codes);
+			} else {
+				HashSet<Integer> integers = new HashSet<Integer>();
+				for (int i = 0; i < values.size(); i++) {
+					try {
+						integers.add(Integer.parseInt(values.get(i)));
+					} catch (NumberFormatException e) {
+						// not a valid integer, so it cannot match any statement
+					}
+				}
+				excludeIntegers.put(key, integers);
+			}
+		}
+		long startTime = plan.getStartTime();
+		long stopTime = plan.getStopTime();
+		
+		// prepare the duplicate check: accepted statements are remembered by a key of their values and time bucket
+		ExportPlan.Duplicates duplicates = plan.getDuplicates();
+		boolean checkDuplicates = duplicates != ExportPlan.Duplicates.INCLUDE;
+		HashSet<StatementKey> acceptedKeys = new HashSet<StatementKey>();
+		StatementStore.Column column1 = plan.getColumn1();
+		StatementStore.Column column2 = plan.getColumn2();
+		StatementStore.Column qualifierColumn = null;
+		if (checkDuplicates == true && plan.isQualifierIgnored() == false) {
+			qualifierColumn = plan.getQualifierColumn();
+		}
+		HashMap<String, Integer> valueCodes = new HashMap<String, Integer>();  // codes for values without a coded column
+		Calendar cal = Calendar.getInstance();
+		cal.setFirstDayOfWeek(Calendar.MONDAY);  // ISO weeks
+		cal.setMinimalDaysInFirstWeek(4);
 		
 		// process and exclude statements
 		Statement s;
+		int row;
 		ArrayList<Statement> al = new ArrayList<Statement>();
-	    String previousVar1 = null;
-	    String previousVar2 = null;
-	    Calendar cal, calPrevious;
-	    int year, month, week, yearPrevious, monthPrevious, weekPrevious;
 		for (int i = 0; i < statements.size(); i++) {
 			boolean select = true;
 			s = statements.get(i);
+			row = store.getRow(s.getId());
 			
 			// step 1: get all statement IDs corresponding to date range and statement type
-			if (s.getDate().before(startDate)) {
+			if (store.getDate(row) < startTime) {
 				select = false;
-			} else if (s.getDate().after(stopDate)) {
+			} else if (store.getDate(row) > stopTime) {
 				select = false;
-			} else if (s.getStatementTypeId() != statementType.getId()) {
+			} else if (store.getStatementTypeId(row) != statementType.getId()) {
 				select = false;
 			}
 			
@@ -1392,15 +1462,17 @@ public class Exporter extends JDialog {
 				Iterator<String> keyIterator = excludeValues.keySet().iterator();
 				while (keyIterator.hasNext()) {
 					String key = keyIterator.next();
-					String string = "";
-					if (statementType.getVariables().get(key) == null) {
+					StatementStore.Column column = excludeColumns.get(key);
+					if (column == null) {
 						throw new NullPointerException("'" + key + "' is not a statement-level variable and cannot be excluded.");
-					} else if (statementType.getVariables().get(key).equals("boolean") || statementType.getVariables().get(key).equals("integer")) {
-						string = String.valueOf(s.getValues().get(key));
-					} else {
-						string = (String) s.getValues().get(key);
 					}
-					if (excludeValues.get(key).contains(string)) {
+					int value = column.get(row);
+					if (column.isCoded() == true) {
+						boolean[] codes = excludeCodes.get(key);
+						if (value < codes.length && codes[value] == true) {
+							select = false;
+						}
+					} else if (excludeIntegers.get(key).contains(value)) {
 						select = false;
 					}
 				}
@@ -1415,54 +1487,28 @@ public class Exporter extends JDialog {
 				}
 			}
 			
-			// step 4: check for duplicates
-			cal = Calendar.getInstance();
-		    cal.setTime(s.getDate());
-		    year = cal.get(Calendar.YEAR);
-		    month = cal.get(Calendar.MONTH);
-		    week = cal.get(Calendar.WEEK_OF_YEAR);
-			if (!duplicateSetting.equals("include all duplicates")) {
-				for (int j = al.size() - 1; j >= 0; j--) {
-				    if (var1Document == false) {
-				    	previousVar1 = (String) al.get(j).getValues().get(var1);
-				    } else if (var1.equals("author")) {
-				    	previousVar1 = documents.get(docMap.get(al.get(j).getDocumentId())).getAuthor();
-				    } else if (var1.equals("source")) {
-				    	previousVar1 = documents.get(docMap.get(al.get(j).getDocumentId())).getSource();
-				    } else if (var1.equals("section")) {
-				    	previousVar1 = documents.get(docMap.get(al.get(j).getDocumentId())).getSection();
-				    } else if (var1.equals("type")) {
-				    	previousVar1 = documents.get(docMap.get(al.get(j).getDocumentId())).getType();
-				    }
-				    if (var2Document == false) {
-				    	previousVar2 = (String) al.get(j).getValues().get(var2);
-				    } else if (var2.equals("author")) {
-				    	previousVar2 = documents.get(docMap.get(al.get(j).getDocumentId())).getAuthor();
-				    } else if (var2.equals("source")) {
-				    	previousVar2 = documents.get(docMap.get(al.get(j).getDocumentId())).getSource();
-				    } else if (var2.equals("section")) {
-				    	previousVar2 = documents.get(docMap.get(al.get(j).getDocumentId())).getSection();
-				    } else if (var2.equals("type")) {
-				    	previousVar2 = documents.get(docMap.get(al.get(j).getDocumentId())).getType();
-				    }
-					calPrevious = Calendar.getInstance();
-				    calPrevious.setTime(al.get(j).getDate());
-				    yearPrevious = calPrevious.get(Calendar.YEAR);
-				    monthPrevious = calPrevious.get(Calendar.MONTH);
-				    weekPrevious = calPrevious.get(Calendar.WEEK_OF_YEAR);
-					if ( s.getStatementTypeId() == al.get(j).getStatementTypeId()
-							&& (al.get(j).getDocumentId() == s.getDocumentId() && duplicateSetting.equals("ignore per document") 
-								|| duplicateSetting.equals("ignore across date range")
-								|| (duplicateSetting.equals("ignore per calendar year") && year == yearPrevious)
-								|| (duplicateSetting.equals("ignore per calendar month") && month == monthPrevious)
-								|| (duplicateSetting.equals("ignore per calendar week") && week == weekPrevious) )
-							&& values1[i].equals(previousVar1)
-							&& values2[i].equals(previousVar2)
-							&& (s.getValues().get(qualifierName).equals(al.get(j).getValues().get(qualifierName)) || ignoreQualifier == true) ) {
-						select = false;
-						break;
+			// step 4: check for duplicates; the bucket is the document or the calendar week, month, or year of the statement
+			if (select == true && checkDuplicates == true) {
+				int bucket = 0;  // ignore across date range
+				if (duplicates == ExportPlan.Duplicates.PER_DOCUMENT) {
+					bucket = s.getDocumentId();
+				} else if (duplicates != ExportPlan.Duplicates.ACROSS_DATE_RANGE) {
+					cal.setTimeInMillis(store.getDate(row));
+					if (duplicates == ExportPlan.Duplicates.PER_WEEK) {
+						bucket = cal.getWeekYear() * 100 + cal.get(Calendar.WEEK_OF_YEAR);
+					} else if (duplicates == ExportPlan.Duplicates.PER_MONTH) {
+						bucket = cal.get(Calendar.YEAR) * 12 + cal.get(Calendar.MONTH);
+					} else if (duplicates == ExportPlan.Duplicates.PER_YEAR) {
+						bucket = cal.get(Calendar.YEAR);
 					}
 				}
+				int code1 = valueCode(column1, row, values1[i], valueCodes);
+				int code2 = valueCode(column2, row, values2[i], valueCodes);
+				int qualifier = qualifierColumn == null ? 0 : qualifierColumn.get(row);
+				StatementKey key = new StatementKey(store.getStatementTypeId(row), code1, code2, qualifier, bucket);
+				if (acceptedKeys.add(key) == false) {
+					select = false;
+				}
 			}
 			
 			// step 5: add only if the statement passed all checks
@@ -1472,159 +1518,227 @@ public class Exporter extends JDialog {
 		}
 		return(al);
 	}
+	
+	/**
+	 * Return the code of a variable value for the duplicate check in {@link #filter}. Values of coded statement 
+	 * columns are represented by their code in the column; other values, such as document-level variables, 
+	 * receive codes from a dictionary that is shared by both variables.
+	 * 
+	 * @param column      The {@link StatementStore.Column} of the variable, or null for document-level variables.
+	 * @param row         The row of the statement in the {@link StatementStore}.
+	 * @param value       The value of the variable in the statement.
+	 * @param valueCodes  {@link HashMap} with the codes assigned to values so far.
+	 * @return            An int code that is equal for two statements exactly if their values are equal.
+	 */
+	private int valueCode(StatementStore.Column column, int row, String value, HashMap<String, Integer> valueCodes) {
+		if (column != null && column.isCoded() == true) {
+			return column.get(row);
+		}
+		Integer code = valueCodes.get(value);
+		if (code == null) {
+			code = valueCodes.size();
+			valueCodes.put(value, code);
+		}
+		return code;
+	}
+	
+	/**
+	 * Key of an accepted statement for the duplicate check in {@link #filter}: two statements are duplicates if 
+	 * they have the same statement type, variable values, and qualifier value and fall into the same bucket.
+	 */
+	private static class StatementKey {
+		int statementTypeId, value1, value2, qualifier, bucket;
+		
+		StatementKey(int statementTypeId, int value1, int value2, int qualifier, int bucket) {
+			this.statementTypeId = statementTypeId;
+			this.value1 = value1;
+			this.value2 = value2;
+			this.qualifier = qualifier;
+			this.bucket = bucket;
+		}
+		
+		public boolean equals(Object o) {
+			if (!(o instanceof StatementKey)) {
+				return false;
+			}
+			StatementKey k = (StatementKey) o;
+			return statementTypeId == k.statementTypeId && value1 == k.value1 && value2 == k.value2 
+					&& qualifier == k.qualifier && bucket == k.bucket;
+		}
+		
+		public int hashCode() {
+			int h = statementTypeId;
+			h = 31 * h + value1;
+			h = 31 * h + value2;
+			h = 31 * h + qualifier;
+			h = 31 * h + bucket;
+			return h;
+		}
+	}
 
 	/**
 	 * Create a one-mode network {@link Matrix}.
 	 * 
 	 * @param statements            A (potentially filtered) {@link ArrayList} of {@link Statement}s.
 	 * @param documents             An {@link ArrayList} of {@link Document}s which contain the statements.
-	 * @param statementType         The {@link StatementType} corresponding to the statements.
-	 * @param var1                  {@link String} denoting the first variable (containing the row values).
-	 * @param var2                  {@link String} denoting the second variable (containing the columns values).
-	 * @param var1Document          {@link boolean} indicating whether the first variable is a document-level variable.
-	 * @param var2Document          {@link boolean} indicating whether the second variable is a document-level variable.
+	 * @param plan                  The {@link ExportPlan} with the variables, qualifier levels, qualifier aggregation, normalization, and number of threads.
 	 * @param names1                {@link String} array containing the row labels.
 	 * @param names2                {@link String} array containing the column labels.
-	 * @param qualifier             {@link String} denoting the name of the qualifier variable.
-	 * @param qualifierAggregation  {@link String} indicating how different levels of the qualifier variable are aggregated. Valid values are "ignore", "subtract", and "combine".
-	 * @param normalization         {@link String} indicating what type of normalization will be used. Valid values are "no", "average activity", "Jaccard", and "cosine".
-	 * @param temporalAggregation   {@link String} indicating the temporal aggregation pattern. Valid values are "across date range" and "nested in document".
 	 * @return                      {@link Matrix} object containing a one-mode network matrix.
 	 */
-	private Matrix computeOneModeMatrix(ArrayList<Statement> statements, ArrayList<Document> documents, StatementType statementType, 
-			String var1, String var2, boolean var1Document, boolean var2Document, String[] names1, String[] names2, String qualifier, 
-			String qualifierAggregation, String normalization) {
+	private Matrix computeOneModeMatrix(ArrayList<Statement> statements, ArrayList<Document> documents, ExportPlan plan, 
+			final String[] names1, String[] names2) {
 		
 		if (statements.size() == 0) {
-			double[][] m = new double[names1.length][names1.length];
-			Matrix mt = new Matrix(m, names1, names1, true);
-			return mt;
-		}
-		
-		int statementTypeId = statementType.getId();
-		boolean booleanQualifier = true;  // is the qualifier boolean, rather than integer?
-		if (statementType.getVariables().get(qualifier).equals("integer")) {
-			booleanQualifier = false;
-		}
-		int[] qualifierValues;  // unique qualifier values (i.e., all of them found at least once in the dataset)
-		if (booleanQualifier == true) {
-			qualifierValues = new int[] {0, 1};
+			return new Matrix.Builder(names1.length, names1.length).build(names1, names1, true);
+		}
+		
+		int[] qualifierValues = plan.getQualifierValues();  // unique qualifier values (i.e., all of them found at least once in the dataset)
+		ExportPlan.QualifierAggregation qualifierAggregation = plan.getQualifierAggregation();
+		final ExportPlan.Normalization normalization = plan.getNormalization();
+		
+		// The one-mode network is the product of the sparse incidence array with its own transpose: for each row node i1,
+		// walk through the columns j it is connected to and through the other row nodes i2 connected to j. Only pairs with
+		// i1 < i2 are visited because the results are symmetric, and the pairs are accumulated in the same order of j, k1,
+		// and k2 as in a dense triple loop, so that the sums are identical.
+		final boolean ignore = qualifierAggregation == ExportPlan.QualifierAggregation.IGNORE;
+		final boolean congruence = qualifierAggregation == ExportPlan.QualifierAggregation.CONGRUENCE 
+				|| qualifierAggregation == ExportPlan.QualifierAggregation.SUBTRACT;
+		final boolean conflict = qualifierAggregation == ExportPlan.QualifierAggregation.CONFLICT 
+				|| qualifierAggregation == ExportPlan.QualifierAggregation.SUBTRACT;
+		final boolean jaccard = normalization == ExportPlan.Normalization.JACCARD;
+		final Incidence incidence = createIncidence(statements, documents, plan, names1, names2, false);
+		final Incidence product;
+		if (ignore == true) {  // "ignore" multiplies the row totals per column, so levels are merged before the product
+			product = createIncidence(statements, documents, plan, names1, names2, true);
 		} else {
-			qualifierValues = Dna.data.getIntEntries(statementTypeId, qualifier);
+			product = incidence;
 		}
+		final double[] activity = incidence.getRowSums();
 		
-		double[][][] array = createArray(statements, documents, statementType, var1, var2, var1Document, var2Document, 
-				names1, names2, qualifier, qualifierAggregation);
-		
-		double[][] mat1 = new double[names1.length][names1.length];  // square matrix for "congruence" (or "ignore") results
-		double[][] mat2 = new double[names1.length][names1.length];  // square matrix for "conflict" results
-		double[][] m = new double[names1.length][names1.length];  // square matrix for final results
+		// qualifier-distance kernel: proximity for "congruence", distance for "conflict"
 		double range = Math.abs(qualifierValues[qualifierValues.length - 1] - qualifierValues[0]);
-		double i1count = 0.0;
-		double i2count = 0.0;
-		for (int i1 = 0; i1 < names1.length; i1++) {
-			for (int i2 = 0; i2 < names1.length; i2++) {
-				if (i1 != i2) {
-					for (int j = 0; j < names2.length; j++) {
-						// "ignore": sum up i1 and i2 independently over levels of k, then multiply.
-						// In the binary case, this amounts to counting how often each concept is used and then multiplying frequencies.
-						if (qualifierAggregation.equals("ignore")) {
-							i1count = 0.0;
-							i2count = 0.0;
-							for (int k = 0; k < qualifierValues.length; k++) {
-								i1count = i1count + array[i1][j][k];
-								i2count = i2count + array[i2][j][k];
+		final double[][] proximity = new double[qualifierValues.length][qualifierValues.length];
+		final double[][] distance = new double[qualifierValues.length][qualifierValues.length];
+		for (int k1 = 0; k1 < qualifierValues.length; k1++) {
+			for (int k2 = 0; k2 < qualifierValues.length; k2++) {
+				if (range > 0) {
+					distance[k1][k2] = (Math.abs(qualifierValues[k1] - qualifierValues[k2]) / range);
+				}
+				proximity[k1][k2] = (1.0 - distance[k1][k2]);
+			}
+		}
+		
+		// blocks of row nodes are independent: each pair is computed by the block of its smaller row index only
+		ArrayList<Matrix.Builder> blocks = computeRowBlocks(names1.length, plan.getParallelism(), new RowBlockTask<Matrix.Builder>() {
+			public Matrix.Builder compute(int first, int last) {
+				Matrix.Builder builder = new Matrix.Builder(names1.length, names1.length);  // collects the non-zero results
+				double[] congruenceSums = new double[names1.length];  // "congruence" (or "ignore") results of the current row node
+				double[] conflictSums = new double[names1.length];  // "conflict" results of the current row node
+				double[] shared1 = new double[names1.length];  // Jaccard: statements of i1 and i2 in shared cells, and their product
+				double[] shared2 = new double[names1.length];
+				double[] sharedProduct = new double[names1.length];
+				boolean[] visited = new boolean[names1.length];
+				int[] partners = new int[names1.length];
+				for (int i1 = first; i1 < last; i1++) {
+					int partnerCount = 0;
+					for (int e = product.rowPointers[i1]; e < product.rowPointers[i1 + 1]; e++) {
+						int j = product.rowColumns[e];
+						int k1 = product.rowLevels[e];
+						double a1 = product.rowCounts[e];
+						for (int f = product.firstRowAfter(j, i1); f < product.columnPointers[j + 1]; f++) {
+							int i2 = product.columnRows[f];
+							int k2 = product.columnLevels[f];
+							double a2 = product.columnCounts[f];
+							if (visited[i2] == false) {
+								visited[i2] = true;
+								partners[partnerCount] = i2;
+								partnerCount++;
 							}
-							mat1[i1][i2] = mat1[i1][i2] + i1count * i2count;
-						}
-						// "congruence": sum up proximity of i1 and i2 per level of k, weighted by joint usage.
-						// In the binary case, this reduces to the sum of weighted matches per level of k
-						if (qualifierAggregation.equals("congruence") || qualifierAggregation.equals("subtract")) {
-							for (int k1 = 0; k1 < qualifierValues.length; k1++) {
-								for (int k2 = 0; k2 < qualifierValues.length; k2++) {
-									mat1[i1][i2] = mat1[i1][i2] + (array[i1][j][k1] * array[i2][j][k2] * (1.0 - ((Math.abs(qualifierValues[k1] - qualifierValues[k2]) / range))));
-								}
+							if (ignore == true) {
+								congruenceSums[i2] = congruenceSums[i2] + a1 * a2;
+							}
+							if (congruence == true) {
+								congruenceSums[i2] = congruenceSums[i2] + (a1 * a2 * proximity[k1][k2]);
+							}
+							if (conflict == true) {
+								conflictSums[i2] = conflictSums[i2] + (a1 * a2 * distance[k1][k2]);
 							}
 						}
-						// "conflict": same as congruence, but distance instead of proximity
-						if (qualifierAggregation.equals("conflict") || qualifierAggregation.equals("subtract")) {
-							for (int k1 = 0; k1 < qualifierValues.length; k1++) {
-								for (int k2 = 0; k2 < qualifierValues.length; k2++) {
-									mat2[i1][i2] = mat2[i1][i2] + (array[i1][j][k1] * array[i2][j][k2] * ((Math.abs(qualifierValues[k1] - qualifierValues[k2]) / range)));
+					}
+					if (jaccard == true) {
+						for (int e = incidence.rowPointers[i1]; e < incidence.rowPointers[i1 + 1]; e++) {
+							int j = incidence.rowColumns[e];
+							for (int f = incidence.firstRowAfter(j, i1); f < incidence.columnPointers[j + 1]; f++) {
+								if (incidence.columnLevels[f] == incidence.rowLevels[e]) {
+									int i2 = incidence.columnRows[f];
+									shared1[i2] = shared1[i2] + incidence.rowCounts[e];
+									shared2[i2] = shared2[i2] + incidence.columnCounts[f];
+									sharedProduct[i2] = sharedProduct[i2] + (incidence.rowCounts[e] * incidence.columnCounts[f]);
 								}
 							}
 						}
 					}
-					
-					// normalization
-					double norm = 1.0;
-					if (normalization.equals("no")) {
-						norm = 1.0;
-					} else if (normalization.equals("average activity")) {
-						i1count = 0.0;
-						i2count = 0.0;
-						for (int j = 0; j < names2.length; j++) {
-							for (int k = 0; k < qualifierValues.length; k++) {
-								i1count = i1count + array[i1][j][k];
-								i2count = i2count + array[i2][j][k];
-							}
+			
+					for (int p = 0; p < partnerCount; p++) {
+						int i2 = partners[p];
+						double congruenceValue = congruenceSums[i2];
+						double conflictValue = conflictSums[i2];
+						double m10 = activity[i1] - shared1[i2];  // exact because the counts are integers
+						double m01 = activity[i2] - shared2[i2];
+						double m11 = sharedProduct[i2];
+						visited[i2] = false;
+						congruenceSums[i2] = 0.0;
+						conflictSums[i2] = 0.0;
+						shared1[i2] = 0.0;
+						shared2[i2] = 0.0;
+						sharedProduct[i2] = 0.0;
+						if (congruenceValue == 0.0 && conflictValue == 0.0) {
+							continue;  // the cell stays empty, and no normalization is needed
 						}
-						norm = (i1count + i2count) / 2;
-					} else if (normalization.equals("Jaccard")) {
-						double m10 = 0.0;
-						double m01 = 0.0;
-						double m11 = 0.0;
-						for (int j = 0; j < names2.length; j++) {
-							for (int k = 0; k < qualifierValues.length; k++) {
-								if (array[i2][j][k] == 0) {
-									m10 = m10 + array[i1][j][k];
-								}
-								if (array[i1][j][k] == 0) {
-									m01 = m01 + array[i2][j][k];
-								}
-								if (array[i1][j][k] > 0 && array[i2][j][k] > 0) {
-									m11 = m11 + (array[i1][j][k] * array[i2][j][k]);
-								}
-							}
+				
+						// normalization
+						double norm = 1.0;
+						if (normalization == ExportPlan.Normalization.AVERAGE_ACTIVITY) {
+							norm = (activity[i1] + activity[i2]) / 2;
+						} else if (jaccard == true) {
+							norm = m01 + m10 + m11;
+						} else if (normalization == ExportPlan.Normalization.COSINE) {
+							norm = Math.sqrt(activity[i1] * activity[i1]) * Math.sqrt(activity[i2] * activity[i2]);
 						}
-						norm = m01 + m10 + m11;
-					} else if (normalization.equals("cosine")) {
-						i1count = 0.0;
-						i2count = 0.0;
-						for (int j = 0; j < names2.length; j++) {
-							for (int k = 0; k < qualifierValues.length; k++) {
-								i1count = i1count + array[i1][j][k];
-								i2count = i2count + array[i2][j][k];
-							}
+						congruenceValue = congruenceValue / norm;
+						conflictValue = conflictValue / norm;
+				
+						// "subtract": congruence minus conflict; use the appropriate result or results
+						double value;
+						if (conflict == false) {  // "ignore" or "congruence"
+							value = congruenceValue;
+						} else if (congruence == false) {  // "conflict"
+							value = conflictValue;
+						} else {  // "subtract"
+							value = congruenceValue - conflictValue;
 						}
-						norm = Math.sqrt(i1count * i1count) * Math.sqrt(i2count * i2count);
-					}
-					mat1[i1][i2] = mat1[i1][i2] / norm;
-					mat2[i1][i2] = mat2[i1][i2] / norm;
-					
-					// "subtract": congruence minus conflict; use the appropriate matrix or matrices
-					if (qualifierAggregation.equals("ignore")) {
-						m[i1][i2] = mat1[i1][i2];
-					} else if (qualifierAggregation.equals("congruence")) {
-						m[i1][i2] = mat1[i1][i2];
-					} else if (qualifierAggregation.equals("conflict")) {
-						m[i1][i2] = mat2[i1][i2];
-					} else if (qualifierAggregation.equals("subtract")) {
-						m[i1][i2] = mat1[i1][i2] - mat2[i1][i2];
+						builder.add(i1, i2, value);
+						builder.add(i2, i1, value);
 					}
 				}
+				return builder;
 			}
+		});
+		Matrix.Builder builder = blocks.get(0);
+		for (int b = 1; b < blocks.size(); b++) {
+			builder.addAll(blocks.get(b));
 		}
 		
 		
 		boolean integerBoolean;
-		if (normalization.equals("no") && booleanQualifier == true) {
+		if (normalization == ExportPlan.Normalization.NO && plan.isBooleanQualifier() == true) {
 			integerBoolean = true;
 		} else {
 			integerBoolean = false;
 		}
 		
-		Matrix matrix = new Matrix(m, names1, names1, integerBoolean);
+		Matrix matrix = builder.build(names1, names1, integerBoolean);
 		return matrix;
 	}
 	
@@ -1633,77 +1747,100 @@ public class Exporter extends JDialog {
 	 * 
 	 * @param statements            A (potentially filtered) {@link ArrayList} of {@link Statement}s.
 	 * @param documents             An {@link ArrayList} of {@link Document}s which contain the statements.
-	 * @param statementType         The {@link StatementType} corresponding to the statements.
-	 * @param var1                  {@link String} denoting the first variable (containing the row values).
-	 * @param var2                  {@link String} denoting the second variable (containing the columns values).
-	 * @param var1Document          {@link boolean} indicating whether the first variable is a document-level variable.
-	 * @param var2Document          {@link boolean} indicating whether the second variable is a document-level variable.
+	 * @param plan                  The {@link ExportPlan} with the variables, qualifier levels, qualifier aggregation, normalization, and number of threads.
 	 * @param names1                {@link String} array containing the row labels.
 	 * @param names2                {@link String} array containing the column labels.
-	 * @param qualifier             {@link String} denoting the name of the qualifier variable.
-	 * @param qualifierAggregation  {@link String} indicating how different levels of the qualifier variable are aggregated. Valid values are "ignore", "subtract", and "combine".
-	 * @param normalization         {@link String} indicating what type of normalization will be used. Valid values are "no", "activity", and "prominence".
 	 * @return                      {@link Matrix} object containing a two-mode network matrix.
 	 */
-	private Matrix computeTwoModeMatrix(ArrayList<Statement> statements, ArrayList<Document> documents, StatementType statementType, 
-			String var1, String var2, boolean var1Document, boolean var2Document, String[] names1, String[] names2, String qualifier, 
-			String qualifierAggregation, String normalization) {
+	private Matrix computeTwoModeMatrix(ArrayList<Statement> statements, ArrayList<Document> documents, ExportPlan plan, 
+			final String[] names1, final String[] names2) {
 		if (statements.size() == 0) {
-			double[][] m = new double[names1.length][names2.length];
-			Matrix mt = new Matrix(m, names1, names2, true);
-			return mt;
-		}
-		int statementTypeId = statementType.getId();
-		boolean booleanQualifier = true;  // is the qualifier boolean, rather than integer?
-		// TODO: it may be possible that there is no qualifier; adjust for this case (also in the one-mode case?)
-		if (statementType.getVariables().get(qualifier).equals("integer")) {
-			booleanQualifier = false;
-		}
-		int[] qualifierValues;  // unique qualifier values (i.e., all of them found at least once in the dataset)
-		if (booleanQualifier == true) {
-			qualifierValues = new int[] {0, 1};
-		} else {
-			qualifierValues = Dna.data.getIntEntries(statementTypeId, qualifier);
+			return new Matrix.Builder(names1.length, names2.length).build(names1, names2, true);
+		}
+		final int[] qualifierValues = plan.getQualifierValues();  // unique qualifier values (i.e., all of them found at least once in the dataset)
+		ExportPlan.QualifierAggregation qualifierAggregation = plan.getQualifierAggregation();
+		ExportPlan.Normalization normalization = plan.getNormalization();
+		final boolean combine = qualifierAggregation == ExportPlan.QualifierAggregation.COMBINE;
+		
+		// weight of each qualifier level in a cell: "ignore" adds all levels; "subtract" adds the weighted absolute 
+		// value of positive integers and subtracts it for negative ones, or adds true and subtracts false (1 at most)
+		final double[] weights = new double[qualifierValues.length];
+		for (int k = 0; k < qualifierValues.length; k++) {
+			if (qualifierAggregation == ExportPlan.QualifierAggregation.IGNORE) {
+				weights[k] = 1.0;
+			} else if (qualifierAggregation == ExportPlan.QualifierAggregation.SUBTRACT) {
+				if (plan.isBooleanQualifier() == false) {
+					weights[k] = qualifierValues[k];
+				} else if (qualifierValues[k] == 0) {
+					weights[k] = -1.0;
+				} else {
+					weights[k] = 1.0;
+				}
+			}
 		}
 		
-		double[][][] array = createArray(statements, documents, statementType, var1, var2, var1Document, var2Document, 
-				names1, names2, qualifier, qualifierAggregation);
+		final Incidence incidence = createIncidence(statements, documents, plan, names1, names2, false);
 		
 		// combine levels of the qualifier variable conditional on qualifier aggregation option
-		double[][] mat = new double[names1.length][names2.length];  // initialized with zeros
-		HashMap<Integer, ArrayList<Integer>> combinations = new HashMap<Integer, ArrayList<Integer>>();
-		for (int i = 0; i < names1.length; i++) {
-			for (int j = 0; j < names2.length; j++) {
-				if (qualifierAggregation.equals("combine")) {  // combine
-					double[] vec = array[i][j];  // may be weighted, so create a second, binary vector vec2
-					int[] vec2 = new int[vec.length];
-					ArrayList<Integer> qualVal = new ArrayList<Integer>();  // a list of qualifier values used at mat[i][j]
-					for (int k = 0; k < vec.length; k++) {
-						if (vec[k] > 0) {
-							vec2[k] = 1;
-							qualVal.add(qualifierValues[k]);
-						}
-					}
-					mat[i][j] = lexRank(vec2);  // compute lexical rank, i.e., map the combination of values to a single integer
-					combinations.put(lexRank(vec2), qualVal);  // the bijection needs to be stored for later reporting
-				} else {
-					for (int k = 0; k < qualifierValues.length; k++) {
-						if (qualifierAggregation.equals("ignore")) {  // ignore
-							mat[i][j] = mat[i][j] + array[i][j][k];  // duplicates were already filtered out in the statement filter, so just add
-						} else if (qualifierAggregation.equals("subtract")) {  // subtract
-							if (booleanQualifier == false && qualifierValues[k] < 0) {  // subtract weighted absolute value
-								mat[i][j] = mat[i][j] - (Math.abs(qualifierValues[k]) * array[i][j][k]);
-							} else if (booleanQualifier == false && qualifierValues[k] >= 0) {  // add weighted absolute value
-								mat[i][j] = mat[i][j] + (Math.abs(qualifierValues[k]) * array[i][j][k]);
-							} else if (booleanQualifier == true && qualifierValues[k] == 0) {  // subtract 1 at most
-								mat[i][j] = mat[i][j] - array[i][j][k];
-							} else if (booleanQualifier == true && qualifierValues[k] > 0) {  // add 1 at most
-								mat[i][j] = mat[i][j] + array[i][j][k];
+		// only the non-empty cells of the incidence array are visited, in the order of their rows, columns and levels;
+		// the blocks of rows write their own rows of these arrays; column sums are collected per block
+		final double[] rowActivity = new double[names1.length];  // sum of the array per row, for normalization
+		final double[] rowCount = new double[names1.length];  // number of positive cells per row, for normalization
+		ArrayList<TwoModeBlock> blocks = computeRowBlocks(names1.length, plan.getParallelism(), new RowBlockTask<TwoModeBlock>() {
+			public TwoModeBlock compute(int first, int last) {
+				TwoModeBlock block = new TwoModeBlock(names1.length, names2.length);
+				int[] vec2 = new int[qualifierValues.length];
+				for (int i = first; i < last; i++) {
+					int cells = 0;
+					int e = incidence.rowPointers[i];
+					while (e < incidence.rowPointers[i + 1]) {
+						int j = incidence.rowColumns[e];
+						double cell = 0.0;
+						ArrayList<Integer> qualVal = new ArrayList<Integer>();  // a list of qualifier values used at cell [i][j]
+						for (; e < incidence.rowPointers[i + 1] && incidence.rowColumns[e] == j; e++) {
+							int k = incidence.rowLevels[e];
+							if (combine == true) {  // binary vector of the levels that occur in the cell
+								vec2[k] = 1;
+								qualVal.add(qualifierValues[k]);
+							} else {  // ignore or subtract; duplicates were already filtered out in the statement filter, so just add
+								cell = cell + (weights[k] * incidence.rowCounts[e]);
 							}
+							rowActivity[i] = rowActivity[i] + incidence.rowCounts[e];
+							block.columnActivity[j] = block.columnActivity[j] + incidence.rowCounts[e];
+						}
+						if (combine == true) {
+							cell = lexRank(vec2);  // compute lexical rank, i.e., map the combination of values to a single integer
+							block.combinations.put(lexRank(vec2), qualVal);  // the bijection needs to be stored for later reporting
+							Arrays.fill(vec2, 0);
 						}
+						if (cell > 0.0) {
+							rowCount[i] = rowCount[i] + 1.0;
+							block.columnCount[j] = block.columnCount[j] + 1.0;
+						}
+						block.builder.add(i, j, cell);
+						cells++;
+					}
+					if (combine == true && cells < names2.length) {  // empty cells have rank 0 and no qualifier values
+						block.combinations.put(0, new ArrayList<Integer>());
 					}
 				}
+				return block;
+			}
+		});
+		
+		// merge the blocks: rows are disjoint, and the column sums are sums of counts and therefore exact in any order
+		Matrix.Builder builder = blocks.get(0).builder;
+		double[] columnActivity = blocks.get(0).columnActivity;
+		double[] columnCount = blocks.get(0).columnCount;
+		HashMap<Integer, ArrayList<Integer>> combinations = blocks.get(0).combinations;
+		for (int b = 1; b < blocks.size(); b++) {
+			TwoModeBlock block = blocks.get(b);
+			builder.addAll(block.builder);
+			for (int j = 0; j < names2.length; j++) {
+				columnActivity[j] = columnActivity[j] + block.columnActivity[j];
+				columnCount[j] = columnCount[j] + block.columnCount[j];
 			}
+			combinations.putAll(block.combinations);
 		}
 		
 		// report combinations if necessary
@@ -1720,68 +1857,34 @@ public class Exporter extends JDialog {
 			}
 		}
 		
-		// normalization
+		// normalization: divide the cells of each row (activity) or column (prominence) by a denominator
 		boolean integerBoolean = false;
-		if (normalization.equals("no")) {
+		if (normalization == ExportPlan.Normalization.NO) {
 			integerBoolean = true;
-		} else if (normalization.equals("activity")) {
+		} else if (normalization == ExportPlan.Normalization.ACTIVITY) {
 			integerBoolean = false;
-			double currentDenominator;
-			for (int i = 0; i < names1.length; i++) {
-				currentDenominator = 0.0;
-				if (qualifierAggregation.equals("ignore")) {  // iterate through columns of matrix and sum weighted values
-					for (int j = 0; j < names2.length; j++) {
-						currentDenominator = currentDenominator + mat[i][j];
-					}
-				} else if (qualifierAggregation.equals("combine")) {  // iterate through columns of matrix and count how many are larger than one
-					System.err.println("Warning: Normalization and qualifier setting 'combine' yield results that cannot be interpreted.");
-					for (int j = 0; j < names2.length; j++) {
-						if (mat[i][j] > 0.0) {
-							currentDenominator = currentDenominator + 1.0;
-						}
-					}
-				} else if (qualifierAggregation.equals("subtract")) {  // iterate through array and sum for different levels
-					for (int j = 0; j < names2.length; j++) {
-						for (int k = 0; k < qualifierValues.length; k++) {
-							currentDenominator = currentDenominator + array[i][j][k];
-						}
-					}
-				}
-				for (int j = 0; j < names2.length; j++) {  // divide all values by current denominator
-					mat[i][j] = mat[i][j] / currentDenominator;
-				}
-			}
-		} else if (normalization.equals("prominence")) {
+			double[] denominators;
+			if (combine == false) {  // sum of weighted values
+				denominators = rowActivity;
+			} else {  // how many cells are larger than zero
+				System.err.println("Warning: Normalization and qualifier setting 'combine' yield results that cannot be interpreted.");
+				denominators = rowCount;
+			}
+			builder.divideRows(denominators);
+		} else if (normalization == ExportPlan.Normalization.PROMINENCE) {
 			integerBoolean = false;
-			double currentDenominator;
-			for (int i = 0; i < names2.length; i++) {
-				currentDenominator = 0.0;
-				if (qualifierAggregation.equals("ignore")) {  // iterate through rows of matrix and sum weighted values
-					for (int j = 0; j < names1.length; j++) {
-						currentDenominator = currentDenominator + mat[j][i];
-					}
-				} else if (qualifierAggregation.equals("combine")) {  // iterate through rows of matrix and count how many are larger than one
-					System.err.println("Warning: Normalization and qualifier setting 'combine' yield results that cannot be interpreted.");
-					for (int j = 0; j < names1.length; j++) {
-						if (mat[i][j] > 0.0) {
-							currentDenominator = currentDenominator + 1.0;
-						}
-					}
-				} else if (qualifierAggregation.equals("subtract")) {  // iterate through array and sum for different levels
-					for (int j = 0; j < names1.length; j++) {
-						for (int k = 0; k < qualifierValues.length; k++) {
-							currentDenominator = currentDenominator + array[j][i][k];
-						}
-					}
-				}
-				for (int j = 0; j < names1.length; j++) {  // divide all values by current denominator
-					mat[j][i] = mat[j][i] / currentDenominator;
-				}
+			double[] denominators;
+			if (combine == false) {  // sum of weighted values
+				denominators = columnActivity;
+			} else {  // how many cells are larger than zero
+				System.err.println("Warning: Normalization and qualifier setting 'combine' yield results that cannot be interpreted.");
+				denominators = columnCount;
 			}
+			builder.divideColumns(denominators);
 		}
 		
 		// create Matrix object and return
-		Matrix matrix = new Matrix(mat, names1, names2, integerBoolean); // assemble the Matrix object with labels
+		Matrix matrix = builder.build(names1, names2, integerBoolean); // assemble the Matrix object with labels
 		return matrix;
 	}
 	
@@ -1807,11 +1910,30 @@ public class Exporter extends JDialog {
 			docMap.put(documents.get(i).getId(), i);
 		}
 		
+		// statement-level values are read from the statement store columns, one column per statement type
+		StatementStore store = getData().getStatementStore();
+		HashMap<Integer, StatementStore.Column> columns = new HashMap<Integer, StatementStore.Column>();
+		
 		Statement s;
 		String docAuthor, docSource, docSection, docType;
 		String[] values = new String[statements.size()];
 		for (int i = 0; i < statements.size(); i++) {
 			s = statements.get(i);
+			if (documentLevel == false) {
+				if (!columns.containsKey(s.getStatementTypeId())) {
+					columns.put(s.getStatementTypeId(), getData().getStatementColumn(s.getStatementTypeId(), variable));
+				}
+				StatementStore.Column column = columns.get(s.getStatementTypeId());
+				int row = store.getRow(s.getId());
+				if (column == null || row == -1) {
+					values[i] = (String) s.getValues().get(variable);
+				} else if (column.isCoded() == true) {
+					values[i] = column.getLabel(column.get(row));
+				} else {
+					values[i] = String.valueOf(column.get(row));
+				}
+				continue;
+			}
 			docAuthor = documents.get(docMap.get(s.getDocumentId())).getAuthor();
 			docSource = documents.get(docMap.get(s.getDocumentId())).getSource();
 			docSection = documents.get(docMap.get(s.getDocumentId())).getSection();
@@ -1835,80 +1957,173 @@ public class Exporter extends JDialog {
 	}
 	
 	/**
-	 * Create a three-dimensional array (variable 1 x variable 2 x qualifier).
+	 * Find the position of each statement's value in an array of node labels. Statement-level values are 
+	 * matched via their codes in the statement store, without comparing strings.
 	 * 
 	 * @param statements            A (potentially filtered) {@link ArrayList} of {@link Statement}s.
 	 * @param documents             An {@link ArrayList} of {@link Document}s which contain the statements.
-	 * @param statementType         The {@link StatementType} corresponding to the statements.
-	 * @param var1                  {@link String} denoting the first variable (containing the row values).
-	 * @param var2                  {@link String} denoting the second variable (containing the columns values).
-	 * @param var1Document          {@link boolean} indicating whether the first variable is a document-level variable.
-	 * @param var2Document          {@link boolean} indicating whether the second variable is a document-level variable.
-	 * @param names1                {@link String} array containing the row labels.
-	 * @param names2                {@link String} array containing the column labels.
-	 * @param qualifier             {@link String} denoting the name of the qualifier variable.
-	 * @param qualifierAggregation  {@link String} indicating how different levels of the qualifier variable are aggregated. Valid values are "ignore", "subtract", and "combine".
-	 * @return                      3D double array
+	 * @param statementTypeId       The ID of the statement type of the statements.
+	 * @param variable              {@link String} denoting the variable.
+	 * @param documentLevel         {@link boolean} indicating whether the variable is a document-level variable.
+	 * @param names                 {@link String} array containing the node labels.
+	 * @return                      int array with the index of the label for each statement, or -1 if the label was not found.
 	 */
-	private double[][][] createArray(ArrayList<Statement> statements, ArrayList<Document> documents, StatementType statementType, 
-			String var1, String var2, boolean var1Document, boolean var2Document, String[] names1, String[] names2, String qualifier, 
-			String qualifierAggregation) {
-		
-		int statementTypeId = statementType.getId();
-		boolean booleanQualifier = true;  // is the qualifier boolean, rather than integer?
-		if (statementType.getVariables().get(qualifier).equals("integer")) {
-			booleanQualifier = false;
+	private int[] retrieveIndices(ArrayList<Statement> statements, ArrayList<Document> documents, int statementTypeId, 
+			String variable, boolean documentLevel, String[] names) {
+		HashMap<String, Integer> nameIndex = new HashMap<String, Integer>();
+		for (int j = 0; j < names.length; j++) {
+			nameIndex.put(names[j], j);
 		}
-		int[] qualifierValues;  // unique qualifier values (i.e., all of them found at least once in the dataset)
-		if (booleanQualifier == true) {
-			qualifierValues = new int[] {0, 1};
-		} else {
-			qualifierValues = Dna.data.getIntEntries(statementTypeId, qualifier);
+		int[] indices = new int[statements.size()];
+		StatementStore.Column column = null;
+		if (documentLevel == false) {
+			column = getData().getStatementColumn(statementTypeId, variable);
+		}
+		if (column == null || column.isCoded() == false) {
+			String[] values = retrieveValues(statements, documents, variable, documentLevel);
+			for (int i = 0; i < values.length; i++) {
+				Integer index = nameIndex.get(values[i]);
+				indices[i] = index == null ? -1 : index;
+			}
+			return indices;
 		}
-
-		// Create arrays with variable values
-		String[] values1 = retrieveValues(statements, documents, var1, var1Document);
-		String[] values2 = retrieveValues(statements, documents, var2, var2Document);
 		
-		// create and populate array
-		double[][][] array = new double[names1.length][names2.length][qualifierValues.length]; // 3D array: rows x cols x qualifier value
+		int[] codeIndex = new int[column.getCodeCount()];
+		Arrays.fill(codeIndex, -1);
+		for (int j = 0; j < names.length; j++) {
+			int code = column.getCode(names[j]);
+			if (code > -1) {
+				codeIndex[code] = j;
+			}
+		}
+		StatementStore store = getData().getStatementStore();
 		for (int i = 0; i < statements.size(); i++) {
-			String n1 = values1[i];  // retrieve first value from statement
-			String n2 = values2[i];  // retrieve second value from statement
-			int q = (int) statements.get(i).getValues().get(qualifier);  // retrieve qualifier value from statement
-			
-			// find out which matrix row corresponds to the first value
-			int row = -1;
-			for (int j = 0; j < names1.length; j++) {
-				if (names1[j].equals(n1)) {
-					row = j;
-					break;
-				}
+			int row = store.getRow(statements.get(i).getId());
+			if (row > -1 && store.getStatementTypeId(row) == statementTypeId && column.get(row) < codeIndex.length) {
+				indices[i] = codeIndex[column.get(row)];
+			} else {
+				Integer index = nameIndex.get(statements.get(i).getValues().get(variable));
+				indices[i] = index == null ? -1 : index;
 			}
-			
-			// find out which matrix column corresponds to the second value
-			int col = -1;
-			for (int j = 0; j < names2.length; j++) {
-				if (names2[j].equals(n2)) {
-					col = j;
-					break;
-				}
+		}
+		return indices;
+	}
+	
+	/**
+	 * Computes the results for a block of rows of a network matrix. The blocks of a matrix are independent of each 
+	 * other, so they can be computed in parallel.
+	 */
+	interface RowBlockTask<T> {
+		
+		/**
+		 * @param first  The first row of the block
+		 * @param last   The row after the last row of the block
+		 * @return       The result for the block
+		 */
+		T compute(int first, int last);
+	}
+	
+	/**
+	 * Partial results of a two-mode network for a block of rows.
+	 */
+	private static class TwoModeBlock {
+		Matrix.Builder builder;
+		double[] columnActivity, columnCount;
+		HashMap<Integer, ArrayList<Integer>> combinations = new HashMap<Integer, ArrayList<Integer>>();
+		
+		TwoModeBlock(int nr, int nc) {
+			this.builder = new Matrix.Builder(nr, nc);
+			this.columnActivity = new double[nc];
+			this.columnCount = new double[nc];
+		}
+	}
+	
+	/**
+	 * Compute a task for all rows of a network matrix. If parallelism is larger than one, the rows are split into 
+	 * blocks, which are computed by a {@link ForkJoinPool} with this number of threads. There are more blocks than 
+	 * threads because rows differ in their cost, for example in the upper triangle of a one-mode network.
+	 * 
+	 * @param rows         The number of rows.
+	 * @param parallelism  The number of threads; 1 computes all rows on the calling thread.
+	 * @param task         The {@link RowBlockTask} computing a block of rows.
+	 * @return             The results of the blocks, in the order of their rows.
+	 */
+	private <T> ArrayList<T> computeRowBlocks(int rows, int parallelism, final RowBlockTask<T> task) {
+		ArrayList<T> results = new ArrayList<T>();
+		if (parallelism <= 1 || rows < 2) {
+			results.add(task.compute(0, rows));
+			return results;
+		}
+		int blocks = Math.min(rows, parallelism * 8);
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			ArrayList<ForkJoinTask<T>> futures = new ArrayList<ForkJoinTask<T>>();
+			for (int b = 0; b < blocks; b++) {
+				final int first = (int) ((long) rows * b / blocks);
+				final int last = (int) ((long) rows * (b + 1) / blocks);
+				futures.add(pool.submit(new Callable<T>() {
+					public T call() {
+						return task.compute(first, last);
+					}
+				}));
 			}
-			
-			// find out which qualifier level corresponds to the qualifier value
-			int qual = -1;  // qualifier level in the array
-			for (int j = 0; j < qualifierValues.length; j++) {
-				if (qualifierValues[j] == q) {
-					qual = j;
-					break;
-				}
+			for (int b = 0; b < futures.size(); b++) {
+				results.add(futures.get(b).join());  // rethrows exceptions of the worker threads
 			}
-			
-			// add match to matrix (note that duplicates were dealt with at the statement filter stage)
-			array[row][col][qual] = array[row][col][qual] + 1.0;
+		} finally {
+			pool.shutdown();
 		}
-		
-		return array;
+		return results;
+	}
+	
+	/**
+	 * Create a sparse incidence array (variable 1 x variable 2 x qualifier) with the number of statements per cell.
+	 * 
+	 * @param statements            A (potentially filtered) {@link ArrayList} of {@link Statement}s.
+	 * @param documents             An {@link ArrayList} of {@link Document}s which contain the statements.
+	 * @param plan                  The {@link ExportPlan} with the variables and the qualifier levels of the array.
+	 * @param names1                {@link String} array containing the row labels.
+	 * @param names2                {@link String} array containing the column labels.
+	 * @param mergeLevels           {@link boolean} indicating whether all qualifier levels should be counted as one level.
+	 * @return                      {@link Incidence} object
+	 */
+	private Incidence createIncidence(ArrayList<Statement> statements, ArrayList<Document> documents, ExportPlan plan, 
+			String[] names1, String[] names2, boolean mergeLevels) {
+		int statementTypeId = plan.getStatementType().getId();
+		int[] qualifierValues = plan.getQualifierValues();
+		HashMap<Integer, Integer> qualifierLevels = new HashMap<Integer, Integer>();
+		for (int j = 0; j < qualifierValues.length; j++) {
+			qualifierLevels.put(qualifierValues[j], j);
+		}
+		int[] rows = retrieveIndices(statements, documents, statementTypeId, plan.getVar1(), plan.isVar1Document(), names1);
+		int[] cols = retrieveIndices(statements, documents, statementTypeId, plan.getVar2(), plan.isVar2Document(), names2);
+		StatementStore store = getData().getStatementStore();
+		StatementStore.Column qualifierColumn = plan.getQualifierColumn();
+		int[] quals = new int[statements.size()];
+		for (int i = 0; i < statements.size(); i++) {
+			int q = qualifierColumn.get(store.getRow(statements.get(i).getId()));
+			Integer level = qualifierLevels.get(q);
+			if (level == null) {
+				quals[i] = -1;
+			} else if (mergeLevels == true) {
+				quals[i] = 0;
+			} else {
+				quals[i] = level;
+			}
+		}
+		return new Incidence(rows, cols, quals, names1.length, names2.length, mergeLevels ? 1 : qualifierValues.length);
+	}
+	
+	/**
+	 * Return the data to export: the data loaded for R calls, or the data of the current database in the GUI.
+	 * 
+	 * @return   {@link Data} object
+	 */
+	private Data getData() {
+		if (this.data != null) {
+			return this.data;
+		}
+		return Dna.data;
 	}
 	
 	/**
@@ -2046,7 +2261,7 @@ public class Exporter extends JDialog {
 		String[] cn = matrix.getColnames();
 		int nr = rn.length;
 		int nc = cn.length;
-		double[][] mat = matrix.getMatrix();
+		double[] row = null;  // one row at a time, so sparse matrices are never expanded completely
 		try {
 			BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outfile), "UTF8"));
 			out.write("\"\"");
@@ -2056,11 +2271,12 @@ public class Exporter extends JDialog {
 			for (int i = 0; i < nr; i++) {
 				out.newLine();
 				out.write("\"" + rn[i].replaceAll("\"", "'") + "\"");
+				row = matrix.getRow(i, row);
 				for (int j = 0; j < nc; j++) {
 					if (matrix.getInteger() == true) {
-						out.write(";" + (int) mat[i][j]);
+						out.write(";" + (int) row[j]);
 					} else {
-						out.write(";" + String.format(new Locale("en"), "%.6f", mat[i][j]));  // six decimal places
+						out.write(";" + String.format(new Locale("en"), "%.6f", row[j]));  // six decimal places
 					}
 				}
 			}
@@ -2082,7 +2298,7 @@ public class Exporter extends JDialog {
 		String[] cn = matrix.getColnames();
 		int nr = rn.length;
 		int nc = cn.length;
-		double[][] mat = matrix.getMatrix();
+		double[] row = null;  // one row at a time, so sparse matrices are never expanded completely
 		try {
 			BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outfile), "UTF8"));
 			out.write("dl ");
@@ -2114,11 +2330,12 @@ public class Exporter extends JDialog {
 			out.write("data:");
 			for (int i = 0; i < nr; i++) {
 				out.newLine();
+				row = matrix.getRow(i, row);
 				for (int j = 0; j < nc; j++) {
 					if (matrix.getInteger() == true) {
-						out.write(" " + (int) mat[i][j]);
+						out.write(" " + (int) row[j]);
 					} else {
-						out.write(" " + String.format(new Locale("en"), "%.6f", mat[i][j]));
+						out.write(" " + String.format(new Locale("en"), "%.6f", row[j]));
 					}
 				}
 			}
@@ -2151,20 +2368,18 @@ public class Exporter extends JDialog {
 	 * Export filter for graphML files.
 	 * 
 	 * @param matrix                 Input {@link Matrix}.
-	 * @param twoMode                Indicates whether the network is a two-mode network.
-	 * @param statementType          The statement type on which the network is based.
+	 * @param plan                   The {@link ExportPlan} with the network type, statement type, variables, and qualifier aggregation.
 	 * @param outfile                Name of the output file.
-	 * @param var1                   Name of the first variable (the rows of the matrix).
-	 * @param var2                   Name of the second variable (the columns of the matrix).
 	 * @param frequencies1           The number of statements in which the row node is involved (after filtering).
 	 * @param frequencies2           The number of statements in which the column node is involved (after filtering).
-	 * @param attributes             An ArrayList of {@link AttributeVector}s containing all attribute vectors in the database.
-	 * @param qualifierAggregation   A String denoting the qualifier aggregation. Valid values are "ignore", "combine", "subtract", "congruence", and "conflict".
-	 * @param qualifierBinary        Indicates whether the qualifier is a binary variable.
 	 */
-	private void exportGraphml(Matrix matrix, boolean twoMode, StatementType statementType, String outfile, 
-			String var1, String var2, int[] frequencies1, int[] frequencies2, ArrayList<AttributeVector> attributes, 
-			String qualifierAggregation, boolean qualifierBinary) {
+	private void exportGraphml(Matrix matrix, ExportPlan plan, String outfile, int[] frequencies1, int[] frequencies2) {
+		boolean twoMode = plan.getNetworkType() == ExportPlan.NetworkType.TWO_MODE;
+		StatementType statementType = plan.getStatementType();
+		String var1 = plan.getVar1();
+		String var2 = plan.getVar2();
+		ExportPlan.QualifierAggregation qualifierAggregation = plan.getQualifierAggregation();
+		boolean qualifierBinary = plan.isBooleanQualifier();
 		
 		// extract attributes
 		String[] rn = matrix.getRownames();
@@ -2198,29 +2413,33 @@ public class Exporter extends JDialog {
 		String[] type = new String[names.length];
 		String[] alias = new String[names.length];
 		String[] notes = new String[names.length];
+		
+		// index the attribute vectors of the two variables by value; if several vectors have the same value, the 
+		// last one in the attributes list is used, as in the earlier scan over the list
+		HashMap<String, AttributeVector> attributes1 = new HashMap<String, AttributeVector>();
+		HashMap<String, AttributeVector> attributes2 = new HashMap<String, AttributeVector>();
+		ArrayList<AttributeVector> attributes = getData().getAttributes();
 		for (int i = 0; i < attributes.size(); i++) {
-			if (attributes.get(i).getStatementTypeId() == statementType.getId() && attributes.get(i).getVariable().equals(var1)) {
-				for (int j = 0; j < rn.length; j++) {
-					if (rn[j].equals(attributes.get(i).getValue())) {
-						id[j] = attributes.get(i).getId();
-						color[j] = String.format("#%02X%02X%02X", attributes.get(i).getColor().getRed(), 
-								attributes.get(i).getColor().getGreen(), attributes.get(i).getColor().getBlue());
-						type[j] = attributes.get(i).getType();
-						alias[j] = attributes.get(i).getAlias();
-						notes[j] = attributes.get(i).getNotes();
-					}
-				}
-			} else if (attributes.get(i).getStatementTypeId() == statementType.getId() && attributes.get(i).getVariable().equals(var2) && twoMode == true) {
-				for (int j = 0; j < cn.length; j++) {
-					if (cn[j].equals(attributes.get(i).getValue())) {
-						id[j + rn.length] = attributes.get(i).getId();
-						color[j + rn.length] = String.format("#%02X%02X%02X", attributes.get(i).getColor().getRed(), 
-								attributes.get(i).getColor().getGreen(), attributes.get(i).getColor().getBlue());
-						type[j + rn.length] = attributes.get(i).getType();
-						alias[j + rn.length] = attributes.get(i).getAlias();
-						notes[j + rn.length] = attributes.get(i).getNotes();
-					}
-				}
+			AttributeVector av = attributes.get(i);
+			if (av.getStatementTypeId() == statementType.getId() && av.getVariable().equals(var1)) {
+				attributes1.put(av.getValue(), av);
+			} else if (av.getStatementTypeId() == statementType.getId() && av.getVariable().equals(var2) && twoMode == true) {
+				attributes2.put(av.getValue(), av);
+			}
+		}
+		for (int i = 0; i < names.length; i++) {  // look up the attribute vector of each node
+			AttributeVector av;
+			if (i < rn.length) {
+				av = attributes1.get(names[i]);
+			} else {
+				av = attributes2.get(names[i]);
+			}
+			if (av != null) {
+				id[i] = av.getId();
+				color[i] = String.format("#%02X%02X%02X", av.getColor().getRed(), av.getColor().getGreen(), av.getColor().getBlue());
+				type[i] = av.getType();
+				alias[i] = av.getAlias();
+				notes[i] = av.getNotes();
 			}
 		}
 		
@@ -2432,12 +2651,15 @@ public class Exporter extends JDialog {
 		}
 		
 		// add edges
-		double[][] m = matrix.getMatrix();
 		Comment edges = new Comment(" edges ");
 		graphElement.addContent(edges);
 		for (int i = 0; i < rn.length; i++) {
-			for (int j = 0; j < cn.length; j++) {
-				if (m[i][j] != 0.0 && (twoMode == true || (twoMode == false && i < j))) {  // only lower triangle is used for one-mode networks
+			int[] columns = matrix.getNonZeroColumns(i);  // only the non-zero cells of each row are visited
+			double[] weights = matrix.getNonZeroValues(i);
+			for (int c = 0; c < columns.length; c++) {
+				int j = columns[c];
+				double w = weights[c];
+				if (twoMode == true || (twoMode == false && i < j)) {  // only lower triangle is used for one-mode networks
 					Element edge = new Element("edge", xmlns);
 					
 					int currentId = id[i];
@@ -2451,7 +2673,7 @@ public class Exporter extends JDialog {
 					
 					Element weight = new Element("data", xmlns);
 					weight.setAttribute(new Attribute("key", "weight"));
-					weight.setText(String.valueOf(m[i][j]));
+					weight.setText(String.valueOf(w));
 					edge.addContent(weight);
 
 					Element visEdge = new Element("data", xmlns);
@@ -2460,23 +2682,23 @@ public class Exporter extends JDialog {
 					Element yPolyLineEdge = new Element("PolyLineEdge", yNs);
 
 					Element yLineStyle = new Element("LineStyle", yNs);
-					if (qualifierAggregation.equals("combine") && qualifierBinary == true) {
-						if (m[i][j] == 1.0) {
+					if (qualifierAggregation == ExportPlan.QualifierAggregation.COMBINE && qualifierBinary == true) {
+						if (w == 1.0) {
 							yLineStyle.setAttribute("color", "#00ff00");
-						} else if (m[i][j] == 2.0) {
+						} else if (w == 2.0) {
 							yLineStyle.setAttribute("color", "#ff0000");
-						} else if (m[i][j] == 3.0) {
+						} else if (w == 3.0) {
 							yLineStyle.setAttribute("color", "#0000ff");
 						}
-					} else if (qualifierAggregation.equals("subtract")) {
-						if (m[i][j] < 0) {
+					} else if (qualifierAggregation == ExportPlan.QualifierAggregation.SUBTRACT) {
+						if (w < 0) {
 							yLineStyle.setAttribute("color", "#ff0000");
-						} else if (m[i][j] > 0) {
+						} else if (w > 0) {
 							yLineStyle.setAttribute("color", "#00ff00");
 						}
-					} else if (qualifierAggregation.equals("conflict")) {
+					} else if (qualifierAggregation == ExportPlan.QualifierAggregation.CONFLICT) {
 						yLineStyle.setAttribute("color", "#ff0000");
-					} else if (qualifierAggregation.equals("congruence")) {
+					} else if (qualifierAggregation == ExportPlan.QualifierAggregation.CONGRUENCE) {
 						yLineStyle.setAttribute("color", "#00ff00");
 					} else {
 						yLineStyle.setAttribute("color", "#000000");
@@ -2541,6 +2763,7 @@ public class Exporter extends JDialog {
 	 * @param invertSections         boolean indicating whether the document-level section values should be included (= true) rather than excluded
 	 * @param invertTypes            boolean indicating whether the document-level type values should be included (= true) rather than excluded
 	 * @param verbose                Report progress to the console?
+	 * @param parallelism            The number of threads used for computing the network matrix
 	 * @return                       A Matrix object containing the resulting one-mode or two-mode network
 	 */
 	public void rNetwork(String networkType, String statementType, String variable1, boolean variable1Document, String variable2, 
@@ -2548,9 +2771,9 @@ public class Exporter extends JDialog {
 			String duplicates, String startDate, String stopDate, String startTime, String stopTime, String[] excludeVariables, 
 			String[] excludeValues, String[] excludeAuthors, String[] excludeSources, String[] excludeSections, 
 			String[] excludeTypes, boolean invertValues, boolean invertAuthors, boolean invertSources, boolean invertSections, 
-			boolean invertTypes, boolean verbose) {
+			boolean invertTypes, boolean verbose, int parallelism) {
 		
-		// step 1: preprocess arguments
+		// step 1: preprocess arguments and compile them into a validated export plan
 		int max = 4;
 		if (networkType.equals("eventlist")) {
 			max = 3;
@@ -2558,14 +2781,13 @@ public class Exporter extends JDialog {
 		if (verbose == true) {
 			System.out.print("(1/" + max + "): Processing network options... ");
 		}
-		networkType = formatNetworkType(networkType);
-		StatementType st = processStatementType(networkType, statementType, variable1, variable2, qualifier, qualifierAggregation);
-		boolean ignoreQualifier = qualifier.equals("ignore");
-		int statementTypeId = st.getId();
-		normalization = formatNormalization(networkType, normalization);
-		duplicates = formatDuplicates(duplicates);
-		Date start = formatDate(startDate, startTime);
-		Date stop = formatDate(stopDate, stopTime);
+		ExportPlan plan = new ExportPlan(data, formatNetworkType(networkType), data.getStatementType(statementType), 
+				variable1, variable1Document, variable2, variable2Document, qualifier, 
+				ExportPlan.QualifierAggregation.fromLabel(qualifierAggregation), formatNormalization(normalization), 
+				formatDuplicates(duplicates), includeIsolates, formatDate(startDate, startTime), formatDate(stopDate, stopTime), 
+				parallelism);
+		boolean eventList = plan.getNetworkType() == ExportPlan.NetworkType.EVENT_LIST;
+		int statementTypeId = plan.getStatementType().getId();
 		
 		HashMap<String, ArrayList<String>> map = processExcludeVariables(excludeVariables, excludeValues, invertValues, data.getStatements(), 
 				data.getStatements(), data.getDocuments(), statementTypeId, includeIsolates);
@@ -2582,16 +2804,11 @@ public class Exporter extends JDialog {
 		}
 		
 		// step 2: filter
-		boolean filterEmptyFields = true;
-		if (networkType.equals("Event list")) {
-			filterEmptyFields = false;
-		}
 		if (verbose == true) {
 			System.out.print("(2/" + max + "): Filtering statements...\n");
 		}
-		this.filteredStatements = filter(data.getStatements(), data.getDocuments(), start, stop, st, variable1, variable2, 
-				variable1Document, variable2Document, qualifier, ignoreQualifier, duplicates, authorExclude, sourceExclude, sectionExclude, 
-				typeExclude, map, filterEmptyFields);
+		this.filteredStatements = filter(data.getStatements(), data.getDocuments(), plan, authorExclude, sourceExclude, 
+				sectionExclude, typeExclude, map);
 		if (verbose == true) {
 			System.out.print(this.filteredStatements.size() + " out of " + data.getStatements().size() + " statements retained.\n");
 		}
@@ -2599,7 +2816,7 @@ public class Exporter extends JDialog {
 		// step 3: compile node labels
 		String[] names1 = null;
 		String[] names2 = null;
-		if (!networkType.equals("Event list")) {
+		if (eventList == false) {
 			if (verbose == true) {
 				System.out.print("(3/" + max + "): Compiling node labels... ");
 			}
@@ -2615,21 +2832,19 @@ public class Exporter extends JDialog {
 		// step 4: create matrix
 		if (verbose == true) {
 			int step = 4;
-			if (networkType.equals("Event list")) {
+			if (eventList == true) {
 				step = 3;
 			}
 			System.out.print("(" + step + "/" + max + "): Computing network matrix... ");
 		}
 		Matrix m = null;
-		if (networkType.equals("Two-mode network")) {
-			m = computeTwoModeMatrix(filteredStatements, data.getDocuments(), st, variable1, variable2, variable1Document, 
-					variable2Document, names1, names2, qualifier, qualifierAggregation, normalization);
+		if (plan.getNetworkType() == ExportPlan.NetworkType.TWO_MODE) {
+			m = computeTwoModeMatrix(filteredStatements, data.getDocuments(), plan, names1, names2);
 			this.matrix = m;
-		} else if (networkType.equals("One-mode network")) {
-			m = computeOneModeMatrix(filteredStatements, data.getDocuments(), st, variable1, variable2, variable1Document, 
-					variable2Document, names1, names2, qualifier, qualifierAggregation, normalization);
+		} else if (plan.getNetworkType() == ExportPlan.NetworkType.ONE_MODE) {
+			m = computeOneModeMatrix(filteredStatements, data.getDocuments(), plan, names1, names2);
 			this.matrix = m;
-		} else if (networkType.equals("Event list")) {
+		} else if (eventList == true) {
 			System.err.println("Event lists are currently not supported with rDNA.");
 			// TODO: implement event lists for rDNA
 			this.matrix = null;
@@ -2648,6 +2863,52 @@ public class Exporter extends JDialog {
 		return matrix.getMatrix();
 	}
 	
+	/**
+	 * Indicate whether this.matrix is stored in sparse format. In this case, rDNA retrieves the 
+	 * non-zero cells with {@link #getNonZeroRows()}, {@link #getNonZeroColumns()}, and 
+	 * {@link #getNonZeroValues()} instead of the complete matrix.
+	 * 
+	 * @return   boolean indicating whether the matrix is sparse
+	 */
+	public boolean isSparse() {
+		return matrix.isSparse();
+	}
+	
+	/**
+	 * Return the row indices of the non-zero cells of this.matrix, starting at 1.
+	 * 
+	 * @return   int array of row indices in row-major order
+	 */
+	public int[] getNonZeroRows() {
+		int[] rows = matrix.getNonZeroRowIndices();
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = rows[i] + 1;
+		}
+		return rows;
+	}
+	
+	/**
+	 * Return the column indices of the non-zero cells of this.matrix, starting at 1.
+	 * 
+	 * @return   int array of column indices in row-major order
+	 */
+	public int[] getNonZeroColumns() {
+		int[] columns = matrix.getNonZeroColumnIndices();
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = columns[i] + 1;
+		}
+		return columns;
+	}
+	
+	/**
+	 * Return the values of the non-zero cells of this.matrix.
+	 * 
+	 * @return   double array of values in row-major order
+	 */
+	public double[] getNonZeroValues() {
+		return matrix.getNonZeroValues();
+	}
+	
 	/**
 	 * Return row names from this.matrix.
 	 * 
@@ -2675,9 +2936,8 @@ public class Exporter extends JDialog {
 	 */
 	public void rAttributes(String variable, String statementTypeString, String[] values) {
 		
-		// get statement type ID and all attribute vectors
+		// get statement type ID
 		int statementTypeId = this.data.getStatementType(statementTypeString).getId();
-		AttributeVector[] av = this.data.getAttributes(variable, statementTypeId);
 		
 		// extract full set of labels in alphabetical order if no names vector is provided
 		if (values == null || values.length == 0) {
@@ -2687,11 +2947,7 @@ public class Exporter extends JDialog {
 		// extract only those attribute vectors that match the names vector
 		AttributeVector[] at = new AttributeVector[values.length];
 		for (int i = 0; i < values.length; i++) {
-			for (int j = 0; j < av.length; j++) {
-				if (values[i].equals(av[j].getValue())) {
-					at[i] = av[j];
-				}
-			}
+			at[i] = this.data.getAttribute(values[i], variable, statementTypeId);
 		}
 		
 		this.attributes = at;
@@ -2838,144 +3094,64 @@ public class Exporter extends JDialog {
 	}
 	
 	/**
-	 * Format the R argument 'networkType' (can be 'eventlist', 'twomode', or 'onemode') to 'Event list', 'Two-mode network', or 'One-mode network'.
+	 * Format the R argument 'networkType' (can be 'eventlist', 'twomode', or 'onemode').
 	 * 
 	 * @param networkType   R argument
-	 * @return              formatted string
+	 * @return              {@link ExportPlan.NetworkType}
 	 */
-	private String formatNetworkType(String networkType) {
+	private ExportPlan.NetworkType formatNetworkType(String networkType) {
 		if (networkType.equals("eventlist")) {
-			networkType = "Event list";
+			return ExportPlan.NetworkType.EVENT_LIST;
 		} else if (networkType.equals("twomode")) {
-			networkType = "Two-mode network";
+			return ExportPlan.NetworkType.TWO_MODE;
 		} else if (networkType.equals("onemode")) {
-			networkType = "One-mode network";
-		} else {
-			System.err.println("Network type was not recognized. Use 'twomode', 'onemode', or 'eventlist'.");
-		}
-		return networkType;
-	}
-	
-	/**
-	 * Check if variables and statement type (provided as a String) are valid and return statement type.
-	 * 
-	 * @param networkType            Java-DNA-formatted network type String 
-	 * @param statementType          Statement type given as a String
-	 * @param variable1              First variable as a String
-	 * @param variable2              Second variable as a String
-	 * @param qualifier              Qualifier variable as a String
-	 * @param qualifierAggregation   Qualifier aggregation rule as a String ('ignore', 'combine', 'subtract', 'congruence', or 'conflict')
-	 * @return                       StatementType to be used
-	 */
-	private StatementType processStatementType(String networkType, String statementType, String variable1, String variable2, String qualifier, String qualifierAggregation) {
-		StatementType st = data.getStatementType(statementType);
-		if (st == null) {
-			System.err.println("Statement type '" + statementType + " does not exist!");
-		}
-		
-		if (!st.getVariables().containsKey(variable1)) {
-			System.err.println("Variable 1 ('" + variable1 + "') does not exist in this statement type.");
-		}
-		if (!st.getVariables().get(variable1).equals("short text")) {
-			System.err.println("Variable 1 ('" + variable1 + "') is not a short text variable.");
-		}
-		
-		if (!st.getVariables().containsKey(variable2)) {
-			System.err.println("Variable 2 ('" + variable2 + "') does not exist in this statement type.");
-		}
-		if (!st.getVariables().get(variable2).equals("short text")) {
-			System.err.println("Variable 2 ('" + variable2 + "') is not a short text variable.");
-		}
-		
-		if (!st.getVariables().containsKey(qualifier)) {
-			System.err.println("The qualifier variable ('" + qualifier + "') does not exist in this statement type.");
-		}
-		if (!st.getVariables().get(qualifier).equals("boolean") && !st.getVariables().get(qualifier).equals("integer")) {
-			System.err.println("The qualifier variable ('" + qualifier + "') is not a boolean or integer variable.");
-		}
-		
-		if (!qualifierAggregation.equals("ignore") && !qualifierAggregation.equals("subtract") && !qualifierAggregation.equals("combine")
-				&& !qualifierAggregation.equals("congruence") && !qualifierAggregation.equals("conflict")) {
-			System.err.println("'qualifierAggregation' must be 'ignore', 'combine', 'subtract', 'congruence', or 'conflict'.");
-		}
-		if (qualifierAggregation.equals("combine") && !networkType.equals("Two-mode network")) {
-			System.err.println("qualifierAggregation = 'combine' is only possible with two-mode networks.");
+			return ExportPlan.NetworkType.ONE_MODE;
 		}
-		if (qualifierAggregation.equals("congruence") && !networkType.equals("One-mode network")) {
-			System.err.println("qualifierAggregation = 'congruence' is only possible with one-mode networks.");
-		}
-		if (qualifierAggregation.equals("conflict") && !networkType.equals("One-mode network")) {
-			System.err.println("qualifierAggregation = 'conflict' is only possible with one-mode networks.");
-		}
-		
-		return st;
+		throw new IllegalArgumentException("Network type was not recognized. Use 'twomode', 'onemode', or 'eventlist'.");
 	}
 	
 	/**
 	 * Format the normalization R argument.
 	 * 
-	 * @param networkType     Java-DNA-formatted network type String
 	 * @param normalization   R argument String with the normalization type (can be 'no', 'activity', 'prominence', 'average', 'Jaccard', or 'cosine')
-	 * @return                Formatted normalization String for DNA export (can be 'no', 'activity', 'prominence', 'average activity', 'Jaccard', or 'cosine')
+	 * @return                {@link ExportPlan.Normalization}
 	 */
-	private String formatNormalization(String networkType, String normalization) {
-		if (normalization.equals("jaccard")) {
-			normalization = "Jaccard";
-		}
-		if (normalization.equals("Cosine")) {
-			normalization = "cosine";
-		}
-		if (!normalization.equals("no") && !normalization.equals("activity") && !normalization.equals("prominence") 
-				&& !normalization.equals("average") && !normalization.equals("Jaccard") && !normalization.equals("cosine")) {
-			System.err.println("'normalization' must be 'no', 'activity', 'prominence', 'average', 'Jaccard', or 'cosine'.");
-		}
-		if (normalization.equals("activity") && !networkType.equals("Two-mode network")) {
-			System.err.println("'normalization = 'activity' is only possible with two-mode networks.");
-		}
-		if (normalization.equals("prominence") && !networkType.equals("Two-mode network")) {
-			System.err.println("'normalization = 'prominence' is only possible with two-mode networks.");
-		}
-		if (normalization.equals("average") && !networkType.equals("One-mode network")) {
-			System.err.println("'normalization = 'average' is only possible with one-mode networks.");
-		}
-		if (normalization.equals("Jaccard") && !networkType.equals("One-mode network")) {
-			System.err.println("'normalization = 'Jaccard' is only possible with one-mode networks.");
-		}
-		if (normalization.equals("cosine") && !networkType.equals("One-mode network")) {
-			System.err.println("'normalization = 'cosine' is only possible with one-mode networks.");
-		}
+	private ExportPlan.Normalization formatNormalization(String normalization) {
 		if (normalization.equals("average")) {
-			normalization = "average activity";
+			return ExportPlan.Normalization.AVERAGE_ACTIVITY;
+		} else if (normalization.equals("jaccard")) {
+			return ExportPlan.Normalization.JACCARD;
+		} else if (normalization.equals("Cosine")) {
+			return ExportPlan.Normalization.COSINE;
+		}
+		try {
+			return ExportPlan.Normalization.fromLabel(normalization);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("'normalization' must be 'no', 'activity', 'prominence', 'average', 'Jaccard', or 'cosine'.");
 		}
-		return normalization;
 	}
 	
 	/**
 	 * Format the duplicates R argument.
 	 * 
 	 * @param duplicates   An input String that can be 'include', 'document', 'week', 'month', 'year', or 'acrossrange'.
-	 * @return             An output String that can be 'include all duplicates', 'ignore per document', 'ignore per calendar week', 'ignore per calendar month', 'ignore per calendar year', or 'ignore across date range'
+	 * @return             {@link ExportPlan.Duplicates}
 	 */
-	private String formatDuplicates(String duplicates) {
-		if (!duplicates.equals("include") && !duplicates.equals("document") && !duplicates.equals("week") && !duplicates.equals("month") 
-				&& !duplicates.equals("year") && !duplicates.equals("acrossrange")) {
-			System.err.println("'duplicates' must be 'include', 'document', 'week', 'month', 'year', or 'acrossrange'.");
-		}
+	private ExportPlan.Duplicates formatDuplicates(String duplicates) {
 		if (duplicates.equals("include")) {
-			duplicates = "include all duplicates";
+			return ExportPlan.Duplicates.INCLUDE;
 		} else if (duplicates.equals("document")) {
-			duplicates = "ignore per document";
+			return ExportPlan.Duplicates.PER_DOCUMENT;
 		} else if (duplicates.equals("week")) {
-			duplicates = "ignore per calendar week";
+			return ExportPlan.Duplicates.PER_WEEK;
 		} else if (duplicates.equals("month")) {
-			duplicates = "ignore per calendar month";
+			return ExportPlan.Duplicates.PER_MONTH;
 		} else if (duplicates.equals("year")) {
-			duplicates = "ignore per calendar year";
+			return ExportPlan.Duplicates.PER_YEAR;
 		} else if (duplicates.equals("acrossrange")) {
-			duplicates = "ignore across date range";
+			return ExportPlan.Duplicates.ACROSS_DATE_RANGE;
 		}
-		
-		return duplicates;
+		throw new IllegalArgumentException("'duplicates' must be 'include', 'document', 'week', 'month', 'year', or 'acrossrange'.");
 	}
 	
 	/**
@@ -2994,7 +3170,7 @@ public class Exporter extends JDialog {
 		} catch (ParseException e) {
 			System.err.println("Date or time is invalid!");
 		}
-		if (!s.equals(df.format(d))) {
+		if (d != null && !s.equals(df.format(d))) {
 			d = null;
 			System.err.println("Date or time is invalid!");
 		}
@@ -0,0 +1,128 @@
+package dna.export;
+
+import java.util.Arrays;
+
+/**
+ * A sparse three-dimensional incidence array (variable 1 x variable 2 x qualifier level) holding the number of
+ * statements per cell, from which both the one-mode and the two-mode networks are computed. Only cells with at
+ * least one statement are stored, once ordered by row, column and level and once ordered by column, row and level,
+ * so that both the rows and the columns can be traversed in linear time.
+ */
+class Incidence {
+	int nr, nc, levels;
+
+	// row-major view: the cells of row i are stored from rowPointers[i] to rowPointers[i + 1] - 1
+	int[] rowPointers, rowColumns, rowLevels;
+	double[] rowCounts;
+
+	// column-major view: the cells of column j are stored from columnPointers[j] to columnPointers[j + 1] - 1
+	int[] columnPointers, columnRows, columnLevels;
+	double[] columnCounts;
+
+	/**
+	 * Count the statements per cell.
+	 *
+	 * @param rows    The row index of each statement, or -1 if the statement should be ignored
+	 * @param cols    The column index of each statement, or -1 if the statement should be ignored
+	 * @param quals   The qualifier level of each statement, or -1 if the statement should be ignored
+	 * @param nr      The number of rows
+	 * @param nc      The number of columns
+	 * @param levels  The number of qualifier levels
+	 */
+	Incidence(int[] rows, int[] cols, int[] quals, int nr, int nc, int levels) {
+		this.nr = nr;
+		this.nc = nc;
+		this.levels = levels;
+
+		long[] rowKeys = new long[rows.length];
+		long[] columnKeys = new long[rows.length];
+		int n = 0;
+		for (int s = 0; s < rows.length; s++) {
+			if (rows[s] < 0 || cols[s] < 0 || quals[s] < 0) {
+				continue;
+			}
+			rowKeys[n] = ((long) rows[s] * nc + cols[s]) * levels + quals[s];
+			columnKeys[n] = ((long) cols[s] * nr + rows[s]) * levels + quals[s];
+			n++;
+		}
+		Arrays.sort(rowKeys, 0, n);
+		Arrays.sort(columnKeys, 0, n);
+
+		int cells = 0;
+		for (int s = 0; s < n; s++) {
+			if (s == 0 || rowKeys[s] != rowKeys[s - 1]) {
+				cells++;
+			}
+		}
+
+		rowPointers = new int[nr + 1];
+		rowColumns = new int[cells];
+		rowLevels = new int[cells];
+		rowCounts = new double[cells];
+		int c = -1;
+		for (int s = 0; s < n; s++) {
+			if (s == 0 || rowKeys[s] != rowKeys[s - 1]) {
+				c++;
+				int row = (int) (rowKeys[s] / levels / nc);
+				rowColumns[c] = (int) (rowKeys[s] / levels % nc);
+				rowLevels[c] = (int) (rowKeys[s] % levels);
+				rowPointers[row + 1]++;
+			}
+			rowCounts[c] = rowCounts[c] + 1.0;
+		}
+		for (int i = 0; i < nr; i++) {
+			rowPointers[i + 1] = rowPointers[i + 1] + rowPointers[i];
+		}
+
+		columnPointers = new int[nc + 1];
+		columnRows = new int[cells];
+		columnLevels = new int[cells];
+		columnCounts = new double[cells];
+		c = -1;
+		for (int s = 0; s < n; s++) {
+			if (s == 0 || columnKeys[s] != columnKeys[s - 1]) {
+				c++;
+				int column = (int) (columnKeys[s] / levels / nr);
+				columnRows[c] = (int) (columnKeys[s] / levels % nr);
+				columnLevels[c] = (int) (columnKeys[s] % levels);
+				columnPointers[column + 1]++;
+			}
+			columnCounts[c] = columnCounts[c] + 1.0;
+		}
+		for (int j = 0; j < nc; j++) {
+			columnPointers[j + 1] = columnPointers[j + 1] + columnPointers[j];
+		}
+	}
+
+	/**
+	 * @param column  The column index
+	 * @param row     A row index
+	 * @return        The position of the first cell of the column whose row index is larger than the given row
+	 */
+	int firstRowAfter(int column, int row) {
+		int low = columnPointers[column];
+		int high = columnPointers[column + 1];
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (columnRows[middle] <= row) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @return  The number of statements per row, summed up in the order of the row-major view
+	 */
+	double[] getRowSums() {
+		double[] sums = new double[nr];
+		for (int i = 0; i < nr; i++) {
+			for (int e = rowPointers[i]; e < rowPointers[i + 1]; e++) {
+				sums[i] = sums[i] + rowCounts[e];
+			}
+		}
+		return sums;
+	}
+}
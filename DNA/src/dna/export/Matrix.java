@@ -1,19 +1,36 @@
 package dna.export;
 
+import java.util.Arrays;
+
 /**
  * @author Philip Leifeld
  *
- * A class for Matrix objects. As two-dimensional arrays do not store the row and column labels, 
- * this class stores both the two-dimensional array and its labels. Matrix objects are created 
- * by the different network algorithms. Some of the file export functions take Matrix objects as 
+ * A class for Matrix objects. As two-dimensional arrays do not store the row and column labels,
+ * this class stores both the two-dimensional array and its labels. Matrix objects are created
+ * by the different network algorithms. Some of the file export functions take Matrix objects as
  * input data.
  *
+ * The values are either stored in a dense two-dimensional array or, if most cells are zero, in
+ * compressed sparse row (CSR) format: for each row, the non-zero cells are stored in ascending
+ * column order in the arrays columnIndices and values, starting at position rowPointers[row] and
+ * ending before rowPointers[row + 1]. Network algorithms collect cells with a {@link Builder},
+ * which chooses the representation based on the density of the matrix.
+ *
  */
 public class Matrix {
+
+	/**
+	 * Matrices with at most this share of non-zero cells are stored in sparse format. A sparse cell
+	 * takes 12 bytes instead of eight, so this leaves a margin for the slower cell access.
+	 */
+	public static final double DENSITY_THRESHOLD = 0.5;
+
 	double[][] matrix;
+	int[] rowPointers, columnIndices;
+	double[] values;
 	String[] rownames, colnames;
 	boolean integer;
-	
+
 	public Matrix(double[][] matrix, String[] rownames, String[] colnames, boolean integer) {
 		this.matrix = matrix;
 		this.rownames = rownames;
@@ -22,10 +39,219 @@ public class Matrix {
 	}
 
 	/**
-	 * @return the matrix
+	 * Create a sparse matrix in CSR format.
+	 *
+	 * @param rowPointers    Start of each row in columnIndices and values, plus the number of non-zero cells at the end
+	 * @param columnIndices  Column index of each non-zero cell, ascending within each row
+	 * @param values         Value of each non-zero cell
+	 * @param rownames       The row labels
+	 * @param colnames       The column labels
+	 * @param integer        Whether the values can be cast to integer
+	 */
+	public Matrix(int[] rowPointers, int[] columnIndices, double[] values, String[] rownames, String[] colnames, boolean integer) {
+		this.rowPointers = rowPointers;
+		this.columnIndices = columnIndices;
+		this.values = values;
+		this.rownames = rownames;
+		this.colnames = colnames;
+		this.integer = integer;
+	}
+
+	/**
+	 * @return  true if the matrix is stored in sparse format
+	 */
+	public boolean isSparse() {
+		return matrix == null;
+	}
+
+	/**
+	 * @return  the number of rows
+	 */
+	public int getRowCount() {
+		return rownames.length;
+	}
+
+	/**
+	 * @return  the number of columns
+	 */
+	public int getColumnCount() {
+		return colnames.length;
+	}
+
+	/**
+	 * @return  the number of non-zero cells
+	 */
+	public int getNonZeroCount() {
+		if (isSparse()) {
+			return rowPointers[rowPointers.length - 1];
+		}
+		int count = 0;
+		for (int i = 0; i < matrix.length; i++) {
+			for (int j = 0; j < matrix[i].length; j++) {
+				if (matrix[i][j] != 0.0) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Retrieve a single cell.
+	 *
+	 * @param row     The row index
+	 * @param column  The column index
+	 * @return        The value of the cell
+	 */
+	public double get(int row, int column) {
+		if (!isSparse()) {
+			return matrix[row][column];
+		}
+		int k = Arrays.binarySearch(columnIndices, rowPointers[row], rowPointers[row + 1], column);
+		if (k < 0) {
+			return 0.0;
+		}
+		return values[k];
+	}
+
+	/**
+	 * Copy a row into a dense array, for example to write it to a file.
+	 *
+	 * @param row     The row index
+	 * @param buffer  An array with one element per column, or null to allocate a new one
+	 * @return        The array containing the row
+	 */
+	public double[] getRow(int row, double[] buffer) {
+		if (buffer == null) {
+			buffer = new double[getColumnCount()];
+		}
+		if (!isSparse()) {
+			System.arraycopy(matrix[row], 0, buffer, 0, buffer.length);
+			return buffer;
+		}
+		Arrays.fill(buffer, 0.0);
+		for (int k = rowPointers[row]; k < rowPointers[row + 1]; k++) {
+			buffer[columnIndices[k]] = values[k];
+		}
+		return buffer;
+	}
+
+	/**
+	 * @param row  The row index
+	 * @return     The column indices of the non-zero cells in the row, in ascending order
+	 */
+	public int[] getNonZeroColumns(int row) {
+		if (isSparse()) {
+			return Arrays.copyOfRange(columnIndices, rowPointers[row], rowPointers[row + 1]);
+		}
+		int count = 0;
+		for (int j = 0; j < matrix[row].length; j++) {
+			if (matrix[row][j] != 0.0) {
+				count++;
+			}
+		}
+		int[] columns = new int[count];
+		count = 0;
+		for (int j = 0; j < matrix[row].length; j++) {
+			if (matrix[row][j] != 0.0) {
+				columns[count] = j;
+				count++;
+			}
+		}
+		return columns;
+	}
+
+	/**
+	 * @param row  The row index
+	 * @return     The values of the non-zero cells in the row, in the order of {@link #getNonZeroColumns(int)}
+	 */
+	public double[] getNonZeroValues(int row) {
+		if (isSparse()) {
+			return Arrays.copyOfRange(values, rowPointers[row], rowPointers[row + 1]);
+		}
+		int[] columns = getNonZeroColumns(row);
+		double[] rowValues = new double[columns.length];
+		for (int k = 0; k < columns.length; k++) {
+			rowValues[k] = matrix[row][columns[k]];
+		}
+		return rowValues;
+	}
+
+	/**
+	 * @return  the row index of each non-zero cell, in row-major order
+	 */
+	public int[] getNonZeroRowIndices() {
+		int[] rows = new int[getNonZeroCount()];
+		if (isSparse()) {
+			for (int i = 0; i < rownames.length; i++) {
+				Arrays.fill(rows, rowPointers[i], rowPointers[i + 1], i);
+			}
+			return rows;
+		}
+		int count = 0;
+		for (int i = 0; i < matrix.length; i++) {
+			for (int j = 0; j < matrix[i].length; j++) {
+				if (matrix[i][j] != 0.0) {
+					rows[count] = i;
+					count++;
+				}
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * @return  the column index of each non-zero cell, in row-major order
+	 */
+	public int[] getNonZeroColumnIndices() {
+		if (isSparse()) {
+			return Arrays.copyOf(columnIndices, getNonZeroCount());
+		}
+		int[] columns = new int[getNonZeroCount()];
+		int count = 0;
+		for (int i = 0; i < matrix.length; i++) {
+			for (int j = 0; j < matrix[i].length; j++) {
+				if (matrix[i][j] != 0.0) {
+					columns[count] = j;
+					count++;
+				}
+			}
+		}
+		return columns;
+	}
+
+	/**
+	 * @return  the value of each non-zero cell, in row-major order
+	 */
+	public double[] getNonZeroValues() {
+		if (isSparse()) {
+			return Arrays.copyOf(values, getNonZeroCount());
+		}
+		double[] nonZero = new double[getNonZeroCount()];
+		int count = 0;
+		for (int i = 0; i < matrix.length; i++) {
+			for (int j = 0; j < matrix[i].length; j++) {
+				if (matrix[i][j] != 0.0) {
+					nonZero[count] = matrix[i][j];
+					count++;
+				}
+			}
+		}
+		return nonZero;
+	}
+
+	/**
+	 * @return the matrix; a sparse matrix is expanded into a new dense array
 	 */
 	public double[][] getMatrix() {
-		return matrix;
+		if (!isSparse()) {
+			return matrix;
+		}
+		double[][] dense = new double[rownames.length][];
+		for (int i = 0; i < rownames.length; i++) {
+			dense[i] = getRow(i, null);
+		}
+		return dense;
 	}
 
 	/**
@@ -33,6 +259,9 @@ public class Matrix {
 	 */
 	public void setMatrix(double[][] matrix) {
 		this.matrix = matrix;
+		this.rowPointers = null;
+		this.columnIndices = null;
+		this.values = null;
 	}
 
 	/**
@@ -76,4 +305,174 @@ public class Matrix {
 	public void setInteger(boolean integer) {
 		this.integer = integer;
 	}
+
+	/**
+	 * Collects the non-zero cells of a matrix in coordinate (COO) format and assembles a {@link Matrix}.
+	 * Cells may be added in any order; values added to the same cell more than once are summed up.
+	 */
+	public static class Builder {
+		private int nr, nc;
+		private int size = 0;
+		private int[] rows, columns;
+		private double[] cells;
+
+		/**
+		 * @param nr  The number of rows
+		 * @param nc  The number of columns
+		 */
+		public Builder(int nr, int nc) {
+			this.nr = nr;
+			this.nc = nc;
+			int capacity = 16;
+			this.rows = new int[capacity];
+			this.columns = new int[capacity];
+			this.cells = new double[capacity];
+		}
+
+		/**
+		 * Add a value to a cell. Zeros are ignored.
+		 *
+		 * @param row     The row index
+		 * @param column  The column index
+		 * @param value   The value to add
+		 */
+		public void add(int row, int column, double value) {
+			if (value == 0.0) {
+				return;
+			}
+			if (size == cells.length) {
+				int capacity = cells.length * 2;
+				rows = Arrays.copyOf(rows, capacity);
+				columns = Arrays.copyOf(columns, capacity);
+				cells = Arrays.copyOf(cells, capacity);
+			}
+			rows[size] = row;
+			columns[size] = column;
+			cells[size] = value;
+			size++;
+		}
+
+		/**
+		 * Add all cells collected by another builder of the same dimensions, for example one that collected
+		 * a different block of rows on another thread.
+		 *
+		 * @param other  The other builder
+		 */
+		public void addAll(Builder other) {
+			if (size + other.size > cells.length) {
+				int capacity = Math.max(cells.length * 2, size + other.size);
+				rows = Arrays.copyOf(rows, capacity);
+				columns = Arrays.copyOf(columns, capacity);
+				cells = Arrays.copyOf(cells, capacity);
+			}
+			System.arraycopy(other.rows, 0, rows, size, other.size);
+			System.arraycopy(other.columns, 0, columns, size, other.size);
+			System.arraycopy(other.cells, 0, cells, size, other.size);
+			size = size + other.size;
+		}
+
+		/**
+		 * Divide all cells of each row by a row-specific denominator.
+		 *
+		 * @param denominators  One denominator per row
+		 */
+		public void divideRows(double[] denominators) {
+			for (int k = 0; k < size; k++) {
+				cells[k] = cells[k] / denominators[rows[k]];
+			}
+		}
+
+		/**
+		 * Divide all cells of each column by a column-specific denominator.
+		 *
+		 * @param denominators  One denominator per column
+		 */
+		public void divideColumns(double[] denominators) {
+			for (int k = 0; k < size; k++) {
+				cells[k] = cells[k] / denominators[columns[k]];
+			}
+		}
+
+		/**
+		 * Assemble the matrix. It is stored in sparse format if its density does not exceed
+		 * {@link Matrix#DENSITY_THRESHOLD} and in dense format otherwise.
+		 *
+		 * @param rownames  The row labels
+		 * @param colnames  The column labels
+		 * @param integer   Whether the values can be cast to integer
+		 * @return          The matrix
+		 */
+		public Matrix build(String[] rownames, String[] colnames, boolean integer) {
+			if ((double) size / ((double) nr * (double) nc) > DENSITY_THRESHOLD) {
+				double[][] dense = new double[nr][nc];
+				for (int k = 0; k < size; k++) {
+					dense[rows[k]][columns[k]] = dense[rows[k]][columns[k]] + cells[k];
+				}
+				return new Matrix(dense, rownames, colnames, integer);
+			}
+
+			// bucket the cells by row
+			int[] rowPointers = new int[nr + 1];
+			for (int k = 0; k < size; k++) {
+				rowPointers[rows[k] + 1]++;
+			}
+			for (int i = 0; i < nr; i++) {
+				rowPointers[i + 1] = rowPointers[i + 1] + rowPointers[i];
+			}
+			int[] next = Arrays.copyOf(rowPointers, nr);
+			int[] columnIndices = new int[size];
+			double[] values = new double[size];
+			for (int k = 0; k < size; k++) {
+				int position = next[rows[k]];
+				columnIndices[position] = columns[k];
+				values[position] = cells[k];
+				next[rows[k]]++;
+			}
+
+			// sort each row by column, merge duplicate cells and drop cells that cancel out
+			int count = 0;
+			for (int i = 0; i < nr; i++) {
+				int start = rowPointers[i];
+				int end = rowPointers[i + 1];
+				sortRow(columnIndices, values, start, end);
+				rowPointers[i] = count;
+				for (int k = start; k < end; k++) {
+					if (count > rowPointers[i] && columnIndices[count - 1] == columnIndices[k]) {
+						values[count - 1] = values[count - 1] + values[k];
+					} else {
+						columnIndices[count] = columnIndices[k];
+						values[count] = values[k];
+						count++;
+					}
+					if (values[count - 1] == 0.0 && (k + 1 == end || columnIndices[k + 1] != columnIndices[count - 1])) {
+						count--;
+					}
+				}
+			}
+			rowPointers[nr] = count;
+			if (count < size) {
+				columnIndices = Arrays.copyOf(columnIndices, count);
+				values = Arrays.copyOf(values, count);
+			}
+			return new Matrix(rowPointers, columnIndices, values, rownames, colnames, integer);
+		}
+
+		/**
+		 * Insertion sort of one row by column index. Rows are usually filled in column order, so this is cheap.
+		 */
+		private static void sortRow(int[] columnIndices, double[] values, int start, int end) {
+			for (int k = start + 1; k < end; k++) {
+				int column = columnIndices[k];
+				double value = values[k];
+				int l = k - 1;
+				while (l >= start && columnIndices[l] > column) {
+					columnIndices[l + 1] = columnIndices[l];
+					values[l + 1] = values[l];
+					l--;
+				}
+				columnIndices[l + 1] = column;
+				values[l + 1] = value;
+			}
+		}
+	}
 }
@@ -87,6 +87,8 @@ public class CoderPanel extends JPanel {
 				ecw.dispose();
 				if (!coder.getName().equals("")) {
 					Dna.dna.addCoder(coder);
+				} else {
+					Dna.data.releaseId("coders", coder.getId());
 				}
 				coderBox.updateUI();
 				coderRelationTable.updateUI();
@@ -123,6 +125,7 @@ public class CoderPanel extends JPanel {
 					int dialog = JOptionPane.showConfirmDialog(Dna.dna.gui, message, "Confirmation required", JOptionPane.YES_NO_OPTION);
 					if (dialog == 0) {
 						int id = Dna.data.getActiveCoder();
+						Dna.dna.sql.getWriteQueue().flush();  // queued edits may belong to the coder
 						Dna.dna.sql.removeCoder(id);
 						Dna.data.removeCoder(id);
 						coderBox.updateUI();
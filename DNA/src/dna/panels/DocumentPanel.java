@@ -227,9 +227,7 @@ public class DocumentPanel extends JScrollPane {
 			public boolean include(Entry<? extends DocumentTableModel, ? extends Integer> entry) {
 				DocumentTableModel dtm = entry.getModel();
 				Document d = dtm.get(entry.getIdentifier());
-				int documentId = d.getId();
-				boolean[] b = Dna.data.getActiveDocumentPermissions(documentId);
-				if (b[0] == true) {
+				if (Dna.data.isDocumentCoderVisible(d.getCoder())) {
 					return true;
 				}
 				return false;
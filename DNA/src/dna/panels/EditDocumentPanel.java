@@ -327,7 +327,7 @@ public class EditDocumentPanel extends JPanel {
 		Dna.data.getDocument(documentId).setType(type);
 		Dna.data.getDocument(documentId).setNotes(notes);
 		
-		Dna.dna.sql.upsertDocument(Dna.data.getDocument(documentId));
+		Dna.dna.upsertDocument(Dna.data.getDocument(documentId));
 		
 		Dna.dna.gui.documentPanel.documentContainer.sort();
 		int newModelIndex = Dna.dna.gui.documentPanel.documentContainer.getModelIndexById(document.getId());
@@ -12,6 +12,7 @@ import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 
 import javax.swing.DefaultComboBoxModel;
 import javax.swing.DefaultListModel;
@@ -252,21 +253,27 @@ public class RecodePanel extends JPanel {
 	}
 	
 	public int recode() {
-		int count = 0;
 		int statementTypeId = ((StatementType) typeComboBox.getSelectedItem()).getId();
 		String variable = (String) entryBox.getSelectedItem();
+		
+		// recode all statements at once: one scan in memory and one UPDATE per changed entry in the database
+		LinkedHashMap<String, String> mapping = new LinkedHashMap<String, String>();
+		for (int i = 0; i < tableModel.getRowCount(); i++) {
+			String original = (String) tableModel.getValueAt(i, 0);
+			String edited = (String) tableModel.getValueAt(i, 1);
+			if (!original.equals(edited)) {
+				mapping.put(original, edited);
+			}
+		}
+		if (mapping.size() == 0) {
+			return 0;
+		}
+		int count = Dna.dna.recodeVariable(statementTypeId, variable, mapping);
+		
 		for (int i = 0; i < tableModel.getRowCount(); i++) {
 			String original = (String) tableModel.getValueAt(i, 0);
 			String edited = (String) tableModel.getValueAt(i, 1);
 			if (!original.equals(edited)) {  // if the entry on the left and on the right of the recode table don't match...
-				for (int j = 0; j < Dna.data.getStatements().size(); j++) {  // ...go through the statements and change all instances
-					String value = (String) Dna.data.getStatements().get(j).getValues().get(variable);
-					if (value != null && value.equals(original)) {
-						int statementId = Dna.data.getStatements().get(j).getId();
-						Dna.dna.updateVariable(statementId, statementTypeId, edited, variable);
-						count++;
-					}
-				}
 				int avIndexOriginal = Dna.data.getAttributeIndex(original, variable, statementTypeId);
 				AttributeVector avOriginal = Dna.data.getAttributes().get(avIndexOriginal);
 				int avIndexTarget = Dna.data.getAttributeIndex(edited, variable, statementTypeId);
@@ -338,8 +338,8 @@ public class StatementPanel extends JPanel {
 				public boolean include(Entry<? extends StatementTableModel, ? extends Integer> entry) {
 					StatementTableModel stcont = entry.getModel();
 					Statement st = stcont.get(entry.getIdentifier());
-					boolean[] b = Dna.data.getActiveStatementPermissions(st.getId());
-					if (b[0] == true && Dna.data.getActiveDocumentPermissions(st.getDocumentId())[0] == true) {
+					if (Dna.data.isStatementCoderVisible(st.getCoder()) 
+							&& Dna.data.isDocumentCoderVisible(Dna.data.getDocument(st.getDocumentId()).getCoder())) {
 						return true;
 					}
 					return false;
@@ -364,8 +364,8 @@ public class StatementPanel extends JPanel {
 					public boolean include(Entry<? extends StatementTableModel, ? extends Integer> entry) {
 						StatementTableModel stcont = entry.getModel();
 						Statement st = stcont.get(entry.getIdentifier());
-						boolean[] b = Dna.data.getActiveStatementPermissions(st.getId());
-						if (st.getDocumentId() == documentId && b[0] == true && Dna.data.getActiveDocumentPermissions(st.getDocumentId())[0] == true) {
+						if (st.getDocumentId() == documentId && Dna.data.isStatementCoderVisible(st.getCoder()) 
+								&& Dna.data.isDocumentCoderVisible(Dna.data.getDocument(documentId).getCoder())) {
 							return true;
 						}
 						return false;
@@ -105,6 +105,7 @@ public class CoderRelationTableModel extends AbstractTableModel implements Table
 			Dna.data.getCoderRelations().get(rowIndex).setEditDocuments((boolean) aValue);
 			Dna.dna.sql.updateCoderRelationEditDocuments(cr.getId(), (boolean) aValue);
 		}
+		Dna.data.invalidateCoderPermissions();
 		
 		TableModelEvent e = new TableModelEvent(this);
 		for( int i = 0, n = listeners.size(); i < n; i++ ){
@@ -132,6 +133,7 @@ public class CoderRelationTableModel extends AbstractTableModel implements Table
 	
 	public void clear() {
 		Dna.data.getCoderRelations().clear();
+		Dna.data.invalidateCoderPermissions();
 
 		TableModelEvent e = new TableModelEvent(this);
 		for( int i = 0, n = listeners.size(); i < n; i++ ){
@@ -38,7 +38,7 @@ public class DocumentTableModel extends AbstractTableModel {
 
 	public void addDocument( Document document ){
 		int id = document.getId();
-		Dna.data.getDocuments().add( document );
+		Dna.data.addDocument( document );
 		sort();
 		int index = getModelIndexById(id);
 
@@ -51,7 +51,9 @@ public class DocumentTableModel extends AbstractTableModel {
 	}
 	
 	public void addDocuments(ArrayList<Document> al) {
-		Dna.data.getDocuments().addAll(al);
+		for (int i = 0; i < al.size(); i++) {
+			Dna.data.addDocument(al.get(i));
+		}
 		sort();
 		this.fireTableDataChanged();
 	}
@@ -72,12 +74,7 @@ public class DocumentTableModel extends AbstractTableModel {
 	}
 
 	public Document getDocumentByID(int id)	{
-		for(Document doc: Dna.data.getDocuments() ) {
-			if (doc.getId() == id) {
-				return doc;
-			}
-		}
-		return null;
+		return Dna.data.getDocument(id);
 	}
 	
 	//return number of documents in the table
@@ -103,12 +100,12 @@ public class DocumentTableModel extends AbstractTableModel {
 			int id = Dna.data.getDocuments().get(index).getId();
 			for (int i = Dna.data.getStatements().size() - 1; i > -1; i--) {
 				if (Dna.data.getStatements().get(i).getDocumentId() == id) {
-					Dna.data.getStatements().remove(i);
+					Dna.data.removeStatement(Dna.data.getStatements().get(i).getId());
 				}
 			}
 			Dna.dna.gui.rightPanel.statementPanel.statementTable.updateUI();
 		}
-		Dna.data.getDocuments().remove(index);
+		Dna.data.removeDocumentAt(index);
 		TableModelEvent e = new TableModelEvent(this);
 		for( int i = 0, n = listeners.size(); i < n; i++ ){
 			((TableModelListener)listeners.get( i )).tableChanged( e );
@@ -116,7 +113,7 @@ public class DocumentTableModel extends AbstractTableModel {
 	}
 	
 	public void clear() {
-		Dna.data.getDocuments().clear();
+		Dna.data.setDocuments(new ArrayList<Document>());
 		TableModelEvent e = new TableModelEvent(this);
 		for( int i = 0, n = listeners.size(); i < n; i++ ){
 			((TableModelListener)listeners.get( i )).tableChanged( e );
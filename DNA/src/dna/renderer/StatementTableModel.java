@@ -5,6 +5,7 @@ import dna.dataStructures.*;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Vector;
 
 import javax.swing.event.TableModelEvent;
@@ -56,7 +57,7 @@ public class StatementTableModel extends AbstractTableModel {
 	}
 	
 	public void remove(int index) {
-		Dna.data.getStatements().remove(index);
+		Dna.data.removeStatement(Dna.data.getStatements().get(index).getId());
 		TableModelEvent e = new TableModelEvent(this);
 		for( int j = 0, n = listeners.size(); j < n; j++ ){
 			((TableModelListener)listeners.get( j )).tableChanged( e );
@@ -118,12 +119,11 @@ public class StatementTableModel extends AbstractTableModel {
 	}
 	
 	public Statement getByStatementId(int id) throws NullPointerException {
-		for (int i = 0; i < Dna.data.getStatements().size(); i++) {
-			if (Dna.data.getStatements().get(i).getId() == id) {
-				return Dna.data.getStatements().get(i);
-			}
+		Statement s = Dna.data.getStatement(id);
+		if (s == null) {
+			throw new NullPointerException();
 		}
-		throw new NullPointerException();
+		return s;
 	}
 	
 	public int getIndexByStatementId(int id) {
@@ -137,7 +137,7 @@ public class StatementTableModel extends AbstractTableModel {
 	}
 	
 	public void clear() {
-		Dna.data.getStatements().clear();
+		Dna.data.setStatements(new ArrayList<Statement>());
 		TableModelEvent e = new TableModelEvent(this);
 		for( int i = 0, n = listeners.size(); i < n; i++ ){
 			((TableModelListener)listeners.get( i )).tableChanged( e );
@@ -145,12 +145,7 @@ public class StatementTableModel extends AbstractTableModel {
 	}
 	
 	public boolean containsStatementId(int id) {
-		for (int i = 0; i < Dna.data.getStatements().size(); i++) {
-			if (Dna.data.getStatements().get(i).getId() == id) {
-				return true;
-			}
-		}
-		return false;
+		return Dna.data.getStatement(id) != null;
 	}
 	
 	public void sort() {
@@ -158,17 +153,29 @@ public class StatementTableModel extends AbstractTableModel {
 	}
 	
 	public void addStatement(Statement s) {
-		Dna.data.getStatements().add(s);
+		Dna.data.addStatement(s);
 		sort();
 		this.fireTableDataChanged();
 	}
 	
-	public void removeStatement(int statementId) {
-		for (int i = Dna.data.getStatements().size() - 1; i > -1 ; i--) {
-			if (Dna.data.getStatements().get(i).getId() == statementId) {
-				Dna.data.getStatements().remove(i);
-			}
+	/**
+	 * Remove and add several statements, e.g., the changes of other coders, sorting the statements and notifying 
+	 * the listeners only once.
+	 * 
+	 * @param removedIds  The IDs of the statements to remove
+	 * @param added       The statements to add; statements with the same ID must be contained in removedIds
+	 */
+	public void replaceStatements(HashSet<Integer> removedIds, ArrayList<Statement> added) {
+		Dna.data.removeStatements(removedIds);
+		for (int i = 0; i < added.size(); i++) {
+			Dna.data.addStatement(added.get(i));
 		}
+		sort();
+		this.fireTableDataChanged();
+	}
+	
+	public void removeStatement(int statementId) {
+		Dna.data.removeStatement(statementId);
 		
 		//TableModelEvent e = new TableModelEvent(this, index, index, TableModelEvent.ALL_COLUMNS, TableModelEvent.DELETE);
 		TableModelEvent e = new TableModelEvent(this);